@@ -1,6 +1,7 @@
 /*******************************************************************************
  * Copyright (c) 2005, 2009 IBM Corporation and others.
  * Copyright (c) 2014 vogella GmbH and others.
+ * Copyright (c) 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,9 +10,13 @@
  * Contributors:
  *     Simon Scholz <simon.scholz@vogella.com> - initial API and implementation based on SWTObservable.getRealm
  *     Hannes Erven <hannes@erven.at> - getRealm() for compatibility with upstream JFACE
+ *     EclipseSource - batching of asyncExec runnables
  *******************************************************************************/
 package org.eclipse.jface.databinding.swt;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.databinding.observable.Realm;
 import org.eclipse.swt.widgets.Display;
 
@@ -35,6 +40,12 @@ public class DisplayRealm extends Realm {
 
 	final Display display;
 
+	private final Object lock = new Object();
+	private volatile boolean batching;
+	private List<Runnable> pendingRunnables = new ArrayList<Runnable>();
+	private boolean batchScheduled;
+	private boolean disposeExecRegistered;
+
 	/**
 	 * @param display
 	 */
@@ -42,6 +53,56 @@ public class DisplayRealm extends Realm {
 		this.display = display;
 	}
 
+	/**
+	 * Configures whether this realm batches the runnables passed to
+	 * {@link #asyncExec(Runnable)}. If enabled, the runnables are collected and
+	 * executed in order by a single runnable on the display, rather than
+	 * passing each of them to <code>Display#asyncExec()</code>. Bulk changes
+	 * from background threads, e.g. bindings that update thousands of widgets,
+	 * are thus applied within one request cycle and cause a single wake-up of
+	 * the client.
+	 * <p>
+	 * Runnables that are still pending when the display is disposed are
+	 * executed before the display is released. Observable list content
+	 * providers with
+	 * {@link org.eclipse.jface.databinding.viewers.ObservableListContentProvider#setBatchedRefresh(boolean)
+	 * batched refresh} enabled apply all changes to a list that occur while
+	 * batching is enabled with a single refresh of the viewer.
+	 * </p>
+	 * <p>
+	 * This method must be called from the display thread.
+	 * </p>
+	 *
+	 * @param batching
+	 *            <code>true</code> to enable batching, and <code>false</code>
+	 *            to disable it
+	 * @since 3.2
+	 */
+	public void setBatching(boolean batching) {
+		if (batching && !disposeExecRegistered) {
+			display.disposeExec(new Runnable() {
+				@Override
+				public void run() {
+					runBatch();
+				}
+			});
+			disposeExecRegistered = true;
+		}
+		this.batching = batching;
+	}
+
+	/**
+	 * Returns whether this realm batches the runnables passed to
+	 * {@link #asyncExec(Runnable)}.
+	 *
+	 * @return <code>true</code> if batching is enabled
+	 * @see #setBatching(boolean)
+	 * @since 3.2
+	 */
+	public boolean isBatching() {
+		return batching;
+	}
+
 	@Override
 	public boolean isCurrent() {
 		return Display.getCurrent() == display;
@@ -56,7 +117,41 @@ public class DisplayRealm extends Realm {
 			}
 		};
 		if (!display.isDisposed()) {
-			display.asyncExec(safeRunnable);
+			if (batching) {
+				addToBatch(safeRunnable);
+			} else {
+				display.asyncExec(safeRunnable);
+			}
+		}
+	}
+
+	private void addToBatch(Runnable runnable) {
+		boolean schedule;
+		synchronized (lock) {
+			pendingRunnables.add(runnable);
+			schedule = !batchScheduled;
+			batchScheduled = true;
+		}
+		if (schedule) {
+			display.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					runBatch();
+				}
+			});
+		}
+	}
+
+	private void runBatch() {
+		List<Runnable> batch;
+		synchronized (lock) {
+			batch = pendingRunnables;
+			pendingRunnables = new ArrayList<Runnable>();
+			batchScheduled = false;
+		}
+		// runnables added by the batch itself are executed in the next batch
+		for (Runnable runnable : batch) {
+			runnable.run();
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,24 +10,29 @@
  *     Tom Schindl<tom.schindl@bestsolution.at> - bugfix in: 214355
  *     Matthew Hall - bugs 215531, 226765, 222991, 238296, 226292, 266038,
  *                    283351
+ *     EclipseSource - batched updates in batching display realms
  *******************************************************************************/
 
 package org.eclipse.jface.databinding.viewers;
 
+import java.util.Collection;
 import java.util.Set;
 
 import org.eclipse.core.databinding.observable.IObservableCollection;
+import org.eclipse.core.databinding.observable.Realm;
 import org.eclipse.core.databinding.observable.list.IListChangeListener;
 import org.eclipse.core.databinding.observable.list.IObservableList;
 import org.eclipse.core.databinding.observable.list.ListChangeEvent;
 import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
 import org.eclipse.core.databinding.observable.set.IObservableSet;
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.jface.databinding.swt.DisplayRealm;
 import org.eclipse.jface.internal.databinding.viewers.ObservableCollectionContentProvider;
 import org.eclipse.jface.internal.databinding.viewers.ViewerElementSet;
 import org.eclipse.jface.viewers.AbstractListViewer;
 import org.eclipse.jface.viewers.AbstractTableViewer;
 import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.Viewer;
 
 /**
@@ -47,6 +52,8 @@ public class ObservableListContentProvider implements
 	private static class Impl extends ObservableCollectionContentProvider
 			implements IListChangeListener {
 		private Viewer viewer;
+		private boolean batchedRefresh;
+		private Set pendingRemovals;
 
 		Impl(IViewerUpdater explicitViewerUpdater) {
 			super(explicitViewerUpdater);
@@ -111,6 +118,13 @@ public class ObservableListContentProvider implements
 				realizedElements.removeAll(knownElementRemovals);
 			}
 
+			Realm realm = event.getObservableList().getRealm();
+			if (batchedRefresh && realm instanceof DisplayRealm
+					&& ((DisplayRealm) realm).isBatching()) {
+				scheduleRefresh(realm, knownElementRemovals);
+				return;
+			}
+
 			if (suspendRedraw[0])
 				viewer.getControl().setRedraw(false);
 			try {
@@ -143,6 +157,39 @@ public class ObservableListContentProvider implements
 			}
 			knownElements.removeAll(knownElementRemovals);
 		}
+
+		/*
+		 * Applies all changes to the list that occur until the realm runs its
+		 * next batch with a single refresh of the viewer instead of one viewer
+		 * update per diff entry. Realized elements are synchronized by
+		 * getElements(), removed elements are forgotten after the refresh.
+		 */
+		private void scheduleRefresh(Realm realm, Set knownElementRemovals) {
+			if (pendingRemovals != null) {
+				pendingRemovals.addAll(knownElementRemovals);
+				return;
+			}
+			pendingRemovals = ViewerElementSet.withComparer(comparer);
+			pendingRemovals.addAll(knownElementRemovals);
+			realm.asyncExec(new Runnable() {
+				public void run() {
+					Set removals = pendingRemovals;
+					pendingRemovals = null;
+					if (knownElements == null || isViewerDisposed())
+						return;
+					if (viewer instanceof StructuredViewer) {
+						((StructuredViewer) viewer).refresh(false);
+					} else {
+						viewer.refresh();
+					}
+					Object input = viewer.getInput();
+					if (input instanceof Collection) {
+						removals.removeAll((Collection) input);
+					}
+					knownElements.removeAll(removals);
+				}
+			});
+		}
 	}
 
 	/**
@@ -166,6 +213,31 @@ public class ObservableListContentProvider implements
 		impl = new Impl(viewerUpdater);
 	}
 
+	/**
+	 * Configures whether changes to the input list are applied with a single
+	 * refresh of the viewer. If enabled and the list belongs to a
+	 * {@link DisplayRealm} with {@link DisplayRealm#setBatching(boolean)
+	 * batching} enabled, all changes that occur until the realm runs its next
+	 * batch are applied by one refresh instead of one viewer update per added,
+	 * removed or moved element. Disabled by default.
+	 * <p>
+	 * <em>Note:</em> Until the batch has run, the viewer does not show the
+	 * changed elements. Selecting or revealing an element right after adding
+	 * it to the list, e.g. with
+	 * <code>StructuredViewer#setSelection()</code>, therefore has no effect.
+	 * Clients that do so must perform these calls in a runnable that is passed
+	 * to {@link DisplayRealm#asyncExec(Runnable)} after the change.
+	 * </p>
+	 * 
+	 * @param batchedRefresh
+	 *            <code>true</code> to refresh the viewer once per batch, and
+	 *            <code>false</code> to update the viewer for every change
+	 * @since 3.2
+	 */
+	public void setBatchedRefresh(boolean batchedRefresh) {
+		((Impl) impl).batchedRefresh = batchedRefresh;
+	}
+
 	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
 		impl.inputChanged(viewer, oldInput, newInput);
 	}
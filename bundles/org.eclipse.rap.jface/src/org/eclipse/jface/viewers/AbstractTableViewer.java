@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,6 +9,7 @@
  *     IBM Corporation - initial API and implementation
  *     Tom Schindl <tom.schindl@bestsolution.at> - initial API and implementation bug 154329
  *                                               - fixes in bug 170381, 198665, 200731
+ *     EclipseSource - incremental refresh
  *******************************************************************************/
 
 package org.eclipse.jface.viewers;
@@ -207,6 +208,14 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 
 	private VirtualManager virtualManager;
 
+	/**
+	 * Indicates whether a refresh only applies the changes between the
+	 * elements of the items and the new elements.
+	 * 
+	 * @see #setUseIncrementalRefresh(boolean)
+	 */
+	private boolean incrementalRefresh;
+
 	/**
 	 * Create the new viewer for table like widgets
 	 */
@@ -700,6 +709,10 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 
 		Object[] children = getSortedChildren(getRoot());
 		Item[] items = doGetItems();
+		if (incrementalRefresh
+				&& internalRefreshChanges(children, items, updateLabels)) {
+			return;
+		}
 		int min = Math.min(children.length, items.length);
 		for (int i = 0; i < min; ++i) {
 
@@ -758,6 +771,137 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 		}
 	}
 
+	/**
+	 * Refreshes the table by removing the items of elements that are no longer
+	 * contained in the children and inserting items for new children. All
+	 * other items keep their elements. If elements have been reordered, the
+	 * items of the longest sequence of elements whose order is unchanged are
+	 * kept, the other elements are removed and inserted again.
+	 *
+	 * @param children
+	 *            the sorted and filtered children of the root
+	 * @param items
+	 *            the current items of the table
+	 * @param updateLabels
+	 *            whether to update the labels of the kept items
+	 * @return <code>false</code> if nothing has been done because associating
+	 *         the children with the items by position changes fewer items
+	 */
+	private boolean internalRefreshChanges(Object[] children, Item[] items,
+			boolean updateLabels) {
+		int min = Math.min(children.length, items.length);
+		int positionalChanges = Math.abs(children.length - items.length);
+		for (int i = 0; i < min; ++i) {
+			if (!equals(children[i], items[i].getData())) {
+				positionalChanges++;
+			}
+		}
+		if (positionalChanges == 0) {
+			return false;
+		}
+		CustomHashtable itemIndices = newHashtable(items.length);
+		for (int i = 0; i < items.length; ++i) {
+			Object data = items[i].getData();
+			if (data != null && !itemIndices.containsKey(data)) {
+				itemIndices.put(data, Integer.valueOf(i));
+			}
+		}
+		// the index of the item that displays each child, or -1 if none
+		int[] itemIndexOfChild = new int[children.length];
+		boolean[] matched = new boolean[items.length];
+		for (int i = 0; i < children.length; ++i) {
+			Integer index = (Integer) itemIndices.get(children[i]);
+			if (index != null && !matched[index.intValue()]) {
+				matched[index.intValue()] = true;
+				itemIndexOfChild[i] = index.intValue();
+			} else {
+				itemIndexOfChild[i] = -1;
+			}
+		}
+		boolean[] kept = findLongestIncreasingSequence(itemIndexOfChild);
+		boolean[] keptItems = new boolean[items.length];
+		int keptCount = 0;
+		for (int i = 0; i < children.length; ++i) {
+			if (kept[i]) {
+				keptItems[itemIndexOfChild[i]] = true;
+				keptCount++;
+			}
+		}
+		int changes = items.length + children.length - 2 * keptCount;
+		if (changes >= positionalChanges) {
+			return false;
+		}
+		// as in internalRefreshAll, all disassociates have to be done before
+		// any associates
+		int[] removedIndices = new int[items.length - keptCount];
+		int count = 0;
+		for (int i = 0; i < items.length; ++i) {
+			if (!keptItems[i]) {
+				disassociate(items[i]);
+				removedIndices[count++] = i;
+			}
+		}
+		if (count > 0) {
+			doRemove(removedIndices);
+		}
+		// the items before index i are final, the kept items follow in order
+		for (int i = 0; i < children.length; ++i) {
+			if (kept[i]) {
+				Item item = items[itemIndexOfChild[i]];
+				if (updateLabels) {
+					updateItem(item, children[i]);
+				} else {
+					associate(children[i], item);
+				}
+			} else {
+				createItem(children[i], i);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns which of the given values, ignoring values of -1, form a longest
+	 * strictly increasing subsequence. Runs in O(n log n).
+	 *
+	 * @param values
+	 *            the values
+	 * @return a flag for each value that is part of the subsequence
+	 */
+	private static boolean[] findLongestIncreasingSequence(int[] values) {
+		// tails[k] is the index of the smallest value that ends a subsequence
+		// of length k + 1
+		int[] tails = new int[values.length];
+		int[] predecessors = new int[values.length];
+		int length = 0;
+		for (int i = 0; i < values.length; ++i) {
+			if (values[i] != -1) {
+				int low = 0;
+				int high = length;
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (values[tails[middle]] < values[i]) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+				predecessors[i] = low > 0 ? tails[low - 1] : -1;
+				tails[low] = i;
+				if (low == length) {
+					length++;
+				}
+			}
+		}
+		boolean[] result = new boolean[values.length];
+		int index = length > 0 ? tails[length - 1] : -1;
+		while (index != -1) {
+			result[index] = true;
+			index = predecessors[index];
+		}
+		return result;
+	}
+
 	/**
 	 * Removes the given elements from this table viewer.
 	 *
@@ -1021,6 +1165,30 @@ public abstract class AbstractTableViewer extends ColumnViewer {
 // end of bugfix
 	}
 
+	/**
+	 * Configures whether a refresh of this viewer only applies the changes
+	 * between the elements shown by the table and the new elements. If
+	 * enabled, the items of removed elements are removed and items for added
+	 * elements are inserted, while all other items keep their elements. Hence
+	 * inserting an element at the top of a large table creates a single item
+	 * instead of changing the element, and with it the labels, of every item
+	 * below. Elements whose position relative to the others has changed are
+	 * removed and inserted again.
+	 * <p>
+	 * If the changes affect more items than assigning the elements by
+	 * position, the elements are assigned by position. This setting has no
+	 * effect on virtual tables.
+	 * </p>
+	 *
+	 * @param enable
+	 *            <code>true</code> to enable the incremental refresh, and
+	 *            <code>false</code> to disable it
+	 * @since 3.2
+	 */
+	public void setUseIncrementalRefresh(boolean enable) {
+		incrementalRefresh = enable;
+	}
+
 	/**
 	 * Set the item count of the receiver.
 	 *
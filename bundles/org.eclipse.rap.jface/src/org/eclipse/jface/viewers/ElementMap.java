@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     EclipseSource - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jface.viewers;
+
+import java.io.Serializable;
+
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * ElementMap associates the elements of a structured viewer with the widgets
+ * that show them. An element is mapped to a single widget or, if it appears
+ * more than once in the viewer, to an array of widgets. Keys are compared
+ * and hashed with an optional element comparer, like in
+ * {@link CustomHashtable}.
+ * <p>
+ * Unlike CustomHashtable, the map uses open addressing with linear probing.
+ * Keys and values are stored side by side in a single array, hence no entry
+ * objects are created and a lookup usually touches a single cache line. The
+ * hash codes of the elements are spread so that the sequential or poorly
+ * distributed hash codes of typical domain objects do not form long probe
+ * sequences. Removed entries are compacted by shifting back the entries of
+ * their probe sequence instead of leaving tombstones behind.
+ * </p>
+ */
+/* package */final class ElementMap implements Serializable {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private transient IElementComparer comparer;
+
+	// keys at even, values at odd indices
+	private Object[] table;
+
+	private int size;
+
+	private int threshold;
+
+	/**
+	 * Creates a new element map that can hold the given number of elements
+	 * without growing.
+	 *
+	 * @param expectedSize
+	 *            the number of elements the map is expected to hold
+	 * @param comparer
+	 *            the element comparer to use to compare keys and obtain hash
+	 *            codes for keys, or <code>null</code> to use the normal
+	 *            <code>equals</code> and <code>hashCode</code> methods
+	 */
+	ElementMap(int expectedSize, IElementComparer comparer) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.comparer = comparer;
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Creates a new element map that holds all mappings of the given map, using
+	 * the given element comparer.
+	 *
+	 * @param map
+	 *            the map to copy from
+	 * @param comparer
+	 *            the element comparer to use to compare keys and obtain hash
+	 *            codes for keys, or <code>null</code> to use the normal
+	 *            <code>equals</code> and <code>hashCode</code> methods
+	 */
+	ElementMap(ElementMap map, IElementComparer comparer) {
+		this(map.size, comparer);
+		Object[] other = map.table;
+		for (int i = 0; i < other.length; i += 2) {
+			if (other[i] != null) {
+				put(other[i], other[i + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the widget or the array of widgets that are mapped to the given
+	 * element.
+	 *
+	 * @param element
+	 *            the element
+	 * @return a widget, an array of widgets, or <code>null</code> if the
+	 *         element is not mapped
+	 */
+	Object get(Object element) {
+		int index = find(element);
+		return index < 0 ? null : table[index + 1];
+	}
+
+	/**
+	 * Adds the given widget to the widgets that are mapped to the given
+	 * element. Does nothing if the widget is already mapped to the element.
+	 *
+	 * @param element
+	 *            the element
+	 * @param item
+	 *            the widget
+	 */
+	void add(Object element, Widget item) {
+		int index = find(element);
+		if (index < 0) {
+			insert(~index, element, item);
+			return;
+		}
+		Object widgetOrWidgets = table[index + 1];
+		if (widgetOrWidgets instanceof Widget) {
+			if (widgetOrWidgets != item) {
+				table[index] = element;
+				table[index + 1] = new Widget[] { (Widget) widgetOrWidgets, item };
+			}
+		} else {
+			Widget[] widgets = (Widget[]) widgetOrWidgets;
+			if (indexOf(widgets, item) == -1) {
+				int length = widgets.length;
+				System.arraycopy(widgets, 0, widgets = new Widget[length + 1],
+						0, length);
+				widgets[length] = item;
+				table[index] = element;
+				table[index + 1] = widgets;
+			}
+		}
+	}
+
+	/**
+	 * Removes the given element and all its widgets from the map.
+	 *
+	 * @param element
+	 *            the element
+	 */
+	void remove(Object element) {
+		int index = find(element);
+		if (index >= 0) {
+			delete(index);
+		}
+	}
+
+	/**
+	 * Removes the given widget from the widgets that are mapped to the given
+	 * element. Does nothing if the element does not map to the widget.
+	 *
+	 * @param element
+	 *            the element
+	 * @param item
+	 *            the widget
+	 */
+	void remove(Object element, Widget item) {
+		int index = find(element);
+		if (index < 0) {
+			return;
+		}
+		Object widgetOrWidgets = table[index + 1];
+		if (widgetOrWidgets instanceof Widget) {
+			if (widgetOrWidgets == item) {
+				delete(index);
+			}
+		} else {
+			Widget[] widgets = (Widget[]) widgetOrWidgets;
+			int indexOfItem = indexOf(widgets, item);
+			if (indexOfItem == -1) {
+				return;
+			}
+			int length = widgets.length;
+			if (length == 1) {
+				delete(index);
+			} else {
+				Widget[] updatedWidgets = new Widget[length - 1];
+				System.arraycopy(widgets, 0, updatedWidgets, 0, indexOfItem);
+				System.arraycopy(widgets, indexOfItem + 1, updatedWidgets,
+						indexOfItem, length - indexOfItem - 1);
+				table[index] = element;
+				table[index + 1] = updatedWidgets;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of elements in this map.
+	 *
+	 * @return the number of elements
+	 */
+	int size() {
+		return size;
+	}
+
+	private void put(Object element, Object widgetOrWidgets) {
+		int index = find(element);
+		if (index < 0) {
+			insert(~index, element, widgetOrWidgets);
+		} else {
+			table[index] = element;
+			table[index + 1] = widgetOrWidgets;
+		}
+	}
+
+	private void insert(int index, Object element, Object widgetOrWidgets) {
+		if (size >= threshold) {
+			allocate(table.length);
+			index = slotOf(element, table.length - 1);
+		}
+		table[index] = element;
+		table[index + 1] = widgetOrWidgets;
+		size++;
+	}
+
+	/*
+	 * Returns the index of the given element in the table or, if the element
+	 * is not contained, the one's complement of the free slot to insert it.
+	 */
+	private int find(Object element) {
+		Object[] table = this.table;
+		int mask = table.length - 1;
+		int index = home(element, mask);
+		Object key;
+		while ((key = table[index]) != null) {
+			if (key == element || keyEquals(element, key)) {
+				return index;
+			}
+			index = (index + 2) & mask;
+		}
+		return ~index;
+	}
+
+	/*
+	 * Returns the index of the first free slot for the given element.
+	 */
+	private int slotOf(Object element, int mask) {
+		int index = home(element, mask);
+		while (table[index] != null) {
+			index = (index + 2) & mask;
+		}
+		return index;
+	}
+
+	/*
+	 * Empties the given slot and moves up the following entries of the probe
+	 * sequence that would otherwise no longer be reachable from their home
+	 * slot.
+	 */
+	private void delete(int index) {
+		int mask = table.length - 1;
+		int gap = index;
+		int next = (gap + 2) & mask;
+		Object key;
+		while ((key = table[next]) != null) {
+			int home = home(key, mask);
+			// move the entry unless its home slot lies within (gap, next]
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				table[gap] = key;
+				table[gap + 1] = table[next + 1];
+				gap = next;
+			}
+			next = (next + 2) & mask;
+		}
+		table[gap] = null;
+		table[gap + 1] = null;
+		size--;
+	}
+
+	private void allocate(int capacity) {
+		Object[] oldTable = table;
+		table = new Object[capacity * 2];
+		// linear probing needs a low load factor to keep probe sequences short
+		threshold = capacity / 2;
+		if (oldTable != null) {
+			int mask = table.length - 1;
+			for (int i = 0; i < oldTable.length; i += 2) {
+				Object key = oldTable[i];
+				if (key != null) {
+					int index = slotOf(key, mask);
+					table[index] = key;
+					table[index + 1] = oldTable[i + 1];
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the home slot of the given element, an even index.
+	 */
+	private int home(Object element, int mask) {
+		int hash = comparer == null ? element.hashCode() : comparer
+				.hashCode(element);
+		// spread the bits of poorly distributed hash codes over the table
+		hash *= 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) << 1 & mask;
+	}
+
+	private boolean keyEquals(Object a, Object b) {
+		return comparer == null ? a.equals(b) : comparer.equals(a, b);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity / 2 <= expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int indexOf(Widget[] widgets, Widget item) {
+		for (int i = 0; i < widgets.length; i++) {
+			if (widgets[i] == item) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.viewers;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.service.UISession;
+import org.eclipse.swt.widgets.Control;
+
+/**
+ * Filters and sorts the elements of a structured viewer on a pool of worker
+ * threads that is shared by all viewers. Used by <code>StructuredViewer</code>
+ * if parallel sorting has been enabled.
+ * <p>
+ * Filters are applied to chunks of the elements in parallel, the accepted
+ * elements keep their original order. For sorting, the category and the label
+ * (or its collation key if the comparator is a collator) of each element are
+ * computed in parallel. The keys are then sorted on the calling thread. Before
+ * sorting, the elements are arranged in the order of the previous result for
+ * the same parent, so that the sort runs in almost linear time if only a few
+ * elements have changed. Ties are broken by the original position, hence the
+ * result is the same as the one of <code>ViewerComparator#sort</code>.
+ * </p>
+ * <p>
+ * Filters and comparators which override the methods that operate on the whole
+ * array may rely on seeing all elements at once and are applied sequentially.
+ * </p>
+ */
+class ParallelSorter implements Serializable {
+
+	/**
+	 * Arrays with fewer elements are filtered and sorted sequentially.
+	 */
+	static final int THRESHOLD = 8192;
+
+	private static final int CHUNK_SIZE = 4096;
+	private static final int MAX_PARALLELISM = 8;
+	private static final Class[] FILTER_PARAMETERS = { Viewer.class,
+			Object.class, Object[].class };
+	private static final Class[] COMPARE_PARAMETERS = { Viewer.class,
+			Object.class, Object.class };
+	private static final Class[] SORT_PARAMETERS = { Viewer.class,
+			Object[].class };
+
+	private static ForkJoinPool pool;
+
+	private final StructuredViewer viewer;
+	private transient Object lastParent;
+	private transient Object[] lastResult;
+
+	ParallelSorter(StructuredViewer viewer) {
+		this.viewer = viewer;
+	}
+
+	boolean canFilter(ViewerFilter filter, Object[] elements) {
+		return isApplicable(elements)
+				&& isDeclaredBy(filter.getClass(), ViewerFilter.class,
+						"filter", FILTER_PARAMETERS); //$NON-NLS-1$
+	}
+
+	boolean canSort(ViewerComparator comparator, Object[] elements) {
+		Class type = comparator.getClass();
+		return isApplicable(elements)
+				&& isDeclaredBy(type, ViewerComparator.class,
+						"compare", COMPARE_PARAMETERS) //$NON-NLS-1$
+				&& isDeclaredBy(type, ViewerComparator.class,
+						"sort", SORT_PARAMETERS); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the elements which are selected by the given filter, in their
+	 * original order. The given array is not modified.
+	 */
+	Object[] filter(final ViewerFilter filter, final Object parent,
+			final Object[] elements) {
+		final boolean[] selected = new boolean[elements.length];
+		invoke(elements.length, new RangeProcessor() {
+			public void process(int from, int to) {
+				for (int i = from; i < to; i++) {
+					selected[i] = filter.select(viewer, parent, elements[i]);
+				}
+			}
+		});
+		int count = 0;
+		for (int i = 0; i < selected.length; i++) {
+			if (selected[i]) {
+				count++;
+			}
+		}
+		Object[] result = new Object[count];
+		int index = 0;
+		for (int i = 0; i < selected.length; i++) {
+			if (selected[i]) {
+				result[index++] = elements[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a sorted copy of the given elements. The given array is not
+	 * modified.
+	 */
+	Object[] sort(ViewerComparator comparator, Object parent,
+			Object[] elements) {
+		SortKey[] keys = createKeys(comparator, elements);
+		if (lastResult != null && lastParent == parent) {
+			arrangeInPreviousOrder(keys);
+		}
+		Arrays.sort(keys, createKeyComparator(comparator.getComparator()));
+		Object[] result = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			result[i] = keys[i].element;
+		}
+		lastParent = parent;
+		lastResult = result;
+		return result;
+	}
+
+	private boolean isApplicable(Object[] elements) {
+		Control control = viewer.getControl();
+		return elements.length >= THRESHOLD && control != null
+				&& !control.isDisposed();
+	}
+
+	private SortKey[] createKeys(final ViewerComparator comparator,
+			final Object[] elements) {
+		final SortKey[] keys = new SortKey[elements.length];
+		// obtain the comparator on the calling thread, it is created lazily
+		final Comparator stringComparator = comparator.getComparator();
+		final IBaseLabelProvider labelProvider = viewer.getLabelProvider();
+		invoke(elements.length, new RangeProcessor() {
+			public void process(int from, int to) {
+				// collators are not thread-safe, each chunk uses its own copy
+				Collator collator = null;
+				if (stringComparator instanceof Collator) {
+					collator = (Collator) ((Collator) stringComparator).clone();
+				}
+				for (int i = from; i < to; i++) {
+					Object element = elements[i];
+					String label = getLabel(labelProvider, element);
+					Object sortLabel = collator == null ? (Object) label
+							: collator.getCollationKey(label);
+					keys[i] = new SortKey(element, i, comparator
+							.category(element), sortLabel);
+				}
+			}
+		});
+		return keys;
+	}
+
+	/*
+	 * Moves the elements that were contained in the previous result to the
+	 * front, in their previous order, followed by the new elements.
+	 */
+	private void arrangeInPreviousOrder(SortKey[] keys) {
+		CustomHashtable ranks = new CustomHashtable(lastResult.length,
+				viewer.getComparer());
+		for (int i = 0; i < lastResult.length; i++) {
+			ranks.put(lastResult[i], Integer.valueOf(i));
+		}
+		SortKey[] ranked = new SortKey[lastResult.length];
+		SortKey[] unranked = new SortKey[keys.length];
+		int unrankedCount = 0;
+		for (int i = 0; i < keys.length; i++) {
+			Integer rank = (Integer) ranks.get(keys[i].element);
+			if (rank != null && ranked[rank.intValue()] == null) {
+				ranked[rank.intValue()] = keys[i];
+			} else {
+				unranked[unrankedCount++] = keys[i];
+			}
+		}
+		int index = 0;
+		for (int i = 0; i < ranked.length; i++) {
+			if (ranked[i] != null) {
+				keys[index++] = ranked[i];
+			}
+		}
+		System.arraycopy(unranked, 0, keys, index, unrankedCount);
+	}
+
+	private void invoke(int size, RangeProcessor processor) {
+		// label providers and filters may rely on the context of the session
+		UISession uiSession = RWT.getUISession(viewer.getControl()
+				.getDisplay());
+		getPool().invoke(new RangeTask(uiSession, processor, 0, size));
+	}
+
+	private static String getLabel(IBaseLabelProvider labelProvider,
+			Object element) {
+		String result;
+		if (labelProvider instanceof ILabelProvider) {
+			result = ((ILabelProvider) labelProvider).getText(element);
+		} else {
+			result = element.toString();
+		}
+		return result == null ? "" : result; //$NON-NLS-1$
+	}
+
+	private static Comparator createKeyComparator(
+			final Comparator stringComparator) {
+		return new Comparator() {
+			public int compare(Object object1, Object object2) {
+				SortKey key1 = (SortKey) object1;
+				SortKey key2 = (SortKey) object2;
+				// same as ViewerComparator#compare(Viewer, Object, Object)
+				if (key1.category != key2.category) {
+					return key1.category - key2.category;
+				}
+				int result;
+				if (key1.label instanceof CollationKey) {
+					result = ((CollationKey) key1.label)
+							.compareTo((CollationKey) key2.label);
+				} else {
+					result = stringComparator.compare(key1.label, key2.label);
+				}
+				if (result == 0 && key1.index != key2.index) {
+					result = key1.index < key2.index ? -1 : 1;
+				}
+				return result;
+			}
+		};
+	}
+
+	private static boolean isDeclaredBy(Class type, Class declaringClass,
+			String name, Class[] parameterTypes) {
+		try {
+			Method method = type.getMethod(name, parameterTypes);
+			return method.getDeclaringClass() == declaringClass;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			int processors = Runtime.getRuntime().availableProcessors();
+			pool = new ForkJoinPool(Math.min(processors, MAX_PARALLELISM));
+		}
+		return pool;
+	}
+
+	private static interface RangeProcessor {
+
+		void process(int from, int to);
+
+	}
+
+	private static final class RangeTask extends RecursiveAction {
+
+		private final transient UISession uiSession;
+		private final transient RangeProcessor processor;
+		private final int from;
+		private final int to;
+
+		RangeTask(UISession uiSession, RangeProcessor processor, int from,
+				int to) {
+			this.uiSession = uiSession;
+			this.processor = processor;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from <= CHUNK_SIZE) {
+				uiSession.exec(new Runnable() {
+					public void run() {
+						processor.process(from, to);
+					}
+				});
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RangeTask(uiSession, processor, from, middle),
+						new RangeTask(uiSession, processor, middle, to));
+			}
+		}
+
+	}
+
+	private static final class SortKey {
+
+		final Object element;
+		final int index;
+		final int category;
+		final Object label;
+
+		SortKey(Object element, int index, int category, Object label) {
+			this.element = element;
+			this.index = index;
+			this.category = category;
+			this.label = label;
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,6 +8,8 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Tom Schindl - bug 151205
+ *     EclipseSource - parallel sorting and filtering
+ *     EclipseSource - open addressing element map
  *******************************************************************************/
 package org.eclipse.jface.viewers;
 
@@ -59,7 +61,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 * <code>Object</code>, value type: <code>Widget</code>, or <code>Widget[]</code>).
 	 * <code>null</code> means that the element map is disabled.
 	 */
-	private CustomHashtable elementMap;
+	private ElementMap elementMap;
 
 	/**
 	 * The comparer to use for comparing elements, or <code>null</code> to use
@@ -79,6 +81,14 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 */
 	private List filters;
 
+	/**
+	 * Filters and sorts large numbers of elements in parallel.
+	 * <code>null</code> means that parallel sorting is disabled.
+	 * 
+	 * @see #setUseParallelSorting(boolean)
+	 */
+	private ParallelSorter parallelSorter;
+
 	/**
 	 * Indicates whether the viewer should attempt to preserve the selection
 	 * across update operations.
@@ -901,7 +911,12 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		if (filters != null) {
 			for (Iterator iter = filters.iterator(); iter.hasNext();) {
 				ViewerFilter f = (ViewerFilter) iter.next();
-				Object[] filteredResult = f.filter(this, parent, result);
+				Object[] filteredResult;
+				if (parallelSorter != null && parallelSorter.canFilter(f, result)) {
+					filteredResult = parallelSorter.filter(f, parent, result);
+				} else {
+					filteredResult = f.filter(this, parent, result);
+				}
 				if (associateListener != null && filteredResult.length != result.length) {
 					notifyFilteredOut(result, filteredResult);
 				}
@@ -1069,9 +1084,14 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	protected Object[] getSortedChildren(Object parent) {
 		Object[] result = getFilteredChildren(parent);
 		if (sorter != null) {
-			// be sure we're not modifying the original array from the model
-			result = (Object[]) result.clone();
-			sorter.sort(this, result);
+			if (parallelSorter != null && parallelSorter.canSort(sorter, result)) {
+				// returns a copy, the original array from the model is not modified
+				result = parallelSorter.sort(sorter, parent, result);
+			} else {
+				// be sure we're not modifying the original array from the model
+				result = (Object[]) result.clone();
+				sorter.sort(this, result);
+			}
 		}
 		return result;
 	}
@@ -1318,25 +1338,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 */
 	protected void mapElement(Object element, Widget item) {
 		if (elementMap != null) {
-			Object widgetOrWidgets = elementMap.get(element);
-			if (widgetOrWidgets == null) {
-				elementMap.put(element, item);
-			} else if (widgetOrWidgets instanceof Widget) {
-				if (widgetOrWidgets != item) {
-					elementMap.put(element, new Widget[] {
-							(Widget) widgetOrWidgets, item });
-				}
-			} else {
-				Widget[] widgets = (Widget[]) widgetOrWidgets;
-				int indexOfItem = Arrays.asList(widgets).indexOf(item);
-				if (indexOfItem == -1) {
-					int length = widgets.length;
-					System.arraycopy(widgets, 0,
-							widgets = new Widget[length + 1], 0, length);
-					widgets[length] = item;
-					elementMap.put(element, widgets);
-				}
-			}
+			elementMap.add(element, item);
 		}
 	}
 
@@ -1827,12 +1829,44 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		Assert.isTrue(getInput() == null,
 				"Can only enable the hash look up before input has been set");//$NON-NLS-1$
 		if (enable) {
-			elementMap = newHashtable(CustomHashtable.DEFAULT_CAPACITY);
+			elementMap = new ElementMap(0, getComparer());
 		} else {
 			elementMap = null;
 		}
 	}
 
+	/**
+	 * Configures whether this structured viewer filters and sorts large numbers
+	 * of elements in parallel. If enabled, the filters and the computation of
+	 * the categories and labels used by the comparator run on a pool of worker
+	 * threads that is shared by all viewers, rather than on the UI thread
+	 * alone. Hence filters, comparators and the label provider must be
+	 * thread-safe and must not access widgets while the viewer is refreshed.
+	 * <p>
+	 * Filters that override
+	 * {@link ViewerFilter#filter(Viewer, Object, Object[])} and comparators
+	 * that override {@link ViewerComparator#compare(Viewer, Object, Object)} or
+	 * {@link ViewerComparator#sort(Viewer, Object[])} are still applied
+	 * sequentially. Tree viewers sort the children of their elements
+	 * sequentially. Either way the elements are shown in the same order as
+	 * with parallel sorting disabled.
+	 * </p>
+	 * 
+	 * @param enable
+	 *            <code>true</code> to enable parallel sorting, and
+	 *            <code>false</code> to disable it
+	 * @since 3.2
+	 */
+	public void setUseParallelSorting(boolean enable) {
+		if (enable) {
+			if (parallelSorter == null) {
+				parallelSorter = new ParallelSorter(this);
+			}
+		} else {
+			parallelSorter = null;
+		}
+	}
+
 	/**
 	 * Sets the comparer to use for comparing elements, or <code>null</code>
 	 * to use the default <code>equals</code> and <code>hashCode</code>
@@ -1845,7 +1879,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	public void setComparer(IElementComparer comparer) {
 		this.comparer = comparer;
 		if (elementMap != null) {
-			elementMap = new CustomHashtable(elementMap, comparer);
+			elementMap = new ElementMap(elementMap, comparer);
 		}
 	}
 
@@ -1914,7 +1948,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 	 */
 	protected void unmapAllElements() {
 		if (elementMap != null) {
-			elementMap = newHashtable(CustomHashtable.DEFAULT_CAPACITY);
+			elementMap = new ElementMap(0, getComparer());
 		}
 	}
 
@@ -1954,36 +1988,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		// double-check that the element actually maps to the given item before
 		// unmapping it
 		if (elementMap != null) {
-			Object widgetOrWidgets = elementMap.get(element);
-			if (widgetOrWidgets == null) {
-				// item was not mapped, return
-				return;
-			} else if (widgetOrWidgets instanceof Widget) {
-				if (item == widgetOrWidgets) {
-					elementMap.remove(element);
-				}
-			} else {
-				Widget[] widgets = (Widget[]) widgetOrWidgets;
-				int indexOfItem = Arrays.asList(widgets).indexOf(item);
-				if (indexOfItem == -1) {
-					return;
-				}
-				int length = widgets.length;
-				if (indexOfItem == 0) {
-					if(length == 1) {
-						elementMap.remove(element);
-					} else {
-						Widget[] updatedWidgets = new Widget[length - 1];
-						System.arraycopy(widgets, 1, updatedWidgets, 0, length -1 );
-						elementMap.put(element, updatedWidgets);
-					}
-				} else {
-					Widget[] updatedWidgets = new Widget[length - 1];
-					System.arraycopy(widgets, 0, updatedWidgets, 0, indexOfItem);
-					System.arraycopy(widgets, indexOfItem + 1, updatedWidgets, indexOfItem, length - indexOfItem - 1);
-					elementMap.put(element, updatedWidgets);
-				}
-			}
+			elementMap.remove(element, item);
 		}
 	}
 
@@ -2335,7 +2340,7 @@ public abstract class StructuredViewer extends ContentViewer implements IPostSel
 		comparer = null;
 		if (filters != null)
 			filters.clear();
-		elementMap = newHashtable(1);
+		elementMap = new ElementMap(0, null);
 		openListeners.clear();
 		doubleClickListeners.clear();
 		colorAndFontCollector.clear();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 EclipseSource and others.
+ * Copyright (c) 2012, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,8 +13,9 @@ package org.eclipse.nebula.widgets.grid;
 import static org.eclipse.swt.internal.widgets.MarkupUtil.isMarkupEnabledFor;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
 import org.eclipse.nebula.widgets.grid.internal.IScrollBarProxy;
@@ -73,12 +74,14 @@ public class Grid extends Composite {
 
   private List<GridItem> items = new ArrayList<GridItem>();
   private List<GridItem> rootItems = new ArrayList<GridItem>();
-  private List<GridItem> selectedItems = new ArrayList<GridItem>();
+  private Set<GridItem> selectedItems = new LinkedHashSet<GridItem>();
   private List<Point> selectedCells = new ArrayList<Point>();
   private List<GridColumn> columns = new ArrayList<GridColumn>();
   private List<GridColumn> displayOrderedColumns = new ArrayList<GridColumn>();
   private List<GridColumnGroup> columnGroups = new ArrayList<GridColumnGroup>();
   private GridItem focusItem;
+  // the flat indices of the first validFlatIndices items are up to date
+  private int validFlatIndices;
   private boolean isTree;
   private boolean disposing;
   private boolean columnHeadersVisible;
@@ -444,7 +447,7 @@ public class Grid extends Composite {
     if( item == null ) {
       SWT.error( SWT.ERROR_NULL_ARGUMENT );
     }
-    return item.getParent() == this ? items.indexOf( item ) : -1;
+    return item.getParent() == this ? internalIndexOf( item ) : -1;
   }
 
   /**
@@ -512,7 +515,7 @@ public class Grid extends Composite {
   public GridItem getNextVisibleItem( GridItem item ) {
     checkWidget();
     GridItem result = null;
-    int index = items.indexOf( item );
+    int index = internalIndexOf( item );
     if( index != items.size() - 1 ) {
       result = items.get( index + 1 );
       while( result != null && !result.isVisible() ) {
@@ -547,7 +550,7 @@ public class Grid extends Composite {
     if( item == null ) {
       index = items.size();
     } else {
-      index = items.indexOf( item );
+      index = internalIndexOf( item );
     }
     if( index > 0 ) {
       result = items.get( index - 1 );
@@ -1418,7 +1421,7 @@ public class Grid extends Composite {
           if( item.isDisposed() ) {
             SWT.error( SWT.ERROR_INVALID_ARGUMENT );
           }
-          internalSelect( this.items.indexOf( item ) );
+          internalSelect( internalIndexOf( item ) );
         }
       }
     }
@@ -1520,7 +1523,7 @@ public class Grid extends Composite {
       }
     } else {
       if( selectedItems.size() != 0 ) {
-        result = items.indexOf( selectedItems.get( 0 ) );
+        result = internalIndexOf( selectedItems.iterator().next() );
       }
     }
     return result;
@@ -1559,13 +1562,13 @@ public class Grid extends Composite {
       result = new int[ selectedRows.size() ];
       for( int i = 0; i < result.length; i++ ) {
         GridItem item = selectedRows.get( i );
-        result[ i ] = items.indexOf( item );
+        result[ i ] = internalIndexOf( item );
       }
     } else {
       result = new int[ selectedItems.size() ];
-      for( int i = 0; i < result.length; i++ ) {
-        GridItem item = selectedItems.get( i );
-        result[ i ] = items.indexOf( item );
+      int i = 0;
+      for( GridItem item : selectedItems ) {
+        result[ i++ ] = internalIndexOf( item );
       }
     }
     return result;
@@ -1627,7 +1630,7 @@ public class Grid extends Composite {
     }
     boolean result = false;
     if( cellSelectionEnabled ) {
-      int index = items.indexOf( item );
+      int index = internalIndexOf( item );
       if( index != -1 ) {
         for( Point cell : selectedCells ) {
           if( cell.y == index ) {
@@ -1983,6 +1986,7 @@ public class Grid extends Composite {
     if( customItemHeight != height ) {
       customItemHeight = height;
       hasDifferingHeights = false;
+      layoutCache.invalidateRowHeights();
       scheduleRedraw();
     }
   }
@@ -2038,12 +2042,7 @@ public class Grid extends Composite {
       updateScrollBars();
       GridItem item = items.get( index );
       if( item.isVisible() && vScroll.getVisible() ) {
-        int vScrollAmount = 0;
-        for( int i = 0; i < index; i++ ) {
-          if( items.get( i ).isVisible() ) {
-            vScrollAmount++;
-          }
-        }
+        int vScrollAmount = isTree ? getRowHeights().getRowCount( index ) : index;
         vScroll.setSelection( vScrollAmount );
         invalidateTopBottomIndex();
         redraw();
@@ -2071,16 +2070,9 @@ public class Grid extends Composite {
       if( vScroll.getVisible() ) {
         int firstVisibleIndex = vScroll.getSelection();
         if( isTree ) {
-          Iterator<GridItem> iterator = items.iterator();
-          int row = firstVisibleIndex + 1;
-          while( row > 0 && iterator.hasNext() ) {
-            GridItem item = iterator.next();
-            if( item.isVisible() ) {
-              row--;
-              if( row == 0 ) {
-                firstVisibleIndex = items.indexOf( item );
-              }
-            }
+          RowHeightIndex rowHeights = getRowHeights();
+          if( firstVisibleIndex < rowHeights.getTotalRows() ) {
+            firstVisibleIndex = rowHeights.findRow( firstVisibleIndex );
           }
         }
         topIndex = firstVisibleIndex;
@@ -2126,7 +2118,7 @@ public class Grid extends Composite {
           parent = parent.getParentItem();
         }
         if( !isShown( item ) ) {
-          setTopIndex( items.indexOf( item ) );
+          setTopIndex( internalIndexOf( item ) );
         }
       }
     }
@@ -2202,7 +2194,7 @@ public class Grid extends Composite {
       }
     } else {
       if( selectedItems.size() != 0 ) {
-        item = selectedItems.get( 0 );
+        item = selectedItems.iterator().next();
         showItem( item );
       }
     }
@@ -2273,7 +2265,7 @@ public class Grid extends Composite {
       if( index >= rootItems.size() ) {
         flatIndex = -1;
       } else {
-        flatIndex = items.indexOf( rootItems.get( index ) );
+        flatIndex = internalIndexOf( rootItems.get( index ) );
       }
     } else if( !root ) {
       if( index >= parentItem.getItemCount() || index == -1 ) {
@@ -2282,9 +2274,9 @@ public class Grid extends Composite {
           int lastChildIndex = rightMostDescendent.getItemCount() - 1;
           rightMostDescendent = rightMostDescendent.getItem( lastChildIndex );
         }
-        flatIndex = items.indexOf( rightMostDescendent ) + 1;
+        flatIndex = internalIndexOf( rightMostDescendent ) + 1;
       } else {
-        flatIndex = items.indexOf( parentItem.getItem( index ) );
+        flatIndex = internalIndexOf( parentItem.getItem( index ) );
       }
     }
     if( flatIndex == -1 ) {
@@ -2294,6 +2286,14 @@ public class Grid extends Composite {
       items.add( flatIndex, item );
       row = flatIndex;
     }
+    item.flatIndex = row;
+    if( validFlatIndices == row && row == items.size() - 1 ) {
+      // appending keeps the flat indices of all other items valid
+      validFlatIndices++;
+    } else {
+      validFlatIndices = Math.min( validFlatIndices, row );
+    }
+    layoutCache.invalidateRowHeights();
     updateVisibleItems( 1 );
     scheduleRedraw();
     return row;
@@ -2301,8 +2301,11 @@ public class Grid extends Composite {
 
   void removeItem( int index ) {
     GridItem item = items.remove( index );
+    item.flatIndex = -1;
+    validFlatIndices = Math.min( validFlatIndices, index );
+    layoutCache.invalidateRowHeights();
     if( !disposing ) {
-      selectedItems.remove (item );
+      selectedItems.remove( item );
 // TODO: [if] Implement cell selection
 //      Point[] cells = getCells( item );
 //      for( int i = 0; i < cells.length; i++ ) {
@@ -2401,6 +2404,27 @@ public class Grid extends Composite {
     currentVisibleItems += amount;
   }
 
+  void updateRowHeight( GridItem item ) {
+    if( layoutCache.hasRowHeights() ) {
+      int index = internalIndexOf( item );
+      if( index != -1 ) {
+        layoutCache.rowHeights.set( index, item.isVisible() ? item.internalGetHeight() : 0 );
+      }
+    }
+  }
+
+  private RowHeightIndex getRowHeights() {
+    if( !layoutCache.hasRowHeights() ) {
+      int[] heights = new int[ items.size() ];
+      for( int i = 0; i < heights.length; i++ ) {
+        GridItem item = items.get( i );
+        heights[ i ] = item.isVisible() ? item.internalGetHeight() : 0;
+      }
+      layoutCache.rowHeights = new RowHeightIndex( heights );
+    }
+    return layoutCache.rowHeights;
+  }
+
   GridColumn[] getColumnsInOrder() {
     checkWidget();
     return displayOrderedColumns.toArray( new GridColumn[ columns.size() ] );
@@ -2447,22 +2471,21 @@ public class Grid extends Composite {
         y += getHeaderHeight();
       }
       int topIndex = getTopIndex();
-      int itemIndex = items.indexOf( item );
+      int itemIndex = internalIndexOf( item );
       if( itemIndex == -1 ) {
         SWT.error( SWT.ERROR_INVALID_ARGUMENT );
       }
-      while( topIndex != itemIndex ) {
-        if( topIndex < itemIndex ) {
-          GridItem currentItem = items.get( topIndex );
-          if( currentItem.isVisible() ) {
-            y += currentItem.getHeight();
-          }
-          topIndex++;
-        } else if( topIndex > itemIndex ) {
-          topIndex--;
-          GridItem currentItem = items.get( topIndex );
-          if( currentItem.isVisible() ) {
-            y -= currentItem.getHeight();
+      if( isTree || hasDifferingHeights ) {
+        RowHeightIndex rowHeights = getRowHeights();
+        y += rowHeights.getOffset( itemIndex ) - rowHeights.getOffset( topIndex );
+      } else {
+        while( topIndex != itemIndex ) {
+          if( topIndex < itemIndex ) {
+            y += items.get( topIndex ).getHeight();
+            topIndex++;
+          } else if( topIndex > itemIndex ) {
+            topIndex--;
+            y -= items.get( topIndex ).getHeight();
           }
         }
       }
@@ -2474,7 +2497,7 @@ public class Grid extends Composite {
     checkWidget();
     boolean result = false;
     if( item.isVisible() ) {
-      int itemIndex = items.indexOf( item );
+      int itemIndex = internalIndexOf( item );
       if( itemIndex == -1 ) {
         SWT.error( SWT.ERROR_INVALID_ARGUMENT );
       }
@@ -2630,11 +2653,7 @@ public class Grid extends Composite {
   private int getGridHeight() {
     int result = 0;
     if( hasDifferingHeights ) {
-      for( GridItem item : items ) {
-        if( item.isVisible() ) {
-          result += item.getHeight();
-        }
-      }
+      result = getRowHeights().getTotalHeight();
     } else {
       result = currentVisibleItems * getItemHeight();
     }
@@ -2667,7 +2686,7 @@ public class Grid extends Composite {
       if( cellSelectionEnabled ) {
 // TODO: [if] Implement cell selection
 //        selectCells( getCells( item ) );
-      } else if( !selectedItems.contains( item ) ) {
+      } else {
         selectedItems.add( item );
       }
     }
@@ -2678,7 +2697,7 @@ public class Grid extends Composite {
       if( cellSelectionEnabled ) {
 // TODO: [if] Implement cell selection
 //        deselectCells( getCells( item ) );
-      } else if( selectedItems.contains( item ) ) {
+      } else {
         selectedItems.remove( item );
       }
     }
@@ -3011,38 +3030,16 @@ public class Grid extends Composite {
         result.rows = 0;
         result.height = 0;
       } else if( isTree || hasDifferingHeights ) {
-        int otherIndex = startIndex;
-        int consumedItems = 0;
-        int consumedHeight = 0;
-        consumedItems++;
-        consumedHeight += items.get( otherIndex ).getHeight();
-        boolean abort = false;
-        while( consumedHeight + 1 <= availableHeight && !abort ) {
-          int nextIndex = otherIndex;
-          GridItem nextItem;
-          do {
-            nextIndex += inverse ? -1 : 1;
-            if( isValidItemIndex( nextIndex ) ) {
-              nextItem = items.get( nextIndex );
-            } else {
-              nextItem = null;
-            }
-          } while( nextItem != null && !nextItem.isVisible() );
-          if(    nextItem == null
-              || forceEndCompletelyInside
-              && !( consumedHeight + nextItem.getHeight() <= availableHeight ) )
-          {
-            abort = true;
-          } else {
-            consumedItems++;
-            consumedHeight += nextItem.getHeight();
-            otherIndex = nextIndex;
-          }
-        }
+        RowHeightIndex rowHeights = getRowHeights();
+        int otherIndex = inverse
+                       ? findRangeStart( startIndex, availableHeight, forceEndCompletelyInside )
+                       : findRangeEnd( startIndex, availableHeight, forceEndCompletelyInside );
         result.startIndex = !inverse ? startIndex : otherIndex;
         result.endIndex = !inverse ? otherIndex : startIndex;
-        result.rows = consumedItems;
-        result.height = consumedHeight;
+        result.rows =   rowHeights.getRowCount( result.endIndex + 1 )
+                      - rowHeights.getRowCount( result.startIndex );
+        result.height =   rowHeights.getOffset( result.endIndex + 1 )
+                        - rowHeights.getOffset( result.startIndex );
       } else {
         int availableRows = availableHeight / getItemHeight();
         if( !forceEndCompletelyInside && availableRows * getItemHeight() < availableHeight ) {
@@ -3060,12 +3057,74 @@ public class Grid extends Composite {
     return result;
   }
 
+  /*
+   * Returns the index of the last visible item of the rows starting at the given item that are
+   * needed to fill the available height. If completelyInside is true, the last row has to
+   * fit completely into the available height.
+   */
+  private int findRangeEnd( int startIndex, int availableHeight, boolean completelyInside ) {
+    RowHeightIndex rowHeights = getRowHeights();
+    int startOffset = rowHeights.getOffset( startIndex );
+    int result;
+    if( completelyInside ) {
+      int rows = rowHeights.getRowCount( rowHeights.findOffset( startOffset + availableHeight ) );
+      result = rows > 0 ? Math.max( startIndex, rowHeights.findRow( rows - 1 ) ) : startIndex;
+    } else {
+      result = rowHeights.findOffset( startOffset + availableHeight - 1 );
+      if( result == items.size() ) {
+        result = rowHeights.findRow( rowHeights.getTotalRows() - 1 );
+      }
+    }
+    return result;
+  }
+
+  /*
+   * Returns the index of the first visible item of the rows ending at the given item that are
+   * needed to fill the available height. If completelyInside is true, the first row has to
+   * fit completely into the available height.
+   */
+  private int findRangeStart( int endIndex, int availableHeight, boolean completelyInside ) {
+    RowHeightIndex rowHeights = getRowHeights();
+    int limit = rowHeights.getOffset( endIndex + 1 ) - availableHeight;
+    int result;
+    if( completelyInside ) {
+      if( limit <= 0 ) {
+        result = rowHeights.findRow( 0 );
+      } else {
+        int startIndex = rowHeights.findOffset( limit - 1 ) + 1;
+        result = startIndex > endIndex
+               ? endIndex
+               : rowHeights.findRow( rowHeights.getRowCount( startIndex ) );
+      }
+    } else {
+      result = limit < 0 ? rowHeights.findRow( 0 ) : rowHeights.findOffset( limit );
+    }
+    return result;
+  }
+
   private boolean isValidItemIndex( int index ) {
     return index >= 0 && index < items.size();
   }
 
   int internalIndexOf( GridItem item ) {
-    return items.indexOf( item );
+    int result = -1;
+    if( item != null ) {
+      if( item.flatIndex >= validFlatIndices ) {
+        updateFlatIndices();
+      }
+      int index = item.flatIndex;
+      if( index >= 0 && index < items.size() && items.get( index ) == item ) {
+        result = index;
+      }
+    }
+    return result;
+  }
+
+  private void updateFlatIndices() {
+    for( int index = validFlatIndices; index < items.size(); index++ ) {
+      items.get( index ).flatIndex = index;
+    }
+    validFlatIndices = items.size();
   }
 
   void scheduleRedraw() {
@@ -3230,6 +3289,7 @@ public class Grid extends Composite {
     BoxDimensions headerPadding;
     BoxDimensions checkBoxMargin;
     Size checkBoxImageSize;
+    RowHeightIndex rowHeights;
 
     public boolean hasHeaderPadding() {
       return headerPadding != null;
@@ -3261,6 +3321,16 @@ public class Grid extends Composite {
 
     public void invalidateItemHeight() {
       itemHeight = UNKNOWN;
+      // the row heights depend on the default item height
+      invalidateRowHeights();
+    }
+
+    public boolean hasRowHeights() {
+      return rowHeights != null;
+    }
+
+    public void invalidateRowHeights() {
+      rowHeights = null;
     }
 
     public boolean hasCellSpacing() {
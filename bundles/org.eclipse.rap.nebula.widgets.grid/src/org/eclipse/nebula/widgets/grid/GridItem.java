@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 EclipseSource and others.
+ * Copyright (c) 2012, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -64,6 +64,7 @@ public class GridItem extends Item {
   private boolean cached;
   private transient IGridItemAdapter gridItemAdapter;
   int index;
+  int flatIndex;
 
   /**
    * Creates a new instance of this class and places the item at the end of
@@ -1286,6 +1287,7 @@ public class GridItem extends Item {
     if( getItemData().customHeight != height ) {
       getItemData().customHeight = height;
       parent.hasDifferingHeights = true;
+      parent.updateRowHeight( this );
       markCached();
       parent.scheduleRedraw();
     }
@@ -1363,6 +1365,14 @@ public class GridItem extends Item {
     return super.getAdapter( adapter );
   }
 
+  /*
+   * Returns the height of this item without resolving it.
+   */
+  int internalGetHeight() {
+    int customHeight = data == null ? -1 : data.customHeight;
+    return customHeight != -1 ? customHeight : parent.getItemHeight();
+  }
+
   boolean isVisible() {
     return visible;
   }
@@ -1371,6 +1381,7 @@ public class GridItem extends Item {
     if( this.visible != visible ) {
       this.visible = visible;
       parent.updateVisibleItems( visible ? 1 : -1 );
+      parent.updateRowHeight( this );
       if( hasChildren ) {
         for( GridItem item : getItemData().getChildren() ) {
           item.setVisible( visible && isExpanded() );
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import org.eclipse.swt.internal.SerializableCompatibility;
+
+
+/*
+ * Holds the heights of the rows of a grid in flat item order in two Fenwick trees, one for the
+ * heights and one for the number of visible rows. Invisible items have a height of zero, visible
+ * items a positive height. Offsets and the item at a given offset or row are found in O(log n),
+ * the height of a single item is updated in O(log n).
+ */
+@SuppressWarnings( "restriction" )
+final class RowHeightIndex implements SerializableCompatibility {
+
+  private final int[] heights;
+  private final int[] heightSums;
+  private final int[] rowSums;
+  private final int size;
+  private int totalHeight;
+  private int totalRows;
+
+  RowHeightIndex( int[] heights ) {
+    this.heights = heights;
+    size = heights.length;
+    heightSums = new int[ size + 1 ];
+    rowSums = new int[ size + 1 ];
+    for( int i = 1; i <= size; i++ ) {
+      int height = heights[ i - 1 ];
+      heightSums[ i ] += height;
+      rowSums[ i ] += height > 0 ? 1 : 0;
+      totalHeight += height;
+      totalRows += height > 0 ? 1 : 0;
+      int parent = i + ( i & -i );
+      if( parent <= size ) {
+        heightSums[ parent ] += heightSums[ i ];
+        rowSums[ parent ] += rowSums[ i ];
+      }
+    }
+  }
+
+  int getTotalHeight() {
+    return totalHeight;
+  }
+
+  int getTotalRows() {
+    return totalRows;
+  }
+
+  void set( int index, int height ) {
+    int delta = height - heights[ index ];
+    if( delta != 0 ) {
+      int rowDelta = ( height > 0 ? 1 : 0 ) - ( heights[ index ] > 0 ? 1 : 0 );
+      heights[ index ] = height;
+      totalHeight += delta;
+      totalRows += rowDelta;
+      for( int i = index + 1; i <= size; i += i & -i ) {
+        heightSums[ i ] += delta;
+        rowSums[ i ] += rowDelta;
+      }
+    }
+  }
+
+  /*
+   * Returns the summed height of the items before the given index.
+   */
+  int getOffset( int index ) {
+    return getPrefix( heightSums, index );
+  }
+
+  /*
+   * Returns the number of visible items before the given index.
+   */
+  int getRowCount( int index ) {
+    return getPrefix( rowSums, index );
+  }
+
+  /*
+   * Returns the largest index whose offset is less than or equal to the given offset. If the
+   * offset is not negative, the returned index is either the size of the index or the index of a
+   * visible item.
+   */
+  int findOffset( int offset ) {
+    return find( heightSums, offset );
+  }
+
+  /*
+   * Returns the index of the visible item at the given zero-relative row.
+   */
+  int findRow( int row ) {
+    return find( rowSums, row );
+  }
+
+  private static int getPrefix( int[] sums, int index ) {
+    int result = 0;
+    for( int i = index; i > 0; i -= i & -i ) {
+      result += sums[ i ];
+    }
+    return result;
+  }
+
+  private int find( int[] sums, int value ) {
+    int result = 0;
+    int remaining = value;
+    for( int step = Integer.highestOneBit( size ); step > 0; step >>= 1 ) {
+      int next = result + step;
+      if( next <= size && sums[ next ] <= remaining ) {
+        result = next;
+        remaining -= sums[ next ];
+      }
+    }
+    return result;
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2012 Frank Appel and others.
+ * Copyright (c) 2011, 2017 Frank Appel and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,14 @@ import org.osgi.service.http.HttpService;
  * provided as a service. For every available application configuration, the RWT OSGi integration
  * bundle will automatically start an application at an available HTTPService.
  * </p>
+ * <p>
+ * The HttpService API does not allow to register servlets with asynchronous processing enabled.
+ * Waiting server push requests of an application started at an HttpService are therefore only
+ * suspended if the HttpService implementation itself dispatches requests with asynchronous
+ * processing enabled, e.g. if its bridge servlet or its servlet holder in the container is marked
+ * as <code>async-supported</code> and all filters in front of it are as well. Otherwise every
+ * waiting server push request occupies a container thread, like on Servlet 2.5 containers.
+ * </p>
  *
  * @since 1.5
  * @noimplement This interface is not intended to be implemented by clients.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 Frank Appel and others.
+ * Copyright (c) 2011, 2017 Frank Appel and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,9 @@ import javax.servlet.http.HttpServlet;
 import org.eclipse.rap.rwt.application.ApplicationConfiguration;
 import org.eclipse.rap.rwt.application.ApplicationRunner;
 import org.eclipse.rap.rwt.engine.RWTServlet;
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
+import org.eclipse.rap.rwt.internal.resources.ResourceServlet;
 import org.eclipse.rap.rwt.osgi.ApplicationReference;
 import org.eclipse.rap.rwt.service.ApplicationContext;
 import org.osgi.framework.BundleContext;
@@ -137,11 +140,9 @@ class ApplicationReferenceImpl implements ApplicationReference {
     }
   }
 
-  @SuppressWarnings( "restriction" )
   private Collection<String> getServletPaths() {
     ApplicationContext applicationContext = applicationRunner.getApplicationContext();
-    org.eclipse.rap.rwt.internal.application.ApplicationContextImpl applicationContextImpl
-      = ( org.eclipse.rap.rwt.internal.application.ApplicationContextImpl ) applicationContext;
+    ApplicationContextImpl applicationContextImpl = ( ApplicationContextImpl )applicationContext;
     return applicationContextImpl.getEntryPointManager().getServletPaths();
   }
 
@@ -189,13 +190,17 @@ class ApplicationReferenceImpl implements ApplicationReference {
 
   private void registerResourceDirectory() {
     String alias = ApplicationRunner.RESOURCES;
-    String location = contextLocation + "/" + alias;
-    try {
-      httpService.registerResources( getContextSegment() + "/" + alias, location, httpContext );
-    } catch( RuntimeException rte ) {
-      throw rte;
-    } catch( Exception shouldNotHappen ) {
-      throw new RuntimeException( shouldNotHappen );
+    if( RWTProperties.isResourceCacheEnabled() ) {
+      registerServlet( "/" + alias, new ResourceServlet() );
+    } else {
+      String location = contextLocation + "/" + alias;
+      try {
+        httpService.registerResources( getContextSegment() + "/" + alias, location, httpContext );
+      } catch( RuntimeException rte ) {
+        throw rte;
+      } catch( Exception shouldNotHappen ) {
+        throw new RuntimeException( shouldNotHappen );
+      }
     }
   }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 EclipseSource and others.
+ * Copyright (c) 2011, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -78,7 +78,8 @@ rwt.remote.HandlerRegistry.add( "rwt.widgets.Grid", {
     "cellToolTipText",
     "columnOrder",
     "autoHeight",
-    "indentionWidth"
+    "indentionWidth",
+    "rows"
   ] ),
 
   propertyHandler : rwt.remote.HandlerUtil.extendControlPropertyHandler( {
@@ -116,6 +117,23 @@ rwt.remote.HandlerRegistry.add( "rwt.widgets.Grid", {
     },
     "scrollBarsVisible" : function( widget, value ) {
       widget.setScrollBarsVisible( value[ 0 ], value[ 1 ] );
+    },
+    "rows" : function( widget, value ) {
+      var strings = value.strings;
+      var columns = value.texts;
+      for( var i = 0; i < value.items.length; i++ ) {
+        var item = rwt.remote.ObjectRegistry.getObject( value.items[ i ] );
+        if( item ) {
+          var texts = [];
+          for( var column = 0; column < columns.length; column++ ) {
+            var index = columns[ column ][ i ];
+            if( index !== -1 ) {
+              texts[ column ] = strings[ index ];
+            }
+          }
+          item.setTexts( texts );
+        }
+      }
     }
   } ),
 
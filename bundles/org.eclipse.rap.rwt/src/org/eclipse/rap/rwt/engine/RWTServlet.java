@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -74,6 +74,13 @@ import org.eclipse.rap.rwt.service.ServiceHandler;
  * &lt;/servlet-mapping&gt;
  *
  * <pre>
+ * <p>
+ * On Servlet 3.0 containers, the servlet and all filters mapped to it can be marked with
+ * <code>&lt;async-supported&gt;true&lt;/async-supported&gt;</code>, or with
+ * <code>setAsyncSupported( true )</code> on their registrations if they are added
+ * programmatically. Waiting server push requests are then suspended instead of occupying a
+ * container thread each.
+ * </p>
  *
  * @since 2.0
  * @noextend This class is not intended to be subclassed by clients.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2016 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,118 @@ public final class RWTProperties {
   public static final String DEVELOPMEMT_MODE = "org.eclipse.rap.rwt.developmentMode";
   public static final String TEXT_SIZE_STORE_SIZE = "org.eclipse.rap.rwt.textSizeStoreSize";
 
+  /*
+   * Enables tracking of changed widgets, so that the preserve, render and clear steps of a
+   * request only visit the widgets that have actually been touched.
+   */
+  public static final String CHANGE_TRACKING = "org.eclipse.rap.rwt.changeTracking";
+
+  /*
+   * Enables encoding of protocol operations while they are rendered, instead of collecting the
+   * complete response message in memory first.
+   */
+  public static final String STREAMING_PROTOCOL = "org.eclipse.rap.rwt.streamingProtocol";
+
+  /*
+   * Selects the threads that execute the UI code of the UI sessions when using the
+   * RWTLifeCycle, either "platform" (default) or "virtual". Virtual threads require Java 24 or
+   * later, otherwise platform threads are used.
+   */
+  public static final String UI_THREAD_MODEL = "org.eclipse.rap.rwt.uiThreadModel";
+
+  /*
+   * The stack size in bytes of platform UI threads, 0 (default) uses the stack size of the VM.
+   */
+  public static final String UI_THREAD_STACK_SIZE = "org.eclipse.rap.rwt.uiThreadStackSize";
+
+  /*
+   * The file that the measured text sizes are saved to when an application is stopped and
+   * restored from when it is started. No file (default) disables the snapshot.
+   */
+  public static final String TEXT_SIZE_SNAPSHOT_FILE = "org.eclipse.rap.rwt.textSizeSnapshotFile";
+
+  /*
+   * The file that the theme definitions and appearances of the themeable widgets are restored
+   * from when an application is started, and saved to if they had to be read. No file (default)
+   * disables the snapshot.
+   */
+  public static final String THEME_SNAPSHOT_FILE = "org.eclipse.rap.rwt.themeSnapshotFile";
+
+  /*
+   * Enables serving of registered resources from memory, including precompressed variants and
+   * entity tags. Requires the ResourceServlet to be mapped to the resources path.
+   */
+  public static final String RESOURCE_CACHE = "org.eclipse.rap.rwt.resourceCache";
+
+  /*
+   * The maximum number of bytes that the resource cache holds in memory, defaults to 64 MB.
+   * Resources that do not fit are streamed from disk.
+   */
+  public static final String RESOURCE_CACHE_MEMORY_SIZE
+    = "org.eclipse.rap.rwt.resourceCacheMemorySize";
+
+  /*
+   * Enables gzip compression of UI responses for clients that accept it.
+   */
+  public static final String RESPONSE_COMPRESSION = "org.eclipse.rap.rwt.responseCompression";
+
+  /*
+   * The minimum size in bytes of a UI response to be compressed, defaults to 1024.
+   */
+  public static final String RESPONSE_COMPRESSION_THRESHOLD
+    = "org.eclipse.rap.rwt.responseCompressionThreshold";
+
+  /*
+   * The deflate level (1-9) used to compress UI responses, defaults to 1 (best speed).
+   */
+  public static final String RESPONSE_COMPRESSION_LEVEL
+    = "org.eclipse.rap.rwt.responseCompressionLevel";
+
+  /*
+   * Selects how UI sessions are replicated in session failover mode, either "attribute"
+   * (default), which lets the servlet container replicate the complete UI session after each
+   * request, or "delta", which writes the changes of each request to a session store.
+   */
+  public static final String SESSION_REPLICATION = "org.eclipse.rap.rwt.sessionReplication";
+
+  /*
+   * The fully qualified name of the SessionStore implementation used for delta replication,
+   * defaults to a store that keeps the sessions in memory.
+   */
+  public static final String SESSION_STORE = "org.eclipse.rap.rwt.sessionStore";
+
+  /*
+   * The directory of a file based session store for delta replication, shared by all nodes of
+   * the cluster. Ignored if a session store class is given.
+   */
+  public static final String SESSION_STORE_DIRECTORY = "org.eclipse.rap.rwt.sessionStoreDirectory";
+
+  /*
+   * The number of replicated requests after which a full snapshot of a UI session is written
+   * instead of a delta, defaults to 50.
+   */
+  public static final String SESSION_SNAPSHOT_INTERVAL
+    = "org.eclipse.rap.rwt.sessionSnapshotInterval";
+
+  /*
+   * Enables rendering of the item texts of tables and trees as one columnar "rows" property of
+   * the parent per request, instead of a "texts" property per item.
+   */
+  public static final String ROW_RENDERING = "org.eclipse.rap.rwt.rowRendering";
+
+  /*
+   * The time in milliseconds to wait before the client is woken up for runnables passed to
+   * Display#asyncExec(), so that runnables added in the meantime are executed with the same
+   * request. Defaults to 0, which wakes the client immediately.
+   */
+  public static final String ASYNC_EXEC_WAKE_DELAY = "org.eclipse.rap.rwt.asyncExecWakeDelay";
+
+  /*
+   * Enables counting the lookups of themed values, in total and per request. The counts are
+   * available from ThemeManager#getLookupStatistics().
+   */
+  public static final String THEME_LOOKUP_STATISTICS = "org.eclipse.rap.rwt.themeLookupStatistics";
+
   /*
    * Used in conjunction with <code>WidgetUtil#CUSTOM_WIDGET_ID</code>,
    * to activate support for custom widget ids.</p>
@@ -40,6 +152,78 @@ public final class RWTProperties {
     return getIntProperty( TEXT_SIZE_STORE_SIZE, defaultValue );
   }
 
+  public static boolean isChangeTrackingEnabled() {
+    return getBooleanProperty( CHANGE_TRACKING, false );
+  }
+
+  public static boolean isStreamingProtocolEnabled() {
+    return getBooleanProperty( STREAMING_PROTOCOL, false );
+  }
+
+  public static String getUIThreadModel() {
+    return System.getProperty( UI_THREAD_MODEL );
+  }
+
+  public static long getUIThreadStackSize() {
+    return getIntProperty( UI_THREAD_STACK_SIZE, 0 );
+  }
+
+  public static String getTextSizeSnapshotFile() {
+    return System.getProperty( TEXT_SIZE_SNAPSHOT_FILE );
+  }
+
+  public static String getThemeSnapshotFile() {
+    return System.getProperty( THEME_SNAPSHOT_FILE );
+  }
+
+  public static boolean isResourceCacheEnabled() {
+    return getBooleanProperty( RESOURCE_CACHE, false );
+  }
+
+  public static int getResourceCacheMemorySize( int defaultValue ) {
+    return getIntProperty( RESOURCE_CACHE_MEMORY_SIZE, defaultValue );
+  }
+
+  public static boolean isResponseCompressionEnabled() {
+    return getBooleanProperty( RESPONSE_COMPRESSION, false );
+  }
+
+  public static int getResponseCompressionThreshold( int defaultValue ) {
+    return getIntProperty( RESPONSE_COMPRESSION_THRESHOLD, defaultValue );
+  }
+
+  public static int getResponseCompressionLevel( int defaultValue ) {
+    return getIntProperty( RESPONSE_COMPRESSION_LEVEL, defaultValue );
+  }
+
+  public static boolean isDeltaSessionReplicationEnabled() {
+    return "delta".equalsIgnoreCase( System.getProperty( SESSION_REPLICATION ) );
+  }
+
+  public static String getSessionStore() {
+    return System.getProperty( SESSION_STORE );
+  }
+
+  public static String getSessionStoreDirectory() {
+    return System.getProperty( SESSION_STORE_DIRECTORY );
+  }
+
+  public static int getSessionSnapshotInterval( int defaultValue ) {
+    return getIntProperty( SESSION_SNAPSHOT_INTERVAL, defaultValue );
+  }
+
+  public static boolean isRowRenderingEnabled() {
+    return getBooleanProperty( ROW_RENDERING, false );
+  }
+
+  public static int getAsyncExecWakeDelay( int defaultValue ) {
+    return getIntProperty( ASYNC_EXEC_WAKE_DELAY, defaultValue );
+  }
+
+  public static boolean isThemeLookupStatisticsEnabled() {
+    return getBooleanProperty( THEME_LOOKUP_STATISTICS, false );
+  }
+
   public static boolean getBooleanProperty( String name, boolean defaultValue ) {
     String value = System.getProperty( name );
     return value == null ? defaultValue : value.equalsIgnoreCase( "true" );
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 Frank Appel and others.
+ * Copyright (c) 2011, 2017 Frank Appel and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,8 @@
  ******************************************************************************/
 package org.eclipse.rap.rwt.internal.application;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -23,6 +25,7 @@ import javax.servlet.ServletContext;
 
 import org.eclipse.rap.rwt.application.ApplicationConfiguration;
 import org.eclipse.rap.rwt.application.ExceptionHandler;
+import org.eclipse.rap.rwt.internal.RWTProperties;
 import org.eclipse.rap.rwt.internal.client.ClientSelector;
 import org.eclipse.rap.rwt.internal.lifecycle.EntryPointManager;
 import org.eclipse.rap.rwt.internal.lifecycle.LifeCycleFactory;
@@ -39,12 +42,16 @@ import org.eclipse.rap.rwt.internal.serverpush.ServerPushServiceHandler;
 import org.eclipse.rap.rwt.internal.service.ApplicationStoreImpl;
 import org.eclipse.rap.rwt.internal.service.LifeCycleServiceHandler;
 import org.eclipse.rap.rwt.internal.service.RWTMessageHandler;
+import org.eclipse.rap.rwt.internal.service.ResponseCompression;
 import org.eclipse.rap.rwt.internal.service.ServiceManagerImpl;
+import org.eclipse.rap.rwt.internal.service.ServletLog;
 import org.eclipse.rap.rwt.internal.service.SettingStoreManager;
 import org.eclipse.rap.rwt.internal.service.StartupPage;
 import org.eclipse.rap.rwt.internal.textsize.ProbeStore;
+import org.eclipse.rap.rwt.internal.textsize.TextSizeSnapshot;
 import org.eclipse.rap.rwt.internal.textsize.TextSizeStorage;
 import org.eclipse.rap.rwt.internal.theme.ThemeManager;
+import org.eclipse.rap.rwt.internal.theme.ThemeSnapshot;
 import org.eclipse.rap.rwt.internal.util.ParamCheck;
 import org.eclipse.rap.rwt.internal.util.SerializableLock;
 import org.eclipse.rap.rwt.service.ApplicationContext;
@@ -61,6 +68,7 @@ import org.eclipse.swt.internal.graphics.ImageFactory;
 import org.eclipse.swt.internal.graphics.InternalImageFactory;
 import org.eclipse.swt.internal.graphics.ResourceFactory;
 import org.eclipse.swt.internal.widgets.DisplaysHolder;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
 
 
 public class ApplicationContextImpl implements ApplicationContext {
@@ -90,6 +98,7 @@ public class ApplicationContextImpl implements ApplicationContext {
   private final EntryPointManager entryPointManager;
   private final SettingStoreManager settingStoreManager;
   private final ServiceManagerImpl serviceManager;
+  private final ResponseCompression responseCompression;
   private final ResourceRegistry resourceRegistry;
   private final ApplicationStoreImpl applicationStore;
   private final ResourceFactory resourceFactory;
@@ -99,6 +108,7 @@ public class ApplicationContextImpl implements ApplicationContext {
   private final FontDataFactory fontDataFactory;
   private final StartupPage startupPage;
   private final DisplaysHolder displaysHolder;
+  private final TimerExecExecutor timerExecExecutor;
   private final TextSizeStorage textSizeStorage;
   private final ProbeStore probeStore;
   private final ServletContext servletContext;
@@ -131,8 +141,10 @@ public class ApplicationContextImpl implements ApplicationContext {
     settingStoreManager = new SettingStoreManager();
     resourceRegistry = new ResourceRegistry( getResourceManager() );
     startupPage = new StartupPage( this );
+    responseCompression = new ResponseCompression();
     serviceManager = createServiceManager();
     displaysHolder = new DisplaysHolder();
+    timerExecExecutor = new TimerExecExecutor();
     textSizeStorage = new TextSizeStorage();
     probeStore = new ProbeStore( textSizeStorage );
     clientSelector = new ClientSelector();
@@ -332,6 +344,14 @@ public class ApplicationContextImpl implements ApplicationContext {
     return displaysHolder;
   }
 
+  public ResponseCompression getResponseCompression() {
+    return responseCompression;
+  }
+
+  public TimerExecExecutor getTimerExecExecutor() {
+    return timerExecExecutor;
+  }
+
   public TextSizeStorage getTextSizeStorage() {
     return textSizeStorage;
   }
@@ -367,6 +387,7 @@ public class ApplicationContextImpl implements ApplicationContext {
   }
 
   void doActivate() {
+    timerExecExecutor.activate();
     themeManager.initialize();
     applicationConfiguration.configure( new ApplicationImpl( this, applicationConfiguration ) );
     resourceDirectory.configure( getContextDirectory() );
@@ -375,7 +396,8 @@ public class ApplicationContextImpl implements ApplicationContext {
     startupPage.activate();
     lifeCycleFactory.activate();
     // Note: order is crucial here
-    themeManager.activate();
+    activateThemeManager();
+    loadTextSizeSnapshot();
     if( !skipResoureRegistration ) {
       ClientResources clientResources = new ClientResources( this );
       clientResources.registerResources();
@@ -387,7 +409,9 @@ public class ApplicationContextImpl implements ApplicationContext {
   void doDeactivate() {
     startupPage.deactivate();
     lifeCycleFactory.deactivate();
+    timerExecExecutor.shutdown();
     serviceManager.clear();
+    saveTextSizeSnapshot();
     themeManager.deactivate();
     if( !skipResoureDeletion ) {
       resourceDirectory.deleteDirectory();
@@ -401,7 +425,9 @@ public class ApplicationContextImpl implements ApplicationContext {
   }
 
   private ServiceManagerImpl createServiceManager() {
-    return new ServiceManagerImpl( new LifeCycleServiceHandler( messageChainReference ) );
+    LifeCycleServiceHandler handler
+      = new LifeCycleServiceHandler( messageChainReference, responseCompression );
+    return new ServiceManagerImpl( handler );
   }
 
   private String getContextDirectory() {
@@ -424,6 +450,55 @@ public class ApplicationContextImpl implements ApplicationContext {
     }
   }
 
+  private void activateThemeManager() {
+    String fileName = RWTProperties.getThemeSnapshotFile();
+    if( fileName == null ) {
+      themeManager.activate();
+    } else {
+      ThemeSnapshot snapshot = new ThemeSnapshot( new File( fileName ) );
+      try {
+        snapshot.load();
+      } catch( IOException exception ) {
+        ServletLog.log( "Could not restore theme snapshot, reading theme resources.", exception );
+      }
+      themeManager.activate( snapshot );
+      if( snapshot.isModified() ) {
+        try {
+          snapshot.save();
+        } catch( IOException exception ) {
+          ServletLog.log( "Could not save theme snapshot.", exception );
+        }
+      }
+    }
+  }
+
+  private void loadTextSizeSnapshot() {
+    TextSizeSnapshot snapshot = createTextSizeSnapshot();
+    if( snapshot != null ) {
+      try {
+        snapshot.load( TextSizeSnapshot.computeFingerprint( themeManager ) );
+      } catch( IOException exception ) {
+        ServletLog.log( "Could not restore text size snapshot, starting empty.", exception );
+      }
+    }
+  }
+
+  private void saveTextSizeSnapshot() {
+    TextSizeSnapshot snapshot = createTextSizeSnapshot();
+    if( snapshot != null ) {
+      try {
+        snapshot.save( TextSizeSnapshot.computeFingerprint( themeManager ) );
+      } catch( IOException exception ) {
+        ServletLog.log( "Could not save text size snapshot.", exception );
+      }
+    }
+  }
+
+  private TextSizeSnapshot createTextSizeSnapshot() {
+    String fileName = RWTProperties.getTextSizeSnapshotFile();
+    return fileName == null ? null : new TextSizeSnapshot( textSizeStorage, new File( fileName ) );
+  }
+
   private void fireBeforeDestroy() {
     ApplicationContextEvent event = new ApplicationContextEvent( this );
     for( ApplicationContextListener listener : copyListeners() ) {
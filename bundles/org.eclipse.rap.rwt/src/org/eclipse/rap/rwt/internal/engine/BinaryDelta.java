@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+
+/*
+ * Encodes the difference between two byte arrays as a sequence of copy and insert operations.
+ * Both arrays are split into chunks at content-defined boundaries, found with a rolling hash over
+ * a small window. An insertion or removal therefore only affects the chunks around it, the
+ * following chunks are found again at their new position. Chunks of the target that also occur
+ * in the base are encoded as copies, all others are inserted literally.
+ */
+final class BinaryDelta {
+
+  private static final int MIN_CHUNK_SIZE = 64;
+  private static final int MAX_CHUNK_SIZE = 4096;
+  // the hash is shifted by one bit per byte, its top bits only depend on the last 32 bytes
+  private static final int WINDOW_SIZE = 32;
+  // testing nine bits results in chunks of 512 bytes on average
+  private static final int BOUNDARY_MASK = 0xff800000;
+  private static final int[] GEAR = createGearTable();
+  private static final int COPY = 0;
+  private static final int INSERT = 1;
+
+  static Index createIndex( byte[] base ) {
+    Index index = new Index( base );
+    int start = 0;
+    while( start < base.length ) {
+      int end = findBoundary( base, start );
+      index.add( start, end - start );
+      start = end;
+    }
+    return index;
+  }
+
+  static byte[] create( Index base, byte[] target ) {
+    Encoder encoder = new Encoder( target );
+    int start = 0;
+    while( start < target.length ) {
+      int end = findBoundary( target, start );
+      int offset = base.find( target, start, end - start );
+      if( offset >= 0 ) {
+        encoder.copy( offset, end - start );
+      } else {
+        encoder.insert( start, end - start );
+      }
+      start = end;
+    }
+    return encoder.finish();
+  }
+
+  static byte[] apply( byte[] base, byte[] delta ) throws IOException {
+    Decoder decoder = new Decoder( delta );
+    byte[] result = new byte[ decoder.readInt() ];
+    int position = 0;
+    while( position < result.length ) {
+      int operation = decoder.readByte();
+      if( operation == COPY ) {
+        int offset = decoder.readInt();
+        int length = decoder.readLength( result.length - position );
+        if( offset > base.length - length ) {
+          throw new IOException( "Corrupt delta, copy exceeds base" );
+        }
+        System.arraycopy( base, offset, result, position, length );
+        position += length;
+      } else if( operation == INSERT ) {
+        int length = decoder.readLength( result.length - position );
+        decoder.readBytes( result, position, length );
+        position += length;
+      } else {
+        throw new IOException( "Corrupt delta, unknown operation: " + operation );
+      }
+    }
+    if( !decoder.isFinished() ) {
+      throw new IOException( "Corrupt delta, unexpected content" );
+    }
+    return result;
+  }
+
+  static int findBoundary( byte[] data, int start ) {
+    int end = Math.min( data.length, start + MAX_CHUNK_SIZE );
+    if( end - start <= MIN_CHUNK_SIZE ) {
+      return end;
+    }
+    int hash = 0;
+    for( int i = start + MIN_CHUNK_SIZE - WINDOW_SIZE; i < end; i++ ) {
+      hash = ( hash << 1 ) + GEAR[ data[ i ] & 0xff ];
+      if( i >= start + MIN_CHUNK_SIZE - 1 && ( hash & BOUNDARY_MASK ) == 0 ) {
+        return i + 1;
+      }
+    }
+    return end;
+  }
+
+  private static long fingerprint( byte[] data, int offset, int length ) {
+    // FNV-1a, matches are verified by comparing the content
+    long hash = 0xcbf29ce484222325L;
+    for( int i = offset; i < offset + length; i++ ) {
+      hash ^= data[ i ] & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static int[] createGearTable() {
+    // a fixed seed makes the chunk boundaries reproducible
+    Random random = new Random( 0x5eed );
+    int[] result = new int[ 256 ];
+    for( int i = 0; i < result.length; i++ ) {
+      result[ i ] = random.nextInt();
+    }
+    return result;
+  }
+
+  private BinaryDelta() {
+    // prevent instantiation
+  }
+
+  static final class Index {
+
+    private final byte[] data;
+    private final Map<Long, Integer> chunks;
+
+    private Index( byte[] data ) {
+      this.data = data;
+      chunks = new HashMap<>();
+    }
+
+    byte[] getData() {
+      return data;
+    }
+
+    private void add( int offset, int length ) {
+      Long key = Long.valueOf( fingerprint( data, offset, length ) );
+      if( !chunks.containsKey( key ) ) {
+        chunks.put( key, Integer.valueOf( offset ) );
+      }
+    }
+
+    private int find( byte[] target, int offset, int length ) {
+      Integer candidate = chunks.get( Long.valueOf( fingerprint( target, offset, length ) ) );
+      if( candidate != null && matches( candidate.intValue(), target, offset, length ) ) {
+        return candidate.intValue();
+      }
+      return -1;
+    }
+
+    private boolean matches( int position, byte[] target, int offset, int length ) {
+      if( position + length > data.length ) {
+        return false;
+      }
+      for( int i = 0; i < length; i++ ) {
+        if( data[ position + i ] != target[ offset + i ] ) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+  }
+
+  private static final class Encoder {
+
+    private final byte[] target;
+    private final ByteArrayOutputStream output;
+    private int copyOffset;
+    private int copyLength;
+    private int insertOffset;
+    private int insertLength;
+
+    Encoder( byte[] target ) {
+      this.target = target;
+      output = new ByteArrayOutputStream();
+      writeInt( target.length );
+    }
+
+    void copy( int offset, int length ) {
+      flushInsert();
+      if( copyLength > 0 && copyOffset + copyLength == offset ) {
+        copyLength += length;
+      } else {
+        flushCopy();
+        copyOffset = offset;
+        copyLength = length;
+      }
+    }
+
+    void insert( int offset, int length ) {
+      flushCopy();
+      // inserted chunks are adjacent in the target
+      if( insertLength == 0 ) {
+        insertOffset = offset;
+      }
+      insertLength += length;
+    }
+
+    byte[] finish() {
+      flushCopy();
+      flushInsert();
+      return output.toByteArray();
+    }
+
+    private void flushCopy() {
+      if( copyLength > 0 ) {
+        output.write( COPY );
+        writeInt( copyOffset );
+        writeInt( copyLength );
+        copyLength = 0;
+      }
+    }
+
+    private void flushInsert() {
+      if( insertLength > 0 ) {
+        output.write( INSERT );
+        writeInt( insertLength );
+        output.write( target, insertOffset, insertLength );
+        insertLength = 0;
+      }
+    }
+
+    private void writeInt( int value ) {
+      int remaining = value;
+      while( ( remaining & ~0x7f ) != 0 ) {
+        output.write( ( remaining & 0x7f ) | 0x80 );
+        remaining >>>= 7;
+      }
+      output.write( remaining );
+    }
+
+  }
+
+  private static final class Decoder {
+
+    private final byte[] delta;
+    private int position;
+
+    Decoder( byte[] delta ) {
+      this.delta = delta;
+    }
+
+    boolean isFinished() {
+      return position == delta.length;
+    }
+
+    int readByte() throws IOException {
+      if( position >= delta.length ) {
+        throw new IOException( "Corrupt delta, unexpected end" );
+      }
+      return delta[ position++ ] & 0xff;
+    }
+
+    int readInt() throws IOException {
+      int result = 0;
+      for( int shift = 0; shift < 32; shift += 7 ) {
+        int value = readByte();
+        result |= ( value & 0x7f ) << shift;
+        if( ( value & 0x80 ) == 0 ) {
+          if( result < 0 ) {
+            break;
+          }
+          return result;
+        }
+      }
+      throw new IOException( "Corrupt delta, invalid number" );
+    }
+
+    int readLength( int maximum ) throws IOException {
+      int result = readInt();
+      if( result == 0 || result > maximum ) {
+        throw new IOException( "Corrupt delta, invalid length: " + result );
+      }
+      return result;
+    }
+
+    void readBytes( byte[] buffer, int offset, int length ) throws IOException {
+      if( length > delta.length - position ) {
+        throw new IOException( "Corrupt delta, unexpected end" );
+      }
+      System.arraycopy( delta, position, buffer, offset, length );
+      position += length;
+    }
+
+  }
+
+}
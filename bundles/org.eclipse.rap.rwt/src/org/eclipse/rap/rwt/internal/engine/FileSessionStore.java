@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.rap.rwt.internal.util.ParamCheck;
+
+
+/**
+ * A session store that writes each record to a file in a directory, which can be shared by the
+ * nodes of a cluster, e.g. on a network file system. Every key has its own subdirectory, the
+ * records are named by their version. Files are written under a temporary name and moved into
+ * place, so that readers never see incomplete records.
+ * <p>
+ * This class is not intended to be used by clients.
+ * </p>
+ */
+public class FileSessionStore implements SessionStore {
+
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+  private static final String DELTA_SUFFIX = ".delta";
+  private static final String TEMP_SUFFIX = ".tmp";
+  // a snapshot may remove older records while they are read, in this case reading is repeated
+  private static final int MAX_READ_ATTEMPTS = 3;
+
+  private final File directory;
+
+  public FileSessionStore( File directory ) {
+    ParamCheck.notNull( directory, "directory" );
+    this.directory = directory;
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  @Override
+  public void write( String key, SessionRecord record ) throws IOException {
+    Path keyDirectory = getKeyDirectory( key ).toPath();
+    Files.createDirectories( keyDirectory );
+    String name = getFileName( record.getVersion(), record.isSnapshot() );
+    Path tempFile = Files.createTempFile( keyDirectory, "record", TEMP_SUFFIX );
+    try {
+      Files.write( tempFile, record.getData() );
+      move( tempFile, keyDirectory.resolve( name ) );
+    } finally {
+      Files.deleteIfExists( tempFile );
+    }
+    if( record.isSnapshot() ) {
+      for( String fileName : listRecords( keyDirectory.toFile() ) ) {
+        if( parseVersion( fileName ) < record.getVersion() ) {
+          Files.deleteIfExists( keyDirectory.resolve( fileName ) );
+        }
+      }
+    }
+  }
+
+  @Override
+  public List<SessionRecord> read( String key ) throws IOException {
+    File keyDirectory = getKeyDirectory( key );
+    for( int attempt = 1; ; attempt++ ) {
+      try {
+        return readRecords( keyDirectory );
+      } catch( NoSuchFileException exception ) {
+        if( attempt == MAX_READ_ATTEMPTS ) {
+          throw exception;
+        }
+      }
+    }
+  }
+
+  @Override
+  public long getVersion( String key ) {
+    String[] names = listRecords( getKeyDirectory( key ) );
+    return names.length == 0 ? -1 : parseVersion( names[ names.length - 1 ] );
+  }
+
+  @Override
+  public void remove( String key ) throws IOException {
+    delete( getKeyDirectory( key ) );
+  }
+
+  @Override
+  public void removeExpired( long time ) throws IOException {
+    File[] keyDirectories = directory.listFiles();
+    if( keyDirectories != null ) {
+      for( File keyDirectory : keyDirectories ) {
+        if( keyDirectory.isDirectory() && getLastWrite( keyDirectory ) < time ) {
+          delete( keyDirectory );
+        }
+      }
+    }
+  }
+
+  private List<SessionRecord> readRecords( File keyDirectory ) throws IOException {
+    String[] names = listRecords( keyDirectory );
+    int start = names.length;
+    while( start > 0 && !names[ start - 1 ].endsWith( SNAPSHOT_SUFFIX ) ) {
+      start--;
+    }
+    if( start == 0 ) {
+      return Collections.emptyList();
+    }
+    List<SessionRecord> result = new ArrayList<>();
+    for( int i = start - 1; i < names.length; i++ ) {
+      byte[] data = Files.readAllBytes( new File( keyDirectory, names[ i ] ).toPath() );
+      boolean snapshot = names[ i ].endsWith( SNAPSHOT_SUFFIX );
+      result.add( new SessionRecord( parseVersion( names[ i ] ), snapshot, data ) );
+    }
+    return result;
+  }
+
+  private File getKeyDirectory( String key ) {
+    // the key may contain characters that are not allowed in file names
+    byte[] bytes = key.getBytes( UTF_8 );
+    StringBuilder name = new StringBuilder( bytes.length * 2 );
+    for( byte value : bytes ) {
+      name.append( Character.forDigit( ( value >> 4 ) & 0xf, 16 ) );
+      name.append( Character.forDigit( value & 0xf, 16 ) );
+    }
+    return new File( directory, name.toString() );
+  }
+
+  private static String[] listRecords( File keyDirectory ) {
+    String[] names = keyDirectory.list();
+    if( names == null ) {
+      return new String[ 0 ];
+    }
+    List<String> result = new ArrayList<>();
+    for( String name : names ) {
+      if( name.endsWith( SNAPSHOT_SUFFIX ) || name.endsWith( DELTA_SUFFIX ) ) {
+        result.add( name );
+      }
+    }
+    String[] sorted = result.toArray( new String[ result.size() ] );
+    // the version is encoded with a fixed number of digits, the natural order is the version order
+    Arrays.sort( sorted );
+    return sorted;
+  }
+
+  private static long getLastWrite( File keyDirectory ) {
+    long result = keyDirectory.lastModified();
+    File[] files = keyDirectory.listFiles();
+    if( files != null ) {
+      for( File file : files ) {
+        result = Math.max( result, file.lastModified() );
+      }
+    }
+    return result;
+  }
+
+  private static String getFileName( long version, boolean snapshot ) {
+    String suffix = snapshot ? SNAPSHOT_SUFFIX : DELTA_SUFFIX;
+    return String.format( "%016x", Long.valueOf( version ) ) + suffix;
+  }
+
+  private static long parseVersion( String fileName ) {
+    return Long.parseLong( fileName.substring( 0, fileName.indexOf( '.' ) ), 16 );
+  }
+
+  private static void move( Path source, Path target ) throws IOException {
+    try {
+      Files.move( source, target, StandardCopyOption.ATOMIC_MOVE );
+    } catch( @SuppressWarnings( "unused" ) AtomicMoveNotSupportedException exception ) {
+      Files.move( source, target, StandardCopyOption.REPLACE_EXISTING );
+    }
+  }
+
+  private static void delete( File keyDirectory ) throws IOException {
+    File[] files = keyDirectory.listFiles();
+    if( files != null ) {
+      for( File file : files ) {
+        Files.deleteIfExists( file.toPath() );
+      }
+    }
+    Files.deleteIfExists( keyDirectory.toPath() );
+  }
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * A session store that keeps the records in memory. It is shared by the applications of the same
+ * VM only and is meant for testing and for single node setups that want to survive the loss of
+ * the HTTP session attributes.
+ * <p>
+ * This class is not intended to be used by clients.
+ * </p>
+ */
+public class InMemorySessionStore implements SessionStore {
+
+  private final ConcurrentMap<String, Entry> entries;
+
+  public InMemorySessionStore() {
+    entries = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void write( String key, SessionRecord record ) {
+    boolean written = false;
+    while( !written ) {
+      Entry entry = entries.get( key );
+      if( entry == null ) {
+        written = entries.putIfAbsent( key, new Entry( null, record ) ) == null;
+      } else {
+        written = entries.replace( key, entry, new Entry( entry, record ) );
+      }
+    }
+  }
+
+  @Override
+  public List<SessionRecord> read( String key ) {
+    Entry entry = entries.get( key );
+    return entry == null ? Collections.<SessionRecord>emptyList() : entry.records;
+  }
+
+  @Override
+  public long getVersion( String key ) {
+    Entry entry = entries.get( key );
+    return entry == null ? -1 : entry.records.get( entry.records.size() - 1 ).getVersion();
+  }
+
+  @Override
+  public void remove( String key ) {
+    entries.remove( key );
+  }
+
+  @Override
+  public void removeExpired( long time ) {
+    for( Map.Entry<String, Entry> entry : entries.entrySet() ) {
+      if( entry.getValue().lastWrite < time ) {
+        entries.remove( entry.getKey(), entry.getValue() );
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    final List<SessionRecord> records;
+    final long lastWrite;
+
+    Entry( Entry previous, SessionRecord record ) {
+      List<SessionRecord> list = new ArrayList<>();
+      if( previous != null && !record.isSnapshot() ) {
+        list.addAll( previous.records );
+      }
+      list.add( record );
+      records = Collections.unmodifiableList( list );
+      lastWrite = System.currentTimeMillis();
+    }
+
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 EclipseSource and others.
+ * Copyright (c) 2011, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,8 +30,24 @@ import org.eclipse.rap.rwt.service.UISession;
 
 public class RWTClusterSupport implements Filter {
 
+  private final SessionReplicator replicator;
+
+  public RWTClusterSupport() {
+    this( SessionReplicator.create() );
+  }
+
+  /*
+   * The replicator may be null, the servlet container replicates the UI sessions in this case.
+   */
+  RWTClusterSupport( SessionReplicator replicator ) {
+    this.replicator = replicator;
+  }
+
   @Override
   public void init( FilterConfig filterConfig ) {
+    if( replicator != null ) {
+      replicator.attachToServletContext( filterConfig.getServletContext() );
+    }
   }
 
   @Override
@@ -47,15 +63,18 @@ public class RWTClusterSupport implements Filter {
   public void destroy() {
   }
 
-  private static void beforeService( ServletRequest request ) {
+  private void beforeService( ServletRequest request ) {
     HttpSession httpSession = getHttpSession( request );
     if( httpSession != null ) {
       beforeService( httpSession, getConnectionId( request ) );
     }
   }
 
-  private static void beforeService( HttpSession httpSession, String connectionId ) {
+  private void beforeService( HttpSession httpSession, String connectionId ) {
     UISessionImpl uiSession = UISessionImpl.getInstanceFromSession( httpSession, connectionId );
+    if( replicator != null ) {
+      uiSession = restoreUISession( httpSession, connectionId, uiSession );
+    }
     if( uiSession != null ) {
       uiSession.setHttpSession( httpSession );
       attachApplicationContext( uiSession );
@@ -69,15 +88,59 @@ public class RWTClusterSupport implements Filter {
     ( ( UISessionImpl )uiSession ).setApplicationContext( applicationContext );
   }
 
-  private static void afterService( ServletRequest request ) {
+  private UISessionImpl restoreUISession( HttpSession httpSession,
+                                          String connectionId,
+                                          UISessionImpl uiSession )
+  {
+    String key = getReplicationKey( httpSession, connectionId );
+    try {
+      UISessionImpl restored = replicator.restore( key, uiSession );
+      if( restored != null ) {
+        restored.setHttpSession( httpSession );
+        if( uiSession != null ) {
+          uiSession.replaceWith( restored );
+        } else {
+          restored.attachToHttpSession();
+        }
+        return restored;
+      }
+    } catch( IOException | ClassNotFoundException exception ) {
+      // continue with the UI session replicated by the servlet container, if any
+      String message = "Failed to restore replicated UI session: " + key;
+      httpSession.getServletContext().log( message, exception );
+    }
+    return uiSession;
+  }
+
+  private void afterService( ServletRequest request ) {
     HttpSession httpSession = getHttpSession( request );
     if( httpSession != null ) {
       afterService( httpSession, getConnectionId( request ) );
     }
   }
 
-  private static void afterService( HttpSession httpSession, String connectionId ) {
-    markSessionChanged( httpSession, connectionId );
+  private void afterService( HttpSession httpSession, String connectionId ) {
+    if( replicator != null ) {
+      replicateSession( httpSession, connectionId );
+    } else {
+      markSessionChanged( httpSession, connectionId );
+    }
+  }
+
+  private void replicateSession( HttpSession httpSession, String connectionId ) {
+    UISessionImpl uiSession = UISessionImpl.getInstanceFromSession( httpSession, connectionId );
+    String key = getReplicationKey( httpSession, connectionId );
+    try {
+      if( uiSession != null && uiSession.isBound() ) {
+        replicator.replicate( key, uiSession );
+      } else {
+        // a UI session that has been shut down must not be restored by a later request
+        replicator.remove( key, uiSession );
+      }
+    } catch( IOException exception ) {
+      String message = "Failed to replicate UI session: " + key;
+      httpSession.getServletContext().log( message, exception );
+    }
   }
 
   private static void markSessionChanged( HttpSession httpSession, String connectionId ) {
@@ -93,6 +156,11 @@ public class RWTClusterSupport implements Filter {
     }
   }
 
+  private static String getReplicationKey( HttpSession httpSession, String connectionId ) {
+    // the session id is part of the key, a connection id alone must not give access to a session
+    return httpSession.getId() + ":" + ( connectionId == null ? "" : connectionId );
+  }
+
   private static HttpSession getHttpSession( ServletRequest request ) {
     return ( ( HttpServletRequest )request ).getSession( false );
   }
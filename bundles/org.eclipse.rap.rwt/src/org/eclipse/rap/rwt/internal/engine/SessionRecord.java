@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import org.eclipse.rap.rwt.internal.util.ParamCheck;
+
+
+/**
+ * A snapshot or a delta of the replicated state of a UI session.
+ * <p>
+ * This class is not intended to be used by clients.
+ * </p>
+ */
+public final class SessionRecord {
+
+  private final long version;
+  private final boolean snapshot;
+  private final byte[] data;
+
+  public SessionRecord( long version, boolean snapshot, byte[] data ) {
+    ParamCheck.notNull( data, "data" );
+    this.version = version;
+    this.snapshot = snapshot;
+    this.data = data;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public boolean isSnapshot() {
+    return snapshot;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+
+}
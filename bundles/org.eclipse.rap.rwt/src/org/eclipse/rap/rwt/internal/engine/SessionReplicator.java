@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.service.UISessionImpl;
+import org.eclipse.rap.rwt.internal.util.ClassUtil;
+import org.eclipse.rap.rwt.internal.util.ParamCheck;
+
+
+/**
+ * Replicates UI sessions by writing the changes of each request to a session store, instead of
+ * letting the servlet container replicate the complete UI session.
+ * <p>
+ * The UI session is serialized after each request and compared to the state of the previous
+ * request. Only the changed regions of the serialized state are written as a delta, unchanged
+ * regions are referenced. Every <code>snapshotInterval</code> requests a full snapshot is written
+ * to limit the number of deltas that have to be applied when the UI session is restored on
+ * another node. The node keeps the serialized state of the previous request for each of its UI
+ * sessions in memory.
+ * </p>
+ * <p>
+ * This class is not intended to be used by clients.
+ * </p>
+ */
+public class SessionReplicator {
+
+  static final int DEFAULT_SNAPSHOT_INTERVAL = 50;
+  private static final long EXPIRY_CHECK_INTERVAL = 60 * 1000;
+  private static final String ATTR_INSTANCE = SessionReplicator.class.getName() + "#instance";
+
+  private final SessionStore store;
+  private final int snapshotInterval;
+  private final Map<UISessionImpl, State> states;
+  private final AtomicLong lastExpiryCheck;
+  private final AtomicLong replicationCount;
+  private final AtomicLong snapshotCount;
+  private final AtomicLong serializedBytes;
+  private final AtomicLong replicatedBytes;
+
+  public SessionReplicator( SessionStore store, int snapshotInterval ) {
+    ParamCheck.notNull( store, "store" );
+    if( snapshotInterval < 1 ) {
+      throw new IllegalArgumentException( "Invalid snapshot interval: " + snapshotInterval );
+    }
+    this.store = store;
+    this.snapshotInterval = snapshotInterval;
+    // UISessionImpl does not override equals(), the map compares the instances by identity
+    states = Collections.synchronizedMap( new WeakHashMap<UISessionImpl, State>() );
+    lastExpiryCheck = new AtomicLong( System.currentTimeMillis() );
+    replicationCount = new AtomicLong();
+    snapshotCount = new AtomicLong();
+    serializedBytes = new AtomicLong();
+    replicatedBytes = new AtomicLong();
+  }
+
+  /**
+   * Creates a replicator as configured by the system properties, or returns <code>null</code>
+   * if delta replication is not enabled.
+   */
+  public static SessionReplicator create() {
+    SessionReplicator result = null;
+    if( RWTProperties.isDeltaSessionReplicationEnabled() ) {
+      int interval = RWTProperties.getSessionSnapshotInterval( DEFAULT_SNAPSHOT_INTERVAL );
+      result = new SessionReplicator( createStore(), interval );
+    }
+    return result;
+  }
+
+  public static SessionReplicator getFrom( ServletContext servletContext ) {
+    return ( SessionReplicator )servletContext.getAttribute( ATTR_INSTANCE );
+  }
+
+  public void attachToServletContext( ServletContext servletContext ) {
+    servletContext.setAttribute( ATTR_INSTANCE, this );
+  }
+
+  public SessionStore getStore() {
+    return store;
+  }
+
+  /**
+   * Writes the changes of the given UI session since its last replication to the store. Nothing
+   * is written if the serialized state has not changed.
+   */
+  public void replicate( String key, UISessionImpl uiSession ) throws IOException {
+    State state = getState( uiSession );
+    synchronized( state ) {
+      byte[] bytes;
+      // a concurrent request of the UI session must not change it while it is serialized
+      synchronized( uiSession.getRequestLock() ) {
+        bytes = serialize( uiSession );
+      }
+      replicationCount.incrementAndGet();
+      serializedBytes.addAndGet( bytes.length );
+      if( state.index == null || !Arrays.equals( state.index.getData(), bytes ) ) {
+        write( key, state, bytes );
+      }
+    }
+    removeExpired( uiSession.getHttpSession() );
+  }
+
+  /**
+   * Restores the UI session stored under the given key, if the store contains a newer state than
+   * the given instance. The given instance may be <code>null</code>, e.g. if it is missing in the
+   * HTTP session.
+   *
+   * @return the restored UI session or <code>null</code> if the given instance is up to date or
+   *         nothing is stored
+   */
+  public UISessionImpl restore( String key, UISessionImpl uiSession )
+    throws IOException, ClassNotFoundException
+  {
+    long version = store.getVersion( key );
+    if( version < 0 || version <= getVersion( uiSession ) ) {
+      return null;
+    }
+    List<SessionRecord> records = store.read( key );
+    if( records.isEmpty() ) {
+      return null;
+    }
+    byte[] bytes = null;
+    for( SessionRecord record : records ) {
+      byte[] data = inflate( record.getData() );
+      if( record.isSnapshot() ) {
+        bytes = data;
+      } else if( bytes == null ) {
+        throw new IOException( "Missing snapshot for session: " + key );
+      } else {
+        bytes = BinaryDelta.apply( bytes, data );
+      }
+    }
+    UISessionImpl result = ( UISessionImpl )deserialize( bytes );
+    State state = new State();
+    long restoredVersion = records.get( records.size() - 1 ).getVersion();
+    state.update( restoredVersion, BinaryDelta.createIndex( bytes ), records.size() - 1 );
+    states.put( result, state );
+    return result;
+  }
+
+  public void remove( String key, UISessionImpl uiSession ) throws IOException {
+    states.remove( uiSession );
+    store.remove( key );
+  }
+
+  /**
+   * Returns the number of replicated requests.
+   */
+  public long getReplicationCount() {
+    return replicationCount.get();
+  }
+
+  public long getSnapshotCount() {
+    return snapshotCount.get();
+  }
+
+  /**
+   * Returns the total number of bytes of the serialized UI sessions, i.e. the number of bytes
+   * that a complete replication of every request would have transferred.
+   */
+  public long getSerializedBytes() {
+    return serializedBytes.get();
+  }
+
+  /**
+   * Returns the total number of bytes written to the store.
+   */
+  public long getReplicatedBytes() {
+    return replicatedBytes.get();
+  }
+
+  private void write( String key, State state, byte[] bytes ) throws IOException {
+    if( state.index == null ) {
+      // continue after the records written by other nodes, a snapshot replaces them
+      state.version = Math.max( state.version, store.getVersion( key ) );
+    }
+    boolean snapshot = state.index == null || state.deltaCount + 1 >= snapshotInterval;
+    byte[] data = null;
+    if( !snapshot ) {
+      byte[] delta = BinaryDelta.create( state.index, bytes );
+      // a delta of a largely changed state is not worth lengthening the chain of records
+      if( delta.length < bytes.length / 2 ) {
+        data = deflate( delta );
+      } else {
+        snapshot = true;
+      }
+    }
+    if( snapshot ) {
+      data = deflate( bytes );
+    }
+    long version = state.version + 1;
+    store.write( key, new SessionRecord( version, snapshot, data ) );
+    replicatedBytes.addAndGet( data.length );
+    if( snapshot ) {
+      snapshotCount.incrementAndGet();
+    }
+    state.update( version, BinaryDelta.createIndex( bytes ), snapshot ? 0 : state.deltaCount + 1 );
+  }
+
+  private State getState( UISessionImpl uiSession ) {
+    synchronized( states ) {
+      State result = states.get( uiSession );
+      if( result == null ) {
+        result = new State();
+        states.put( uiSession, result );
+      }
+      return result;
+    }
+  }
+
+  private long getVersion( UISessionImpl uiSession ) {
+    State state = uiSession == null ? null : states.get( uiSession );
+    if( state != null ) {
+      synchronized( state ) {
+        return state.version;
+      }
+    }
+    // an instance that this node has neither restored nor replicated is outdated
+    return -1;
+  }
+
+  private void removeExpired( HttpSession httpSession ) throws IOException {
+    long now = System.currentTimeMillis();
+    long lastCheck = lastExpiryCheck.get();
+    if(    httpSession != null
+        && now - lastCheck >= EXPIRY_CHECK_INTERVAL
+        && lastExpiryCheck.compareAndSet( lastCheck, now ) )
+    {
+      int maxInactiveInterval = httpSession.getMaxInactiveInterval();
+      if( maxInactiveInterval > 0 ) {
+        store.removeExpired( now - maxInactiveInterval * 1000L );
+      }
+    }
+  }
+
+  private static SessionStore createStore() {
+    String className = RWTProperties.getSessionStore();
+    if( className != null ) {
+      ClassLoader classLoader = SessionReplicator.class.getClassLoader();
+      return ( SessionStore )ClassUtil.newInstance( classLoader, className );
+    }
+    String directory = RWTProperties.getSessionStoreDirectory();
+    if( directory != null ) {
+      return new FileSessionStore( new File( directory ) );
+    }
+    return new InMemorySessionStore();
+  }
+
+  private static byte[] serialize( UISessionImpl uiSession ) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try( ObjectOutputStream objectOutputStream = new ObjectOutputStream( outputStream ) ) {
+      objectOutputStream.writeObject( uiSession );
+    }
+    return outputStream.toByteArray();
+  }
+
+  private static Object deserialize( byte[] bytes ) throws IOException, ClassNotFoundException {
+    InputStream inputStream = new ByteArrayInputStream( bytes );
+    try( ObjectInputStream objectInputStream = new SessionInputStream( inputStream ) ) {
+      return objectInputStream.readObject();
+    }
+  }
+
+  private static byte[] deflate( byte[] bytes ) {
+    Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+    try {
+      deflater.setInput( bytes );
+      deflater.finish();
+      ByteArrayOutputStream result = new ByteArrayOutputStream( bytes.length / 4 + 64 );
+      byte[] buffer = new byte[ 8192 ];
+      while( !deflater.finished() ) {
+        int length = deflater.deflate( buffer );
+        result.write( buffer, 0, length );
+      }
+      return result.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate( byte[] data ) throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput( data );
+      ByteArrayOutputStream result = new ByteArrayOutputStream( data.length * 4 );
+      byte[] buffer = new byte[ 8192 ];
+      while( !inflater.finished() ) {
+        int length = inflater.inflate( buffer );
+        if( length == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) ) {
+          throw new IOException( "Corrupt session record, unexpected end" );
+        }
+        result.write( buffer, 0, length );
+      }
+      return result.toByteArray();
+    } catch( DataFormatException exception ) {
+      throw new IOException( "Corrupt session record", exception );
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static final class State {
+
+    private long version;
+    private BinaryDelta.Index index;
+    private int deltaCount;
+
+    void update( long version, BinaryDelta.Index index, int deltaCount ) {
+      this.version = version;
+      this.index = index;
+      this.deltaCount = deltaCount;
+    }
+
+  }
+
+  /*
+   * Resolves the classes of the UI session with the context class loader of the request, as the
+   * servlet container does when it deserializes session attributes.
+   */
+  private static final class SessionInputStream extends ObjectInputStream {
+
+    SessionInputStream( InputStream inputStream ) throws IOException {
+      super( inputStream );
+    }
+
+    @Override
+    protected Class<?> resolveClass( ObjectStreamClass description )
+      throws IOException, ClassNotFoundException
+    {
+      ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+      if( classLoader != null ) {
+        try {
+          return Class.forName( description.getName(), false, classLoader );
+        } catch( @SuppressWarnings( "unused" ) ClassNotFoundException exception ) {
+          // fall back to the default resolution
+        }
+      }
+      return super.resolveClass( description );
+    }
+
+  }
+
+}
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import java.io.IOException;
+import java.util.List;
+
+
+/**
+ * Keeps the replicated state of UI sessions where all nodes of a cluster can read it. The state
+ * of a UI session is stored as a sequence of records: a full snapshot, followed by deltas that
+ * each have to be applied to the state restored from the preceding records.
+ * <p>
+ * Records are written by one node at a time, the node that processes the requests of the UI
+ * session. Implementations must be thread-safe and must provide a public default constructor to
+ * be configured with the <code>org.eclipse.rap.rwt.sessionStore</code> system property.
+ * </p>
+ * <p>
+ * This interface is not intended to be used by clients.
+ * </p>
+ */
+public interface SessionStore {
+
+  /**
+   * Appends a record to the state stored under the given key. Writing a snapshot allows the
+   * store to discard all previous records of the key.
+   */
+  void write( String key, SessionRecord record ) throws IOException;
+
+  /**
+   * Returns the latest snapshot stored under the given key followed by all subsequent deltas in
+   * the order of their versions, or an empty list if nothing is stored.
+   */
+  List<SessionRecord> read( String key ) throws IOException;
+
+  /**
+   * Returns the version of the last record stored under the given key, or <code>-1</code> if
+   * nothing is stored.
+   */
+  long getVersion( String key ) throws IOException;
+
+  void remove( String key ) throws IOException;
+
+  /**
+   * Removes the state of all keys that have not been written since the given time in
+   * milliseconds.
+   */
+  void removeExpired( long time ) throws IOException;
+
+}
@@ -83,10 +83,12 @@ public class RWTLifeCycle extends LifeCycle {
   };
 
   Runnable uiRunnable;
+  UIThreadModel uiThreadModel;
 
   public RWTLifeCycle( ApplicationContextImpl applicationContext ) {
     super( applicationContext );
     uiRunnable = new UIThreadController();
+    uiThreadModel = UIThreadModel.fromSystemProperties();
   }
 
   @Override
@@ -237,7 +239,7 @@ public class RWTLifeCycle extends LifeCycle {
 
   private IUIThreadHolder createUIThread() {
     UISession uiSession = ContextProvider.getUISession();
-    IUIThreadHolder result = new UIThread( uiRunnable );
+    IUIThreadHolder result = uiThreadModel.createUIThread( uiRunnable );
     result.getThread().setDaemon( true );
     result.getThread().setName( "UIThread [" + uiSession.getId() + "]" );
     LifeCycleUtil.setUIThread( uiSession, result );
@@ -279,7 +281,7 @@ public class RWTLifeCycle extends LifeCycle {
   private final class UIThreadController implements Runnable {
     @Override
     public void run() {
-      IUIThreadHolder uiThread = ( IUIThreadHolder )Thread.currentThread();
+      IUIThreadHolder uiThread = UIThreadHolder.getCurrent();
       try {
         // [rh] sync exception handling and switchThread (see bug 316676)
         synchronized( uiThread.getLock() ) {
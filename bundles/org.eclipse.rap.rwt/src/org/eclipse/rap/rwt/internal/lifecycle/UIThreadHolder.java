@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2008, 2017 Innoopract Informationssysteme GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Innoopract Informationssysteme GmbH - initial API and implementation
+ *    EclipseSource - ongoing development
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.lifecycle;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
+import org.eclipse.rap.rwt.internal.lifecycle.UIThread.UIThreadTerminatedError;
+import org.eclipse.rap.rwt.internal.service.ContextProvider;
+import org.eclipse.rap.rwt.internal.service.ServiceContext;
+import org.eclipse.rap.rwt.internal.service.ServletLog;
+import org.eclipse.rap.rwt.internal.service.UISessionImpl;
+import org.eclipse.rap.rwt.service.UISession;
+import org.eclipse.swt.widgets.Display;
+
+
+/*
+ * Implements the hand-off between the request thread and the UI thread of a UI session. The UI
+ * thread is either a UIThread, which is its own holder, or a thread created by a ThreadFactory,
+ * e.g. a virtual thread.
+ */
+final class UIThreadHolder implements IUIThreadHolder, ISessionShutdownAdapter {
+
+  private static final ThreadLocal<IUIThreadHolder> CURRENT = new ThreadLocal<>();
+
+  private final Object lock;
+  private Thread thread;
+  private ServiceContext serviceContext;
+  private UISession uiSession;
+  private Runnable shutdownCallback;
+  private volatile boolean uiThreadTerminating;
+
+  UIThreadHolder( Thread thread, Object lock ) {
+    this.thread = thread;
+    this.lock = lock;
+  }
+
+  UIThreadHolder( final Runnable runnable, ThreadFactory threadFactory ) {
+    lock = this;
+    thread = threadFactory.newThread( new Runnable() {
+      @Override
+      public void run() {
+        CURRENT.set( UIThreadHolder.this );
+        try {
+          runnable.run();
+        } finally {
+          CURRENT.remove();
+        }
+      }
+    } );
+  }
+
+  /*
+   * Returns the holder of the UI thread that is currently executing, or null if the current
+   * thread is not a UI thread.
+   */
+  static IUIThreadHolder getCurrent() {
+    Thread currentThread = Thread.currentThread();
+    if( currentThread instanceof IUIThreadHolder ) {
+      return ( IUIThreadHolder )currentThread;
+    }
+    return CURRENT.get();
+  }
+
+  //////////////////////////
+  // interface IThreadHolder
+
+  @Override
+  public void setServiceContext( ServiceContext serviceContext ) {
+    this.serviceContext = serviceContext;
+  }
+
+  @Override
+  public void updateServiceContext() {
+    if( ContextProvider.hasContext() ) {
+      ContextProvider.releaseContextHolder();
+    }
+    ContextProvider.setContext( serviceContext );
+  }
+
+  @Override
+  public void switchThread() {
+    synchronized( lock ) {
+      checkAndReportTerminatedUIThread();
+      lock.notifyAll();
+      boolean done = false;
+      while( !done ) {
+        try {
+          lock.wait();
+          done = true;
+        } catch( InterruptedException e ) {
+          handleInterruptInSwitchThread( e );
+        }
+      }
+    }
+  }
+
+  private void checkAndReportTerminatedUIThread() {
+    // [rh] While working on bug 284202, there was the suspicion that a
+    // request thread might wait infinitely on an already terminated UIThread.
+    // To investigate this problem, we print to sys-err if this happens.
+    if( !thread.isAlive() ) {
+      String msg
+        = "Thread '"
+        + Thread.currentThread()
+        + "' is waiting for already terminated UIThread";
+      ServletLog.log( "", new RuntimeException( msg ) );
+    }
+  }
+
+  private void handleInterruptInSwitchThread( InterruptedException e )
+    throws UIThreadTerminatedError
+  {
+    Thread.interrupted();
+    if( uiThreadTerminating ) {
+      // Equip the UI thread that is continuing its execution with a
+      // service context and the proper phase (see terminateThread).
+      updateServiceContext();
+      CurrentPhase.set( PhaseId.PROCESS_ACTION );
+      uiThreadTerminating = false;
+      throw new UIThreadTerminatedError();
+    }
+    if( Thread.currentThread() != thread ) {
+      String msg = "Received InterruptedException on request thread";
+      ServletLog.log( msg, e );
+    }
+  }
+
+  @Override
+  public void terminateThread() {
+    // Prepare a service context to be used by the UI thread that may continue
+    // to run as a result of the interrupt call
+    ServiceContext serviceContext = ContextUtil.createFakeContext( uiSession );
+    setServiceContext( serviceContext );
+    uiThreadTerminating = true;
+    // interrupt the UI thread that is expected to wait in switchThread or already be terminated
+    synchronized( lock ) {
+      thread.interrupt();
+    }
+    try {
+      thread.join();
+    } catch( InterruptedException e ) {
+      String msg = "Received InterruptedException while terminating UIThread";
+      ServletLog.log( msg, e );
+    }
+    uiThreadTerminating = false;
+  }
+
+  @Override
+  public Thread getThread() {
+    return thread;
+  }
+
+  @Override
+  public Object getLock() {
+    return lock;
+  }
+
+  ////////////////////////////////////
+  // interface ISessionShutdownAdapter
+
+  @Override
+  public void setUISession( UISession uiSession ) {
+    this.uiSession = uiSession;
+  }
+
+  @Override
+  public void setShutdownCallback( Runnable shutdownCallback ) {
+    this.shutdownCallback = shutdownCallback;
+  }
+
+  @Override
+  public void interceptShutdown() {
+    terminateThread();
+  }
+
+  @Override
+  public void processShutdown() {
+    updateServiceContext();
+    try {
+      // Simulate PROCESS_ACTION phase if the session times out
+      CurrentPhase.set( PhaseId.PROCESS_ACTION );
+      // TODO [rh] find a better decoupled way to dispose of the display
+      Display display = LifeCycleUtil.getSessionDisplay( uiSession );
+      // TODO [fappel]: Think about a better solution: isActivated() checks whether
+      //                the applicationContext is still activated before starting
+      //                cleanup. This is due to the missing possibility of OSGi HttpService
+      //                to shutdown HttpContext instances. Therefore sessions will survive the
+      //                deactivation of ApplicationContext instances. In case the HttpService
+      //                gets halted the corresponding ApplicationContext instances have already
+      //                been deactivated and this will cause a NPE.
+      if( isApplicationContextActive() && display != null ) {
+        display.dispose();
+      }
+      shutdownCallback.run();
+    } finally {
+      ContextProvider.disposeContext();
+    }
+  }
+
+  private boolean isApplicationContextActive() {
+    ApplicationContextImpl applicationContext = ( ( UISessionImpl )uiSession ).getApplicationContext();
+    return applicationContext != null && applicationContext.isActive();
+  }
+
+}
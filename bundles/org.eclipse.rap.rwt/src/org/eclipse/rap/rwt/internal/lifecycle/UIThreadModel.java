@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.lifecycle;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.service.ServletLog;
+
+
+/*
+ * Creates the threads that execute the UI code of the UI sessions, see
+ * RWTProperties#UI_THREAD_MODEL.
+ */
+abstract class UIThreadModel {
+
+  static final String PLATFORM = "platform";
+  static final String VIRTUAL = "virtual";
+
+  // Virtual threads that wait for a monitor pin their carrier thread before Java 24 (JEP 491)
+  private static final int MIN_VIRTUAL_THREAD_VERSION = 24;
+
+  abstract IUIThreadHolder createUIThread( Runnable runnable );
+
+  static UIThreadModel fromSystemProperties() {
+    String name = RWTProperties.getUIThreadModel();
+    long stackSize = RWTProperties.getUIThreadStackSize();
+    if( VIRTUAL.equals( name ) ) {
+      ThreadFactory threadFactory = createVirtualThreadFactory();
+      if( threadFactory != null ) {
+        return createThreadFactoryModel( threadFactory );
+      }
+      ServletLog.log( "Virtual UI threads require Java "
+                      + MIN_VIRTUAL_THREAD_VERSION
+                      + " or later, falling back to platform threads", null );
+    } else if( name != null && !PLATFORM.equals( name ) ) {
+      throw new IllegalArgumentException( "Unsupported UI thread model: " + name );
+    }
+    return createPlatformModel( stackSize );
+  }
+
+  static UIThreadModel createPlatformModel( final long stackSize ) {
+    return new UIThreadModel() {
+      @Override
+      IUIThreadHolder createUIThread( Runnable runnable ) {
+        return new UIThread( runnable, stackSize );
+      }
+    };
+  }
+
+  static UIThreadModel createThreadFactoryModel( final ThreadFactory threadFactory ) {
+    return new UIThreadModel() {
+      @Override
+      IUIThreadHolder createUIThread( Runnable runnable ) {
+        return new UIThreadHolder( runnable, threadFactory );
+      }
+    };
+  }
+
+  /*
+   * Returns a factory for virtual threads, or null if the running Java version does not support
+   * virtual threads that can wait for monitors without blocking their carrier thread.
+   */
+  static ThreadFactory createVirtualThreadFactory() {
+    try {
+      Object version = Runtime.class.getMethod( "version" ).invoke( null );
+      Integer feature = ( Integer )version.getClass().getMethod( "feature" ).invoke( version );
+      if( feature.intValue() < MIN_VIRTUAL_THREAD_VERSION ) {
+        return null;
+      }
+      Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+      Method factoryMethod = Class.forName( "java.lang.Thread$Builder" ).getMethod( "factory" );
+      return ( ThreadFactory )factoryMethod.invoke( builder );
+    } catch( @SuppressWarnings( "unused" ) Exception exception ) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.protocol;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/*
+ * Holds a sequence of operations as UTF-8 encoded JSON array elements, separated by commas. The
+ * bytes are kept in chunks to avoid copying the content when the buffer grows.
+ */
+class EncodedOperations extends OutputStream implements Serializable {
+
+  private static final int MIN_CHUNK_SIZE = 8 * 1024;
+  private static final int MAX_CHUNK_SIZE = 256 * 1024;
+
+  private final List<byte[]> chunks;
+  private int position;
+  private int size;
+  private int count;
+  private transient Writer writer;
+
+  EncodedOperations() {
+    chunks = new ArrayList<>();
+  }
+
+  void append( Operation operation ) {
+    try {
+      if( writer == null ) {
+        writer = new OutputStreamWriter( this, UTF_8 );
+      }
+      if( count > 0 ) {
+        writer.write( ',' );
+      }
+      operation.toJson().writeTo( writer );
+      count++;
+    } catch( IOException exception ) {
+      // writing to memory does not throw IOExceptions
+      throw new RuntimeException( exception );
+    }
+  }
+
+  void finish() {
+    if( writer != null ) {
+      try {
+        writer.flush();
+      } catch( IOException exception ) {
+        throw new RuntimeException( exception );
+      }
+      writer = null;
+    }
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void writeTo( OutputStream stream ) throws IOException {
+    int lastIndex = chunks.size() - 1;
+    for( int i = 0; i < lastIndex; i++ ) {
+      stream.write( chunks.get( i ) );
+    }
+    if( lastIndex >= 0 ) {
+      stream.write( chunks.get( lastIndex ), 0, position );
+    }
+  }
+
+  InputStream getInputStream() {
+    return new ChunkInputStream();
+  }
+
+  @Override
+  public void write( int value ) {
+    byte[] chunk = getWritableChunk();
+    chunk[ position++ ] = ( byte )value;
+    size++;
+  }
+
+  @Override
+  public void write( byte[] bytes, int offset, int length ) {
+    int remaining = length;
+    int index = offset;
+    while( remaining > 0 ) {
+      byte[] chunk = getWritableChunk();
+      int amount = Math.min( remaining, chunk.length - position );
+      System.arraycopy( bytes, index, chunk, position, amount );
+      position += amount;
+      index += amount;
+      remaining -= amount;
+    }
+    size += length;
+  }
+
+  private byte[] getWritableChunk() {
+    byte[] chunk = chunks.isEmpty() ? null : chunks.get( chunks.size() - 1 );
+    if( chunk == null || position == chunk.length ) {
+      chunk = new byte[ Math.min( Math.max( MIN_CHUNK_SIZE, size ), MAX_CHUNK_SIZE ) ];
+      chunks.add( chunk );
+      position = 0;
+    }
+    return chunk;
+  }
+
+  private class ChunkInputStream extends InputStream {
+
+    private int chunkIndex;
+    private int chunkPosition;
+
+    @Override
+    public int read() {
+      byte[] buffer = new byte[ 1 ];
+      return read( buffer, 0, 1 ) == -1 ? -1 : buffer[ 0 ] & 0xff;
+    }
+
+    @Override
+    public int read( byte[] buffer, int offset, int length ) {
+      int lastIndex = chunks.size() - 1;
+      while( chunkIndex <= lastIndex ) {
+        byte[] chunk = chunks.get( chunkIndex );
+        int end = chunkIndex == lastIndex ? position : chunk.length;
+        if( chunkPosition < end ) {
+          int amount = Math.min( length, end - chunkPosition );
+          System.arraycopy( chunk, chunkPosition, buffer, offset, amount );
+          chunkPosition += amount;
+          return amount;
+        }
+        chunkIndex++;
+        chunkPosition = 0;
+      }
+      return -1;
+    }
+
+  }
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.protocol;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.rap.json.JsonArray;
+import org.eclipse.rap.json.JsonObject;
+import org.eclipse.rap.json.JsonValue;
+
+
+/*
+ * A response message whose operations have already been encoded while they were written. The
+ * operations are only decoded again when they are explicitly requested, e.g. by a message filter.
+ */
+class EncodedResponseMessage extends ResponseMessage {
+
+  private static final byte[] HEAD_START = "{\"head\":".getBytes( UTF_8 );
+  private static final byte[] OPERATIONS_START = ",\"operations\":[".getBytes( UTF_8 );
+  private static final byte[] OPERATIONS_END = "]}".getBytes( UTF_8 );
+
+  private final EncodedOperations encodedOperations;
+  private transient List<Operation> operations;
+
+  EncodedResponseMessage( JsonObject head, EncodedOperations encodedOperations ) {
+    super( head, Collections.<Operation>emptyList() );
+    this.encodedOperations = encodedOperations;
+  }
+
+  @Override
+  public List<Operation> getOperations() {
+    if( operations == null ) {
+      operations = Collections.unmodifiableList( decodeOperations() );
+    }
+    return operations;
+  }
+
+  @Override
+  public void writeTo( OutputStream stream ) throws IOException {
+    stream.write( HEAD_START );
+    Writer writer = new OutputStreamWriter( stream, UTF_8 );
+    getHead().writeTo( writer );
+    writer.flush();
+    stream.write( OPERATIONS_START );
+    encodedOperations.writeTo( stream );
+    stream.write( OPERATIONS_END );
+  }
+
+  private List<Operation> decodeOperations() {
+    List<Operation> result = new ArrayList<>( encodedOperations.getCount() );
+    for( JsonValue operation : readOperationsArray() ) {
+      result.add( OperationReader.readOperation( operation ) );
+    }
+    return result;
+  }
+
+  private JsonArray readOperationsArray() {
+    List<InputStream> parts = asList( new ByteArrayInputStream( new byte[] { '[' } ),
+                                      encodedOperations.getInputStream(),
+                                      new ByteArrayInputStream( new byte[] { ']' } ) );
+    InputStream input = new SequenceInputStream( Collections.enumeration( parts ) );
+    try( Reader reader = new InputStreamReader( input, UTF_8 ) ) {
+      return JsonArray.readFrom( reader );
+    } catch( IOException exception ) {
+      throw new IllegalStateException( "Failed to decode operations", exception );
+    }
+  }
+
+}
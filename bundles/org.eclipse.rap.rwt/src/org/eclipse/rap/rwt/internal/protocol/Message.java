@@ -53,7 +53,7 @@ public class Message implements Serializable {
 
   public JsonObject toJson() {
     JsonArray operationsArray = new JsonArray();
-    for( Operation operation : operations ) {
+    for( Operation operation : getOperations() ) {
       operationsArray.add( operation.toJson() );
     }
     return new JsonObject().add( HEAD, head ).add( OPERATIONS, operationsArray );
@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2010, 2015 EclipseSource and others.
+* Copyright (c) 2010, 2017 EclipseSource and others.
 * All rights reserved. This program and the accompanying materials
 * are made available under the terms of the Eclipse Public License v1.0
 * which accompanies this distribution, and is available at
@@ -26,12 +26,22 @@ public class ProtocolMessageWriter {
 
   private final JsonObject head;
   private final List<Operation> operations;
+  private final EncodedOperations encodedOperations;
   private Operation pendingOperation;
   private boolean alreadyCreated;
 
   public ProtocolMessageWriter() {
+    this( false );
+  }
+
+  /**
+   * @param streaming if <code>true</code>, operations are encoded as soon as they are complete
+   *          instead of being kept until the message is created
+   */
+  public ProtocolMessageWriter( boolean streaming ) {
     head = new JsonObject();
-    operations = new ArrayList<>();
+    operations = streaming ? null : new ArrayList<Operation>();
+    encodedOperations = streaming ? new EncodedOperations() : null;
   }
 
   public void appendHead( String property, int value ) {
@@ -118,6 +128,10 @@ public class ProtocolMessageWriter {
 
   private ResponseMessage createMessageObject() {
     appendPendingOperation();
+    if( encodedOperations != null ) {
+      encodedOperations.finish();
+      return new EncodedResponseMessage( head, encodedOperations );
+    }
     return new ResponseMessage( head, operations );
   }
 
@@ -131,7 +145,11 @@ public class ProtocolMessageWriter {
 
   private void appendPendingOperation() {
     if( pendingOperation != null ) {
-      operations.add( pendingOperation );
+      if( encodedOperations != null ) {
+        encodedOperations.append( pendingOperation );
+      } else {
+        operations.add( pendingOperation );
+      }
     }
   }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 EclipseSource and others.
+ * Copyright (c) 2014, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,13 @@
  ******************************************************************************/
 package org.eclipse.rap.rwt.internal.protocol;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.List;
 
 import org.eclipse.rap.json.JsonObject;
@@ -25,4 +32,13 @@ public class ResponseMessage extends Message {
     super( head, operations );
   }
 
+  /**
+   * Writes the UTF-8 encoded JSON representation of this message to the given stream.
+   */
+  public void writeTo( OutputStream stream ) throws IOException {
+    Writer writer = new BufferedWriter( new OutputStreamWriter( stream, UTF_8 ) );
+    toJson().writeTo( writer );
+    writer.flush();
+  }
+
 }
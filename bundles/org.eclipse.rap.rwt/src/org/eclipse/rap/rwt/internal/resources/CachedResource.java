@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.resources;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.rap.rwt.internal.util.ContentEncoding;
+
+
+/*
+ * A registered resource prepared for delivery: small resources are held in memory together with
+ * a gzip compressed variant if the cache has room for them, others are streamed from disk. The
+ * entity tags are derived from the content, so they remain valid across server restarts.
+ */
+final class CachedResource {
+
+  static final int MAX_MEMORY_SIZE = 4 * 1024 * 1024;
+  // smaller content does not benefit from compression
+  private static final int MIN_COMPRESSION_SIZE = 256;
+  // the compressed variant is only kept if it saves at least 10 percent
+  private static final int MIN_COMPRESSION_RATIO = 90;
+
+  private final File file;
+  private final byte[] content;
+  private final byte[] compressedContent;
+  private final long length;
+  private final long lastModified;
+  private final String etag;
+
+  static CachedResource create( File file, boolean inMemory ) throws IOException {
+    if( inMemory && file.length() <= MAX_MEMORY_SIZE ) {
+      byte[] content = Files.readAllBytes( file.toPath() );
+      String hash = toHex( createDigest().digest( content ) );
+      return new CachedResource( file, content, compress( content ), hash );
+    }
+    return new CachedResource( file, null, null, computeHash( file ) );
+  }
+
+  private CachedResource( File file, byte[] content, byte[] compressedContent, String hash ) {
+    this.file = file;
+    this.content = content;
+    this.compressedContent = compressedContent;
+    length = content != null ? content.length : file.length();
+    lastModified = file.lastModified();
+    etag = "\"" + hash + "\"";
+  }
+
+  boolean isInMemory() {
+    return content != null;
+  }
+
+  /*
+   * Returns the number of bytes held in memory for the content and its compressed variant.
+   */
+  long getMemorySize() {
+    long result = 0;
+    if( content != null ) {
+      result += content.length;
+    }
+    if( compressedContent != null ) {
+      result += compressedContent.length;
+    }
+    return result;
+  }
+
+  boolean hasCompressedContent() {
+    return compressedContent != null;
+  }
+
+  long getLength( boolean compressed ) {
+    return compressed ? compressedContent.length : length;
+  }
+
+  long getLastModified() {
+    return lastModified;
+  }
+
+  String getETag( boolean compressed ) {
+    // a representation with a different content encoding needs a different strong entity tag
+    return compressed ? etag.substring( 0, etag.length() - 1 ) + "-gzip\"" : etag;
+  }
+
+  InputStream getInputStream() throws IOException {
+    return content != null ? new ByteArrayInputStream( content ) : new FileInputStream( file );
+  }
+
+  void writeTo( OutputStream stream, boolean compressed ) throws IOException {
+    if( compressed ) {
+      stream.write( compressedContent );
+    } else if( content != null ) {
+      stream.write( content );
+    } else {
+      Files.copy( file.toPath(), stream );
+    }
+  }
+
+  private static byte[] compress( byte[] content ) {
+    if( content.length >= MIN_COMPRESSION_SIZE ) {
+      byte[] compressed = ContentEncoding.gzip( content );
+      if( compressed.length * 100L <= content.length * ( long )MIN_COMPRESSION_RATIO ) {
+        return compressed;
+      }
+    }
+    return null;
+  }
+
+  private static String computeHash( File file ) throws IOException {
+    MessageDigest digest = createDigest();
+    try( InputStream stream = new DigestInputStream( new FileInputStream( file ), digest ) ) {
+      byte[] buffer = new byte[ 8192 ];
+      while( stream.read( buffer ) != -1 ) {
+        // the digest is updated while reading
+      }
+    }
+    return toHex( digest.digest() );
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance( "SHA-1" );
+    } catch( NoSuchAlgorithmException exception ) {
+      throw new IllegalStateException( "SHA-1 not available", exception );
+    }
+  }
+
+  private static String toHex( byte[] bytes ) {
+    char[] digits = "0123456789abcdef".toCharArray();
+    char[] result = new char[ bytes.length * 2 ];
+    for( int i = 0; i < bytes.length; i++ ) {
+      result[ i * 2 ] = digits[ ( bytes[ i ] >> 4 ) & 0xf ];
+      result[ i * 2 + 1 ] = digits[ bytes[ i ] & 0xf ];
+    }
+    return new String( result );
+  }
+
+}
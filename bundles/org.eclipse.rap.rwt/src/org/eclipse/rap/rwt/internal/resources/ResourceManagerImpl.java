@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,7 +24,12 @@ import java.io.OutputStream;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.service.ServletLog;
 import org.eclipse.rap.rwt.internal.util.ParamCheck;
 import org.eclipse.rap.rwt.internal.util.StreamUtil;
 import org.eclipse.rap.rwt.service.ResourceLoader;
@@ -46,12 +51,24 @@ import org.eclipse.rap.rwt.service.ResourceManager;
  */
 public class ResourceManagerImpl implements ResourceManager {
 
+  static final int DEFAULT_CACHE_MEMORY_SIZE = 64 * 1024 * 1024;
+
   private final ResourceDirectory resourceDirectory;
   private final Set<String> resources;
+  private final ConcurrentMap<String, String> requestPaths;
+  private final ConcurrentMap<String, CachedResource> cache;
+  private final boolean preload;
+  private final long maxMemorySize;
+  private final AtomicLong memorySize;
 
   public ResourceManagerImpl( ResourceDirectory resourceDirectory ) {
     this.resourceDirectory = resourceDirectory;
     resources = Collections.synchronizedSet( new HashSet<String>() );
+    requestPaths = new ConcurrentHashMap<>();
+    cache = new ConcurrentHashMap<>();
+    preload = RWTProperties.isResourceCacheEnabled();
+    maxMemorySize = RWTProperties.getResourceCacheMemorySize( DEFAULT_CACHE_MEMORY_SIZE );
+    memorySize = new AtomicLong();
   }
 
   /////////////////////////////
@@ -90,6 +107,9 @@ public class ResourceManagerImpl implements ResourceManager {
     boolean result = false;
     if( resources.remove( name ) ) {
       result = true;
+      String requestPath = getRequestPath( name );
+      requestPaths.remove( requestPath );
+      removeCachedResource( requestPath );
       File file = getDiskLocation( name );
       file.delete();
     }
@@ -116,11 +136,33 @@ public class ResourceManagerImpl implements ResourceManager {
     ParamCheck.notNull( name, "name" );
     InputStream result = null;
     if( resources.contains( name ) ) {
-      File file = getDiskLocation( name );
+      CachedResource cachedResource = cache.get( getRequestPath( name ) );
       try {
-        result = new FileInputStream( file );
+        if( cachedResource != null && cachedResource.isInMemory() ) {
+          result = cachedResource.getInputStream();
+        } else {
+          result = new FileInputStream( getDiskLocation( name ) );
+        }
       } catch( FileNotFoundException fnfe ) {
         throw new RuntimeException( fnfe );
+      } catch( IOException ioe ) {
+        throw new RuntimeException( ioe );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the resource that is delivered for the given path relative to the resources
+   * directory, or <code>null</code> if no such resource is registered. Resources that have not
+   * been prepared at registration time are prepared on first access.
+   */
+  CachedResource getCachedResource( String requestPath ) {
+    CachedResource result = cache.get( requestPath );
+    if( result == null ) {
+      String name = requestPaths.get( requestPath );
+      if( name != null ) {
+        result = createCachedResource( name );
       }
     }
     return result;
@@ -133,12 +175,17 @@ public class ResourceManagerImpl implements ResourceManager {
     return new StringBuilder()
       .append( ResourceDirectory.DIRNAME )
       .append( "/" )
-      .append( escapeResourceName( resourceName.replace( '\\', '/' ) ) )
+      .append( getRequestPath( resourceName ) )
       .toString();
   }
 
+  private static String getRequestPath( String resourceName ) {
+    return escapeResourceName( resourceName.replace( '\\', '/' ) );
+  }
+
   private void internalRegister( String name, InputStream inputStream ) {
     File location = getDiskLocation( name );
+    String requestPath = getRequestPath( name );
     try {
       createDirectories( location );
       writeResource( inputStream, location );
@@ -146,6 +193,72 @@ public class ResourceManagerImpl implements ResourceManager {
       throw new RuntimeException( "Failed to register resource: " + name, ioe );
     }
     resources.add( name );
+    requestPaths.put( requestPath, name );
+    // drop content that may have been cached while the resource was being written
+    removeCachedResource( requestPath );
+    // compression is expensive, do it at registration rather than on the first request
+    if( preload ) {
+      createCachedResource( name );
+    }
+  }
+
+  /*
+   * The content is kept in memory only while the cached content of all resources fits into the
+   * memory size, otherwise the resource is streamed from disk.
+   */
+  private CachedResource createCachedResource( String name ) {
+    CachedResource result = null;
+    File file = getDiskLocation( name );
+    long length = file.length();
+    // the compressed variant is smaller than the content
+    long reserved = 2 * length;
+    if( length > CachedResource.MAX_MEMORY_SIZE || !reserveMemory( reserved ) ) {
+      reserved = 0;
+    }
+    try {
+      result = CachedResource.create( file, reserved > 0 );
+      releaseMemory( reserved - result.getMemorySize() );
+      String requestPath = getRequestPath( name );
+      CachedResource previous = cache.put( requestPath, result );
+      if( previous != null ) {
+        releaseMemory( previous.getMemorySize() );
+      }
+      // unregister removes the request path before the cache entry, an entry put after that
+      // would outlive the resource
+      if( !name.equals( requestPaths.get( requestPath ) ) && cache.remove( requestPath, result ) ) {
+        releaseMemory( result.getMemorySize() );
+      }
+    } catch( IOException ioe ) {
+      releaseMemory( reserved );
+      ServletLog.log( "Failed to cache resource: " + name, ioe );
+    }
+    return result;
+  }
+
+  private void removeCachedResource( String requestPath ) {
+    CachedResource removed = cache.remove( requestPath );
+    if( removed != null ) {
+      releaseMemory( removed.getMemorySize() );
+    }
+  }
+
+  private boolean reserveMemory( long size ) {
+    long current = memorySize.get();
+    while( current + size <= maxMemorySize ) {
+      if( memorySize.compareAndSet( current, current + size ) ) {
+        return true;
+      }
+      current = memorySize.get();
+    }
+    return false;
+  }
+
+  private void releaseMemory( long size ) {
+    memorySize.addAndGet( -size );
+  }
+
+  long getMemorySize() {
+    return memorySize.get();
   }
 
   private static void writeResource( InputStream inputStream, File location )
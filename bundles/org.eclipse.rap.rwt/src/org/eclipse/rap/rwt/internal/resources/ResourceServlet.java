@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.resources;
+
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+import static org.eclipse.rap.rwt.internal.util.HTTP.ENCODING_GZIP;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_ACCEPT_ENCODING;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_CACHE_CONTROL;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_CONTENT_ENCODING;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_ETAG;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_IF_NONE_MATCH;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_LAST_MODIFIED;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_VARY;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
+import org.eclipse.rap.rwt.internal.util.ContentEncoding;
+import org.eclipse.rap.rwt.service.ResourceManager;
+
+
+/**
+ * Delivers the resources registered with the application's resource manager from memory,
+ * including gzip compressed variants and entity tags for conditional requests. To be mapped to
+ * the resources path of an application (<code>/rwt-resources/*</code>) in place of the static
+ * file serving of the servlet container.
+ * <p>
+ * Resource names are not content-addressed, a resource may be registered again with different
+ * content under the same name. Therefore responses are not marked as immutable but have to be
+ * revalidated, which is answered with <code>304 Not Modified</code> as long as the content is
+ * unchanged.
+ * </p>
+ * <p>
+ * This class is not intended to be used by clients.
+ * </p>
+ */
+public class ResourceServlet extends HttpServlet {
+
+  private static final String CACHE_CONTROL = "no-cache";
+
+  private ApplicationContextImpl applicationContext;
+
+  @Override
+  public String getServletInfo() {
+    return "RWT Resource Servlet";
+  }
+
+  @Override
+  public void init() throws ServletException {
+    applicationContext = ApplicationContextImpl.getFrom( getServletContext() );
+  }
+
+  @Override
+  public void doGet( HttpServletRequest request, HttpServletResponse response )
+    throws ServletException, IOException
+  {
+    if( applicationContext == null || !applicationContext.allowsRequests() ) {
+      response.sendError( SC_SERVICE_UNAVAILABLE );
+    } else {
+      CachedResource resource = findResource( request.getPathInfo() );
+      if( resource == null ) {
+        response.sendError( SC_NOT_FOUND );
+      } else {
+        deliver( request, response, resource );
+      }
+    }
+  }
+
+  @Override
+  protected long getLastModified( HttpServletRequest request ) {
+    // conditional requests are handled with entity tags
+    return -1;
+  }
+
+  private void deliver( HttpServletRequest request,
+                        HttpServletResponse response,
+                        CachedResource resource )
+    throws IOException
+  {
+    boolean compressed = resource.hasCompressedContent() && ContentEncoding.acceptsGzip( request );
+    String etag = resource.getETag( compressed );
+    if( resource.hasCompressedContent() ) {
+      response.setHeader( HEADER_VARY, HEADER_ACCEPT_ENCODING );
+    }
+    response.setHeader( HEADER_ETAG, etag );
+    response.setHeader( HEADER_CACHE_CONTROL, CACHE_CONTROL );
+    response.setDateHeader( HEADER_LAST_MODIFIED, resource.getLastModified() );
+    if( matches( request.getHeader( HEADER_IF_NONE_MATCH ), etag ) ) {
+      response.setStatus( SC_NOT_MODIFIED );
+    } else {
+      String contentType = getServletContext().getMimeType( request.getPathInfo() );
+      if( contentType != null ) {
+        response.setContentType( contentType );
+      }
+      if( compressed ) {
+        response.setHeader( HEADER_CONTENT_ENCODING, ENCODING_GZIP );
+      }
+      setContentLength( response, resource.getLength( compressed ) );
+      resource.writeTo( response.getOutputStream(), compressed );
+    }
+  }
+
+  private CachedResource findResource( String pathInfo ) {
+    CachedResource result = null;
+    ResourceManager resourceManager = applicationContext.getResourceManager();
+    if(    pathInfo != null
+        && pathInfo.length() > 1
+        && resourceManager instanceof ResourceManagerImpl )
+    {
+      result = ( ( ResourceManagerImpl )resourceManager ).getCachedResource( pathInfo.substring( 1 ) );
+    }
+    return result;
+  }
+
+  static boolean matches( String ifNoneMatch, String etag ) {
+    if( ifNoneMatch != null ) {
+      for( String candidate : ifNoneMatch.split( "," ) ) {
+        String tag = candidate.trim();
+        // If-None-Match uses the weak comparison
+        if( tag.startsWith( "W/" ) ) {
+          tag = tag.substring( 2 );
+        }
+        if( "*".equals( tag ) || etag.equals( tag ) ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void setContentLength( HttpServletResponse response, long length ) {
+    if( length <= Integer.MAX_VALUE ) {
+      response.setContentLength( ( int )length );
+    } else {
+      response.setHeader( "Content-Length", Long.toString( length ) );
+    }
+  }
+
+}
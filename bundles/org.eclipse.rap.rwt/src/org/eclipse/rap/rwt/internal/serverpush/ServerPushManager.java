@@ -14,10 +14,13 @@ package org.eclipse.rap.rwt.internal.serverpush;
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.eclipse.rap.rwt.SingletonUtil;
+import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
 import org.eclipse.rap.rwt.internal.service.ContextProvider;
 import org.eclipse.rap.rwt.internal.service.ServiceStore;
 import org.eclipse.rap.rwt.internal.util.SerializableLock;
@@ -25,6 +28,7 @@ import org.eclipse.rap.rwt.service.UISession;
 import org.eclipse.rap.rwt.service.UISessionEvent;
 import org.eclipse.rap.rwt.service.UISessionListener;
 import org.eclipse.swt.internal.SerializableCompatibility;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
 
 
 public final class ServerPushManager implements SerializableCompatibility {
@@ -34,6 +38,7 @@ public final class ServerPushManager implements SerializableCompatibility {
 
   private final ServerPushActivationTracker serverPushActivationTracker;
   private final SerializableLock lock;
+  private final SuspendedRequestListener suspendedRequestListener;
   // Flag that indicates whether a request is processed. In that case no
   // notifications are sent to the client.
   private boolean uiThreadRunning;
@@ -41,9 +46,11 @@ public final class ServerPushManager implements SerializableCompatibility {
   private boolean hasRunnables;
   private int requestCheckInterval;
   private transient ServerPushRequestTracker serverPushRequestTracker;
+  private transient SuspendedRequest suspendedRequest;
 
   private ServerPushManager() {
     lock = new SerializableLock();
+    suspendedRequestListener = new SuspendedRequestListener( this );
     serverPushActivationTracker = new ServerPushActivationTracker();
     uiThreadRunning = false;
     requestCheckInterval = DEFAULT_REQUEST_CHECK_INTERVAL;
@@ -56,7 +63,7 @@ public final class ServerPushManager implements SerializableCompatibility {
 
   public boolean isCallBackRequestBlocked() {
     synchronized( lock ) {
-      return !serverPushRequestTracker.hasActive();
+      return !serverPushRequestTracker.hasActive() || suspendedRequest != null;
     }
   }
 
@@ -71,6 +78,9 @@ public final class ServerPushManager implements SerializableCompatibility {
   public void releaseBlockedRequest() {
     synchronized( lock ) {
       lock.notifyAll();
+      if( suspendedRequest != null && !mustBlockCallBackRequest() ) {
+        completeSuspendedRequest();
+      }
     }
   }
 
@@ -124,31 +134,116 @@ public final class ServerPushManager implements SerializableCompatibility {
     return isServerPushActive() || forceServerPushForPendingRunnables();
   }
 
-  void processRequest( HttpServletResponse response ) {
+  void processRequest( HttpServletRequest request, HttpServletResponse response ) {
     synchronized( lock ) {
       if( isCallBackRequestBlocked() ) {
         releaseBlockedRequest();
       }
+      // a new request supersedes the previous one
+      if( suspendedRequest != null ) {
+        completeSuspendedRequest();
+      }
       if( mustBlockCallBackRequest() ) {
-        long requestStartTime = System.currentTimeMillis();
-        serverPushRequestTracker.activate( Thread.currentThread() );
-        TerminationListener listener = attachTerminationListener();
-        try {
-          boolean canRelease = false;
-          while( !canRelease ) {
-            lock.wait( requestCheckInterval );
-            canRelease = canReleaseBlockedRequest( response, requestStartTime );
-          }
-        } catch( @SuppressWarnings( "unused" ) InterruptedException ie ) {
-          Thread.interrupted(); // Reset interrupted state, see bug 300254
-        } finally {
-          listener.detach();
-          serverPushRequestTracker.deactivate( Thread.currentThread() );
+        if( isAsyncSupported( getServletContext(), request ) ) {
+          suspendRequest( request );
+        } else {
+          blockRequest( response );
         }
       }
     }
   }
 
+  /*
+   * Must not reference SuspendedRequest or any other Servlet 3.0 type, hence this manager can be
+   * used on Servlet 2.5 containers.
+   */
+  static boolean isAsyncSupported( ServletContext servletContext, HttpServletRequest request ) {
+    // calling isAsyncSupported() on a Servlet 2.5 container would fail
+    return    servletContext != null
+           && servletContext.getMajorVersion() >= 3
+           && request.isAsyncSupported();
+  }
+
+  /*
+   * Waits for the request to be released, occupying the current thread.
+   */
+  private void blockRequest( HttpServletResponse response ) {
+    long requestStartTime = System.currentTimeMillis();
+    serverPushRequestTracker.activate( Thread.currentThread() );
+    TerminationListener listener = attachTerminationListener();
+    try {
+      boolean canRelease = false;
+      while( !canRelease ) {
+        lock.wait( requestCheckInterval );
+        canRelease = canReleaseBlockedRequest( response, requestStartTime );
+      }
+    } catch( @SuppressWarnings( "unused" ) InterruptedException ie ) {
+      Thread.interrupted(); // Reset interrupted state, see bug 300254
+    } finally {
+      listener.detach();
+      serverPushRequestTracker.deactivate( Thread.currentThread() );
+    }
+  }
+
+  /*
+   * Suspends the request and returns, the request is completed when it is released.
+   */
+  private void suspendRequest( HttpServletRequest request ) {
+    UISession uiSession = ContextProvider.getUISession();
+    suspendedRequest = new SuspendedRequest( this, request, uiSession );
+    // fails if the UI session is not bound anymore
+    if( !uiSession.addUISessionListener( suspendedRequestListener ) ) {
+      completeSuspendedRequest();
+    } else {
+      ApplicationContextImpl applicationContext = ContextProvider.getApplicationContext();
+      TimerExecExecutor executor = applicationContext.getTimerExecExecutor();
+      if( !suspendedRequest.scheduleChecks( executor, requestCheckInterval ) ) {
+        completeSuspendedRequest();
+      }
+    }
+  }
+
+  void checkSuspendedRequest( SuspendedRequest request ) {
+    synchronized( lock ) {
+      if( request == suspendedRequest ) {
+        if( canReleaseSuspendedRequest( request ) || !request.scheduleNextCheck() ) {
+          completeSuspendedRequest();
+        }
+      }
+    }
+  }
+
+  void releaseSuspendedRequest( SuspendedRequest request ) {
+    synchronized( lock ) {
+      if( request == suspendedRequest ) {
+        completeSuspendedRequest();
+      }
+    }
+  }
+
+  private void completeSuspendedRequest() {
+    SuspendedRequest request = suspendedRequest;
+    suspendedRequest = null;
+    request.getUISession().removeUISessionListener( suspendedRequestListener );
+    request.complete();
+  }
+
+  private void completeSuspendedRequestBeforeDestroy() {
+    synchronized( lock ) {
+      if( suspendedRequest != null ) {
+        completeSuspendedRequest();
+      }
+    }
+  }
+
+  private boolean canReleaseSuspendedRequest( SuspendedRequest request ) {
+    UISession uiSession = request.getUISession();
+    return    !mustBlockCallBackRequest()
+           || !uiSession.isBound()
+           || isSessionExpired( uiSession, request.getStartTime(), System.currentTimeMillis() )
+           || !isConnectionAlive( request.getResponse() );
+  }
+
   private boolean canReleaseBlockedRequest( HttpServletResponse response, long requestStartTime ) {
     boolean result = false;
     if( !mustBlockCallBackRequest() ) {
@@ -188,7 +283,10 @@ public final class ServerPushManager implements SerializableCompatibility {
   }
 
   static boolean isSessionExpired( long requestStartTime, long currentTime ) {
-    UISession uiSession = ContextProvider.getUISession();
+    return isSessionExpired( ContextProvider.getUISession(), requestStartTime, currentTime );
+  }
+
+  static boolean isSessionExpired( UISession uiSession, long requestStartTime, long currentTime ) {
     if( uiSession == null ) {
       return true;
     }
@@ -210,6 +308,11 @@ public final class ServerPushManager implements SerializableCompatibility {
     }
   }
 
+  private static ServletContext getServletContext() {
+    ApplicationContextImpl applicationContext = ContextProvider.getApplicationContext();
+    return applicationContext == null ? null : applicationContext.getServletContext();
+  }
+
   private static boolean forceServerPushForPendingRunnables() {
     boolean result = false;
     ServiceStore serviceStore = ContextProvider.getServiceStore();
@@ -219,6 +322,25 @@ public final class ServerPushManager implements SerializableCompatibility {
     return result;
   }
 
+  /*
+   * Completes the suspended request when the UI session is destroyed. Unlike the suspended
+   * request itself, this listener can be serialized with the UI session.
+   */
+  private static class SuspendedRequestListener implements UISessionListener {
+
+    private final ServerPushManager manager;
+
+    private SuspendedRequestListener( ServerPushManager manager ) {
+      this.manager = manager;
+    }
+
+    @Override
+    public void beforeDestroy( UISessionEvent event ) {
+      manager.completeSuspendedRequestBeforeDestroy();
+    }
+
+  }
+
   private static class TerminationListener implements UISessionListener {
 
     private transient final Thread currentThread;
@@ -28,7 +28,7 @@ public class ServerPushServiceHandler implements ServiceHandler {
     throws IOException
   {
     setResponseHeaders( response );
-    ServerPushManager.getInstance().processRequest( response );
+    ServerPushManager.getInstance().processRequest( request, response );
   }
 
   private static void setResponseHeaders( HttpServletResponse response ) {
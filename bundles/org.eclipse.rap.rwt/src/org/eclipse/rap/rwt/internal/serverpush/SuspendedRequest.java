@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.serverpush;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.rap.rwt.service.UISession;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
+
+
+/*
+ * A server push request that waits without occupying a container thread, using the
+ * asynchronous processing of Servlet 3.0. The connection is checked periodically by a task of the
+ * TimerExecExecutor, which runs on a worker thread and never on its scheduler thread. This class
+ * implements a Servlet 3.0 interface and must not be loaded unless
+ * ServerPushManager#isAsyncSupported() returned true.
+ */
+class SuspendedRequest implements AsyncListener {
+
+  private final ServerPushManager manager;
+  private final AsyncContext asyncContext;
+  private final UISession uiSession;
+  private final long startTime;
+  private TimerExecExecutor executor;
+  private long checkInterval;
+  private ScheduledFuture<?> checkTask;
+  private boolean completed;
+
+  SuspendedRequest( ServerPushManager manager, HttpServletRequest request, UISession uiSession ) {
+    this.manager = manager;
+    this.uiSession = uiSession;
+    startTime = System.currentTimeMillis();
+    asyncContext = request.startAsync();
+    // the connection is checked by the manager, the container must not time out the request
+    asyncContext.setTimeout( 0 );
+    asyncContext.addListener( this );
+  }
+
+  /*
+   * Must be called while holding the lock of the manager. Returns false if the check could not
+   * be scheduled because the application is being stopped.
+   */
+  boolean scheduleChecks( TimerExecExecutor executor, long interval ) {
+    this.executor = executor;
+    checkInterval = interval;
+    return scheduleNextCheck();
+  }
+
+  /*
+   * Must be called while holding the lock of the manager. The next check is scheduled only after
+   * the previous one has finished, hence checks of a slow connection do not pile up.
+   */
+  boolean scheduleNextCheck() {
+    checkTask = executor.schedule( new Runnable() {
+      @Override
+      public void run() {
+        manager.checkSuspendedRequest( SuspendedRequest.this );
+      }
+    }, checkInterval );
+    return checkTask != null;
+  }
+
+  long getStartTime() {
+    return startTime;
+  }
+
+  UISession getUISession() {
+    return uiSession;
+  }
+
+  HttpServletResponse getResponse() {
+    return ( HttpServletResponse )asyncContext.getResponse();
+  }
+
+  /*
+   * Must be called while holding the lock of the manager.
+   */
+  void complete() {
+    if( !completed ) {
+      completed = true;
+      if( checkTask != null ) {
+        checkTask.cancel( false );
+      }
+      try {
+        asyncContext.complete();
+      } catch( @SuppressWarnings( "unused" ) IllegalStateException exception ) {
+        // the request has already been completed by the container, e.g. after an error
+      }
+    }
+  }
+
+  @Override
+  public void onComplete( AsyncEvent event ) {
+    manager.releaseSuspendedRequest( this );
+  }
+
+  @Override
+  public void onTimeout( AsyncEvent event ) {
+    manager.releaseSuspendedRequest( this );
+  }
+
+  @Override
+  public void onError( AsyncEvent event ) {
+    manager.releaseSuspendedRequest( this );
+  }
+
+  @Override
+  public void onStartAsync( AsyncEvent event ) throws IOException {
+    // not dispatched again
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import static org.eclipse.rap.rwt.internal.util.HTTP.CONTENT_TYPE_JSON;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 
 import javax.servlet.ServletResponse;
@@ -46,9 +47,17 @@ public class LifeCycleServiceHandler implements ServiceHandler {
     = LifeCycleServiceHandler.class.getName() + "#lastResponseMessage";
 
   private final MessageChainReference messageChainReference;
+  private final ResponseCompression responseCompression;
 
   public LifeCycleServiceHandler( MessageChainReference messageChainReference ) {
+    this( messageChainReference, new ResponseCompression() );
+  }
+
+  public LifeCycleServiceHandler( MessageChainReference messageChainReference,
+                                  ResponseCompression responseCompression )
+  {
     this.messageChainReference = messageChainReference;
+    this.responseCompression = responseCompression;
   }
 
   @Override
@@ -92,13 +101,14 @@ public class LifeCycleServiceHandler implements ServiceHandler {
       writeEmptyMessage( response );
     } else if( !isRequestCounterValid( requestMessage ) ) {
       if( isDuplicateRequest( requestMessage ) ) {
-        writeBufferedResponse( response );
+        writeResponseMessage( getBufferedMessage(), request, response );
       } else {
         writeInvalidRequestCounterError( response );
       }
     } else {
       ResponseMessage responseMessage = processMessage( requestMessage );
-      writeResponseMessage( responseMessage, response );
+      bufferMessage( responseMessage );
+      writeResponseMessage( responseMessage, request, response );
       RequestCounter.getInstance().nextRequestId();
     }
   }
@@ -181,16 +191,14 @@ public class LifeCycleServiceHandler implements ServiceHandler {
     new ProtocolMessageWriter().createMessage().toJson().writeTo( response.getWriter() );
   }
 
-  private static void writeResponseMessage( ResponseMessage responseMessage,
-                                            ServletResponse response )
+  private void writeResponseMessage( ResponseMessage responseMessage,
+                                     HttpServletRequest request,
+                                     HttpServletResponse response )
     throws IOException
   {
-    bufferMessage( responseMessage );
-    responseMessage.toJson().writeTo( response.getWriter() );
-  }
-
-  private static void writeBufferedResponse( HttpServletResponse response ) throws IOException {
-    getBufferedMessage().toJson().writeTo( response.getWriter() );
+    try( OutputStream stream = responseCompression.createOutputStream( request, response ) ) {
+      responseMessage.writeTo( stream );
+    }
   }
 
   private static void bufferMessage( ResponseMessage responseMessage ) {
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.service;
+
+import static org.eclipse.rap.rwt.internal.util.HTTP.ENCODING_GZIP;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_ACCEPT_ENCODING;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_CONTENT_ENCODING;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_VARY;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.util.ContentEncoding;
+
+
+/**
+ * Negotiates the gzip compression of UI responses and keeps track of the number of bytes
+ * written before and after compression, in total and for each of the most recent responses.
+ * <p>
+ * The decision whether to compress is deferred until the response content exceeds the
+ * threshold. Smaller responses are sent uncompressed, compressing them would cost more than it
+ * saves.
+ * </p>
+ */
+public class ResponseCompression {
+
+  static final int DEFAULT_THRESHOLD = 1024;
+  static final int DEFAULT_LEVEL = Deflater.BEST_SPEED;
+  static final int SAMPLE_COUNT = 100;
+
+  private final boolean enabled;
+  private final int threshold;
+  private final int level;
+  private final AtomicLong responseCount;
+  private final AtomicLong compressedResponseCount;
+  private final AtomicLong rawBytes;
+  private final AtomicLong wireBytes;
+  private final Sample[] samples;
+  private int nextSample;
+
+  public ResponseCompression() {
+    this( RWTProperties.isResponseCompressionEnabled(),
+          RWTProperties.getResponseCompressionThreshold( DEFAULT_THRESHOLD ),
+          RWTProperties.getResponseCompressionLevel( DEFAULT_LEVEL ) );
+  }
+
+  public ResponseCompression( boolean enabled, int threshold, int level ) {
+    if( threshold < 0 ) {
+      throw new IllegalArgumentException( "Threshold must not be negative: " + threshold );
+    }
+    if( level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION ) {
+      throw new IllegalArgumentException( "Invalid compression level: " + level );
+    }
+    this.enabled = enabled;
+    this.threshold = threshold;
+    this.level = level;
+    responseCount = new AtomicLong();
+    compressedResponseCount = new AtomicLong();
+    rawBytes = new AtomicLong();
+    wireBytes = new AtomicLong();
+    samples = new Sample[ SAMPLE_COUNT ];
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns a stream to write the response content to. The stream has to be closed after the
+   * content has been written, which does not close the underlying response stream.
+   */
+  public OutputStream createOutputStream( HttpServletRequest request,
+                                          HttpServletResponse response )
+    throws IOException
+  {
+    boolean compressible = false;
+    if( enabled ) {
+      response.setHeader( HEADER_VARY, HEADER_ACCEPT_ENCODING );
+      compressible = ContentEncoding.acceptsGzip( request );
+    }
+    return new ResponseStream( response, compressible );
+  }
+
+  public long getResponseCount() {
+    return responseCount.get();
+  }
+
+  public long getCompressedResponseCount() {
+    return compressedResponseCount.get();
+  }
+
+  /**
+   * Returns the total number of bytes of all responses before compression.
+   */
+  public long getRawBytes() {
+    return rawBytes.get();
+  }
+
+  /**
+   * Returns the total number of bytes of all responses as sent to the client.
+   */
+  public long getWireBytes() {
+    return wireBytes.get();
+  }
+
+  /**
+   * Returns the figures of the most recent responses, the oldest first. At most
+   * <code>SAMPLE_COUNT</code> responses are kept.
+   */
+  public synchronized List<Sample> getSamples() {
+    List<Sample> result = new ArrayList<>( SAMPLE_COUNT );
+    for( int i = 0; i < SAMPLE_COUNT; i++ ) {
+      Sample sample = samples[ ( nextSample + i ) % SAMPLE_COUNT ];
+      if( sample != null ) {
+        result.add( sample );
+      }
+    }
+    return result;
+  }
+
+  private void record( long raw, long wire, boolean compressed ) {
+    responseCount.incrementAndGet();
+    if( compressed ) {
+      compressedResponseCount.incrementAndGet();
+    }
+    rawBytes.addAndGet( raw );
+    wireBytes.addAndGet( wire );
+    addSample( new Sample( System.currentTimeMillis(), raw, wire, compressed ) );
+  }
+
+  private synchronized void addSample( Sample sample ) {
+    samples[ nextSample ] = sample;
+    nextSample = ( nextSample + 1 ) % SAMPLE_COUNT;
+  }
+
+  /**
+   * The number of bytes of a single response before and after compression.
+   */
+  public static final class Sample {
+
+    private final long time;
+    private final long rawBytes;
+    private final long wireBytes;
+    private final boolean compressed;
+
+    Sample( long time, long rawBytes, long wireBytes, boolean compressed ) {
+      this.time = time;
+      this.rawBytes = rawBytes;
+      this.wireBytes = wireBytes;
+      this.compressed = compressed;
+    }
+
+    /**
+     * Returns the time in milliseconds when the response has been completed.
+     */
+    public long getTime() {
+      return time;
+    }
+
+    public long getRawBytes() {
+      return rawBytes;
+    }
+
+    public long getWireBytes() {
+      return wireBytes;
+    }
+
+    public boolean isCompressed() {
+      return compressed;
+    }
+
+  }
+
+  private final class ResponseStream extends OutputStream {
+
+    private final HttpServletResponse response;
+    private final CountingStream wire;
+    private OutputStream target;
+    private GZIPOutputStream gzipStream;
+    private byte[] buffer;
+    private int count;
+    private long raw;
+    private boolean closed;
+
+    ResponseStream( HttpServletResponse response, boolean compressible ) throws IOException {
+      this.response = response;
+      wire = new CountingStream( response.getOutputStream() );
+      if( compressible ) {
+        buffer = new byte[ Math.min( threshold, 8192 ) ];
+      } else {
+        target = wire;
+      }
+    }
+
+    @Override
+    public void write( int value ) throws IOException {
+      write( new byte[] { ( byte )value }, 0, 1 );
+    }
+
+    @Override
+    public void write( byte[] bytes, int offset, int length ) throws IOException {
+      raw += length;
+      if( target == null ) {
+        if( count + length <= threshold ) {
+          bufferBytes( bytes, offset, length );
+          return;
+        }
+        startCompression();
+      }
+      target.write( bytes, offset, length );
+    }
+
+    @Override
+    public void close() throws IOException {
+      if( !closed ) {
+        closed = true;
+        if( target == null ) {
+          // below the threshold, send uncompressed
+          wire.write( buffer, 0, count );
+        } else if( gzipStream != null ) {
+          // ends the deflater, the counting stream does not close the response stream
+          gzipStream.close();
+        }
+        record( raw, wire.count, gzipStream != null );
+      }
+    }
+
+    private void bufferBytes( byte[] bytes, int offset, int length ) {
+      if( count + length > buffer.length ) {
+        int size = Math.min( threshold, Math.max( buffer.length * 2, count + length ) );
+        byte[] newBuffer = new byte[ size ];
+        System.arraycopy( buffer, 0, newBuffer, 0, count );
+        buffer = newBuffer;
+      }
+      System.arraycopy( bytes, offset, buffer, count, length );
+      count += length;
+    }
+
+    private void startCompression() throws IOException {
+      response.setHeader( HEADER_CONTENT_ENCODING, ENCODING_GZIP );
+      gzipStream = ContentEncoding.createGzipStream( wire, level );
+      gzipStream.write( buffer, 0, count );
+      buffer = null;
+      target = gzipStream;
+    }
+
+  }
+
+  private static final class CountingStream extends OutputStream {
+
+    private final OutputStream out;
+    long count;
+
+    CountingStream( OutputStream out ) {
+      this.out = out;
+    }
+
+    @Override
+    public void write( int value ) throws IOException {
+      out.write( value );
+      count++;
+    }
+
+    @Override
+    public void write( byte[] bytes, int offset, int length ) throws IOException {
+      out.write( bytes, offset, length );
+      count += length;
+    }
+
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -61,6 +61,7 @@ public class UISessionImpl
   private transient HttpSession httpSession;
   private transient ISessionShutdownAdapter shutdownAdapter;
   private transient ApplicationContextImpl applicationContext;
+  private transient boolean replaced;
 
   public UISessionImpl( ApplicationContextImpl applicationContext, HttpSession httpSession ) {
     this( applicationContext, httpSession, null );
@@ -91,6 +92,18 @@ public class UISessionImpl
     httpSession.setAttribute( getUISessionAttributeName( connectionId ), this );
   }
 
+  /*
+   * Replaces this instance in the HTTP session with another copy of the same UI session, e.g. one
+   * restored from replicated state. This instance is discarded without being destroyed. It is
+   * detached from the application context, which would otherwise keep it and its widgets
+   * reachable and shut down its replacement when being deactivated.
+   */
+  public void replaceWith( UISessionImpl uiSession ) {
+    replaced = true;
+    setApplicationContext( null );
+    uiSession.attachToHttpSession();
+  }
+
   public void setApplicationContext( ApplicationContextImpl applicationContext ) {
     if( this.applicationContext != null ) {
       this.applicationContext.removeApplicationContextListener( this );
@@ -282,6 +295,10 @@ public class UISessionImpl
 
   @Override
   public void valueUnbound( HttpSessionBindingEvent event ) {
+    if( replaced ) {
+      // an outdated copy, the UI session lives on in its replacement
+      return;
+    }
     if( shutdownAdapter != null ) {
       shutdownAdapter.interceptShutdown();
     } else {
@@ -312,7 +329,7 @@ public class UISessionImpl
     this.connection = connection;
   }
 
-  Object getRequestLock() {
+  public Object getRequestLock() {
     return requestLock;
   }
 
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.textsize;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Point;
+
+
+/*
+ * Identifies a measured text size. Unlike a plain hash code, two keys are only equal if all
+ * parameters that influence the measurement are equal.
+ */
+final class TextSizeKey {
+
+  private static final int MAX_STRING_LENGTH = 1024 * 1024;
+
+  private final String probeText;
+  private final int probeWidth;
+  private final int probeHeight;
+  private final String fontName;
+  private final int fontHeight;
+  private final int fontStyle;
+  private final String string;
+  private final int wrapWidth;
+  private final int mode;
+  private final int hashCode;
+
+  TextSizeKey( ProbeResult probeResult, FontData fontData, String string, int wrapWidth, int mode ) {
+    Point probeSize = probeResult.getSize();
+    probeText = probeResult.getProbe().getText();
+    probeWidth = probeSize.x;
+    probeHeight = probeSize.y;
+    // FontData is mutable, keep its values
+    fontName = fontData.getName();
+    fontHeight = fontData.getHeight();
+    fontStyle = fontData.getStyle();
+    this.string = string;
+    this.wrapWidth = wrapWidth;
+    this.mode = mode;
+    hashCode = computeHashCode();
+  }
+
+  private TextSizeKey( DataInput input ) throws IOException {
+    probeText = input.readUTF();
+    probeWidth = input.readInt();
+    probeHeight = input.readInt();
+    fontName = input.readUTF();
+    fontHeight = input.readInt();
+    fontStyle = input.readInt();
+    string = readString( input );
+    wrapWidth = input.readInt();
+    mode = input.readInt();
+    hashCode = computeHashCode();
+  }
+
+  static TextSizeKey readFrom( DataInput input ) throws IOException {
+    return new TextSizeKey( input );
+  }
+
+  void writeTo( DataOutput output ) throws IOException {
+    output.writeUTF( probeText );
+    output.writeInt( probeWidth );
+    output.writeInt( probeHeight );
+    output.writeUTF( fontName );
+    output.writeInt( fontHeight );
+    output.writeInt( fontStyle );
+    writeString( output, string );
+    output.writeInt( wrapWidth );
+    output.writeInt( mode );
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals( Object obj ) {
+    if( this == obj ) {
+      return true;
+    }
+    if( obj == null || getClass() != obj.getClass() ) {
+      return false;
+    }
+    TextSizeKey other = ( TextSizeKey )obj;
+    return    hashCode == other.hashCode
+           && wrapWidth == other.wrapWidth
+           && mode == other.mode
+           && probeWidth == other.probeWidth
+           && probeHeight == other.probeHeight
+           && string.equals( other.string )
+           && fontHeight == other.fontHeight
+           && fontStyle == other.fontStyle
+           && fontName.equals( other.fontName )
+           && probeText.equals( other.probeText );
+  }
+
+  private int computeHashCode() {
+    int result = 1;
+    result = 31 * result + probeText.hashCode();
+    result = 31 * result + probeWidth;
+    result = 31 * result + probeHeight;
+    result = 31 * result + fontName.hashCode();
+    result = 31 * result + fontHeight;
+    result = 31 * result + fontStyle;
+    result = 31 * result + string.hashCode();
+    result = 31 * result + wrapWidth;
+    result = 31 * result + mode;
+    return result;
+  }
+
+  // measured texts may exceed the 64K limit of writeUTF
+  private static void writeString( DataOutput output, String string ) throws IOException {
+    byte[] bytes = string.getBytes( UTF_8 );
+    output.writeInt( bytes.length );
+    output.write( bytes );
+  }
+
+  private static String readString( DataInput input ) throws IOException {
+    int length = input.readInt();
+    if( length < 0 || length > MAX_STRING_LENGTH ) {
+      throw new IOException( "Invalid string length: " + length );
+    }
+    byte[] bytes = new byte[ length ];
+    input.readFully( bytes );
+    return new String( bytes, UTF_8 );
+  }
+
+}
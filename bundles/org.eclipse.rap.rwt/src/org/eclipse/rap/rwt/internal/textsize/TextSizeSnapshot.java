@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.textsize;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.rap.rwt.internal.theme.CssFont;
+import org.eclipse.rap.rwt.internal.theme.CssValue;
+import org.eclipse.rap.rwt.internal.theme.Theme;
+import org.eclipse.rap.rwt.internal.theme.ThemeManager;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Point;
+
+
+/**
+ * Saves the fonts and measured text sizes of a TextSizeStorage to a file and restores them, so
+ * that an application does not start with an empty storage after a restart or on a new cluster
+ * node. Fonts that are known at startup are probed with the first request of a session, stored
+ * text sizes are found as soon as a client reports the same probe sizes.
+ * <p>
+ * The file starts with a format version and a fingerprint of the fonts defined in the registered
+ * themes. A snapshot with a different version or fingerprint is ignored.
+ * </p>
+ */
+public final class TextSizeSnapshot {
+
+  static final int MAGIC = 0x52545353;
+  static final int VERSION = 1;
+
+  private final TextSizeStorage storage;
+  private final File file;
+
+  public TextSizeSnapshot( TextSizeStorage storage, File file ) {
+    this.storage = storage;
+    this.file = file;
+  }
+
+  /**
+   * Restores fonts and text sizes if the file exists and matches the fingerprint.
+   *
+   * @return whether the snapshot has been restored
+   */
+  public boolean load( long fingerprint ) throws IOException {
+    if( !file.isFile() ) {
+      return false;
+    }
+    try( DataInputStream input = createInputStream() ) {
+      if( input.readInt() != MAGIC || input.readInt() != VERSION ) {
+        return false;
+      }
+      if( input.readLong() != fingerprint ) {
+        return false;
+      }
+      List<FontData> fonts = readFonts( input );
+      Map<Object,Point> textSizes = readTextSizes( input );
+      for( FontData fontData : fonts ) {
+        storage.storeFont( fontData );
+      }
+      for( Map.Entry<Object,Point> entry : textSizes.entrySet() ) {
+        storage.storeTextSize( entry.getKey(), entry.getValue() );
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Writes fonts and text sizes to the file. The file is replaced atomically where supported,
+   * hence concurrent readers, e.g. other cluster nodes, never see a partially written file.
+   */
+  public void save( long fingerprint ) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    parent.mkdirs();
+    File tempFile = File.createTempFile( file.getName(), ".tmp", parent );
+    try {
+      try( DataOutputStream output = createOutputStream( tempFile ) ) {
+        output.writeInt( MAGIC );
+        output.writeInt( VERSION );
+        output.writeLong( fingerprint );
+        writeFonts( output, storage.getFontList() );
+        writeTextSizes( output, storage.getTextSizes() );
+      }
+      if( !tempFile.renameTo( file ) ) {
+        file.delete();
+        if( !tempFile.renameTo( file ) ) {
+          throw new IOException( "Failed to write text size snapshot: " + file );
+        }
+      }
+    } finally {
+      tempFile.delete();
+    }
+  }
+
+  /**
+   * Computes a fingerprint of the fonts defined in the registered themes. Sizes that have been
+   * measured with different fonts are not reused.
+   */
+  public static long computeFingerprint( ThemeManager themeManager ) {
+    List<String> parts = new ArrayList<>();
+    String[] themeIds = themeManager.getRegisteredThemeIds();
+    Arrays.sort( themeIds );
+    for( String themeId : themeIds ) {
+      parts.add( themeId );
+      Theme theme = themeManager.getTheme( themeId );
+      List<String> fonts = new ArrayList<>();
+      if( theme.getValuesMap() != null ) {
+        for( CssValue value : theme.getValuesMap().getAllValues() ) {
+          if( value instanceof CssFont ) {
+            fonts.add( value.toDefaultString() );
+          }
+        }
+      }
+      Collections.sort( fonts );
+      parts.addAll( fonts );
+    }
+    CRC32 crc32 = new CRC32();
+    crc32.update( VERSION );
+    for( String part : parts ) {
+      crc32.update( part.getBytes( UTF_8 ) );
+      crc32.update( 0 );
+    }
+    return crc32.getValue();
+  }
+
+  private DataInputStream createInputStream() throws IOException {
+    FileInputStream stream = new FileInputStream( file );
+    try {
+      return new DataInputStream( new BufferedInputStream( new GZIPInputStream( stream ) ) );
+    } catch( IOException exception ) {
+      stream.close();
+      throw exception;
+    }
+  }
+
+  private static DataOutputStream createOutputStream( File file ) throws IOException {
+    FileOutputStream stream = new FileOutputStream( file );
+    return new DataOutputStream( new BufferedOutputStream( new GZIPOutputStream( stream ) ) );
+  }
+
+  private static void writeFonts( DataOutputStream output, FontData[] fonts ) throws IOException {
+    output.writeInt( fonts.length );
+    for( FontData fontData : fonts ) {
+      output.writeUTF( fontData.getName() );
+      output.writeInt( fontData.getHeight() );
+      output.writeInt( fontData.getStyle() );
+    }
+  }
+
+  private static List<FontData> readFonts( DataInputStream input ) throws IOException {
+    int count = readCount( input );
+    List<FontData> result = new ArrayList<>();
+    for( int i = 0; i < count; i++ ) {
+      result.add( new FontData( input.readUTF(), input.readInt(), input.readInt() ) );
+    }
+    return result;
+  }
+
+  private static void writeTextSizes( DataOutputStream output, Map<Object,Point> textSizes )
+    throws IOException
+  {
+    int count = 0;
+    for( Object key : textSizes.keySet() ) {
+      if( key instanceof TextSizeKey ) {
+        count++;
+      }
+    }
+    output.writeInt( count );
+    for( Map.Entry<Object,Point> entry : textSizes.entrySet() ) {
+      if( entry.getKey() instanceof TextSizeKey ) {
+        ( ( TextSizeKey )entry.getKey() ).writeTo( output );
+        output.writeInt( entry.getValue().x );
+        output.writeInt( entry.getValue().y );
+      }
+    }
+  }
+
+  private static Map<Object,Point> readTextSizes( DataInputStream input ) throws IOException {
+    int count = readCount( input );
+    Map<Object,Point> result = new LinkedHashMap<>();
+    for( int i = 0; i < count; i++ ) {
+      TextSizeKey key = TextSizeKey.readFrom( input );
+      result.put( key, new Point( input.readInt(), input.readInt() ) );
+    }
+    return result;
+  }
+
+  private static int readCount( DataInputStream input ) throws IOException {
+    int count = input.readInt();
+    if( count < 0 ) {
+      throw new IOException( "Invalid count: " + count );
+    }
+    return count;
+  }
+
+}
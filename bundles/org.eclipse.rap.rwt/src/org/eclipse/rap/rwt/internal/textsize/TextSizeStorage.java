@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2007, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,98 +13,139 @@ package org.eclipse.rap.rwt.internal.textsize;
 
 import static org.eclipse.rap.rwt.internal.RWTProperties.getTextSizeStoreSize;
 
-import java.io.Serializable;
 import java.math.BigDecimal;
 import java.text.MessageFormat;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.Point;
 
 
+/*
+ * Stores the measured text sizes of all UI sessions of an application.
+ *
+ * Lookups and stores do not lock. Least recently used entries are evicted with the CLOCK
+ * (second chance) approximation of LRU: a lookup only marks its entry as referenced, the eviction
+ * walks the insertion queue and evicts unreferenced entries while it gives referenced entries a
+ * second chance. Each entry is passed at most twice per eviction, hence evicting is amortized
+ * O(1) per stored entry. The queue holds every stored key once, replacing the text size of a key
+ * keeps its position and marks it as referenced.
+ */
 public final class TextSizeStorage {
 
   public static final int MIN_STORE_SIZE = 1000;
   public static final int DEFAULT_STORE_SIZE = 10000;
 
-  private final Object lock;
-  // access is guarded by 'lock'
   private final Set<FontData> fontDatas;
-  // access is guarded by 'lock'
-  private final Map<Integer,Entry> data;
-  private int maximumStoreSize;
-  private int clearRange;
-  private long clock;
+  private final ConcurrentMap<Object,Entry> data;
+  private final Queue<Object> clock;
+  private final AtomicInteger size;
+  private final ReentrantLock evictionLock;
+  private final AtomicLong hitCount;
+  private final AtomicLong missCount;
+  private final AtomicLong evictionCount;
+  private volatile int maximumStoreSize;
+  private volatile int clearRange;
 
 
   private static class Entry {
-    private Point point;
-    private long timeStamp;
-  }
+    private final int x;
+    private final int y;
+    private volatile boolean referenced;
 
-  private static class EntryComparator implements Comparator<Entry>, Serializable {
-
-    @Override
-    public int compare( Entry entry1, Entry entry2 ) {
-      int result = 0;
-      if( entry1.timeStamp > entry2.timeStamp ) {
-        result = 1;
-      } else if( entry1.timeStamp < entry2.timeStamp ) {
-        result = -1;
-      }
-      return result;
+    Entry( Point point ) {
+      x = point.x;
+      y = point.y;
     }
   }
 
 
   public TextSizeStorage() {
-    lock = new Object();
-    data = new HashMap<>();
-    fontDatas = new HashSet<>();
+    data = new ConcurrentHashMap<>();
+    clock = new ConcurrentLinkedQueue<>();
+    size = new AtomicInteger();
+    evictionLock = new ReentrantLock();
+    hitCount = new AtomicLong();
+    missCount = new AtomicLong();
+    evictionCount = new AtomicLong();
+    fontDatas = Collections.newSetFromMap( new ConcurrentHashMap<FontData,Boolean>() );
     setMaximumStoreSize( getTextSizeStoreSize( DEFAULT_STORE_SIZE ) );
   }
 
   FontData[] getFontList() {
-    FontData[] result;
-    synchronized( lock ) {
-      result = new FontData[ fontDatas.size() ];
-      fontDatas.toArray( result );
-    }
-    return result;
+    return fontDatas.toArray( new FontData[ 0 ] );
   }
 
   void storeFont( FontData fontData ) {
-    synchronized( lock ) {
-      fontDatas.add( fontData );
+    fontDatas.add( fontData );
+  }
+
+  Point lookupTextSize( Object key ) {
+    Entry entry = data.get( key );
+    if( entry == null ) {
+      missCount.incrementAndGet();
+      return null;
     }
+    hitCount.incrementAndGet();
+    if( !entry.referenced ) {
+      entry.referenced = true;
+    }
+    return new Point( entry.x, entry.y );
+  }
+
+  void storeTextSize( Object key, Point size ) {
+    Entry entry = new Entry( size );
+    if( data.put( key, entry ) == null ) {
+      this.size.incrementAndGet();
+      clock.add( key );
+    } else {
+      // like a lookup, replacing the text size gives the key a second chance
+      entry.referenced = true;
+    }
+    handleOverFlow();
   }
 
-  Point lookupTextSize( Integer key ) {
-    Point result = null;
-    synchronized( lock ) {
+  /*
+   * Returns the stored text sizes in eviction order, i.e. the next entries to evict first.
+   */
+  Map<Object,Point> getTextSizes() {
+    Map<Object,Point> result = new LinkedHashMap<>();
+    for( Object key : clock ) {
       Entry entry = data.get( key );
       if( entry != null ) {
-        updateTimestamp( entry );
-        result = entry.point;
+        result.put( key, new Point( entry.x, entry.y ) );
       }
     }
-    result = defensiveCopy( result );
     return result;
   }
 
-  void storeTextSize( Integer key, Point size ) {
-    Entry entry = new Entry();
-    entry.point = defensiveCopy( size );
-    updateTimestamp( entry );
-    synchronized( lock ) {
-      data.put( key, entry );
-      handleOverFlow();
-    }
+  ////////////
+  // statistics
+
+  public int getSize() {
+    return size.get();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
   }
 
   ////////////////////
@@ -112,7 +153,7 @@ public final class TextSizeStorage {
 
   void setMaximumStoreSize( int maximumStoreSize ) {
     checkLowerStoreSizeBoundary( maximumStoreSize );
-    calculateClearRange( maximumStoreSize );
+    clearRange = calculateClearRange( maximumStoreSize );
     this.maximumStoreSize = maximumStoreSize;
   }
 
@@ -121,22 +162,38 @@ public final class TextSizeStorage {
   }
 
   private void handleOverFlow() {
-    if( data.size() >= maximumStoreSize ) {
-      Entry[] entries = sortEntries();
-      for( int i = 0; i < clearRange; i++ ) {
-        data.values().remove( entries[ i ] );
+    // only one thread evicts, others continue and rely on it to restore the size
+    if( size.get() >= maximumStoreSize && evictionLock.tryLock() ) {
+      try {
+        if( size.get() >= maximumStoreSize ) {
+          evict( clearRange );
+        }
+      } finally {
+        evictionLock.unlock();
       }
     }
   }
 
-  private Entry[] sortEntries() {
-    Entry[] result = new Entry[ data.size() ];
-    data.values().toArray( result );
-    Arrays.sort( result, new EntryComparator() );
-    return result;
+  private void evict( int count ) {
+    int evicted = 0;
+    Object key = clock.poll();
+    while( key != null && evicted < count ) {
+      Entry entry = data.get( key );
+      if( entry.referenced ) {
+        entry.referenced = false;
+        clock.add( key );
+      } else if( data.remove( key, entry ) ) {
+        size.decrementAndGet();
+        evicted++;
+      } else {
+        // replaced by a concurrent store, which did not add the key to the queue again
+        clock.add( key );
+      }
+      key = evicted < count ? clock.poll() : null;
+    }
+    evictionCount.addAndGet( evicted );
   }
 
-
   //////////////////
   // helping methods
 
@@ -148,18 +205,10 @@ public final class TextSizeStorage {
     }
   }
 
-  private static Point defensiveCopy( Point point ) {
-    return point == null ? null : new Point( point.x, point.y );
-  }
-
-  private void updateTimestamp( Entry entry ) {
-    entry.timeStamp = clock++;
-  }
-
-  private void calculateClearRange( int maximumStoreSize ) {
+  private static int calculateClearRange( int maximumStoreSize ) {
     BigDecimal ten = new BigDecimal( 10 );
     BigDecimal bdStoreSize = new BigDecimal( maximumStoreSize );
-    clearRange = bdStoreSize.divide( ten, 0, BigDecimal.ROUND_HALF_UP ).intValue();
+    return bdStoreSize.divide( ten, 0, BigDecimal.ROUND_HALF_UP ).intValue();
   }
 
 }
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.theme;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.rap.rwt.internal.lifecycle.WidgetUtil;
+import org.eclipse.rap.rwt.internal.theme.WidgetMatcher.Constraint;
+import org.eclipse.rap.rwt.internal.theme.css.ConditionalValue;
+import org.eclipse.swt.widgets.Widget;
+
+
+/*
+ * The conditional values of one element and property of a theme, compiled for a widget matcher.
+ * Every distinct style, state and variant constraint is assigned a bit. A widget is matched by
+ * evaluating each constraint once into a signature of these bits, and each value by comparing
+ * the signature with the bits it requires. The selected value is memorized per signature, i.e.
+ * per combination of style bits, variant and states that are relevant for the values.
+ */
+final class CompiledSelector {
+
+  // the bit of unknown constraints, never set in a signature
+  private static final long NEVER = 1L << 63;
+  private static final int MAX_BITS = 62;
+  private static final int MAX_MEMO_BITS = 10;
+  private static final int UNKNOWN = 0;
+  private static final int NO_MATCH = 1;
+
+  private final ConditionalValue[] values;
+  private final Constraint[] constraints;
+  private final String[] variants;
+  private final long[] requirements;
+  // index of the selected value + 2, NO_MATCH or UNKNOWN per signature, null if too many bits
+  private final int[] memo;
+
+  private CompiledSelector( ConditionalValue[] values,
+                            Constraint[] constraints,
+                            String[] variants,
+                            long[] requirements )
+  {
+    this.values = values;
+    this.constraints = constraints;
+    this.variants = variants;
+    this.requirements = requirements;
+    int bits = constraints.length + variants.length;
+    memo = bits <= MAX_MEMO_BITS ? new int[ 1 << bits ] : null;
+  }
+
+  /*
+   * Returns null if the values depend on too many constraints to be compiled.
+   */
+  static CompiledSelector compile( ConditionalValue[] values, Map<String, Constraint> constraintMap ) {
+    Map<String, Integer> bits = new LinkedHashMap<>();
+    List<Constraint> constraints = new ArrayList<>();
+    List<String> variants = new ArrayList<>();
+    for( ConditionalValue value : values ) {
+      for( String string : value.constraints ) {
+        if( !bits.containsKey( string ) ) {
+          if( string.startsWith( "." ) ) {
+            bits.put( string, Integer.valueOf( -1 - variants.size() ) );
+            variants.add( string.substring( 1 ) );
+          } else if( constraintMap.containsKey( string ) ) {
+            bits.put( string, Integer.valueOf( constraints.size() ) );
+            constraints.add( constraintMap.get( string ) );
+          }
+        }
+      }
+    }
+    if( constraints.size() + variants.size() > MAX_BITS ) {
+      return null;
+    }
+    long[] requirements = new long[ values.length ];
+    for( int i = 0; i < values.length; i++ ) {
+      for( String string : values[ i ].constraints ) {
+        Integer bit = bits.get( string );
+        if( bit == null ) {
+          requirements[ i ] |= NEVER;
+        } else if( bit.intValue() < 0 ) {
+          requirements[ i ] |= 1L << ( constraints.size() - 1 - bit.intValue() );
+        } else {
+          requirements[ i ] |= 1L << bit.intValue();
+        }
+      }
+    }
+    return new CompiledSelector( values,
+                                 constraints.toArray( new Constraint[ constraints.size() ] ),
+                                 variants.toArray( new String[ variants.size() ] ),
+                                 requirements );
+  }
+
+  CssValue select( Widget widget ) {
+    long signature = getSignature( widget );
+    int index;
+    if( memo != null ) {
+      // races are harmless, the entry for a signature is always the same
+      int entry = memo[ ( int )signature ];
+      if( entry == UNKNOWN ) {
+        index = indexOf( signature );
+        memo[ ( int )signature ] = index + 2;
+      } else {
+        index = entry - 2;
+      }
+    } else {
+      index = indexOf( signature );
+    }
+    return index < 0 ? null : values[ index ].value;
+  }
+
+  private long getSignature( Widget widget ) {
+    long signature = 0;
+    for( int i = 0; i < constraints.length; i++ ) {
+      if( constraints[ i ].matches( widget ) ) {
+        signature |= 1L << i;
+      }
+    }
+    if( variants.length > 0 ) {
+      String variant = WidgetUtil.getVariant( widget );
+      if( variant != null ) {
+        for( int i = 0; i < variants.length; i++ ) {
+          if( variants[ i ].equals( variant ) ) {
+            signature |= 1L << ( constraints.length + i );
+            break;
+          }
+        }
+      }
+    }
+    return signature;
+  }
+
+  private int indexOf( long signature ) {
+    for( int i = 0; i < requirements.length; i++ ) {
+      if( ( signature & requirements[ i ] ) == requirements[ i ] ) {
+        return i;
+      }
+    }
+    return NO_MATCH - 2;
+  }
+
+}
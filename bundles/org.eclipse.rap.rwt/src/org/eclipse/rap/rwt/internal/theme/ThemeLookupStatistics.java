@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.theme;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.rap.rwt.internal.service.ContextProvider;
+import org.eclipse.rap.rwt.internal.service.ServiceStore;
+
+
+/**
+ * Counts the lookups of themed values of an application, in total and per request. Only created
+ * if enabled with the system property
+ * {@link org.eclipse.rap.rwt.internal.RWTProperties#THEME_LOOKUP_STATISTICS}.
+ */
+public final class ThemeLookupStatistics {
+
+  private static final String ATTR_REQUEST_COUNT
+    = ThemeLookupStatistics.class.getName() + "#requestCount";
+
+  private final AtomicLong lookupCount;
+  private final AtomicLong fallbackCount;
+  private final AtomicLong requestCount;
+
+  public ThemeLookupStatistics() {
+    lookupCount = new AtomicLong();
+    fallbackCount = new AtomicLong();
+    requestCount = new AtomicLong();
+  }
+
+  void countLookup() {
+    lookupCount.incrementAndGet();
+    ServiceStore serviceStore = getServiceStore();
+    if( serviceStore != null ) {
+      int[] count = ( int[] )serviceStore.getAttribute( ATTR_REQUEST_COUNT );
+      if( count == null ) {
+        count = new int[ 1 ];
+        serviceStore.setAttribute( ATTR_REQUEST_COUNT, count );
+        requestCount.incrementAndGet();
+      }
+      count[ 0 ]++;
+    }
+  }
+
+  void countFallback() {
+    fallbackCount.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of lookups since the application was started.
+   */
+  public long getLookupCount() {
+    return lookupCount.get();
+  }
+
+  /**
+   * Returns the number of lookups that resorted to the fallback theme.
+   */
+  public long getFallbackCount() {
+    return fallbackCount.get();
+  }
+
+  /**
+   * Returns the number of requests that looked up themed values.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Returns the number of lookups in the current request, or 0 if there is no current request.
+   */
+  public int getRequestLookupCount() {
+    ServiceStore serviceStore = getServiceStore();
+    if( serviceStore != null ) {
+      int[] count = ( int[] )serviceStore.getAttribute( ATTR_REQUEST_COUNT );
+      return count == null ? 0 : count[ 0 ];
+    }
+    return 0;
+  }
+
+  private static ServiceStore getServiceStore() {
+    return ContextProvider.hasContext() ? ContextProvider.getContext().getServiceStore() : null;
+  }
+
+  @Override
+  public String toString() {
+    long requests = requestCount.get();
+    long lookups = lookupCount.get();
+    return "ThemeLookupStatistics{lookups="
+           + lookups
+           + ", fallbacks="
+           + fallbackCount.get()
+           + ", requests="
+           + requests
+           + ", lookupsPerRequest="
+           + ( requests == 0 ? 0 : lookups / requests )
+           + "}";
+  }
+
+}
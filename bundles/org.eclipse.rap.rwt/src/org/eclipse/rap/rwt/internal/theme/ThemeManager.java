@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2007, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@
  ******************************************************************************/
 package org.eclipse.rap.rwt.internal.theme;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
@@ -25,7 +26,10 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.internal.RWTProperties;
 import org.eclipse.rap.rwt.internal.lifecycle.LifeCycleAdapterUtil;
+import org.eclipse.rap.rwt.internal.resources.ResourceUtil;
+import org.eclipse.rap.rwt.internal.theme.ThemeSnapshot.Entry;
 import org.eclipse.rap.rwt.internal.theme.css.CssFileReader;
 import org.eclipse.rap.rwt.internal.theme.css.StyleSheet;
 import org.eclipse.rap.rwt.internal.util.ParamCheck;
@@ -42,6 +46,9 @@ public class ThemeManager {
   public static final String FALLBACK_THEME_ID = "org.eclipse.rap.rwt.theme.Fallback";
   private static final String FALLBACK_THEME_NAME = "RAP Fallback Theme";
   private static final String DEFAULT_THEME_NAME = "RAP Default Theme";
+  private static final String THEME_DEF_EXTENSION = ".theme.xml";
+  private static final String APPEARANCES_EXTENSION = ".appearances.js";
+  private static final String DEFAULT_CSS_EXTENSION = ".default.css";
 
   public static final ResourceLoader STANDARD_RESOURCE_LOADER = new ResourceLoader() {
     ClassLoader classLoader = getClass().getClassLoader();
@@ -93,6 +100,7 @@ public class ThemeManager {
   private final List<String> appearances;
   private final ThemeAdapterManager themeAdapterManager;
   private final Map<String, String> resolvedPackageNames; // only for performance improvements
+  private final ThemeLookupStatistics lookupStatistics;
   private Theme fallbackTheme;
   private boolean initialized;
 
@@ -102,6 +110,9 @@ public class ThemeManager {
     appearances = new ArrayList<>();
     themeAdapterManager = new ThemeAdapterManager();
     resolvedPackageNames = new HashMap<>();
+    lookupStatistics = RWTProperties.isThemeLookupStatisticsEnabled()
+                     ? new ThemeLookupStatistics()
+                     : null;
     initialized = false;
     createAndAddFallbackTheme();
     addDefaultThemableWidgets();
@@ -116,8 +127,19 @@ public class ThemeManager {
   }
 
   public void activate() {
+    activate( null );
+  }
+
+  /**
+   * Activates the ThemeManager and reuses the theme definitions and appearances of themeable
+   * widgets from the given snapshot as long as their resources are unchanged. Entries for
+   * widgets that had to be read are added to the snapshot.
+   *
+   * @param snapshot the snapshot to use, or <code>null</code> to read all resources
+   */
+  public void activate( ThemeSnapshot snapshot ) {
     if( !initialized ) {
-      initializeThemeableWidgets();
+      initializeThemeableWidgets( snapshot );
       Collection<Theme> allThemes = themes.values();
       ThemeableWidget[] allThemeableWidgets = themeableWidgets.getAll();
       for( Theme theme : allThemes ) {
@@ -163,6 +185,15 @@ public class ThemeManager {
     return themeAdapterManager;
   }
 
+  /**
+   * Returns the counts of themed value lookups, or <code>null</code> if counting is not enabled.
+   *
+   * @see RWTProperties#THEME_LOOKUP_STATISTICS
+   */
+  public ThemeLookupStatistics getLookupStatistics() {
+    return lookupStatistics;
+  }
+
   /**
    * Registers a theme. Must be called before <code>initialize()</code>.
    *
@@ -243,10 +274,10 @@ public class ThemeManager {
     themes.put( FALLBACK_THEME_ID, fallbackTheme );
   }
 
-  private void initializeThemeableWidgets() {
+  private void initializeThemeableWidgets( ThemeSnapshot snapshot ) {
     ThemeableWidget[] widgets = themeableWidgets.getAll();
     for( ThemeableWidget widget : widgets ) {
-      loadThemeableWidgetResources( widget );
+      loadThemeableWidgetResources( widget, snapshot );
     }
   }
 
@@ -256,15 +287,14 @@ public class ThemeManager {
     }
   }
 
-  private void loadThemeableWidgetResources( ThemeableWidget themeWidget ) {
-    String className = LifeCycleAdapterUtil.getSimpleClassName( themeWidget.className );
-    String[] variants = LifeCycleAdapterUtil.getKitPackageVariants( themeWidget.className );
-    boolean found = false;
+  private void loadThemeableWidgetResources( ThemeableWidget themeWidget, ThemeSnapshot snapshot ) {
     try {
-      for( int i = 0; i < variants.length && !found ; i++ ) {
-        found |= loadThemeDef( themeWidget, variants[ i ], className );
-        found |= loadAppearanceJs( themeWidget, variants[ i ], className );
-        found |= loadDefaultCss( themeWidget, variants[ i ], className );
+      Entry entry = snapshot != null ? snapshot.get( themeWidget.className ) : null;
+      if( entry == null || !restoreThemeableWidgetResources( themeWidget, entry ) ) {
+        entry = readThemeableWidgetResources( themeWidget );
+        if( snapshot != null && entry != null ) {
+          snapshot.put( themeWidget.className, entry );
+        }
       }
       if( themeWidget.defaultStyleSheet != null ) {
         fallbackTheme.addStyleSheet( themeWidget.defaultStyleSheet );
@@ -275,54 +305,71 @@ public class ThemeManager {
     }
   }
 
-  private boolean loadThemeDef( ThemeableWidget themeWidget, String pkgName, String className )
-    throws IOException
-  {
-    boolean result = false;
-    String resPkgName = resolvePackageName( pkgName );
-    String fileName = resPkgName + "/" + className + ".theme.xml";
-    InputStream inStream = themeWidget.loader.getResourceAsStream( fileName );
-    if( inStream != null ) {
-      result = true;
-      try {
-        ThemeDefinitionReader reader = new ThemeDefinitionReader( inStream, fileName );
-        reader.read();
-        themeWidget.elements = reader.getThemeCssElements();
-      } catch( Exception e ) {
-        String message = "Failed to parse theme definition file " + fileName;
-        throw new ThemeManagerException( message, e );
-      } finally {
-        inStream.close();
+  private Entry readThemeableWidgetResources( ThemeableWidget themeWidget ) throws IOException {
+    String className = LifeCycleAdapterUtil.getSimpleClassName( themeWidget.className );
+    String[] variants = LifeCycleAdapterUtil.getKitPackageVariants( themeWidget.className );
+    for( String variant : variants ) {
+      String path = resolvePackageName( variant ) + "/" + className;
+      byte[] themeDef = readResource( themeWidget, path + THEME_DEF_EXTENSION );
+      byte[] appearance = readResource( themeWidget, path + APPEARANCES_EXTENSION );
+      boolean found = loadDefaultCss( themeWidget, path );
+      if( themeDef != null || appearance != null || found ) {
+        if( themeDef != null ) {
+          themeWidget.elements = readThemeDef( themeDef, path + THEME_DEF_EXTENSION );
+        }
+        String appearanceCode = null;
+        if( appearance != null ) {
+          InputStream inStream = new ByteArrayInputStream( appearance );
+          appearanceCode = AppearancesUtil.readAppearanceFile( inStream );
+          appearances.add( appearanceCode );
+        }
+        return new Entry( path,
+                          ThemeSnapshot.checksum( themeDef ),
+                          themeWidget.elements,
+                          ThemeSnapshot.checksum( appearance ),
+                          appearanceCode );
       }
     }
-    return result;
+    return null;
   }
 
-  private boolean loadAppearanceJs( ThemeableWidget themeWidget, String pkgName, String className )
+  private boolean restoreThemeableWidgetResources( ThemeableWidget themeWidget, Entry entry )
     throws IOException
   {
-    boolean result = false;
-    String resPkgName = resolvePackageName( pkgName );
-    String fileName = resPkgName + "/" + className + ".appearances.js";
-    InputStream inStream = themeWidget.loader.getResourceAsStream( fileName );
-    if( inStream != null ) {
-      try {
-        String content = AppearancesUtil.readAppearanceFile( inStream );
-        appearances.add( content );
-        result = true;
-      } finally {
-        inStream.close();
-      }
+    byte[] themeDef = readResource( themeWidget, entry.path + THEME_DEF_EXTENSION );
+    byte[] appearance = readResource( themeWidget, entry.path + APPEARANCES_EXTENSION );
+    if(    ThemeSnapshot.checksum( themeDef ) != entry.themeDefChecksum
+        || ThemeSnapshot.checksum( appearance ) != entry.appearanceChecksum )
+    {
+      return false;
     }
-    return result;
+    if( entry.elements != null ) {
+      themeWidget.elements = entry.elements;
+    }
+    if( entry.appearance != null ) {
+      appearances.add( entry.appearance );
+    }
+    loadDefaultCss( themeWidget, entry.path );
+    return true;
   }
 
-  private boolean loadDefaultCss( ThemeableWidget themeWidget, String pkgName, String className )
+  private static CssElement[] readThemeDef( byte[] content, String fileName ) {
+    try {
+      ThemeDefinitionReader reader
+        = new ThemeDefinitionReader( new ByteArrayInputStream( content ), fileName );
+      reader.read();
+      return reader.getThemeCssElements();
+    } catch( Exception e ) {
+      String message = "Failed to parse theme definition file " + fileName;
+      throw new ThemeManagerException( message, e );
+    }
+  }
+
+  private static boolean loadDefaultCss( ThemeableWidget themeWidget, String path )
     throws IOException
   {
     boolean result = false;
-    String resPkgName = resolvePackageName( pkgName );
-    String fileName = resPkgName + "/" + className + ".default.css";
+    String fileName = path + DEFAULT_CSS_EXTENSION;
     ResourceLoader resLoader = themeWidget.loader;
     InputStream inStream = resLoader.getResourceAsStream( fileName );
     if( inStream != null ) {
@@ -338,6 +385,20 @@ public class ThemeManager {
     return result;
   }
 
+  private static byte[] readResource( ThemeableWidget themeWidget, String fileName )
+    throws IOException
+  {
+    InputStream inStream = themeWidget.loader.getResourceAsStream( fileName );
+    if( inStream == null ) {
+      return null;
+    }
+    try {
+      return ResourceUtil.readBinary( inStream );
+    } finally {
+      inStream.close();
+    }
+  }
+
   private String resolvePackageName( String packageName ) {
     String result = resolvedPackageNames.get( packageName );
     if( result == null ) {
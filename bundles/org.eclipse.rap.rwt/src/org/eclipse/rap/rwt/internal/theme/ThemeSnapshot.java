@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.theme;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Saves the theme definitions and appearances that the ThemeManager reads for every themeable
+ * widget to a file, so that later activations of an application do not parse them again. The
+ * snapshot can be created by a first run or at build time and be shipped with the application.
+ * <p>
+ * Every entry records the checksums of the resources it has been read from. The ThemeManager
+ * reads these resources on activation and uses an entry only if the checksums still match,
+ * otherwise it parses the resources and replaces the entry. A snapshot with a different format
+ * version is ignored.
+ * </p>
+ */
+public final class ThemeSnapshot {
+
+  static final int MAGIC = 0x52544853;
+  static final int VERSION = 1;
+  static final long MISSING = -1;
+
+  private final File file;
+  private final Map<String, Entry> entries;
+  private boolean modified;
+
+  public ThemeSnapshot( File file ) {
+    this.file = file;
+    entries = new LinkedHashMap<>();
+  }
+
+  /**
+   * Reads the entries if the file exists and has the current format version.
+   *
+   * @return whether the snapshot has been loaded
+   */
+  public boolean load() throws IOException {
+    if( !file.isFile() ) {
+      return false;
+    }
+    try( DataInputStream input = createInputStream() ) {
+      if( input.readInt() != MAGIC || input.readInt() != VERSION ) {
+        return false;
+      }
+      Map<String, Entry> result = new LinkedHashMap<>();
+      int count = readCount( input );
+      for( int i = 0; i < count; i++ ) {
+        String className = input.readUTF();
+        result.put( className, readEntry( input ) );
+      }
+      entries.putAll( result );
+      return true;
+    }
+  }
+
+  /**
+   * Writes all entries to the file. The file is replaced atomically where supported, hence
+   * concurrently activated applications never see a partially written file.
+   */
+  public void save() throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    parent.mkdirs();
+    File tempFile = File.createTempFile( file.getName(), ".tmp", parent );
+    try {
+      try( DataOutputStream output = createOutputStream( tempFile ) ) {
+        output.writeInt( MAGIC );
+        output.writeInt( VERSION );
+        output.writeInt( entries.size() );
+        for( Map.Entry<String, Entry> entry : entries.entrySet() ) {
+          output.writeUTF( entry.getKey() );
+          writeEntry( output, entry.getValue() );
+        }
+      }
+      if( !tempFile.renameTo( file ) ) {
+        file.delete();
+        if( !tempFile.renameTo( file ) ) {
+          throw new IOException( "Failed to write theme snapshot: " + file );
+        }
+      }
+    } finally {
+      tempFile.delete();
+    }
+    modified = false;
+  }
+
+  /**
+   * Returns whether entries have been added or replaced since the snapshot has been loaded or
+   * saved.
+   */
+  public boolean isModified() {
+    return modified;
+  }
+
+  Entry get( String className ) {
+    return entries.get( className );
+  }
+
+  void put( String className, Entry entry ) {
+    entries.put( className, entry );
+    modified = true;
+  }
+
+  static long checksum( byte[] content ) {
+    if( content == null ) {
+      return MISSING;
+    }
+    CRC32 crc32 = new CRC32();
+    crc32.update( content );
+    return crc32.getValue();
+  }
+
+  private DataInputStream createInputStream() throws IOException {
+    FileInputStream stream = new FileInputStream( file );
+    try {
+      return new DataInputStream( new BufferedInputStream( new GZIPInputStream( stream ) ) );
+    } catch( IOException exception ) {
+      stream.close();
+      throw exception;
+    }
+  }
+
+  private static DataOutputStream createOutputStream( File file ) throws IOException {
+    FileOutputStream stream = new FileOutputStream( file );
+    return new DataOutputStream( new BufferedOutputStream( new GZIPOutputStream( stream ) ) );
+  }
+
+  private static void writeEntry( DataOutputStream output, Entry entry ) throws IOException {
+    output.writeUTF( entry.path );
+    output.writeLong( entry.themeDefChecksum );
+    output.writeLong( entry.appearanceChecksum );
+    writeElements( output, entry.elements );
+    writeText( output, entry.appearance );
+  }
+
+  private static Entry readEntry( DataInputStream input ) throws IOException {
+    String path = input.readUTF();
+    long themeDefChecksum = input.readLong();
+    long appearanceChecksum = input.readLong();
+    CssElement[] elements = readElements( input );
+    String appearance = readText( input );
+    return new Entry( path, themeDefChecksum, elements, appearanceChecksum, appearance );
+  }
+
+  private static void writeElements( DataOutputStream output, CssElement[] elements )
+    throws IOException
+  {
+    if( elements == null ) {
+      output.writeInt( -1 );
+    } else {
+      output.writeInt( elements.length );
+      for( CssElement element : elements ) {
+        output.writeUTF( element.getName() );
+        writeStrings( output, element.getProperties() );
+        writeStrings( output, element.getStyles() );
+        writeStrings( output, element.getStates() );
+      }
+    }
+  }
+
+  private static CssElement[] readElements( DataInputStream input ) throws IOException {
+    int count = input.readInt();
+    if( count == -1 ) {
+      return null;
+    }
+    checkCount( count );
+    CssElement[] result = new CssElement[ count ];
+    for( int i = 0; i < count; i++ ) {
+      CssElementImpl element = new CssElementImpl( input.readUTF() );
+      for( String property : readStrings( input ) ) {
+        element.addProperty( property );
+      }
+      for( String style : readStrings( input ) ) {
+        element.addStyle( style );
+      }
+      for( String state : readStrings( input ) ) {
+        element.addState( state );
+      }
+      result[ i ] = element;
+    }
+    return result;
+  }
+
+  private static void writeStrings( DataOutputStream output, String[] strings )
+    throws IOException
+  {
+    output.writeInt( strings.length );
+    for( String string : strings ) {
+      output.writeUTF( string );
+    }
+  }
+
+  private static String[] readStrings( DataInputStream input ) throws IOException {
+    String[] result = new String[ readCount( input ) ];
+    for( int i = 0; i < result.length; i++ ) {
+      result[ i ] = input.readUTF();
+    }
+    return result;
+  }
+
+  // appearances may exceed the 64k limit of writeUTF
+  private static void writeText( DataOutputStream output, String text ) throws IOException {
+    if( text == null ) {
+      output.writeInt( -1 );
+    } else {
+      byte[] bytes = text.getBytes( UTF_8 );
+      output.writeInt( bytes.length );
+      output.write( bytes );
+    }
+  }
+
+  private static String readText( DataInputStream input ) throws IOException {
+    int length = input.readInt();
+    if( length == -1 ) {
+      return null;
+    }
+    checkCount( length );
+    byte[] bytes = new byte[ length ];
+    input.readFully( bytes );
+    return new String( bytes, UTF_8 );
+  }
+
+  private static int readCount( DataInputStream input ) throws IOException {
+    return checkCount( input.readInt() );
+  }
+
+  private static int checkCount( int count ) throws IOException {
+    if( count < 0 ) {
+      throw new IOException( "Invalid count: " + count );
+    }
+    return count;
+  }
+
+  /*
+   * The resources of a themeable widget: the path of the resources without extension, the theme
+   * definition and the appearance code read from them and the checksums of both resources.
+   */
+  static final class Entry {
+
+    final String path;
+    final long themeDefChecksum;
+    final CssElement[] elements;
+    final long appearanceChecksum;
+    final String appearance;
+
+    Entry( String path,
+           long themeDefChecksum,
+           CssElement[] elements,
+           long appearanceChecksum,
+           String appearance )
+    {
+      this.path = path;
+      this.themeDefChecksum = themeDefChecksum;
+      this.elements = elements;
+      this.appearanceChecksum = appearanceChecksum;
+      this.appearance = appearance;
+    }
+
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2007, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,8 @@ import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
 import org.eclipse.rap.rwt.internal.lifecycle.EntryPointManager;
 import org.eclipse.rap.rwt.internal.lifecycle.EntryPointRegistration;
 import org.eclipse.rap.rwt.internal.service.ContextProvider;
+import org.eclipse.rap.rwt.internal.service.ServiceContext;
+import org.eclipse.rap.rwt.internal.service.ServiceStore;
 import org.eclipse.rap.rwt.internal.theme.css.ConditionalValue;
 import org.eclipse.rap.rwt.internal.theme.css.CssFileReader;
 import org.eclipse.rap.rwt.internal.theme.css.StyleSheet;
@@ -40,6 +42,8 @@ public final class ThemeUtil {
 
   public static final String CURR_THEME_ATTR = "org.eclipse.rap.theme.current";
 
+  private static final String ATTR_REQUEST_THEME_ID = ThemeUtil.class.getName() + "#themeId";
+
   /**
    * Returns the ids of all themes that are currently registered.
    *
@@ -55,8 +59,24 @@ public final class ThemeUtil {
    * @return the id of the current theme, never <code>null</code>
    */
   public static String getCurrentThemeId() {
-    UISession uiSession = ContextProvider.getUISession();
-    return ( String )uiSession.getAttribute( CURR_THEME_ATTR );
+    return getCurrentThemeId( ContextProvider.getContext() );
+  }
+
+  private static String getCurrentThemeId( ServiceContext context ) {
+    // remember the theme id for the request to avoid the synchronized access to the UI session
+    // for every themed value
+    ServiceStore serviceStore = context.getServiceStore();
+    String themeId = null;
+    if( serviceStore != null ) {
+      themeId = ( String )serviceStore.getAttribute( ATTR_REQUEST_THEME_ID );
+    }
+    if( themeId == null ) {
+      themeId = ( String )context.getUISession().getAttribute( CURR_THEME_ATTR );
+      if( themeId != null && serviceStore != null ) {
+        serviceStore.setAttribute( ATTR_REQUEST_THEME_ID, themeId );
+      }
+    }
+    return themeId;
   }
 
   /**
@@ -69,6 +89,12 @@ public final class ThemeUtil {
    */
   public static void setCurrentThemeId( UISession uiSession, String themeId ) {
     uiSession.setAttribute( CURR_THEME_ATTR, themeId );
+    if( ContextProvider.hasContext() ) {
+      ServiceStore serviceStore = ContextProvider.getContext().getServiceStore();
+      if( serviceStore != null ) {
+        serviceStore.removeAttribute( ATTR_REQUEST_THEME_ID );
+      }
+    }
   }
 
   public static String getThemeIdFor( String servletPath ) {
@@ -85,11 +111,6 @@ public final class ThemeUtil {
     return getApplicationContext().getThemeManager().getTheme( getCurrentThemeId() );
   }
 
-  private static Theme getFallbackTheme() {
-    ThemeManager themeManager = getApplicationContext().getThemeManager();
-    return themeManager.getTheme( ThemeManager.FALLBACK_THEME_ID );
-  }
-
   static StyleSheet readDefaultThemeStyleSheet() {
     StyleSheet result;
     try {
@@ -134,7 +155,11 @@ public final class ThemeUtil {
                                       ValueSelector selector,
                                       Widget widget )
   {
-    return getCssValue( getCurrentThemeId(), cssElement, cssProperty, selector, widget );
+    // resolve the context only once, this method is called for every themed value
+    ServiceContext context = ContextProvider.getContext();
+    String themeId = getCurrentThemeId( context );
+    ThemeManager themeManager = context.getApplicationContext().getThemeManager();
+    return getCssValue( themeManager, themeId, cssElement, cssProperty, selector, widget );
   }
 
   public static CssValue getCssValue( String themeId,
@@ -143,13 +168,31 @@ public final class ThemeUtil {
                                       ValueSelector selector,
                                       Widget widget )
   {
-    Theme theme =  getApplicationContext().getThemeManager().getTheme( themeId );
+    ThemeManager themeManager = getApplicationContext().getThemeManager();
+    return getCssValue( themeManager, themeId, cssElement, cssProperty, selector, widget );
+  }
+
+  private static CssValue getCssValue( ThemeManager themeManager,
+                                       String themeId,
+                                       String cssElement,
+                                       String cssProperty,
+                                       ValueSelector selector,
+                                       Widget widget )
+  {
+    ThemeLookupStatistics statistics = themeManager.getLookupStatistics();
+    if( statistics != null ) {
+      statistics.countLookup();
+    }
+    Theme theme = themeManager.getTheme( themeId );
     CssValuesMap valuesMap = theme.getValuesMap();
     ConditionalValue[] values = valuesMap.getValues( cssElement, cssProperty );
     CssValue result = selector.select( widget, values );
     if( result == null ) {
+      if( statistics != null ) {
+        statistics.countFallback();
+      }
       // resort to fallback theme
-      theme = getFallbackTheme();
+      theme = themeManager.getTheme( ThemeManager.FALLBACK_THEME_ID );
       valuesMap = theme.getValuesMap();
       values = valuesMap.getValues( cssElement, cssProperty );
       result = selector.select( widget, values );
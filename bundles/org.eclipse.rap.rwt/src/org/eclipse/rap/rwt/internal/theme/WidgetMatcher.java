@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2008, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,12 +26,16 @@ public final class WidgetMatcher implements ValueSelector {
   }
 
   private final Map<String, Constraint> constraintMap;
+  private final Map<ConditionalValue[], CompiledSelector> selectors;
 
   public WidgetMatcher() {
     // This map is accessed by all UI sessions simultaneously. However, We don't need to
     // synchronize get and put since constraints are deterministic, i.e. in case of concurrent
     // insertions one constraint overwriting the other is not critical.
     constraintMap = new ConcurrentHashMap<>();
+    // Keyed by identity, the arrays are created once per element and property of a theme.
+    // Same as above, concurrently compiled selectors are equivalent.
+    selectors = new ConcurrentHashMap<>();
   }
 
   public void addStyle( String string, int style ) {
@@ -44,6 +48,10 @@ public final class WidgetMatcher implements ValueSelector {
 
   @Override
   public CssValue select( Widget widget, ConditionalValue... values ) {
+    CompiledSelector selector = getSelector( values );
+    if( selector != null ) {
+      return selector.select( widget );
+    }
     CssValue result = null;
     for( int i = 0; i < values.length && result == null; i++ ) {
       ConditionalValue condValue = values[ i ];
@@ -55,6 +63,17 @@ public final class WidgetMatcher implements ValueSelector {
     return result;
   }
 
+  private CompiledSelector getSelector( ConditionalValue[] values ) {
+    CompiledSelector selector = selectors.get( values );
+    if( selector == null ) {
+      selector = CompiledSelector.compile( values, constraintMap );
+      if( selector != null ) {
+        selectors.put( values, selector );
+      }
+    }
+    return selector;
+  }
+
   private boolean matches( Widget widget, String[] constraints ) {
     for( String string : constraints ) {
       Constraint constraint = getConstraint( string );
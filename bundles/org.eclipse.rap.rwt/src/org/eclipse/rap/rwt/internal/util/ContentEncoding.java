@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.util;
+
+import static org.eclipse.rap.rwt.internal.util.HTTP.ENCODING_GZIP;
+import static org.eclipse.rap.rwt.internal.util.HTTP.HEADER_ACCEPT_ENCODING;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ * Utility methods for HTTP content encodings.
+ */
+public final class ContentEncoding {
+
+  /**
+   * Returns whether the request accepts the gzip content encoding, i.e. whether the
+   * <code>Accept-Encoding</code> header lists <code>gzip</code> or <code>*</code> with a
+   * non-zero quality value.
+   */
+  public static boolean acceptsGzip( HttpServletRequest request ) {
+    String header = request.getHeader( HEADER_ACCEPT_ENCODING );
+    return header != null && accepts( header, ENCODING_GZIP );
+  }
+
+  static boolean accepts( String acceptEncoding, String encoding ) {
+    boolean result = false;
+    for( String element : acceptEncoding.split( "," ) ) {
+      String[] parts = element.split( ";" );
+      String coding = parts[ 0 ].trim();
+      if( coding.equalsIgnoreCase( encoding ) ) {
+        // an explicit entry overrides the wildcard
+        return getQuality( parts ) > 0;
+      }
+      if( "*".equals( coding ) ) {
+        result = getQuality( parts ) > 0;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Compresses the given bytes with the best compression level. Intended for content that is
+   * compressed once and delivered many times.
+   */
+  public static byte[] gzip( byte[] content ) {
+    ByteArrayOutputStream result = new ByteArrayOutputStream( content.length / 4 + 64 );
+    try( OutputStream stream = createGzipStream( result, Deflater.BEST_COMPRESSION ) ) {
+      stream.write( content );
+    } catch( IOException exception ) {
+      // writing to memory does not throw IOExceptions
+      throw new RuntimeException( exception );
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Creates a gzip stream with the given compression level. The stream has to be closed to
+   * release the native resources of its deflater.
+   */
+  public static GZIPOutputStream createGzipStream( OutputStream stream, final int level )
+    throws IOException
+  {
+    return new GZIPOutputStream( stream, 8192 ) {
+      {
+        def.setLevel( level );
+      }
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          // super.close() does not end the deflater if finishing the stream fails
+          def.end();
+        }
+      }
+    };
+  }
+
+  private static float getQuality( String[] parameters ) {
+    for( int i = 1; i < parameters.length; i++ ) {
+      String parameter = parameters[ i ].trim();
+      if( parameter.startsWith( "q=" ) ) {
+        try {
+          return Float.parseFloat( parameter.substring( 2 ).trim() );
+        } catch( @SuppressWarnings( "unused" ) NumberFormatException exception ) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  private ContentEncoding() {
+    // prevent instantiation
+  }
+
+}
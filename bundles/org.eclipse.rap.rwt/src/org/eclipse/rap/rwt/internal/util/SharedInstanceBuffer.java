@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 EclipseSource and others.
+ * Copyright (c) 2011, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,73 +7,96 @@
  *
  * Contributors:
  *    EclipseSource - initial API and implementation
+ *    EclipseSource - create instances outside of a global lock
  ******************************************************************************/
 package org.eclipse.rap.rwt.internal.util;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
+/*
+ * Instances are created at most once per key. The creation only locks the entry of the key,
+ * concurrent requests for the same key wait for the instance being created, while requests for
+ * other keys proceed.
+ */
 public class SharedInstanceBuffer<K, I> implements Serializable {
 
-  private final Lock readLock;
-  private final Lock writeLock;
-  private final Map<K, I> store;
+  private static final Object NULL_KEY = new NullKey();
+
+  private final ConcurrentMap<Object, Entry<I>> store;
 
   public SharedInstanceBuffer() {
-    ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    readLock = readWriteLock.readLock();
-    writeLock = readWriteLock.writeLock();
-    store = new HashMap<>();
+    store = new ConcurrentHashMap<>();
   }
 
   public I get( K key, InstanceCreator<K, I> instanceCreator ) {
-    I result = getInstance( key );
+    Object storeKey = key == null ? NULL_KEY : key;
+    Entry<I> entry = store.get( storeKey );
+    if( entry == null ) {
+      Entry<I> newEntry = new Entry<>();
+      entry = store.putIfAbsent( storeKey, newEntry );
+      if( entry == null ) {
+        entry = newEntry;
+      }
+    }
+    I result = entry.instance;
     if( result == null ) {
-      result = createInstance( key, instanceCreator );
+      result = createInstance( storeKey, key, entry, instanceCreator );
     }
     return result;
   }
 
   public I remove( K key ) {
-    writeLock.lock();
-    try {
-      return store.remove( key );
-    } finally {
-      writeLock.unlock();
-    }
+    Entry<I> entry = store.remove( key == null ? NULL_KEY : key );
+    return entry == null ? null : entry.instance;
   }
 
-  private I getInstance( K key ) {
-    readLock.lock();
-    try {
-      return store.get( key );
-    } finally {
-      readLock.unlock();
-    }
-  }
-
-  private I createInstance( K key, InstanceCreator<K, I> instanceCreator ) {
-    writeLock.lock();
-    try {
-      // Re-check because another thread might have acquired write lock and created an instance
-      // before we did. See doc on ReentrantReadWriteLock.
-      I result = store.get( key );
-      if( result == null ) {
-        result = instanceCreator.createInstance( key );
-        store.put( key, result );
+  private I createInstance( Object storeKey,
+                            K key,
+                            Entry<I> entry,
+                            InstanceCreator<K, I> instanceCreator )
+  {
+    synchronized( entry ) {
+      // Re-check because another thread might have created the instance while we were waiting
+      I result = entry.instance;
+      if( result != null ) {
+        return result;
+      }
+      // Another thread might have failed to create the instance and removed the entry, an
+      // instance created for a removed entry would not be shared
+      if( store.get( storeKey ) == entry ) {
+        boolean created = false;
+        try {
+          result = instanceCreator.createInstance( key );
+          entry.instance = result;
+          created = true;
+        } finally {
+          if( !created ) {
+            store.remove( storeKey, entry );
+          }
+        }
+        return result;
       }
-      return result;
-    } finally {
-      writeLock.unlock();
     }
+    return get( key, instanceCreator );
   }
 
   public interface InstanceCreator<K, T> extends Serializable {
     T createInstance( K key );
   }
 
+  private static final class Entry<I> implements Serializable {
+    volatile I instance;
+  }
+
+  private static final class NullKey implements Serializable {
+
+    private Object readResolve() {
+      return NULL_KEY;
+    }
+
+  }
+
 }
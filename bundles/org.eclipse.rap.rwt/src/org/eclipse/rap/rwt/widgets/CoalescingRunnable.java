@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.widgets;
+
+import org.eclipse.swt.widgets.Display;
+
+
+/**
+ * A runnable that supersedes other runnables with the same key when passed to
+ * <code>Display#asyncExec()</code>.
+ * <p>
+ * If a runnable with an equal key is still waiting to be executed, the new runnable replaces it
+ * at its position in the queue, so that only the latest runnable is executed. This is useful for
+ * background threads that post frequent updates of the same state, e.g. a progress or a value
+ * from a feed, where only the most recent update needs to reach the UI.
+ * </p>
+ *
+ * @see Display#asyncExec(Runnable)
+ * @since 3.2
+ */
+public interface CoalescingRunnable extends Runnable {
+
+  /**
+   * Returns the key that identifies the runnables that supersede each other. Keys are compared
+   * with <code>equals()</code> within a display. A <code>null</code> key disables coalescing for
+   * this runnable.
+   *
+   * @return the key of this runnable or <code>null</code>
+   */
+  Object getCoalescingKey();
+
+}
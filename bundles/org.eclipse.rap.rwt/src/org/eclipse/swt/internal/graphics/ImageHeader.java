@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.graphics;
+
+import org.eclipse.swt.SWT;
+
+
+/*
+ * The type and size of an encoded image, read from its header without decoding the pixel data.
+ * Supports PNG (IHDR chunk), GIF (first image descriptor), JPEG (start of frame segment) and
+ * Windows BMP (info header). Other formats have to be decoded to learn their size.
+ */
+final class ImageHeader {
+
+  private static final byte[] PNG_SIGNATURE = {
+    ( byte )0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+  };
+  private static final byte[] JPEG_START_OF_IMAGE = { ( byte )0xFF, ( byte )0xD8 };
+  private static final int BMP_INFO_HEADER_SIZE = 40;
+
+  final int type;
+  final int width;
+  final int height;
+
+  private ImageHeader( int type, int width, int height ) {
+    this.type = type;
+    this.width = width;
+    this.height = height;
+  }
+
+  /*
+   * Returns null if the format is not supported or the header is invalid.
+   */
+  static ImageHeader read( byte[] bytes ) {
+    ImageHeader result = null;
+    if( startsWith( bytes, PNG_SIGNATURE ) ) {
+      result = readPng( bytes );
+    } else if( startsWith( bytes, "GIF87a" ) || startsWith( bytes, "GIF89a" ) ) {
+      result = readGif( bytes );
+    } else if( startsWith( bytes, JPEG_START_OF_IMAGE ) ) {
+      result = readJpeg( bytes );
+    } else if( startsWith( bytes, "BM" ) ) {
+      result = readBmp( bytes );
+    }
+    return result != null && result.width > 0 && result.height > 0 ? result : null;
+  }
+
+  private static ImageHeader readPng( byte[] bytes ) {
+    if( bytes.length < 24 || !matches( bytes, 12, "IHDR" ) ) {
+      return null;
+    }
+    return new ImageHeader( SWT.IMAGE_PNG, readInt( bytes, 16 ), readInt( bytes, 20 ) );
+  }
+
+  private static ImageHeader readGif( byte[] bytes ) {
+    if( bytes.length < 13 ) {
+      return null;
+    }
+    int offset = 13;
+    int flags = bytes[ 10 ] & 0xFF;
+    if( ( flags & 0x80 ) != 0 ) {
+      offset += 3 * ( 1 << ( ( flags & 0x07 ) + 1 ) );
+    }
+    // skip extensions up to the first image descriptor, its size is the size of the image data
+    while( offset < bytes.length && bytes[ offset ] == 0x21 ) {
+      offset += 2;
+      while( offset < bytes.length && bytes[ offset ] != 0 ) {
+        offset += ( bytes[ offset ] & 0xFF ) + 1;
+      }
+      offset++;
+    }
+    if( offset + 9 > bytes.length || bytes[ offset ] != 0x2C ) {
+      return null;
+    }
+    int width = readShortLE( bytes, offset + 5 );
+    int height = readShortLE( bytes, offset + 7 );
+    return new ImageHeader( SWT.IMAGE_GIF, width, height );
+  }
+
+  private static ImageHeader readJpeg( byte[] bytes ) {
+    int offset = 2;
+    while( offset < bytes.length && ( bytes[ offset ] & 0xFF ) == 0xFF ) {
+      // skip fill bytes
+      while( offset < bytes.length && ( bytes[ offset ] & 0xFF ) == 0xFF ) {
+        offset++;
+      }
+      if( offset + 3 > bytes.length ) {
+        return null;
+      }
+      int marker = bytes[ offset++ ] & 0xFF;
+      if( marker == 0x01 || marker >= 0xD0 && marker <= 0xD7 ) {
+        continue;
+      }
+      if( isStartOfFrame( marker ) ) {
+        if( offset + 7 > bytes.length ) {
+          return null;
+        }
+        int height = readShort( bytes, offset + 3 );
+        int width = readShort( bytes, offset + 5 );
+        return new ImageHeader( SWT.IMAGE_JPEG, width, height );
+      }
+      offset += readShort( bytes, offset );
+    }
+    return null;
+  }
+
+  private static ImageHeader readBmp( byte[] bytes ) {
+    if( bytes.length < 26 || readIntLE( bytes, 14 ) < BMP_INFO_HEADER_SIZE ) {
+      return null;
+    }
+    int width = readIntLE( bytes, 18 );
+    // the height is negative for top-down bitmaps
+    int height = Math.abs( readIntLE( bytes, 22 ) );
+    return new ImageHeader( SWT.IMAGE_BMP, width, height );
+  }
+
+  private static boolean isStartOfFrame( int marker ) {
+    // SOF0 - SOF15, except DHT (0xC4), JPG (0xC8) and DAC (0xCC)
+    return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+  }
+
+  private static boolean startsWith( byte[] bytes, byte[] prefix ) {
+    if( bytes.length < prefix.length ) {
+      return false;
+    }
+    for( int i = 0; i < prefix.length; i++ ) {
+      if( bytes[ i ] != prefix[ i ] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean startsWith( byte[] bytes, String prefix ) {
+    return matches( bytes, 0, prefix );
+  }
+
+  private static boolean matches( byte[] bytes, int offset, String string ) {
+    if( bytes.length < offset + string.length() ) {
+      return false;
+    }
+    for( int i = 0; i < string.length(); i++ ) {
+      if( bytes[ offset + i ] != string.charAt( i ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int readInt( byte[] bytes, int offset ) {
+    return readShort( bytes, offset ) << 16 | readShort( bytes, offset + 2 );
+  }
+
+  private static int readShort( byte[] bytes, int offset ) {
+    return ( bytes[ offset ] & 0xFF ) << 8 | bytes[ offset + 1 ] & 0xFF;
+  }
+
+  private static int readIntLE( byte[] bytes, int offset ) {
+    return readShortLE( bytes, offset + 2 ) << 16 | readShortLE( bytes, offset );
+  }
+
+  private static int readShortLE( byte[] bytes, int offset ) {
+    return ( bytes[ offset + 1 ] & 0xFF ) << 8 | bytes[ offset ] & 0xFF;
+  }
+
+}
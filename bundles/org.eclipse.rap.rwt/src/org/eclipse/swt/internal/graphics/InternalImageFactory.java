@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2015 EclipseSource and others.
+ * Copyright (c) 2010, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,10 +8,10 @@
  * Contributors:
  *    EclipseSource - initial API and implementation
  *    Frank Appel - replaced singletons and static fields (Bug 337787)
+ *    EclipseSource - decode images outside of a global lock
  ******************************************************************************/
 package org.eclipse.swt.internal.graphics;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
@@ -27,14 +27,19 @@ import org.eclipse.swt.SWTException;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.ImageLoader;
 import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.internal.image.PNGFileFormat;
 
 
 public class InternalImageFactory {
 
+  // images by file name or client key, the decoding is deduplicated per key
   private final SharedInstanceBuffer<String, InternalImage> cache;
+  // images by generated path, the resource is registered once per path
+  private final SharedInstanceBuffer<String, InternalImage> registeredImages;
 
   public InternalImageFactory() {
     cache = new SharedInstanceBuffer<String, InternalImage>();
+    registeredImages = new SharedInstanceBuffer<String, InternalImage>();
   }
 
   public InternalImage findInternalImage( final String fileName ) {
@@ -46,19 +51,12 @@ public class InternalImageFactory {
   }
 
   public InternalImage findInternalImage( InputStream stream ) {
-    final BufferedInputStream bufferedStream = new BufferedInputStream( stream );
-    final ImageData imageData = readImageData( bufferedStream );
-    final String path = createGeneratedImagePath( imageData );
-    return cache.get( path, new InstanceCreator<String, InternalImage>() {
-      public InternalImage createInstance( String path ) {
-        return createInternalImage( path, bufferedStream, imageData );
-      }
-    } );
+    return findRegisteredImage( readBytes( stream ) );
   }
 
   public InternalImage findInternalImage( final ImageData imageData ) {
-    final String path = createGeneratedImagePath( imageData );
-    return cache.get( path, new InstanceCreator<String, InternalImage>() {
+    String path = createGeneratedImagePath( imageData );
+    return registeredImages.get( path, new InstanceCreator<String, InternalImage>() {
       public InternalImage createInstance( String path ) {
         InputStream stream = createInputStream( imageData );
         return createInternalImage( path, stream, imageData );
@@ -69,50 +67,17 @@ public class InternalImageFactory {
   InternalImage findInternalImage( String key, final InputStream inputStream ) {
     return cache.get( key, new InstanceCreator<String, InternalImage>() {
       public InternalImage createInstance( String key ) {
-        BufferedInputStream bufferedStream = new BufferedInputStream( inputStream );
-        ImageData imageData = readImageData( bufferedStream );
-        String path = createGeneratedImagePath( imageData );
-        return createInternalImage( path, bufferedStream, imageData );
+        return findRegisteredImage( readBytes( inputStream ) );
       }
     } );
   }
 
-  static ImageData readImageData( InputStream stream ) throws SWTException {
-    ////////////////////////////////////////////////////////////////////////////
-    // TODO: [fappel] Image size calculation and resource registration both
-    //                read the input stream. Because of this I use a workaround
-    //                with a BufferedInputStream. Resetting it after reading the
-    //                image size enables the ResourceManager to reuse it for
-    //                registration. Note that the order is crucial here, since
-    //                the ResourceManager seems to close the stream (shrug).
-    //                It would be nice to find a solution without reading the
-    //                stream twice.
-    stream.mark( Integer.MAX_VALUE );
-    ImageData result = new ImageData( stream );
-    try {
-      stream.reset();
-    } catch( IOException shouldNotHappen ) {
-      String msg = "Could not reset input stream after reading image";
-      throw new RuntimeException( msg, shouldNotHappen );
-    }
-    return result;
-  }
-
-  static InputStream createInputStream( ImageData imageData ) {
-    ImageLoader imageLoader = new ImageLoader();
-    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    imageLoader.data = new ImageData[] { imageData };
-    imageLoader.save( outputStream, getOutputFormat( imageData ) );
-    byte[] bytes = outputStream.toByteArray();
-    return new ByteArrayInputStream( bytes );
-  }
-
-  private static InternalImage createInternalImage( String fileName ) {
+  private InternalImage createInternalImage( String fileName ) {
     InternalImage result;
     try {
       FileInputStream stream = new FileInputStream( fileName );
       try {
-        result = createInternalImage( stream );
+        result = findInternalImage( stream );
       } finally {
         stream.close();
       }
@@ -122,11 +87,68 @@ public class InternalImageFactory {
     return result;
   }
 
-  private static InternalImage createInternalImage( InputStream stream ) {
-    InputStream bufferedStream = new BufferedInputStream( stream );
-    ImageData imageData = readImageData( bufferedStream );
-    String path = createGeneratedImagePath( imageData );
-    return createInternalImage( path, bufferedStream, imageData );
+  /*
+   * Only the header of the image is read to learn its size, the pixel data is decoded when
+   * requested, see ImageDataFactory. Images in formats without a header reader are decoded.
+   */
+  private InternalImage findRegisteredImage( final byte[] bytes ) {
+    ImageHeader header = ImageHeader.read( bytes );
+    final int type;
+    final int width;
+    final int height;
+    if( header != null ) {
+      type = header.type;
+      width = header.width;
+      height = header.height;
+    } else {
+      ImageData imageData = readImageData( new ByteArrayInputStream( bytes ) );
+      type = getOutputFormat( imageData );
+      width = imageData.width;
+      height = imageData.height;
+    }
+    String path = createGeneratedImagePath( bytes, type );
+    return registeredImages.get( path, new InstanceCreator<String, InternalImage>() {
+      public InternalImage createInstance( String path ) {
+        RWT.getResourceManager().register( path, new ByteArrayInputStream( bytes ) );
+        return new InternalImage( path, width, height, false );
+      }
+    } );
+  }
+
+  private static byte[] readBytes( InputStream stream ) {
+    if( stream == null ) {
+      SWT.error( SWT.ERROR_IO );
+    }
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] buffer = new byte[ 8192 ];
+    try {
+      int count = stream.read( buffer );
+      while( count != -1 ) {
+        outputStream.write( buffer, 0, count );
+        count = stream.read( buffer );
+      }
+    } catch( IOException ioe ) {
+      SWT.error( SWT.ERROR_IO, ioe );
+    }
+    return outputStream.toByteArray();
+  }
+
+  static ImageData readImageData( InputStream stream ) throws SWTException {
+    return new ImageData( stream );
+  }
+
+  static InputStream createInputStream( ImageData imageData ) {
+    ImageLoader imageLoader = new ImageLoader();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    imageLoader.data = new ImageData[] { imageData };
+    int outputFormat = getOutputFormat( imageData );
+    if( outputFormat == SWT.IMAGE_PNG ) {
+      PNGFileFormat.saveOptimized( outputStream, imageLoader );
+    } else {
+      imageLoader.save( outputStream, outputFormat );
+    }
+    byte[] bytes = outputStream.toByteArray();
+    return new ByteArrayInputStream( bytes );
   }
 
   private static InternalImage createInternalImage( String path,
@@ -146,9 +168,18 @@ public class InternalImageFactory {
   }
 
   private static String createGeneratedImagePath( ImageData data ) {
-    int outputFormat = getOutputFormat( data );
+    return "generated/" + getHash( data ) + getExtension( getOutputFormat( data ) );
+  }
+
+  private static String createGeneratedImagePath( byte[] bytes, int type ) {
+    CRC32 crc32 = new CRC32();
+    crc32.update( bytes );
+    return "generated/" + Long.toHexString( crc32.getValue() ) + getExtension( type );
+  }
+
+  private static String getExtension( int type ) {
     String extension;
-    switch( outputFormat ) {
+    switch( type ) {
       case SWT.IMAGE_BMP:
       case SWT.IMAGE_BMP_RLE:
         extension = ".bmp";
@@ -170,8 +201,7 @@ public class InternalImageFactory {
         extension = ".png";
         break;
     }
-    String hash = getHash( data ) + extension;
-    return "generated/" + hash;
+    return extension;
   }
 
   /*
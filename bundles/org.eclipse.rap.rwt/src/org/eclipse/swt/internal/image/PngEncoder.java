@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,18 +7,21 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     EclipseSource - adaptive row filters, reused deflater, direct pixel access
  *******************************************************************************/
 package org.eclipse.swt.internal.image;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.ImageLoader;
 import org.eclipse.swt.graphics.RGB;
-import org.eclipse.swt.internal.Compatibility;
 
 final class PngEncoder extends Object {
 
@@ -33,6 +36,13 @@ final class PngEncoder extends Object {
 	static final int BEST_SPEED = 1;
 	static final int BEST_COMPRESSION = 9;
 	static final int DEFAULT_COMPRESSION = -1;
+	/* Filtered data compresses well at lower levels, higher levels take much longer */
+	static final int ADAPTIVE_COMPRESSION = 4;
+	
+	static final int FILTER_NONE = 0;
+	static final int FILTER_SUB = 1;
+	static final int FILTER_UP = 2;
+	static final int FILTER_PAETH = 4;
 	
 	ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
 	PngChunk chunk;
@@ -47,9 +57,22 @@ final class PngEncoder extends Object {
 	int filterMethod = 0;
 	int interlaceMethod = 0;
 	
+	boolean adaptiveFilters;
+	/* offsets of red, green and blue in the bytes of a pixel, null if not byte aligned */
+	int[] directOffsets;
+	
 public PngEncoder(ImageLoader loader) {
+	this(loader, false);
+}
+
+/**
+ * Creates an encoder that selects a filter for every row of a true color image, see section 12.8
+ * of the PNG specification, instead of leaving all rows unfiltered.
+ */
+public PngEncoder(ImageLoader loader, boolean adaptiveFilters) {
 
 	this.loader = loader;
+	this.adaptiveFilters = adaptiveFilters;
 	this.data = loader.data[0];
 	this.transparencyType = data.getTransparencyType();
 	
@@ -70,6 +93,36 @@ public PngEncoder(ImageLoader loader) {
 	}
 	
 	if (!(colorType == 2 || colorType == 3 || colorType == 6)) SWT.error(SWT.ERROR_INVALID_IMAGE);
+	
+	if (colorType != 3) {
+		this.directOffsets = getDirectOffsets();
+	}
+
+}
+
+int[] getDirectOffsets() {
+
+	if (data.depth != 24 && data.depth != 32) return null;
+	int bytesPerPixel = data.depth / 8;
+	int[] offsets = {
+		getByteOffset(data.palette.redMask, bytesPerPixel),
+		getByteOffset(data.palette.greenMask, bytesPerPixel),
+		getByteOffset(data.palette.blueMask, bytesPerPixel)
+	};
+	for (int i = 0; i < offsets.length; i++) {
+		if (offsets[i] == -1) return null;
+	}
+	return offsets;
+
+}
+
+/* Pixels of 24 and 32 bit image data are stored with the most significant byte first */
+static int getByteOffset(int mask, int bytesPerPixel) {
+
+	for (int i = 0; i < bytesPerPixel; i++) {
+		if (mask == 0xFF << ((bytesPerPixel - 1 - i) * 8)) return i;
+	}
+	return -1;
 
 }
 
@@ -234,109 +287,220 @@ void writeTransparency() {
 
 }
 
-void writeImageData() throws IOException {
+int getCompressionLevel() {
 
-	ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-	OutputStream os = null;
 	switch (loader.compression) {
 	case 0:
-		os = Compatibility.newDeflaterOutputStream(baos, NO_COMPRESSION);
-		break;
+		return NO_COMPRESSION;
 	case 1:
-		os = Compatibility.newDeflaterOutputStream(baos, BEST_SPEED);
-		break;
+		return BEST_SPEED;
 	case 3:
-		os = Compatibility.newDeflaterOutputStream(baos, BEST_COMPRESSION);
-		break;
+		return BEST_COMPRESSION;
 	default:
-		os = Compatibility.newDeflaterOutputStream(baos, DEFAULT_COMPRESSION);
-		break;
+		return adaptiveFilters ? ADAPTIVE_COMPRESSION : DEFAULT_COMPRESSION;
+	}
+
+}
+
+void writeImageData() throws IOException {
+
+	ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+	/* Deflaters hold native memory until they are ended, do not wait for finalization */
+	Deflater deflater = new Deflater(getCompressionLevel());
+	try {
+		DeflaterOutputStream os = new DeflaterOutputStream(baos, deflater, 8192);
+		if (colorType == 3) {
+			writeIndexedLines(os);
+		} else {
+			writeTrueColorLines(os);
+		}
+		os.finish();
+	} finally {
+		deflater.end();
 	}
-	if (os == null) os = baos; // returns null for J2ME
 	
-	if (colorType == 3) {
+	writeChunk(TAG_IDAT, baos.toByteArray());
+
+}
+
+void writeIndexedLines(OutputStream os) throws IOException {
+
+	byte[] lineData = new byte[width];
 	
-		byte[] lineData = new byte[width];
+	for (int y = 0; y < height; y++) {
 		
-		for (int y = 0; y < height; y++) {
-			
-			int filter = 0;
-			os.write(filter);
-			
-			data.getPixels(0, y, width, lineData, 0);
-			
-			os.write(lineData);
+		os.write(FILTER_NONE);
 		
-		}
+		data.getPixels(0, y, width, lineData, 0);
+		
+		os.write(lineData);
 	
 	}
+
+}
+
+void writeTrueColorLines(OutputStream os) throws IOException {
+
+	int bytesPerPixel = colorType == 6 ? 4 : 3;
+	byte[] lineBytes = new byte[width * bytesPerPixel];
+	byte[] previousLine = null;
+	byte[] filtered = null;
+	if (adaptiveFilters) {
+		previousLine = new byte[lineBytes.length];
+		filtered = new byte[1 + lineBytes.length];
+	}
+	int[] lineData = directOffsets == null ? new int[width] : null;
+	byte[] alphaData = colorType == 6 ? new byte[width] : null;
 	
-	else {
+	for (int y = 0; y < height; y++) {
 	
-		int[] lineData = new int[width];
-		byte[] alphaData = null;
 		if (colorType == 6) {
-			alphaData = new byte[width];
+			data.getAlphas(0, y, width, alphaData, 0);
+		}
+		if (directOffsets != null) {
+			readDirectLine(y, alphaData, lineBytes);
+		} else {
+			readLine(y, lineData, alphaData, lineBytes);
 		}
 		
-		int redMask = data.palette.redMask;
-		int redShift = data.palette.redShift;
-		int greenMask = data.palette.greenMask;
-		int greenShift = data.palette.greenShift;
-		int blueShift = data.palette.blueShift;
-		int blueMask = data.palette.blueMask;
-		
-		byte[] lineBytes = new byte[width * (colorType == 6 ? 4 : 3)];
-		
-		for (int y = 0; y < height; y++) {
-		
-			int filter = 0;
-			os.write(filter);
-			
-			data.getPixels(0, y, width, lineData, 0);
-			
-			if (colorType == 6) {
-				data.getAlphas(0, y, width, alphaData, 0);
-			}
-			
-			int offset = 0;
-			for (int x = 0; x < lineData.length; x++) {
-			
-				int pixel = lineData[x];
-				
-				int r = pixel & redMask;
-				lineBytes[offset++] = (byte) ((redShift < 0) ? r >>> -redShift
-						: r << redShift);
-				int g = pixel & greenMask;
-				lineBytes[offset++] = (byte) ((greenShift < 0) ? g >>> -greenShift
-						: g << greenShift);
-				int b = pixel & blueMask;
-				lineBytes[offset++] = (byte) ((blueShift < 0) ? b >>> -blueShift
-						: b << blueShift);
-				
-				if (colorType == 6) {
-					lineBytes[offset++] = alphaData[x];
-				}
-			
-			}
-			
+		if (adaptiveFilters) {
+			os.write(filterLine(lineBytes, previousLine, bytesPerPixel, filtered));
+			byte[] temp = previousLine;
+			previousLine = lineBytes;
+			lineBytes = temp;
+		} else {
+			os.write(FILTER_NONE);
 			os.write(lineBytes);
-			
 		}
 	
 	}
+
+}
+
+void readDirectLine(int y, byte[] alphaData, byte[] lineBytes) {
+
+	byte[] pixels = data.data;
+	int bytesPerPixel = data.depth / 8;
+	int redOffset = directOffsets[0];
+	int greenOffset = directOffsets[1];
+	int blueOffset = directOffsets[2];
+	int index = y * data.bytesPerLine;
+	int offset = 0;
+	for (int x = 0; x < width; x++) {
+		lineBytes[offset++] = pixels[index + redOffset];
+		lineBytes[offset++] = pixels[index + greenOffset];
+		lineBytes[offset++] = pixels[index + blueOffset];
+		if (alphaData != null) {
+			lineBytes[offset++] = alphaData[x];
+		}
+		index += bytesPerPixel;
+	}
+
+}
+
+void readLine(int y, int[] lineData, byte[] alphaData, byte[] lineBytes) {
+
+	int redMask = data.palette.redMask;
+	int redShift = data.palette.redShift;
+	int greenMask = data.palette.greenMask;
+	int greenShift = data.palette.greenShift;
+	int blueShift = data.palette.blueShift;
+	int blueMask = data.palette.blueMask;
 	
-	os.flush();
-	os.close();
+	data.getPixels(0, y, width, lineData, 0);
 	
-	byte[] compressed = baos.toByteArray();
-	if (os == baos) {
-		/* Use PngDeflater for J2ME. */
-		PngDeflater deflater = new PngDeflater();
-		compressed = deflater.deflate(compressed);
-	}
+	int offset = 0;
+	for (int x = 0; x < lineData.length; x++) {
 	
-	writeChunk(TAG_IDAT, compressed);
+		int pixel = lineData[x];
+		
+		int r = pixel & redMask;
+		lineBytes[offset++] = (byte) ((redShift < 0) ? r >>> -redShift
+				: r << redShift);
+		int g = pixel & greenMask;
+		lineBytes[offset++] = (byte) ((greenShift < 0) ? g >>> -greenShift
+				: g << greenShift);
+		int b = pixel & blueMask;
+		lineBytes[offset++] = (byte) ((blueShift < 0) ? b >>> -blueShift
+				: b << blueShift);
+		
+		if (alphaData != null) {
+			lineBytes[offset++] = alphaData[x];
+		}
+	
+	}
+
+}
+
+/**
+ * Selects the filter with the minimum sum of absolute differences, the heuristic recommended by
+ * section 12.8 of the PNG specification, and returns the filtered line.
+ */
+static byte[] filterLine(byte[] line, byte[] previousLine, int bytesPerPixel, byte[] filtered) {
+
+	if (Arrays.equals(line, previousLine)) {
+		/* frequent in charts and icons, the Up filter results in zeros */
+		Arrays.fill(filtered, (byte) 0);
+		filtered[0] = (byte) FILTER_UP;
+		return filtered;
+	}
+	long sumNone = 0, sumSub = 0, sumUp = 0, sumPaeth = 0;
+	for (int i = 0; i < line.length; i++) {
+		int x = line[i] & 0xFF;
+		int a = i < bytesPerPixel ? 0 : line[i - bytesPerPixel] & 0xFF;
+		int b = previousLine[i] & 0xFF;
+		int c = i < bytesPerPixel ? 0 : previousLine[i - bytesPerPixel] & 0xFF;
+		sumNone += Math.abs((byte) x);
+		sumSub += Math.abs((byte) (x - a));
+		sumUp += Math.abs((byte) (x - b));
+		sumPaeth += Math.abs((byte) (x - paethPredictor(a, b, c)));
+	}
+	int filter = FILTER_NONE;
+	long minimum = sumNone;
+	if (sumSub < minimum) {
+		filter = FILTER_SUB;
+		minimum = sumSub;
+	}
+	if (sumUp < minimum) {
+		filter = FILTER_UP;
+		minimum = sumUp;
+	}
+	if (sumPaeth < minimum) {
+		filter = FILTER_PAETH;
+	}
+	filtered[0] = (byte) filter;
+	for (int i = 0; i < line.length; i++) {
+		int x = line[i] & 0xFF;
+		switch (filter) {
+		case FILTER_NONE:
+			filtered[i + 1] = (byte) x;
+			break;
+		case FILTER_SUB:
+			filtered[i + 1] = (byte) (x - (i < bytesPerPixel ? 0 : line[i - bytesPerPixel] & 0xFF));
+			break;
+		case FILTER_UP:
+			filtered[i + 1] = (byte) (x - (previousLine[i] & 0xFF));
+			break;
+		default:
+			int a = i < bytesPerPixel ? 0 : line[i - bytesPerPixel] & 0xFF;
+			int c = i < bytesPerPixel ? 0 : previousLine[i - bytesPerPixel] & 0xFF;
+			filtered[i + 1] = (byte) (x - paethPredictor(a, previousLine[i] & 0xFF, c));
+			break;
+		}
+	}
+	return filtered;
+
+}
+
+static int paethPredictor(int a, int b, int c) {
+
+	int p = a + b - c;
+	int pa = Math.abs(p - a);
+	int pb = Math.abs(p - b);
+	int pc = Math.abs(p - c);
+	if (pa <= pb && pa <= pc) return a;
+	if (pb <= pc) return b;
+	return c;
 
 }
 
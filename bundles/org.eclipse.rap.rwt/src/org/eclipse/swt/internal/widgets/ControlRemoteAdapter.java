@@ -140,6 +140,14 @@ public class ControlRemoteAdapter extends WidgetRemoteAdapter {
     }
   }
 
+  public boolean hasPreservedTabIndex() {
+    return hasPreserved( TAB_INDEX );
+  }
+
+  public int getPreservedTabIndex() {
+    return tabIndex;
+  }
+
   public void renderTabIndex( Control control ) {
     if( hasPreserved( TAB_INDEX ) ) {
       int actual = ControlUtil.getControlAdapter( control ).getTabIndex();
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.widgets;
+
+import static org.eclipse.rap.rwt.internal.protocol.RemoteObjectFactory.getRemoteObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.rap.json.JsonArray;
+import org.eclipse.rap.json.JsonObject;
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.lifecycle.DisplayUtil;
+import org.eclipse.rap.rwt.internal.lifecycle.WidgetUtil;
+import org.eclipse.rap.rwt.internal.service.ContextProvider;
+import org.eclipse.rap.rwt.internal.service.ServiceStore;
+import org.eclipse.swt.widgets.Item;
+import org.eclipse.swt.widgets.Widget;
+
+
+/**
+ * Collects the texts of the items of a table or tree that change in the current request and
+ * renders them as one "rows" property of the parent, after all widgets have been rendered.
+ * <p>
+ * The property value is columnar: the ids of the items, a table of the distinct strings, and per
+ * column an array with the index of each item's text in the string table (-1 if the item has no
+ * text for that column):
+ * </p>
+ * <pre>
+ * { "items": [ "w5", "w6" ], "strings": [ "foo", "bar" ], "texts": [ [ 0, 1 ], [ 1, 1 ] ] }
+ * </pre>
+ * <p>
+ * This class is not intended to be used by clients.
+ * </p>
+ */
+public final class ItemRowsRenderer {
+
+  static final String PROP_ROWS = "rows";
+  private static final String ATTR_PREFIX = ItemRowsRenderer.class.getName() + "#";
+
+  private final Widget parent;
+  private final List<String> itemIds;
+  private final List<String[]> itemTexts;
+  private int columnCount;
+
+  public static boolean isEnabled() {
+    return RWTProperties.isRowRenderingEnabled();
+  }
+
+  /**
+   * Adds the texts of the given item to the rows of its parent that are rendered in the current
+   * request.
+   */
+  public static void addTexts( Widget parent, Item item, String[] texts ) {
+    getRenderer( parent ).add( WidgetUtil.getId( item ), texts );
+  }
+
+  private static ItemRowsRenderer getRenderer( Widget parent ) {
+    ServiceStore serviceStore = ContextProvider.getServiceStore();
+    String key = ATTR_PREFIX + WidgetUtil.getId( parent );
+    ItemRowsRenderer result = ( ItemRowsRenderer )serviceStore.getAttribute( key );
+    if( result == null ) {
+      final ItemRowsRenderer renderer = new ItemRowsRenderer( parent );
+      serviceStore.setAttribute( key, renderer );
+      // the items have to be created on the client before the rows refer to them
+      WidgetRemoteAdapter adapter
+        = ( WidgetRemoteAdapter )DisplayUtil.getAdapter( parent.getDisplay() );
+      adapter.addRenderRunnable( new Runnable() {
+        @Override
+        public void run() {
+          renderer.render();
+        }
+      } );
+      result = renderer;
+    }
+    return result;
+  }
+
+  private ItemRowsRenderer( Widget parent ) {
+    this.parent = parent;
+    itemIds = new ArrayList<>();
+    itemTexts = new ArrayList<>();
+  }
+
+  private void add( String itemId, String[] texts ) {
+    itemIds.add( itemId );
+    itemTexts.add( texts );
+    columnCount = Math.max( columnCount, texts.length );
+  }
+
+  private void render() {
+    if( !parent.isDisposed() && !itemIds.isEmpty() ) {
+      getRemoteObject( parent ).set( PROP_ROWS, toJson() );
+    }
+  }
+
+  JsonObject toJson() {
+    JsonArray items = new JsonArray();
+    for( String itemId : itemIds ) {
+      items.add( itemId );
+    }
+    Map<String, Integer> stringIndices = new HashMap<>();
+    JsonArray strings = new JsonArray();
+    JsonArray columns = new JsonArray();
+    for( int column = 0; column < columnCount; column++ ) {
+      JsonArray indices = new JsonArray();
+      for( String[] texts : itemTexts ) {
+        int index = -1;
+        if( column < texts.length ) {
+          Integer stringIndex = stringIndices.get( texts[ column ] );
+          if( stringIndex == null ) {
+            stringIndex = Integer.valueOf( strings.size() );
+            stringIndices.put( texts[ column ], stringIndex );
+            strings.add( texts[ column ] );
+          }
+          index = stringIndex.intValue();
+        }
+        indices.add( index );
+      }
+      columns.add( indices );
+    }
+    return new JsonObject().add( "items", items ).add( "strings", strings ).add( "texts", columns );
+  }
+
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.widgets;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+
+/**
+ * Runs the delayed tasks of all UI sessions of an application context, i.e. the
+ * <code>Display#timerExec()</code> tasks, delayed wakes of UI threads and the connection checks
+ * of suspended server push requests. A single scheduler thread waits for the tasks to become due
+ * and hands them over to worker threads. A task that blocks, e.g. on the device lock of its
+ * display or on a slow client, therefore does not delay the tasks of other sessions. Worker
+ * threads are created on demand and terminate when they have been idle for a while.
+ * <p>
+ * After a shutdown, tasks are not scheduled anymore until the executor is activated again.
+ * </p>
+ */
+public class TimerExecExecutor {
+
+  private static final long WORKER_KEEP_ALIVE = 60;
+
+  private ScheduledThreadPoolExecutor scheduler;
+  private ThreadPoolExecutor workers;
+  private boolean shutdown;
+
+  /**
+   * Runs the task on a worker thread once the delay has elapsed.
+   *
+   * @return a future to cancel the task before it is due, or <code>null</code> if the executor
+   *         has been shut down and the task will not run
+   */
+  public synchronized ScheduledFuture<?> schedule( final Runnable task, long milliseconds ) {
+    if( shutdown ) {
+      return null;
+    }
+    if( scheduler == null ) {
+      start();
+    }
+    final ThreadPoolExecutor currentWorkers = workers;
+    return scheduler.schedule( new Runnable() {
+      @Override
+      public void run() {
+        currentWorkers.execute( task );
+      }
+    }, milliseconds, MILLISECONDS );
+  }
+
+  public synchronized void activate() {
+    shutdown = false;
+  }
+
+  public synchronized void shutdown() {
+    shutdown = true;
+    if( scheduler != null ) {
+      scheduler.shutdownNow();
+      workers.shutdownNow();
+      scheduler = null;
+      workers = null;
+    }
+  }
+
+  public synchronized boolean isShutdown() {
+    return shutdown;
+  }
+
+  private void start() {
+    scheduler = new ScheduledThreadPoolExecutor( 1, createThreadFactory( "scheduler" ) );
+    // cancelled tasks would otherwise stay in the queue until their delay elapses
+    scheduler.setRemoveOnCancelPolicy( true );
+    workers = new ThreadPoolExecutor( 0,
+                                      Integer.MAX_VALUE,
+                                      WORKER_KEEP_ALIVE,
+                                      SECONDS,
+                                      new SynchronousQueue<Runnable>(),
+                                      createThreadFactory( "worker" ),
+                                      // tasks that are due while shutting down are dropped
+                                      new ThreadPoolExecutor.DiscardPolicy() );
+  }
+
+  private static ThreadFactory createThreadFactory( final String kind ) {
+    return new ThreadFactory() {
+      @Override
+      public Thread newThread( Runnable runnable ) {
+        Thread thread = new Thread( runnable, "RWT timerExec " + kind );
+        thread.setDaemon( true );
+        return thread;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.widgets;
+
+import java.util.Collection;
+
+import org.eclipse.swt.widgets.Widget;
+
+
+/**
+ * Keeps track of the widgets that have been touched since the last request. Available as an
+ * adapter of the display if change tracking is enabled, <code>null</code> otherwise.
+ */
+public interface WidgetChangeTracker {
+
+  /**
+   * Suspends the tracking, e.g. while the widget tree is traversed without changing any widget.
+   */
+  void setSuspended( boolean suspended );
+
+  /**
+   * Preserves the widgets that have been touched since the last request and starts to track
+   * further changes.
+   *
+   * @return <code>false</code> if the preserved values of all widgets have to be recorded instead
+   */
+  boolean startTracking();
+
+  /**
+   * @return <code>false</code> if all widgets have to be rendered in this request
+   */
+  boolean startRendering();
+
+  /**
+   * @return whether the given widget has to be rendered in this request
+   */
+  boolean needsRender( Widget widget );
+
+  /**
+   * @return whether any sub-widget of the given widget has to be rendered in this request
+   */
+  boolean hasChangedDescendants( Widget widget );
+
+  /**
+   * @return whether the current request has been tracked, i.e. whether
+   *         {@link #getChangedWidgets()} covers all widgets with preserved values
+   */
+  boolean isTracked();
+
+  /**
+   * @return the widgets that have been preserved or rendered in the current request
+   */
+  Collection<Widget> getChangedWidgets();
+
+  /**
+   * Ends the current request.
+   */
+  void reset();
+
+}
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.widgets;
+
+import static org.eclipse.rap.rwt.internal.lifecycle.WidgetUtil.getLCA;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.eclipse.swt.internal.SerializableCompatibility;
+import org.eclipse.swt.internal.widgets.WidgetChangeTracker;
+import org.eclipse.swt.internal.widgets.WidgetTreeUtil;
+import org.eclipse.swt.internal.widgets.WidgetTreeVisitor;
+
+
+/*
+ * Records the widgets that are touched (i.e. pass checkWidget) between two render phases.
+ *
+ * Widgets are tracked in units: a control together with all its non-control sub-widgets (items,
+ * columns, scroll bars, menus, etc.). When any widget of a unit is touched, the whole unit is
+ * preserved and rendered, as well as the unit of the parent composite and the shell, since
+ * changes to a control often affect those (children, tab order, active control).
+ *
+ * Touches that occur before the preserve phase are collected and preserved at the beginning of
+ * the preserve phase, just like they would be preserved by a full walk. After that, units are
+ * preserved on their first touch, i.e. before the change is applied.
+ */
+class ChangeTracker implements WidgetChangeTracker, SerializableCompatibility {
+
+  private static final int IDLE = 0;
+  private static final int COLLECTING = 1;
+  private static final int TRACKING = 2;
+  private static final int RENDERING = 3;
+
+  private transient int mode;
+  private transient boolean valid;
+  private transient boolean busy;
+  private transient boolean suspended;
+  private transient Set<Widget> touched;
+  private transient Set<Control> units;
+  private transient Set<Widget> dirty;
+  private transient Set<Widget> path;
+  private transient Set<Widget> changed;
+  private transient Set<Control> tabIndexCandidates;
+
+  ChangeTracker() {
+    initialize();
+    valid = true;
+  }
+
+  private void initialize() {
+    mode = COLLECTING;
+    touched = createSet();
+    units = createSet();
+    dirty = createSet();
+    path = createSet();
+    changed = createSet();
+    tabIndexCandidates = createSet();
+  }
+
+  void touch( Widget widget ) {
+    if( !busy && !suspended && isTouchable() && touched.add( widget ) ) {
+      Control root = findUnitRoot( widget );
+      if( root != null ) {
+        touchUnit( root );
+        if( !( root instanceof Shell ) ) {
+          Composite parent = root._getParent();
+          if( parent != null ) {
+            touchUnit( parent );
+            touchUnit( parent.internalGetShell() );
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * Tab indices are recalculated while a shell is rendered, controls with changed tab indices
+   * have to be rendered too.
+   */
+  void tabIndexUpdated( Control control ) {
+    if( mode == RENDERING && !dirty.contains( control ) && control.isRemoteInitialized() ) {
+      tabIndexCandidates.add( control );
+    }
+  }
+
+  @Override
+  public void setSuspended( boolean suspended ) {
+    this.suspended = suspended;
+  }
+
+  @Override
+  public boolean startTracking() {
+    busy = true;
+    try {
+      if( mode == COLLECTING && valid && canPreserveCollectedUnits() ) {
+        for( Control root : units ) {
+          if( !root.isDisposed() ) {
+            preserveUnit( root );
+          }
+        }
+        mode = TRACKING;
+        return true;
+      }
+      mode = IDLE;
+      return false;
+    } finally {
+      busy = false;
+    }
+  }
+
+  @Override
+  public boolean startRendering() {
+    if( mode == TRACKING ) {
+      mode = RENDERING;
+      for( Control root : units ) {
+        if( !root.isDisposed() ) {
+          addPath( root );
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean needsRender( Widget widget ) {
+    processTabIndexCandidates();
+    boolean result = dirty.contains( widget ) || !widget.isRemoteInitialized();
+    if( result ) {
+      changed.add( widget );
+    }
+    return result;
+  }
+
+  @Override
+  public boolean hasChangedDescendants( Widget widget ) {
+    processTabIndexCandidates();
+    return path.contains( widget );
+  }
+
+  @Override
+  public boolean isTracked() {
+    return mode == RENDERING;
+  }
+
+  @Override
+  public Collection<Widget> getChangedWidgets() {
+    return Collections.unmodifiableSet( changed );
+  }
+
+  @Override
+  public void reset() {
+    mode = COLLECTING;
+    valid = true;
+    suspended = false;
+    touched.clear();
+    units.clear();
+    dirty.clear();
+    path.clear();
+    changed.clear();
+    tabIndexCandidates.clear();
+  }
+
+  private void processTabIndexCandidates() {
+    if( !tabIndexCandidates.isEmpty() ) {
+      for( Control control : tabIndexCandidates ) {
+        if( !dirty.contains( control ) && control.hasTabIndexChanged() ) {
+          units.add( control );
+          preserveUnit( control );
+          addPath( control );
+        }
+      }
+      tabIndexCandidates.clear();
+    }
+  }
+
+  private boolean isTouchable() {
+    return mode == COLLECTING || mode == TRACKING;
+  }
+
+  private void touchUnit( Control root ) {
+    // new controls are rendered completely anyway and may still be under construction
+    if( units.add( root ) && mode == TRACKING && root.isRemoteInitialized() ) {
+      busy = true;
+      try {
+        preserveUnit( root );
+      } finally {
+        busy = false;
+      }
+    }
+  }
+
+  /*
+   * Widgets that have been created since the last render phase would receive their ids in a
+   * different order than with a full walk. Fall back to the full walk in this case. New controls
+   * are found as children of their (touched) parent.
+   */
+  private boolean canPreserveCollectedUnits() {
+    for( Control root : units ) {
+      if( !root.isDisposed() && !hasRemoteIds( root ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasRemoteIds( final Control root ) {
+    final boolean[] result = { true };
+    WidgetTreeUtil.accept( root, new WidgetTreeVisitor() {
+      @Override
+      public boolean visit( Widget widget ) {
+        result[ 0 ] &= widget.hasRemoteAdapter();
+        return result[ 0 ] && isMember( root, widget );
+      }
+    } );
+    return result[ 0 ];
+  }
+
+  private void preserveUnit( final Control root ) {
+    WidgetTreeUtil.accept( root, new WidgetTreeVisitor() {
+      @Override
+      public boolean visit( Widget widget ) {
+        if( isMember( root, widget ) ) {
+          if( widget.hasRemoteAdapter() ) {
+            getLCA( widget ).preserveValues( widget );
+            changed.add( widget );
+          }
+          dirty.add( widget );
+          return true;
+        }
+        return false;
+      }
+    } );
+  }
+
+  private void addPath( Control root ) {
+    Control control = root;
+    while( !( control instanceof Shell ) ) {
+      control = control._getParent();
+      if( control == null || !path.add( control ) ) {
+        return;
+      }
+    }
+  }
+
+  private static boolean isMember( Control root, Widget widget ) {
+    return widget == root || !( widget instanceof Control );
+  }
+
+  private static Control findUnitRoot( Widget widget ) {
+    Widget current = widget;
+    while( current != null && !( current instanceof Control ) ) {
+      current = current.getCreationParent();
+    }
+    return ( Control )current;
+  }
+
+  private static <T> Set<T> createSet() {
+    return Collections.newSetFromMap( new IdentityHashMap<T, Boolean>() );
+  }
+
+  private Object readResolve() {
+    // changes that happened before the serialization are unknown, start with a full walk
+    initialize();
+    return this;
+  }
+
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.widgets;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/*
+ * A queued asyncExec runnable whose runnable can be replaced by later runnables with the same key
+ * until it is taken for execution.
+ */
+class CoalescedRunnableLock extends RunnableLock {
+
+  final Object key;
+  private final AtomicReference<Runnable> latest;
+
+  CoalescedRunnableLock( Object key, Runnable runnable ) {
+    super( runnable );
+    this.key = key;
+    latest = new AtomicReference<>( runnable );
+  }
+
+  /*
+   * Replaces the runnable to execute, returns false if the runnable has already been taken.
+   */
+  boolean replace( Runnable runnable ) {
+    Runnable current = latest.get();
+    while( current != null ) {
+      if( latest.compareAndSet( current, runnable ) ) {
+        return true;
+      }
+      current = latest.get();
+    }
+    return false;
+  }
+
+  /*
+   * Takes the latest runnable for execution, later runnables can no longer replace it.
+   */
+  void take() {
+    runnable = latest.getAndSet( null );
+  }
+
+}
@@ -87,6 +87,10 @@ public abstract class Control extends Widget implements Drawable {
       if( takesFocus() ) {
         getRemoteAdapter().preserveTabIndex( tabIndex );
         tabIndex = index;
+        ChangeTracker tracker = display.getChangeTracker();
+        if( tracker != null ) {
+          tracker.tabIndexUpdated( Control.this );
+        }
       }
     }
 
@@ -2751,6 +2755,11 @@ public abstract class Control extends Widget implements Drawable {
     }
   }
 
+  boolean hasTabIndexChanged() {
+    ControlRemoteAdapter remoteAdapter = getRemoteAdapter();
+    return remoteAdapter.hasPreservedTabIndex() && remoteAdapter.getPreservedTabIndex() != tabIndex;
+  }
+
   private ControlRemoteAdapter getRemoteAdapter() {
     return ( ControlRemoteAdapter )getAdapter( RemoteAdapter.class );
   }
@@ -31,6 +31,7 @@ import java.util.Set;
 import org.eclipse.rap.json.JsonValue;
 import org.eclipse.rap.rwt.Adaptable;
 import org.eclipse.rap.rwt.application.ExceptionHandler;
+import org.eclipse.rap.rwt.internal.RWTProperties;
 import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
 import org.eclipse.rap.rwt.internal.lifecycle.CurrentPhase;
 import org.eclipse.rap.rwt.internal.lifecycle.IUIThreadHolder;
@@ -64,6 +65,7 @@ import org.eclipse.swt.internal.events.EventList;
 import org.eclipse.swt.internal.events.EventUtil;
 import org.eclipse.swt.internal.widgets.IDisplayAdapter;
 import org.eclipse.swt.internal.widgets.IdGenerator;
+import org.eclipse.swt.internal.widgets.WidgetChangeTracker;
 import org.eclipse.swt.internal.widgets.WidgetRemoteAdapter;
 import org.eclipse.swt.internal.widgets.WidgetTreeUtil;
 import org.eclipse.swt.internal.widgets.WidgetTreeVisitor;
@@ -249,6 +251,7 @@ public class Display extends Device implements Adaptable {
 
   private Synchronizer synchronizer;
   private TimerExecScheduler scheduler;
+  private ChangeTracker changeTracker;
 
   /**
    * Constructs a new instance of this class.
@@ -283,6 +286,9 @@ public class Display extends Device implements Adaptable {
     dpi = readDPI();
     depth = readDepth();
     synchronizer = new Synchronizer( this );
+    if( RWTProperties.isChangeTrackingEnabled() ) {
+      changeTracker = new ChangeTracker();
+    }
     register();
   }
 
@@ -804,10 +810,17 @@ public class Display extends Device implements Adaptable {
       }
       return ( T )remoteAdapter;
     }
+    if( adapter == WidgetChangeTracker.class ) {
+      return ( T )changeTracker;
+    }
     return null;
   }
 
-  private ApplicationContextImpl getApplicationContext() {
+  ChangeTracker getChangeTracker() {
+    return changeTracker;
+  }
+
+  ApplicationContextImpl getApplicationContext() {
     return ( ApplicationContextImpl )uiSession.getApplicationContext();
   }
 
@@ -853,6 +866,12 @@ public class Display extends Device implements Adaptable {
     checkDevice();
     if( this.activeShell != activeShell ) {
       Shell lastActiveShell = this.activeShell;
+      if( lastActiveShell != null ) {
+        lastActiveShell.trackChange();
+      }
+      if( activeShell != null ) {
+        activeShell.trackChange();
+      }
       if( this.activeShell != null ) {
         this.activeShell.saveFocus();
       }
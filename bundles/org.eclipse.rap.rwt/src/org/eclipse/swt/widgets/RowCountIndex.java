@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.widgets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.swt.internal.SerializableCompatibility;
+
+
+/*
+ * Holds the number of visible rows of each child of a tree or tree item in a Fenwick tree, so
+ * that prefix sums and the child containing a given row can be found in O(log n).
+ *
+ * An index becomes invalid when children are added or removed and is rebuilt on the next access
+ * in O(n). Children whose row count has changed without a structural change (e.g. because they
+ * were expanded) are recorded as changed items and updated individually in O(log n).
+ */
+final class RowCountIndex implements SerializableCompatibility {
+
+  private int[] counts;
+  private int[] sums;
+  private int size;
+  private int total;
+  private boolean valid;
+  private List<TreeItem> changedItems;
+
+  RowCountIndex() {
+    counts = new int[ 0 ];
+    sums = new int[ 1 ];
+  }
+
+  boolean isValid() {
+    return valid;
+  }
+
+  void invalidate() {
+    valid = false;
+  }
+
+  void rebuild( int[] counts ) {
+    this.counts = counts;
+    size = counts.length;
+    sums = new int[ size + 1 ];
+    total = 0;
+    for( int i = 1; i <= size; i++ ) {
+      sums[ i ] += counts[ i - 1 ];
+      total += counts[ i - 1 ];
+      int parent = i + ( i & -i );
+      if( parent <= size ) {
+        sums[ parent ] += sums[ i ];
+      }
+    }
+    valid = true;
+  }
+
+  int getTotal() {
+    return total;
+  }
+
+  void set( int index, int count ) {
+    int delta = count - counts[ index ];
+    if( delta != 0 ) {
+      counts[ index ] = count;
+      total += delta;
+      for( int i = index + 1; i <= size; i += i & -i ) {
+        sums[ i ] += delta;
+      }
+    }
+  }
+
+  /*
+   * Returns the sum of the row counts of the children before the given index.
+   */
+  int getPrefix( int index ) {
+    int result = 0;
+    for( int i = index; i > 0; i -= i & -i ) {
+      result += sums[ i ];
+    }
+    return result;
+  }
+
+  /*
+   * Returns the index of the child that contains the given row. Relies on every child having at
+   * least one row.
+   */
+  int find( int row ) {
+    int result = 0;
+    int remaining = row;
+    for( int step = Integer.highestOneBit( size ); step > 0; step >>= 1 ) {
+      int next = result + step;
+      if( next <= size && sums[ next ] <= remaining ) {
+        result = next;
+        remaining -= sums[ next ];
+      }
+    }
+    return result;
+  }
+
+  void addChangedItem( TreeItem item ) {
+    if( changedItems == null ) {
+      changedItems = new ArrayList<>();
+    }
+    changedItems.add( item );
+  }
+
+  List<TreeItem> removeChangedItems() {
+    List<TreeItem> result = Collections.emptyList();
+    if( changedItems != null ) {
+      result = changedItems;
+      changedItems = null;
+    }
+    return result;
+  }
+
+}
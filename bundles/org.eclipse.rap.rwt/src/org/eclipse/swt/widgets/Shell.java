@@ -1027,6 +1027,7 @@ public class Shell extends Decorations {
       lastActive = null;
     }
     if( lastActive != control ) {
+      trackChange();
       // Compute the list of controls to be activated and deactivated by finding
       // the first common parent control.
       Control[] activate = ( control == null ) ? new Control[ 0 ] : control.getPath();
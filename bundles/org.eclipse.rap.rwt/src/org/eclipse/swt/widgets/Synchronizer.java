@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,13 +11,21 @@
  *******************************************************************************/
 package org.eclipse.swt.widgets;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.internal.RWTProperties;
 import org.eclipse.rap.rwt.internal.serverpush.ServerPushManager;
 import org.eclipse.rap.rwt.internal.util.SerializableLock;
+import org.eclipse.rap.rwt.widgets.CoalescingRunnable;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTException;
 import org.eclipse.swt.internal.Compatibility;
 import org.eclipse.swt.internal.SerializableCompatibility;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
 
 
 /**
@@ -44,14 +52,23 @@ import org.eclipse.swt.internal.SerializableCompatibility;
 public class Synchronizer implements SerializableCompatibility {
 
   Display display;
-  int messageCount;
-  RunnableLock [] messages;
+// RAP: the messages are kept in a lock-free queue, messageLock only guards the notification of
+//      the server push mechanism when the queue becomes empty or non-empty
+  AtomicInteger messageCount = new AtomicInteger();
+  ConcurrentLinkedQueue<RunnableLock> messages = new ConcurrentLinkedQueue<>();
+  // the pending runnables of CoalescingRunnables by key
+  ConcurrentHashMap<Object, CoalescedRunnableLock> coalescedMessages = new ConcurrentHashMap<>();
 // RAP [rh] mesageLock must be serializable	(bug 345842)
 //	Object messageLock = new Object ();
   Object messageLock = new SerializableLock();
   Thread syncThread;
-  static final int GROW_SIZE = 4;
-  static final int MESSAGE_LIMIT = 64;
+  // whether the server push mechanism has been told that there are runnables
+  boolean hasRunnables;
+  // the time in milliseconds that the client is woken after a runnable was added to the empty
+  // queue, runnables that are added in the meantime are delivered with the same request
+  int wakeDelay = RWTProperties.getAsyncExecWakeDelay( 0 );
+  transient boolean wakeScheduled;
+  transient ScheduledFuture<?> wakeFuture;
 
   //TEMPORARY CODE
   static final boolean IS_CARBON = "carbon".equals (SWT.getPlatform ());
@@ -68,32 +85,100 @@ public Synchronizer (Display display) {
 }
 
 void addLast (RunnableLock lock) {
+  messages.add (lock);
   boolean wake = false;
-  synchronized (messageLock) {
-    if (messages == null) {
-      messages = new RunnableLock [GROW_SIZE];
+// RAP [rst] Notify server push mechanism when runnable was added to empty queue
+  if( messageCount.incrementAndGet() == 1 ) {
+    wake = updateHasRunnables();
+  }
+  runnableAdded( lock.runnable );
+// END RAP
+  if( lock.thread != null ) {
+    // a thread waits in syncExec, the client must not wait for the batching window
+    display.wakeThread ();
+  } else if (wake) {
+    wakeThread ();
+  }
+}
+
+void addCoalesced( Object key, Runnable runnable ) {
+  boolean added = false;
+  while( !added ) {
+    CoalescedRunnableLock pending = coalescedMessages.get( key );
+    if( pending == null ) {
+      CoalescedRunnableLock lock = new CoalescedRunnableLock( key, runnable );
+      if( coalescedMessages.putIfAbsent( key, lock ) == null ) {
+        addLast( lock );
+        added = true;
+      }
+    } else if( pending.replace( runnable ) ) {
+      runnableAdded( runnable );
+      added = true;
+    } else {
+      // the pending runnable is being executed, queue a new one
+      coalescedMessages.remove( key, pending );
+    }
+  }
+}
+
+/*
+ * Tells the server push mechanism whether the queue has runnables, if this has changed. The
+ * state is re-read while holding messageLock after each transition of the message count, so the
+ * last notification always matches the queue. Returns true if the queue has become non-empty.
+ */
+boolean updateHasRunnables() {
+  synchronized( messageLock ) {
+    final boolean hasRunnables = messageCount.get() > 0;
+    if( hasRunnables == this.hasRunnables ) {
+      return false;
     }
-    if (messageCount == messages.length) {
-      RunnableLock[] newMessages = new RunnableLock [messageCount + GROW_SIZE];
-      System.arraycopy (messages, 0, newMessages, 0, messageCount);
-      messages = newMessages;
+    this.hasRunnables = hasRunnables;
+    RWT.getUISession( display ).exec( new Runnable() {
+      @Override
+      public void run() {
+        ServerPushManager.getInstance().setHasRunnables( hasRunnables );
+      }
+    } );
+    return hasRunnables;
+  }
+}
+
+private void wakeThread() {
+  if( wakeDelay <= 0 ) {
+    display.wakeThread();
+  } else {
+    synchronized( messageLock ) {
+      if( wakeScheduled ) {
+        return;
+      }
+      wakeScheduled = true;
     }
-    messages [messageCount++] = lock;
-// RAP [rst] Notify server push mechanism when runnable was added to empty queue
-    if( messageCount == 1 ) {
-      RWT.getUISession( display ).exec( new Runnable() {
-        @Override
-        public void run() {
-          ServerPushManager.getInstance().setHasRunnables( true );
+    // releaseSynchronizer() resets messageLock while a wake may be pending
+    final Object lock = messageLock;
+    Runnable wake = new Runnable() {
+      @Override
+      public void run() {
+        synchronized( lock ) {
+          wakeScheduled = false;
+          wakeFuture = null;
+        }
+        if( !display.isDisposed() ) {
+          display.wakeThread();
         }
-      } );
+      }
+    };
+    TimerExecExecutor executor = display.getApplicationContext().getTimerExecExecutor();
+    ScheduledFuture<?> future = executor.schedule( wake, wakeDelay );
+    if( future == null ) {
+      // the application is being stopped
+      wake.run();
+    } else {
+      synchronized( lock ) {
+        if( wakeScheduled ) {
+          wakeFuture = future;
+        }
+      }
     }
-    runnableAdded( lock.runnable );
-// END RAP
-    wake = messageCount == 1;
-  }
-  if (wake) {
-    display.wakeThread ();
   }
 }
 
@@ -120,13 +205,18 @@ protected void asyncExec (Runnable runnable) {
       return;
     }
   }
+  if( runnable instanceof CoalescingRunnable ) {
+    Object key = ( ( CoalescingRunnable )runnable ).getCoalescingKey();
+    if( key != null ) {
+      addCoalesced( key, runnable );
+      return;
+    }
+  }
   addLast (new RunnableLock (runnable));
 }
 
 int getMessageCount () {
-  synchronized (messageLock) {
-    return messageCount;
-  }
+  return messageCount.get ();
 }
 
 void releaseSynchronizer () {
@@ -143,36 +233,35 @@ void releaseSynchronizer () {
   }
   // END RAP
 //	display = null;
-  messages = null;
+  messages.clear ();
+  coalescedMessages.clear ();
+  synchronized( messageLock ) {
+    if( wakeFuture != null ) {
+      wakeFuture.cancel( false );
+      wakeFuture = null;
+    }
+  }
   messageLock = null;
   syncThread = null;
 }
 
 RunnableLock removeFirst () {
-  synchronized (messageLock) {
-    if (messageCount == 0) {
-      return null;
-    }
-    RunnableLock lock = messages [0];
-    System.arraycopy (messages, 1, messages, 0, --messageCount);
-    messages [messageCount] = null;
-    if (messageCount == 0) {
-      if (messages.length > MESSAGE_LIMIT) {
-        messages = null;
-      }
-    }
+  RunnableLock lock = messages.poll ();
+  if (lock == null) {
+    return null;
+  }
+  if( lock instanceof CoalescedRunnableLock ) {
+    CoalescedRunnableLock coalescedLock = ( CoalescedRunnableLock )lock;
+    // remove the key first, runnables that arrive after take() are queued anew
+    coalescedMessages.remove( coalescedLock.key, coalescedLock );
+    coalescedLock.take();
+  }
 // RAP [rst] Notify server push mechanism when last runnable has been removed
-    if( messageCount == 0 ) {
-      RWT.getUISession( display ).exec( new Runnable() {
-        @Override
-        public void run() {
-          ServerPushManager.getInstance().setHasRunnables( false );
-        }
-      } );
-    }
-// END RAP
-    return lock;
+  if( messageCount.decrementAndGet() == 0 ) {
+    updateHasRunnables();
   }
+// END RAP
+  return lock;
 }
 
 boolean runAsyncMessages () {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -230,7 +230,7 @@ public class Table extends Composite {
     public boolean isItemVirtual( int index ) {
       boolean result = false;
       if( ( style & SWT.VIRTUAL ) != 0 ) {
-        TableItem item = items[ index ];
+        TableItem item = items.get( index );
         result = item == null || !item.cached;
       }
       return result;
@@ -303,7 +303,7 @@ public class Table extends Composite {
   private final ITableAdapter tableAdapter;
   private int customItemHeight;
   private int itemCount;
-  private TableItem[] items;
+  private TableItemStore items;
   private final ItemHolder<TableColumn> columnHolder;
   private int[] columnImageCount;
   private int[] columnOrder;
@@ -632,7 +632,7 @@ public class Table extends Composite {
     if( newItemCount != oldItemCount && !isInDispose() ) {
       int deleteIndex = oldItemCount - 1;
       while( deleteIndex >= newItemCount ) {
-        TableItem item = items[ deleteIndex ];
+        TableItem item = items.get( deleteIndex );
         if( item != null && !item.isDisposed() ) {
           item.dispose();
         } else {
@@ -640,14 +640,13 @@ public class Table extends Composite {
         }
         deleteIndex--;
       }
-      int length = Math.max( 4, ( newItemCount + 3 ) / 4 * 4 );
-      TableItem[] newItems = new TableItem[ length ];
-      System.arraycopy( items, 0, newItems, 0, Math.min( newItemCount, itemCount ) );
-      items = newItems;
       if( ( style & SWT.VIRTUAL ) == 0 ) {
         for( int i = itemCount; i < newItemCount; i++ ) {
-          items[ i ] = new TableItem( this, SWT.NONE, i, true );
+          new TableItem( this, SWT.NONE, i, true );
         }
+      } else {
+        // slots of virtual items take no memory until the items are created
+        items.setSize( newItemCount );
       }
       itemCount = newItemCount;
       adjustTopIndex();
@@ -695,12 +694,8 @@ public class Table extends Composite {
   public TableItem[] getItems() {
     checkWidget();
     TableItem[] result = new TableItem[ itemCount ];
-    if( ( style & SWT.VIRTUAL ) != 0 ) {
-      for( int i = 0; i < itemCount; i++ ) {
-        result[ i ] = _getItem( i );
-      }
-    } else {
-      System.arraycopy( items, 0, result, 0, itemCount );
+    for( int i = 0; i < itemCount; i++ ) {
+      result[ i ] = _getItem( i );
     }
     return result;
   }
@@ -938,7 +933,7 @@ public class Table extends Composite {
     if( index < 0 || index >= itemCount ) {
       SWT.error( SWT.ERROR_INVALID_RANGE );
     }
-    TableItem item = items[ index ];
+    TableItem item = items.get( index );
     if( item != null ) {
       item.clear();
     }
@@ -974,11 +969,8 @@ public class Table extends Composite {
       if( start == 0 && end == itemCount - 1 ) {
         clearAll();
       } else {
-        for( int i = start; i <= end; i++ ) {
-          TableItem item = items[ i ];
-          if( item != null ) {
-            item.clear();
-          }
+        for( int i = items.nextIndex( start ); i != -1 && i <= end; i = items.nextIndex( i + 1 ) ) {
+          items.get( i ).clear();
         }
       }
     }
@@ -1000,11 +992,8 @@ public class Table extends Composite {
    */
   public void clearAll() {
     checkWidget();
-    for( int i = 0; i < itemCount; i++ ) {
-      TableItem item = items[ i ];
-      if( item != null ) {
-        item.clear();
-      }
+    for( int i = items.nextIndex( 0 ); i != -1; i = items.nextIndex( i + 1 ) ) {
+      items.get( i ).clear();
     }
     clearItemImageSize();
   }
@@ -1041,7 +1030,7 @@ public class Table extends Composite {
         }
       }
       for( int i = 0; i < indices.length; i++ ) {
-        TableItem item = items[ indices[ i ] ];
+        TableItem item = items.get( indices[ i ] );
         if( item != null ) {
           item.clear();
         }
@@ -2140,10 +2129,8 @@ public class Table extends Composite {
       System.arraycopy( columnImageCount, index, newColumnImageCount, index + 1, length - index );
       columnImageCount = newColumnImageCount;
     }
-    for( int i = 0; i < itemCount; i++ ) {
-      if( items[ i ] != null ) {
-        items[ i ].shiftData( index );
-      }
+    for( int i = items.nextIndex( 0 ); i != -1; i = items.nextIndex( i + 1 ) ) {
+      items.get( i ).shiftData( index );
     }
     updateScrollBars();
   }
@@ -2152,10 +2139,8 @@ public class Table extends Composite {
     if( !isInDispose() ) {
       int index = indexOf( column );
       // Remove data from TableItems
-      for( int i = 0; i < itemCount; i++ ) {
-        if( items[ i ] != null ) {
-          items[ i ].removeData( index );
-        }
+      for( int i = items.nextIndex( 0 ); i != -1; i = items.nextIndex( i + 1 ) ) {
+        items.get( i ).removeData( index );
       }
       // Reset sort column if necessary
       if( column == sortColumn ) {
@@ -2203,21 +2188,8 @@ public class Table extends Composite {
     if( index < 0 || index > itemCount ) {
       error( SWT.ERROR_INVALID_RANGE );
     }
-    if( itemCount == items.length ) {
-      /*
-       * Grow the array faster when redraw is off or the table is not visible.
-       * When the table is painted, the items array is resized to be smaller to
-       * reduce memory usage.
-       */
-      boolean small = /* drawCount == 0 && */isVisible();
-      int length = small ? items.length + 4 : Math.max( 4, items.length * 3 / 2 );
-      TableItem[] newItems = new TableItem[ length ];
-      System.arraycopy( items, 0, newItems, 0, items.length );
-      items = newItems;
-    }
     /* Insert the item */
-    System.arraycopy( items, index, items, index + 1, itemCount - index );
-    items[ index ] = item;
+    items.insert( index, item );
     itemCount++;
     adjustItemIndices( index );
     // adjust the selection indices
@@ -2247,11 +2219,10 @@ public class Table extends Composite {
       if( item != null ) {
         item.index = -1;
       }
+      items.remove( index );
       if( itemCount == 0 ) {
         setTableEmpty();
       } else {
-        System.arraycopy( items, index + 1, items, index, itemCount - index );
-        items[ itemCount ] = null;
         adjustItemIndices( index );
       }
       adjustTopIndex();
@@ -2270,13 +2241,9 @@ public class Table extends Composite {
 
   @Override
   void releaseChildren() {
-    Item[] tableItems = new TableItem[ items.length ];
-    System.arraycopy( items, 0, tableItems, 0, items.length );
-    for( int i = 0; i < tableItems.length; i++ ) {
-      if( tableItems[ i ] != null ) {
-        tableItems[ i ].dispose();
-        items[ i ] = null;
-      }
+    for( int i = items.nextIndex( 0 ); i != -1; i = items.nextIndex( i + 1 ) ) {
+      items.get( i ).dispose();
+      items.set( i, null );
     }
     TableColumn[] tableColumns = columnHolder.getItems();
     for( int i = 0; i < tableColumns.length; i++ ) {
@@ -2290,58 +2257,35 @@ public class Table extends Composite {
   // Helping methods - item retrieval
 
   private TableItem _getItem( int index ) {
-    if( ( style & SWT.VIRTUAL ) != 0 && items[ index ] == null ) {
-      items[ index ] = new TableItem( this, SWT.NONE, index, false );
+    TableItem result = items.get( index );
+    if( ( style & SWT.VIRTUAL ) != 0 && result == null ) {
+      result = new TableItem( this, SWT.NONE, index, false );
+      items.set( index, result );
     }
-    return items[ index ];
+    return result;
   }
 
   final TableItem[] getCachedItems() {
-    TableItem[] result;
+    TableItem[] result = items.getCreatedItems();
     if( ( style & SWT.VIRTUAL ) != 0 ) {
       int count = 0;
-      for( int i = 0; i < itemCount; i++ ) {
-        if( items[ i ] != null && items[ i ].cached ) {
+      for( int i = 0; i < result.length; i++ ) {
+        if( result[ i ].cached ) {
+          result[ count ] = result[ i ];
           count++;
         }
       }
-      result = new TableItem[ count ];
-      count = 0;
-      for( int i = 0; i < itemCount; i++ ) {
-        if( items[ i ] != null && items[ i ].cached ) {
-          result[ count ] = items[ i ];
-          count++;
-        }
+      if( count < result.length ) {
+        TableItem[] cachedItems = new TableItem[ count ];
+        System.arraycopy( result, 0, cachedItems, 0, count );
+        result = cachedItems;
       }
-    } else {
-      result = new TableItem[ itemCount ];
-      System.arraycopy( items, 0, result, 0, itemCount );
     }
     return result;
   }
 
   final TableItem[] getCreatedItems() {
-    TableItem[] result;
-    if( ( style & SWT.VIRTUAL ) != 0 ) {
-      int count = 0;
-      for( int i = 0; i < itemCount; i++ ) {
-        if( items[ i ] != null ) {
-          count++;
-        }
-      }
-      result = new TableItem[ count ];
-      count = 0;
-      for( int i = 0; i < itemCount; i++ ) {
-        if( items[ i ] != null ) {
-          result[ count ] = items[ i ];
-          count++;
-        }
-      }
-    } else {
-      result = new TableItem[ itemCount ];
-      System.arraycopy( items, 0, result, 0, itemCount );
-    }
-    return result;
+    return items.getCreatedItems();
   }
 
   ///////////////////////////////////////////////
@@ -2573,7 +2517,7 @@ public class Table extends Composite {
   }
 
   private void removeItem( int index ) {
-    TableItem item = items[ index ];
+    TableItem item = items.get( index );
     if( item != null && !item.isDisposed() ) {
       item.dispose();
     } else {
@@ -2622,10 +2566,8 @@ public class Table extends Composite {
   }
 
   private void adjustItemIndices( int start ) {
-    for( int i = start; i < itemCount; i++ ) {
-      if( items[ i ] != null ) {
-        items[ i ].index = i;
-      }
+    for( int i = items.nextIndex( start ); i != -1; i = items.nextIndex( i + 1 ) ) {
+      items.get( i ).index = i;
     }
   }
 
@@ -2655,7 +2597,10 @@ public class Table extends Composite {
   }
 
   private void setTableEmpty() {
-    items = new TableItem[ 4 ];
+    if( items == null ) {
+      items = new TableItemStore();
+    }
+    items.clear();
     clearItemImageSize();
   }
 
@@ -2752,11 +2697,8 @@ public class Table extends Composite {
   @Override
   void reskinChildren( int flags ) {
     if( items != null ) {
-      for( int i = 0; i < items.length; i++ ) {
-        TableItem item = items[ i ];
-        if( item != null ) {
-          item.reskin( flags );
-        }
+      for( int i = items.nextIndex( 0 ); i != -1; i = items.nextIndex( i + 1 ) ) {
+        items.get( i ).reskin( flags );
       }
     }
     TableColumn[] columns = getColumns();
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.widgets;
+
+import org.eclipse.swt.internal.SerializableCompatibility;
+
+
+/*
+ * Holds the items of a table in fixed-size chunks that are only allocated when they contain at
+ * least one item. The slots of a virtual table that have not been requested yet take no memory
+ * beyond one reference per chunk, and the created items can be enumerated without scanning all
+ * slots.
+ */
+final class TableItemStore implements SerializableCompatibility {
+
+  private static final int SHIFT = 10;
+  static final int CHUNK_SIZE = 1 << SHIFT;
+  private static final int MASK = CHUNK_SIZE - 1;
+
+  private TableItem[][] chunks;
+  private int[] chunkCounts;
+  private int size;
+  private int createdCount;
+
+  TableItemStore() {
+    chunks = new TableItem[ 0 ][];
+    chunkCounts = new int[ 0 ];
+  }
+
+  int size() {
+    return size;
+  }
+
+  int getCreatedCount() {
+    return createdCount;
+  }
+
+  TableItem get( int index ) {
+    TableItem[] chunk = chunks[ index >> SHIFT ];
+    return chunk == null ? null : chunk[ index & MASK ];
+  }
+
+  void set( int index, TableItem item ) {
+    int chunkIndex = index >> SHIFT;
+    TableItem[] chunk = chunks[ chunkIndex ];
+    if( chunk == null ) {
+      if( item == null ) {
+        return;
+      }
+      chunk = new TableItem[ CHUNK_SIZE ];
+      chunks[ chunkIndex ] = chunk;
+    }
+    TableItem oldItem = chunk[ index & MASK ];
+    chunk[ index & MASK ] = item;
+    updateCount( chunkIndex, oldItem, item );
+  }
+
+  /*
+   * Changes the number of slots. Slots that are added are empty, items in slots that are removed
+   * are dropped.
+   */
+  void setSize( int newSize ) {
+    int chunkCount = ( newSize + MASK ) >> SHIFT;
+    if( newSize < size ) {
+      for( int i = newSize; i < size && i < chunkCount << SHIFT; i++ ) {
+        set( i, null );
+      }
+      for( int i = chunkCount; i < chunks.length; i++ ) {
+        createdCount -= chunkCounts[ i ];
+      }
+    }
+    if( chunkCount != chunks.length ) {
+      TableItem[][] newChunks = new TableItem[ chunkCount ][];
+      int[] newChunkCounts = new int[ chunkCount ];
+      int length = Math.min( chunkCount, chunks.length );
+      System.arraycopy( chunks, 0, newChunks, 0, length );
+      System.arraycopy( chunkCounts, 0, newChunkCounts, 0, length );
+      chunks = newChunks;
+      chunkCounts = newChunkCounts;
+    }
+    size = newSize;
+  }
+
+  /*
+   * Inserts a slot at the given index and moves the following slots by one.
+   */
+  void insert( int index, TableItem item ) {
+    ensureCapacity( size + 1 );
+    size++;
+    TableItem carry = item;
+    int lastChunk = ( size - 1 ) >> SHIFT;
+    for( int chunkIndex = index >> SHIFT; chunkIndex <= lastChunk; chunkIndex++ ) {
+      TableItem[] chunk = chunks[ chunkIndex ];
+      if( chunk == null ) {
+        if( carry == null ) {
+          // an empty chunk remains empty
+          continue;
+        }
+        chunk = new TableItem[ CHUNK_SIZE ];
+        chunks[ chunkIndex ] = chunk;
+      }
+      int start = chunkIndex == index >> SHIFT ? index & MASK : 0;
+      TableItem out = chunk[ MASK ];
+      System.arraycopy( chunk, start, chunk, start + 1, MASK - start );
+      chunk[ start ] = carry;
+      updateCount( chunkIndex, out, carry );
+      carry = out;
+    }
+  }
+
+  /*
+   * Removes the slot at the given index and moves the following slots by one.
+   */
+  void remove( int index ) {
+    TableItem carry = null;
+    int firstChunk = index >> SHIFT;
+    for( int chunkIndex = ( size - 1 ) >> SHIFT; chunkIndex >= firstChunk; chunkIndex-- ) {
+      TableItem[] chunk = chunks[ chunkIndex ];
+      if( chunk == null ) {
+        if( carry == null ) {
+          continue;
+        }
+        chunk = new TableItem[ CHUNK_SIZE ];
+        chunks[ chunkIndex ] = chunk;
+      }
+      int start = chunkIndex == firstChunk ? index & MASK : 0;
+      TableItem out = chunk[ start ];
+      System.arraycopy( chunk, start + 1, chunk, start, MASK - start );
+      chunk[ MASK ] = carry;
+      updateCount( chunkIndex, out, carry );
+      carry = out;
+    }
+    setSize( size - 1 );
+  }
+
+  void clear() {
+    chunks = new TableItem[ 0 ][];
+    chunkCounts = new int[ 0 ];
+    size = 0;
+    createdCount = 0;
+  }
+
+  /*
+   * Returns the index of the first created item at or after the given index, or -1 if there is
+   * none. Empty chunks are skipped as a whole.
+   */
+  int nextIndex( int index ) {
+    int chunkIndex = index >> SHIFT;
+    int start = index & MASK;
+    while( chunkIndex < chunks.length ) {
+      TableItem[] chunk = chunks[ chunkIndex ];
+      if( chunk != null ) {
+        for( int i = start; i < CHUNK_SIZE; i++ ) {
+          if( chunk[ i ] != null ) {
+            int result = ( chunkIndex << SHIFT ) + i;
+            return result < size ? result : -1;
+          }
+        }
+      }
+      chunkIndex++;
+      start = 0;
+    }
+    return -1;
+  }
+
+  /*
+   * Returns the created items in the order of their indices.
+   */
+  TableItem[] getCreatedItems() {
+    TableItem[] result = new TableItem[ createdCount ];
+    int count = 0;
+    for( int i = nextIndex( 0 ); i != -1; i = nextIndex( i + 1 ) ) {
+      result[ count++ ] = get( i );
+    }
+    return result;
+  }
+
+  private void ensureCapacity( int capacity ) {
+    if( capacity > chunks.length << SHIFT ) {
+      int oldSize = size;
+      setSize( capacity );
+      size = oldSize;
+    }
+  }
+
+  private void updateCount( int chunkIndex, TableItem oldItem, TableItem newItem ) {
+    int delta = ( newItem != null ? 1 : 0 ) - ( oldItem != null ? 1 : 0 );
+    if( delta != 0 ) {
+      chunkCounts[ chunkIndex ] += delta;
+      createdCount += delta;
+      if( chunkCounts[ chunkIndex ] == 0 ) {
+        chunks[ chunkIndex ] = null;
+      }
+    }
+  }
+
+}
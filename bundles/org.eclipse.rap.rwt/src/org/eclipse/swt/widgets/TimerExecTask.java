@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2012 EclipseSource and others.
+ * Copyright (c) 2010, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,15 +10,19 @@
  ******************************************************************************/
 package org.eclipse.swt.widgets;
 
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
 
 import org.eclipse.swt.internal.SerializableCompatibility;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
 
 
-class TimerExecTask extends TimerTask implements SerializableCompatibility {
+class TimerExecTask implements Runnable, SerializableCompatibility {
 
   private final TimerExecScheduler scheduler;
   private final Runnable runnable;
+  private long executionTime;
+  private int generation;
+  private transient ScheduledFuture<?> future;
 
   TimerExecTask( TimerExecScheduler scheduler, Runnable runnable ) {
     this.scheduler = scheduler;
@@ -26,25 +30,62 @@ class TimerExecTask extends TimerTask implements SerializableCompatibility {
     scheduler.serverPushManager.activateServerPushFor( this );
   }
 
+  void schedule( TimerExecExecutor executor, long milliseconds ) {
+    synchronized( scheduler.display.getDeviceLock() ) {
+      cancelFuture();
+      // a previous execution that is already waiting for the lock must not run the task
+      final int scheduledGeneration = ++generation;
+      executionTime = System.currentTimeMillis() + milliseconds;
+      future = executor.schedule( new Runnable() {
+        @Override
+        public void run() {
+          execute( scheduledGeneration );
+        }
+      }, milliseconds );
+    }
+  }
+
   @Override
   public void run() {
     synchronized( scheduler.display.getDeviceLock() ) {
-      scheduler.removeTask( this );
-      if( !scheduler.display.isDisposed() ) {
-        scheduler.display.asyncExec( runnable );
-      }
+      execute( generation );
     }
-    scheduler.serverPushManager.deactivateServerPushFor( this );
   }
 
-  @Override
-  public boolean cancel() {
+  boolean cancel() {
     scheduler.serverPushManager.deactivateServerPushFor( this );
-    return super.cancel();
+    synchronized( scheduler.display.getDeviceLock() ) {
+      generation++;
+      return cancelFuture();
+    }
   }
 
   Runnable getRunnable() {
     return runnable;
   }
 
+  long getExecutionTime() {
+    return executionTime;
+  }
+
+  private void execute( int scheduledGeneration ) {
+    synchronized( scheduler.display.getDeviceLock() ) {
+      if( scheduledGeneration != generation ) {
+        return;
+      }
+      future = null;
+      scheduler.removeTask( this );
+      if( !scheduler.display.isDisposed() ) {
+        scheduler.display.asyncExec( runnable );
+      }
+    }
+    scheduler.serverPushManager.deactivateServerPushFor( this );
+  }
+
+  private boolean cancelFuture() {
+    boolean result = future != null && future.cancel( false );
+    future = null;
+    return result;
+  }
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -138,8 +138,8 @@ public class Tree extends Composite {
   private boolean hasHScrollBar;
   private Point itemImageSize;
   LayoutCache layoutCache;
-  boolean isFlatIndexValid;
-  private int visibleItemsCount;
+  private final RowCountIndex rowCounts;
+  private boolean rowCountsChanged;
   private int preloadedItems;
 
   /**
@@ -178,6 +178,7 @@ public class Tree extends Composite {
     super( parent, checkStyle( style ) );
     columnHolder = new ItemHolder<>( TreeColumn.class );
     treeAdapter = new InternalTreeAdapter();
+    rowCounts = new RowCountIndex();
     setTreeEmpty();
     sortDirection = SWT.NONE;
     selection = EMPTY_SELECTION;
@@ -284,7 +285,7 @@ public class Tree extends Composite {
         }
       }
       itemCount = newItemCount;
-      invalidateFlatIndex();
+      invalidateRowCounts( null );
       updateScrollBars();
       redraw();
     }
@@ -430,6 +431,7 @@ public class Tree extends Composite {
       }
     }
     setTreeEmpty();
+    invalidateRowCounts( null );
     selection = EMPTY_SELECTION;
   }
 
@@ -533,8 +535,7 @@ public class Tree extends Composite {
     checkWidget();
     TreeItem result = null;
     if( itemCount > 0 ) {
-      List<TreeItem> visibleItems = collectVisibleItems( null );
-      result = visibleItems.get( getTopItemIndex() );
+      result = findVisibleItem( getTopItemIndex(), false );
     }
     return result;
   }
@@ -543,12 +544,12 @@ public class Tree extends Composite {
     if( index != topItemIndex ) {
       topItemIndex = index;
       adjustTopItemIndex();
-      updateAllItems();
+      checkVisibleItems();
     }
   }
 
   int getTopItemIndex() {
-    if( !isVisibleItemsCountValid() ) {
+    if( rowCountsChanged ) {
       adjustTopItemIndex();
     }
     return topItemIndex;
@@ -1007,9 +1008,8 @@ public class Tree extends Composite {
     }
     TreeItem result = null;
     int index = ( point.y - getHeaderHeight() ) / getItemHeight() + getTopItemIndex();
-    List<TreeItem> visibleItems = collectVisibleItems( null );
-    if( 0 <= index && index < visibleItems.size() ) {
-      result = visibleItems.get( index );
+    if( 0 <= index && index < getVisibleItemsCount() ) {
+      result = findVisibleItem( index, false );
     }
     return result;
   }
@@ -2084,7 +2084,7 @@ public class Tree extends Composite {
   void notifyResize( Point oldSize ) {
     if( !oldSize.equals( getSize() ) && !TextSizeUtil.isTemporaryResize() ) {
       clearCachedHeights();
-      updateAllItems();
+      checkVisibleItems();
       updateScrollBars();
       adjustTopItemIndex();
     }
@@ -2103,6 +2103,7 @@ public class Tree extends Composite {
     if( topItemIndex > visibleItems - visibleRows - correction ) {
       topItemIndex = Math.max( 0, visibleItems - visibleRows - correction );
     }
+    rowCountsChanged = false;
   }
 
   final int getVisibleRowCount( boolean includePartlyVisible ) {
@@ -2119,66 +2120,63 @@ public class Tree extends Composite {
   }
 
   private int getVisibleItemsCount() {
-    if( !isVisibleItemsCountValid() ) {
-      visibleItemsCount = collectVisibleItems( null ).size();
-    }
-    return visibleItemsCount;
-  }
-
-  private boolean isVisibleItemsCountValid() {
-    return visibleItemsCount != -1;
+    return getValidRowCounts( null ).getTotal();
   }
 
-  private List<TreeItem> collectVisibleItems( TreeItem parentItem ) {
-    List<TreeItem> result = new ArrayList<>();
-    TreeItem[] items = parentItem == null ? this.items : parentItem.items;
-    int itemCount = parentItem == null ? this.itemCount : parentItem.itemCount;
-    for( int i = 0; i < itemCount; i++ ) {
-      TreeItem item = items[ i ];
-      result.add( item );
-      if( item != null && item.getExpanded() ) {
-        result.addAll( collectVisibleItems( item ) );
+  /*
+   * Returns the item at the given zero-relative index of the flat list of visible items. Virtual
+   * items that have not been created yet are created if requested, otherwise null is returned.
+   */
+  private TreeItem findVisibleItem( int flatIndex, boolean create ) {
+    TreeItem parentItem = null;
+    int row = flatIndex;
+    while( true ) {
+      RowCountIndex index = getValidRowCounts( parentItem );
+      int childIndex = index.find( row );
+      row -= index.getPrefix( childIndex );
+      TreeItem item = parentItem == null ? items[ childIndex ] : parentItem.items[ childIndex ];
+      if( item == null && create ) {
+        item = parentItem == null ? _getItem( childIndex ) : parentItem._getItem( childIndex );
+      }
+      if( row == 0 || item == null ) {
+        return item;
       }
+      row--;
+      parentItem = item;
     }
-    return result;
   }
 
-  void updateAllItems() {
-    int flatIndex = 0;
-    for( int index = 0; index < itemCount; index++ ) {
-      flatIndex = updateAllItemsRecursively( null, index, flatIndex );
+  int getFlatIndex( TreeItem item ) {
+    int result = 0;
+    TreeItem current = item;
+    while( current != null ) {
+      TreeItem parentItem = current.parentItem;
+      result += getValidRowCounts( parentItem ).getPrefix( current.index );
+      if( parentItem != null ) {
+        result++;
+      }
+      current = parentItem;
     }
-    isFlatIndexValid = true;
-    visibleItemsCount = flatIndex;
+    return result;
   }
 
-  private int updateAllItemsRecursively( TreeItem parent, int index, int flatIndex ) {
-    int newFlatIndex = flatIndex;
-    TreeItem item = parent == null ? items[ index ] : parent.items[ index ];
-    if( shouldResolveItem( flatIndex ) ) {
-      if( item == null ) {
-        item = parent == null ? _getItem( index ) : parent._getItem( index );
-      }
-      checkData( item, index );
-    }
-    if( item != null ) {
-      item.setFlatIndex( newFlatIndex );
-    }
-    newFlatIndex++;
-    if( item != null && item.getExpanded() ) {
-      for( int i = 0; i < item.itemCount; i++ ) {
-        newFlatIndex = updateAllItemsRecursively( item, i, newFlatIndex );
+  /*
+   * Fires SetData for the virtual items within the visible area and the preloaded rows around it.
+   */
+  void checkVisibleItems() {
+    if( isVirtual() ) {
+      int topIndex = getTopItemIndex();
+      int startIndex = Math.max( 0, topIndex - preloadedItems );
+      int endIndex = topIndex + getVisibleRowCount( true ) + preloadedItems;
+      for( int flatIndex = startIndex; flatIndex < endIndex; flatIndex++ ) {
+        // the item count may be changed by a SetData listener
+        if( isDisposed() || flatIndex >= getVisibleItemsCount() ) {
+          return;
+        }
+        TreeItem item = findVisibleItem( flatIndex, true );
+        checkData( item, item.index );
       }
     }
-    return newFlatIndex;
-  }
-
-  private boolean shouldResolveItem( int flatIndex ) {
-    int visibleRows = getVisibleRowCount( true );
-    int topIndex = getTopItemIndex();
-    int startIndex = topIndex - preloadedItems;
-    int endIndex = topIndex + visibleRows + preloadedItems;
-    return isVirtual() ? flatIndex >= startIndex && flatIndex < endIndex : false;
   }
 
   final boolean checkData( TreeItem item, int index ) {
@@ -2197,9 +2195,76 @@ public class Tree extends Composite {
     return result;
   }
 
-  void invalidateFlatIndex() {
-    visibleItemsCount = -1;
-    isFlatIndexValid = false;
+  /*
+   * To be called when children have been added to or removed from the given item (or the tree,
+   * if null).
+   */
+  void invalidateRowCounts( TreeItem parentItem ) {
+    if( parentItem == null ) {
+      rowCounts.invalidate();
+    } else {
+      if( parentItem.rowCounts != null ) {
+        parentItem.rowCounts.invalidate();
+      }
+      markRowCountChanged( parentItem );
+    }
+    rowCountsChanged = true;
+  }
+
+  /*
+   * To be called when the number of visible rows of the given item may have changed, i.e. when it
+   * has been expanded or collapsed or its children have changed. Walks up the expanded ancestors
+   * and records the item in the index of its parent. The walk stops at an item that is already
+   * recorded, as its ancestors have been marked at that time.
+   */
+  void markRowCountChanged( TreeItem item ) {
+    TreeItem current = item;
+    while( current != null && !current.rowCountChanged ) {
+      TreeItem parentItem = current.parentItem;
+      RowCountIndex index = parentItem == null ? rowCounts : parentItem.rowCounts;
+      if( index != null && index.isValid() ) {
+        current.rowCountChanged = true;
+        index.addChangedItem( current );
+      }
+      current = parentItem != null && parentItem.expanded ? parentItem : null;
+    }
+    rowCountsChanged = true;
+  }
+
+  private RowCountIndex getValidRowCounts( TreeItem parentItem ) {
+    RowCountIndex index = rowCounts;
+    if( parentItem != null ) {
+      if( parentItem.rowCounts == null ) {
+        parentItem.rowCounts = new RowCountIndex();
+      }
+      index = parentItem.rowCounts;
+    }
+    if( !index.isValid() ) {
+      for( TreeItem item : index.removeChangedItems() ) {
+        item.rowCountChanged = false;
+      }
+      TreeItem[] children = parentItem == null ? items : parentItem.items;
+      int count = parentItem == null ? itemCount : parentItem.itemCount;
+      int[] counts = new int[ count ];
+      for( int i = 0; i < count; i++ ) {
+        counts[ i ] = getRowCount( children[ i ] );
+      }
+      index.rebuild( counts );
+    } else {
+      for( TreeItem item : index.removeChangedItems() ) {
+        item.rowCountChanged = false;
+        index.set( item.index, getRowCount( item ) );
+      }
+    }
+    return index;
+  }
+
+  private int getRowCount( TreeItem item ) {
+    int result = 1;
+    if( item != null && item.expanded && item.itemCount > 0 ) {
+      result += getValidRowCounts( item ).getTotal();
+    }
+    return result;
   }
 
   private static int checkStyle( int style ) {
@@ -2256,13 +2321,7 @@ public class Tree extends Composite {
   boolean needsVScrollBar() {
     int availableHeight = getClientArea().height;
     int height = getHeaderHeight();
-    height += itemCount * getItemHeight();
-    for( int i = 0; i < itemCount; i++ ) {
-      TreeItem item = items[ i ];
-      if( item != null && item.getExpanded() ) {
-        height += item.getInnerHeight();
-      }
-    }
+    height += getVisibleItemsCount() * getItemHeight();
     return height > availableHeight;
   }
 
@@ -2329,6 +2388,7 @@ public class Tree extends Composite {
     items[ index ] = item;
     itemCount++;
     adjustItemIndices( index );
+    invalidateRowCounts( null );
   }
 
   void destroyItem( int index ) {
@@ -2340,6 +2400,7 @@ public class Tree extends Composite {
       items[ itemCount ] = null;
     }
     adjustItemIndices( index );
+    invalidateRowCounts( null );
   }
 
   private void adjustItemIndices( int start ) {
@@ -2422,7 +2483,7 @@ public class Tree extends Composite {
 
     @Override
     public void checkData() {
-      updateAllItems();
+      checkVisibleItems();
     }
 
     @Override
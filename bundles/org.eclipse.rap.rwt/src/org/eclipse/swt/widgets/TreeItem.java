@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -52,7 +52,7 @@ import org.eclipse.swt.internal.widgets.treeitemkit.TreeItemLCA;
  */
 public class TreeItem extends Item {
 
-  private final TreeItem parentItem;
+  final TreeItem parentItem;
   final Tree parent;
   TreeItem[] items;
   int itemCount;
@@ -60,14 +60,15 @@ public class TreeItem extends Item {
   int index;
   private Data[] data;
   private Font font;
-  private boolean expanded;
+  boolean expanded;
   private boolean checked;
   private Color background;
   private Color foreground;
   private boolean grayed;
   int depth;
   private boolean cached;
-  private int flatIndex;
+  RowCountIndex rowCounts;
+  boolean rowCountChanged;
 
   /**
    * Constructs a new instance of this class given its parent (which must be a
@@ -222,7 +223,6 @@ public class TreeItem extends Item {
     if( parentItem != null ) {
       depth = parentItem.depth + 1;
     }
-    parent.invalidateFlatIndex();
     setEmpty();
     if( create ) {
       int numberOfItems;
@@ -266,6 +266,7 @@ public class TreeItem extends Item {
     items[ index ] = item;
     itemCount++;
     adjustItemIndices( index );
+    parent.invalidateRowCounts( this );
   }
 
   private void destroyItem( int index ) {
@@ -277,6 +278,7 @@ public class TreeItem extends Item {
       items[ itemCount ] = null;
     }
     adjustItemIndices( index );
+    parent.invalidateRowCounts( this );
   }
 
   private void adjustItemIndices( int start ) {
@@ -364,9 +366,9 @@ public class TreeItem extends Item {
         updateSelection();
       }
       markCached();
-      parent.invalidateFlatIndex();
+      parent.markRowCountChanged( this );
       parent.updateScrollBars();
-      parent.updateAllItems();
+      parent.checkVisibleItems();
     }
   }
 
@@ -1388,6 +1390,7 @@ public class TreeItem extends Item {
       }
     }
     setEmpty();
+    parent.invalidateRowCounts( this );
   }
 
   /**
@@ -1423,7 +1426,7 @@ public class TreeItem extends Item {
         }
       }
       itemCount = newItemCount;
-      parent.invalidateFlatIndex();
+      parent.invalidateRowCounts( this );
       parent.updateScrollBars();
       parent.redraw();
     }
@@ -1449,7 +1452,6 @@ public class TreeItem extends Item {
       parent.destroyItem( index );
     }
     if( !parent.isInDispose() ) {
-      parent.invalidateFlatIndex();
       parent.removeFromSelection( this );
       parent.updateScrollBars();
     }
@@ -1475,14 +1477,7 @@ public class TreeItem extends Item {
   }
 
   int getFlatIndex() {
-    if( !parent.isFlatIndexValid ) {
-      parent.updateAllItems();
-    }
-    return flatIndex;
-  }
-
-  void setFlatIndex( int flatIndex ) {
-    this.flatIndex = flatIndex;
+    return parent.getFlatIndex( this );
   }
 
   boolean hasPreferredWidthBuffer( int index ) {
@@ -158,6 +158,7 @@ public abstract class Widget implements Adaptable, SerializableCompatibility {
     display = parent.display;
     reskinWidget();
     remoteAdapter = new ParentHolderRemoteAdapter( parent );
+    parent.trackChange();
   }
 
   /**
@@ -836,6 +837,7 @@ public abstract class Widget implements Adaptable, SerializableCompatibility {
       if( !isValidThread() ) {
         error( SWT.ERROR_THREAD_INVALID_ACCESS );
       }
+      trackChange();
       if( !hasState( DISPOSE_SENT ) ) {
         addState( DISPOSE_SENT );
         notifyListeners( SWT.Dispose, new Event() );
@@ -958,6 +960,7 @@ public abstract class Widget implements Adaptable, SerializableCompatibility {
     if( hasState( DISPOSED ) ) {
       error( SWT.ERROR_WIDGET_DISPOSED );
     }
+    trackChange();
   }
 
   /*
@@ -1037,6 +1040,27 @@ public abstract class Widget implements Adaptable, SerializableCompatibility {
     }
   }
 
+  void trackChange() {
+    if( display != null ) {
+      ChangeTracker tracker = display.getChangeTracker();
+      if( tracker != null ) {
+        tracker.touch( this );
+      }
+    }
+  }
+
+  Widget getCreationParent() {
+    return remoteAdapter == null ? null : remoteAdapter.getParent();
+  }
+
+  boolean hasRemoteAdapter() {
+    return remoteAdapter instanceof WidgetRemoteAdapter;
+  }
+
+  boolean isRemoteInitialized() {
+    return hasRemoteAdapter() && remoteAdapter.isInitialized();
+  }
+
   private RemoteAdapter ensureRemoteAdapter() {
     if( remoteAdapter == null ) {
       remoteAdapter = createRemoteAdapter( null );
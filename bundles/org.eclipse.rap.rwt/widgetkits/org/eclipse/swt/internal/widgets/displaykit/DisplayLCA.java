@@ -48,6 +48,7 @@ import org.eclipse.rap.rwt.remote.OperationHandler;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.internal.widgets.ControlRemoteAdapter;
 import org.eclipse.swt.internal.widgets.IDisplayAdapter;
+import org.eclipse.swt.internal.widgets.WidgetChangeTracker;
 import org.eclipse.swt.internal.widgets.WidgetRemoteAdapter;
 import org.eclipse.swt.internal.widgets.WidgetTreeUtil;
 import org.eclipse.swt.internal.widgets.WidgetTreeVisitor;
@@ -79,7 +80,7 @@ public class DisplayLCA {
     ActiveKeysUtil.preserveActiveKeys( display );
     ActiveKeysUtil.preserveCancelKeys( display );
     ActiveKeysUtil.preserveMnemonicActivator( display );
-    if( adapter.isInitialized() ) {
+    if( adapter.isInitialized() && !startTracking( display ) ) {
       for( Shell shell : getShells( display ) ) {
         WidgetTreeUtil.accept( shell, new WidgetTreeVisitor() {
           @Override
@@ -114,14 +115,26 @@ public class DisplayLCA {
 
   public void clearPreserved( Display display ) {
     ( ( WidgetRemoteAdapter )getAdapter( display ) ).clearPreserved();
-    for( Shell shell : getShells( display ) ) {
-      WidgetTreeUtil.accept( shell, new WidgetTreeVisitor() {
-        @Override
-        public boolean visit( Widget widget ) {
+    WidgetChangeTracker tracker = getChangeTracker( display );
+    if( tracker != null && tracker.isTracked() ) {
+      for( Widget widget : tracker.getChangedWidgets() ) {
+        if( !widget.isDisposed() ) {
           ( ( WidgetRemoteAdapter )getAdapter( widget ) ).clearPreserved();
-          return true;
         }
-      } );
+      }
+    } else {
+      for( Shell shell : getShells( display ) ) {
+        WidgetTreeUtil.accept( shell, new WidgetTreeVisitor() {
+          @Override
+          public boolean visit( Widget widget ) {
+            ( ( WidgetRemoteAdapter )getAdapter( widget ) ).clearPreserved();
+            return true;
+          }
+        } );
+      }
+    }
+    if( tracker != null ) {
+      tracker.reset();
     }
   }
 
@@ -137,15 +150,33 @@ public class DisplayLCA {
   }
 
   private static void visitWidgets( Display display ) {
+    final WidgetChangeTracker tracker = getChangeTracker( display );
     WidgetTreeVisitor visitor = new WidgetTreeVisitor() {
       @Override
       public boolean visit( Widget widget ) {
-        getLCA( widget ).readData( widget );
+        // only changes applied by the LCAs are relevant, not the tree traversal itself
+        setSuspended( tracker, false );
+        try {
+          getLCA( widget ).readData( widget );
+        } finally {
+          setSuspended( tracker, true );
+        }
         return true;
       }
     };
-    for( Shell shell : getShells( display ) ) {
-      WidgetTreeUtil.accept( shell, visitor );
+    setSuspended( tracker, true );
+    try {
+      for( Shell shell : getShells( display ) ) {
+        WidgetTreeUtil.accept( shell, visitor );
+      }
+    } finally {
+      setSuspended( tracker, false );
+    }
+  }
+
+  private static void setSuspended( WidgetChangeTracker tracker, boolean suspended ) {
+    if( tracker != null ) {
+      tracker.setSuspended( suspended );
     }
   }
 
@@ -169,8 +200,17 @@ public class DisplayLCA {
     return Collections.emptyMap();
   }
 
+  private static boolean startTracking( Display display ) {
+    WidgetChangeTracker tracker = getChangeTracker( display );
+    return tracker != null && tracker.startTracking();
+  }
+
   private static void renderShells( Display display ) throws IOException {
-    RenderVisitor visitor = new RenderVisitor();
+    WidgetChangeTracker tracker = getChangeTracker( display );
+    if( tracker != null && !tracker.startRendering() ) {
+      tracker = null;
+    }
+    RenderVisitor visitor = new RenderVisitor( tracker );
     for( Shell shell : getShells( display ) ) {
       WidgetTreeUtil.accept( shell, visitor );
       visitor.reThrowProblem();
@@ -287,25 +327,37 @@ public class DisplayLCA {
     return display.getAdapter( IDisplayAdapter.class );
   }
 
+  private static WidgetChangeTracker getChangeTracker( Display display ) {
+    return display.getAdapter( WidgetChangeTracker.class );
+  }
+
   private static Shell[] getShells( Display display ) {
     return getDisplayAdapter( display ).getShells();
   }
 
   private static final class RenderVisitor implements WidgetTreeVisitor {
 
+    private final WidgetChangeTracker tracker;
     private IOException ioProblem;
 
+    RenderVisitor( WidgetChangeTracker tracker ) {
+      this.tracker = tracker;
+    }
+
     @Override
     public boolean visit( Widget widget ) {
       ioProblem = null;
+      boolean needsRender = tracker == null || tracker.needsRender( widget );
       try {
-        render( widget );
+        if( needsRender ) {
+          render( widget );
+        }
         runRenderRunnables( widget );
       } catch( IOException ioe ) {
         ioProblem = ioe;
         return false;
       }
-      return true;
+      return needsRender || tracker.hasChangedDescendants( widget );
     }
 
     private void reThrowProblem() throws IOException {
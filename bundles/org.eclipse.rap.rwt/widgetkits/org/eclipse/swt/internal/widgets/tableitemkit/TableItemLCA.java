@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ import org.eclipse.swt.internal.widgets.ITableAdapter;
 import org.eclipse.swt.internal.widgets.ITableItemAdapter;
 import org.eclipse.swt.internal.widgets.IWidgetColorAdapter;
 import org.eclipse.swt.internal.widgets.IWidgetFontAdapter;
+import org.eclipse.swt.internal.widgets.ItemRowsRenderer;
 import org.eclipse.swt.internal.widgets.WidgetRemoteAdapter;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableItem;
@@ -104,7 +105,7 @@ public final class TableItemLCA extends WidgetLCA<TableItem> {
   }
 
   private static void renderProperties( TableItem item ) {
-    renderProperty( item, PROP_TEXTS, getTexts( item ), null );
+    renderTexts( item );
     renderProperty( item, PROP_IMAGES, getImages( item ), null );
     WidgetLCAUtil.renderBackground( item, getUserBackground( item ) );
     WidgetLCAUtil.renderForeground( item, getUserForeground( item ) );
@@ -118,6 +119,17 @@ public final class TableItemLCA extends WidgetLCA<TableItem> {
     renderProperty( item, PROP_GRAYED, item.getGrayed(), false );
   }
 
+  private static void renderTexts( TableItem item ) {
+    String[] texts = getTexts( item );
+    if( ItemRowsRenderer.isEnabled() && texts != null ) {
+      if( WidgetLCAUtil.hasChanged( item, PROP_TEXTS, texts, null ) ) {
+        ItemRowsRenderer.addTexts( item.getParent(), item, texts );
+      }
+    } else {
+      renderProperty( item, PROP_TEXTS, texts, null );
+    }
+  }
+
   private static void renderClear( TableItem item ) {
     getRemoteObject( item ).call( "clear", null );
   }
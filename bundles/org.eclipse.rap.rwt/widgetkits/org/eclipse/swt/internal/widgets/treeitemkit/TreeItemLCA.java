@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,6 +31,7 @@ import org.eclipse.swt.internal.widgets.ITreeAdapter;
 import org.eclipse.swt.internal.widgets.ITreeItemAdapter;
 import org.eclipse.swt.internal.widgets.IWidgetColorAdapter;
 import org.eclipse.swt.internal.widgets.IWidgetFontAdapter;
+import org.eclipse.swt.internal.widgets.ItemRowsRenderer;
 import org.eclipse.swt.internal.widgets.WidgetRemoteAdapter;
 import org.eclipse.swt.widgets.TreeItem;
 import org.eclipse.swt.widgets.Widget;
@@ -104,13 +105,24 @@ public final class TreeItemLCA extends WidgetLCA<TreeItem> {
     }
   }
 
+  private static void renderTexts( TreeItem item ) {
+    String[] texts = getTexts( item );
+    if( ItemRowsRenderer.isEnabled() && texts != null ) {
+      if( WidgetLCAUtil.hasChanged( item, PROP_TEXTS, texts, null ) ) {
+        ItemRowsRenderer.addTexts( item.getParent(), item, texts );
+      }
+    } else {
+      renderProperty( item, PROP_TEXTS, texts, null );
+    }
+  }
+
   private static void renderClear( TreeItem item ) {
     getRemoteObject( item ).call( "clear", null );
   }
 
   private static void renderProperties( TreeItem item ) {
     renderProperty( item, PROP_ITEM_COUNT, item.getItemCount(), DEFAULT_ITEM_COUNT );
-    renderProperty( item, PROP_TEXTS, getTexts( item ), null );
+    renderTexts( item );
     renderProperty( item, PROP_IMAGES, getImages( item ), null );
     WidgetLCAUtil.renderBackground( item, getUserBackground( item ) );
     WidgetLCAUtil.renderForeground( item, getUserForeground( item ) );
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.databinding.swt;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rap.rwt.testfixture.TestContext;
+import org.eclipse.swt.widgets.Display;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+
+public class DisplayRealm_Test {
+
+  @Rule
+  public TestContext context = new TestContext();
+
+  private Display display;
+  private DisplayRealm realm;
+  private List<String> log;
+
+  @Before
+  public void setUp() {
+    display = new Display();
+    realm = new DisplayRealm( display );
+    log = new ArrayList<String>();
+  }
+
+  @Test
+  public void testIsBatching_initial() {
+    assertFalse( realm.isBatching() );
+  }
+
+  @Test
+  public void testIsBatching() {
+    realm.setBatching( true );
+
+    assertTrue( realm.isBatching() );
+  }
+
+  @Test
+  public void testAsyncExec_withBatching_runsRunnablesInOneDisplayRunnable() {
+    realm.setBatching( true );
+
+    realm.asyncExec( new LogRunnable( log, "1" ) );
+    display.asyncExec( new LogRunnable( log, "display" ) );
+    realm.asyncExec( new LogRunnable( log, "2" ) );
+    realm.asyncExec( new LogRunnable( log, "3" ) );
+    runPendingRunnables();
+
+    assertEquals( asList( "1", "2", "3", "display" ), log );
+  }
+
+  @Test
+  public void testAsyncExec_withBatching_runsRunnablesAddedByBatchInNextBatch() {
+    realm.setBatching( true );
+
+    realm.asyncExec( new Runnable() {
+      @Override
+      public void run() {
+        log.add( "1" );
+        realm.asyncExec( new LogRunnable( log, "3" ) );
+      }
+    } );
+    display.asyncExec( new LogRunnable( log, "2" ) );
+    runPendingRunnables();
+
+    assertEquals( asList( "1", "2", "3" ), log );
+  }
+
+  @Test
+  public void testAsyncExec_afterBatchingDisabled_runsRunnablesSeparately() {
+    realm.setBatching( true );
+    realm.setBatching( false );
+
+    realm.asyncExec( new LogRunnable( log, "1" ) );
+    display.asyncExec( new LogRunnable( log, "display" ) );
+    realm.asyncExec( new LogRunnable( log, "2" ) );
+    runPendingRunnables();
+
+    assertEquals( asList( "1", "display", "2" ), log );
+  }
+
+  @Test
+  public void testDispose_runsPendingBatch() {
+    realm.setBatching( true );
+    realm.asyncExec( new LogRunnable( log, "1" ) );
+    realm.asyncExec( new LogRunnable( log, "2" ) );
+
+    display.dispose();
+
+    assertEquals( asList( "1", "2" ), log );
+  }
+
+  private void runPendingRunnables() {
+    while( display.readAndDispatch() ) {
+    }
+  }
+
+  private static class LogRunnable implements Runnable {
+
+    private final List<String> log;
+    private final String name;
+
+    LogRunnable( List<String> log, String name ) {
+      this.log = log;
+      this.name = name;
+    }
+
+    @Override
+    public void run() {
+      log.add( name );
+    }
+
+  }
+
+}
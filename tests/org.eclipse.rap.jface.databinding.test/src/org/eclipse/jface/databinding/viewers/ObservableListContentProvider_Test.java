@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.databinding.viewers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.jface.databinding.swt.DisplayRealm;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.rap.rwt.testfixture.TestContext;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+
+public class ObservableListContentProvider_Test {
+
+  @Rule
+  public TestContext context = new TestContext();
+
+  private Display display;
+  private DisplayRealm realm;
+  private TableViewer viewer;
+  private ObservableListContentProvider contentProvider;
+  private WritableList list;
+
+  @Before
+  public void setUp() {
+    display = new Display();
+    realm = ( DisplayRealm )DisplayRealm.getRealm( display );
+    Shell shell = new Shell( display );
+    viewer = new TableViewer( shell, SWT.NONE );
+    contentProvider = new ObservableListContentProvider();
+    viewer.setContentProvider( contentProvider );
+    list = new WritableList( realm );
+    viewer.setInput( list );
+  }
+
+  @Test
+  public void testListChange_updatesViewer() {
+    list.add( "a" );
+    list.add( "b" );
+
+    assertEquals( 2, viewer.getTable().getItemCount() );
+    assertTrue( contentProvider.getKnownElements().contains( "a" ) );
+  }
+
+  @Test
+  public void testListChange_withBatchingRealm_updatesViewer() {
+    realm.setBatching( true );
+
+    list.add( "a" );
+    viewer.setSelection( new StructuredSelection( "a" ) );
+
+    assertEquals( 1, viewer.getTable().getItemCount() );
+    assertEquals( new StructuredSelection( "a" ), viewer.getSelection() );
+  }
+
+  @Test
+  public void testListChange_withBatchedRefresh_updatesViewer() {
+    contentProvider.setBatchedRefresh( true );
+
+    list.add( "a" );
+
+    assertEquals( 1, viewer.getTable().getItemCount() );
+  }
+
+  @Test
+  public void testListChange_withBatchedRefreshAndBatchingRealm_defersRefresh() {
+    realm.setBatching( true );
+    contentProvider.setBatchedRefresh( true );
+
+    list.add( "a" );
+    list.add( "b" );
+
+    assertEquals( 0, viewer.getTable().getItemCount() );
+    assertTrue( contentProvider.getKnownElements().contains( "a" ) );
+  }
+
+  @Test
+  public void testListChange_withBatchedRefreshAndBatchingRealm_refreshesWithBatch() {
+    realm.setBatching( true );
+    contentProvider.setBatchedRefresh( true );
+
+    list.add( "a" );
+    list.add( "b" );
+    list.remove( "a" );
+    runPendingRunnables();
+
+    assertEquals( 1, viewer.getTable().getItemCount() );
+    assertEquals( "b", viewer.getElementAt( 0 ) );
+  }
+
+  @Test
+  public void testListChange_withBatchedRefreshAndBatchingRealm_selectsAfterRefresh() {
+    realm.setBatching( true );
+    contentProvider.setBatchedRefresh( true );
+
+    list.add( "a" );
+    realm.asyncExec( new Runnable() {
+      @Override
+      public void run() {
+        viewer.setSelection( new StructuredSelection( "a" ) );
+      }
+    } );
+    runPendingRunnables();
+
+    assertEquals( new StructuredSelection( "a" ), viewer.getSelection() );
+  }
+
+  @Test
+  public void testListChange_withBatchedRefreshAndBatchingRealm_forgetsRemovedElements() {
+    list.add( "a" );
+    list.add( "b" );
+    realm.setBatching( true );
+    contentProvider.setBatchedRefresh( true );
+
+    list.remove( "a" );
+
+    assertTrue( contentProvider.getKnownElements().contains( "a" ) );
+    runPendingRunnables();
+    assertFalse( contentProvider.getKnownElements().contains( "a" ) );
+    assertTrue( contentProvider.getKnownElements().contains( "b" ) );
+  }
+
+  @Test
+  public void testListChange_withBatchedRefreshAndBatchingRealm_keepsElementsAddedAgain() {
+    list.add( "a" );
+    realm.setBatching( true );
+    contentProvider.setBatchedRefresh( true );
+
+    list.remove( "a" );
+    list.add( "a" );
+    runPendingRunnables();
+
+    assertTrue( contentProvider.getKnownElements().contains( "a" ) );
+    assertEquals( 1, viewer.getTable().getItemCount() );
+  }
+
+  private void runPendingRunnables() {
+    while( display.readAndDispatch() ) {
+    }
+  }
+
+}
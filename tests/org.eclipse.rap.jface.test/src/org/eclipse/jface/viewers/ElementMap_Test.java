@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.viewers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.rap.rwt.testfixture.TestContext;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Widget;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+
+public class ElementMap_Test {
+
+  // the number of keys a map of the minimum capacity holds without growing
+  private static final int SMALL_SIZE = 7;
+
+  @Rule
+  public TestContext context = new TestContext();
+
+  private Widget item1;
+  private Widget item2;
+
+  @Before
+  public void setUp() {
+    Display display = new Display();
+    Shell shell = new Shell( display );
+    item1 = new Label( shell, SWT.NONE );
+    item2 = new Label( shell, SWT.NONE );
+  }
+
+  @Test
+  public void testGet_withUnknownElement() {
+    ElementMap map = new ElementMap( 0, null );
+
+    assertNull( map.get( "foo" ) );
+    assertEquals( 0, map.size() );
+  }
+
+  @Test
+  public void testAdd() {
+    ElementMap map = new ElementMap( 0, null );
+
+    map.add( "foo", item1 );
+
+    assertSame( item1, map.get( "foo" ) );
+    assertEquals( 1, map.size() );
+  }
+
+  @Test
+  public void testAdd_withSameWidget() {
+    ElementMap map = new ElementMap( 0, null );
+    map.add( "foo", item1 );
+
+    map.add( "foo", item1 );
+
+    assertSame( item1, map.get( "foo" ) );
+    assertEquals( 1, map.size() );
+  }
+
+  @Test
+  public void testAdd_withSecondWidget() {
+    ElementMap map = new ElementMap( 0, null );
+    map.add( "foo", item1 );
+
+    map.add( "foo", item2 );
+
+    assertArrayEquals( new Widget[] { item1, item2 }, ( Widget[] )map.get( "foo" ) );
+    assertEquals( 1, map.size() );
+  }
+
+  @Test
+  public void testRemoveWidget_withSecondWidget() {
+    ElementMap map = new ElementMap( 0, null );
+    map.add( "foo", item1 );
+    map.add( "foo", item2 );
+
+    map.remove( "foo", item1 );
+
+    assertArrayEquals( new Widget[] { item2 }, ( Widget[] )map.get( "foo" ) );
+    map.remove( "foo", item2 );
+    assertNull( map.get( "foo" ) );
+    assertEquals( 0, map.size() );
+  }
+
+  @Test
+  public void testRemoveWidget_withOtherWidget() {
+    ElementMap map = new ElementMap( 0, null );
+    map.add( "foo", item1 );
+
+    map.remove( "foo", item2 );
+
+    assertSame( item1, map.get( "foo" ) );
+  }
+
+  @Test
+  public void testAdd_withCollidingKeys() {
+    // the hash codes cover every home slot of the table, including the ones whose probe
+    // sequence wraps around the end of the table
+    for( int hash = 0; hash < 64; hash++ ) {
+      ElementMap map = new ElementMap( 0, null );
+      Key[] keys = createKeys( SMALL_SIZE, hash, 1 );
+
+      addAll( map, keys, item1 );
+
+      assertEquals( SMALL_SIZE, map.size() );
+      assertContainsAll( map, keys, item1 );
+      assertNull( map.get( new Key( "other", hash ) ) );
+    }
+  }
+
+  @Test
+  public void testRemove_inProbeSequence() {
+    for( int hash = 0; hash < 64; hash++ ) {
+      for( int removed = 0; removed < SMALL_SIZE; removed++ ) {
+        ElementMap map = new ElementMap( 0, null );
+        Key[] keys = createKeys( SMALL_SIZE, hash, 1 );
+        addAll( map, keys, item1 );
+
+        map.remove( keys[ removed ] );
+
+        assertRemoved( map, keys, removed );
+      }
+    }
+  }
+
+  @Test
+  public void testRemove_inInterleavedProbeSequences() {
+    // keys of neighboring home slots share probe sequences
+    for( int hash = 0; hash < 64; hash++ ) {
+      for( int removed = 0; removed < SMALL_SIZE; removed++ ) {
+        ElementMap map = new ElementMap( 0, null );
+        Key[] keys = createKeys( SMALL_SIZE, hash, 3 );
+        addAll( map, keys, item1 );
+
+        map.remove( keys[ removed ], item1 );
+
+        assertRemoved( map, keys, removed );
+      }
+    }
+  }
+
+  @Test
+  public void testRemove_allInProbeSequence() {
+    ElementMap map = new ElementMap( 0, null );
+    Key[] keys = createKeys( SMALL_SIZE, 42, 1 );
+    addAll( map, keys, item1 );
+
+    for( int i = SMALL_SIZE - 1; i >= 0; i-- ) {
+      map.remove( keys[ i ] );
+    }
+
+    assertEquals( 0, map.size() );
+    addAll( map, keys, item2 );
+    assertContainsAll( map, keys, item2 );
+  }
+
+  @Test
+  public void testAdd_grows() {
+    ElementMap map = new ElementMap( 0, null );
+    Key[] keys = createKeys( 1000, 0, 100 );
+
+    addAll( map, keys, item1 );
+
+    assertEquals( 1000, map.size() );
+    assertContainsAll( map, keys, item1 );
+  }
+
+  @Test
+  public void testRemove_afterGrowing() {
+    ElementMap map = new ElementMap( 0, null );
+    Key[] keys = createKeys( 1000, 0, 100 );
+    addAll( map, keys, item1 );
+
+    for( int i = 0; i < keys.length; i += 2 ) {
+      map.remove( keys[ i ] );
+    }
+
+    assertEquals( 500, map.size() );
+    for( int i = 0; i < keys.length; i++ ) {
+      assertSame( keys[ i ].name, i % 2 == 0 ? null : item1, map.get( keys[ i ] ) );
+    }
+  }
+
+  @Test
+  public void testAdd_withExpectedSize() {
+    ElementMap map = new ElementMap( 1000, null );
+    Key[] keys = createKeys( 1000, 0, 1000 );
+
+    addAll( map, keys, item1 );
+
+    assertEquals( 1000, map.size() );
+    assertContainsAll( map, keys, item1 );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testCreate_withNegativeExpectedSize() {
+    new ElementMap( -1, null );
+  }
+
+  @Test
+  public void testAdd_withComparer() {
+    ElementMap map = new ElementMap( 0, new CaseInsensitiveComparer() );
+    map.add( "foo", item1 );
+
+    map.add( "FOO", item2 );
+
+    assertEquals( 1, map.size() );
+    assertArrayEquals( new Widget[] { item1, item2 }, ( Widget[] )map.get( "Foo" ) );
+  }
+
+  @Test
+  public void testRemove_withComparer() {
+    ElementMap map = new ElementMap( 0, new CaseInsensitiveComparer() );
+    map.add( "foo", item1 );
+    map.add( "bar", item1 );
+
+    map.remove( "FOO" );
+
+    assertNull( map.get( "foo" ) );
+    assertSame( item1, map.get( "BAR" ) );
+    assertEquals( 1, map.size() );
+  }
+
+  @Test
+  public void testCopy_withComparer() {
+    ElementMap map = new ElementMap( 0, null );
+    map.add( "foo", item1 );
+    map.add( "bar", item1 );
+    map.add( "bar", item2 );
+
+    ElementMap copy = new ElementMap( map, new CaseInsensitiveComparer() );
+
+    assertEquals( 2, copy.size() );
+    assertSame( item1, copy.get( "FOO" ) );
+    assertArrayEquals( new Widget[] { item1, item2 }, ( Widget[] )copy.get( "Bar" ) );
+    assertNull( map.get( "FOO" ) );
+  }
+
+  private static Key[] createKeys( int count, int firstHash, int hashCount ) {
+    Key[] result = new Key[ count ];
+    for( int i = 0; i < count; i++ ) {
+      result[ i ] = new Key( "key" + i, firstHash + i % hashCount );
+    }
+    return result;
+  }
+
+  private static void addAll( ElementMap map, Key[] keys, Widget item ) {
+    for( Key key : keys ) {
+      map.add( key, item );
+    }
+  }
+
+  private static void assertContainsAll( ElementMap map, Key[] keys, Widget item ) {
+    for( Key key : keys ) {
+      assertSame( key.name, item, map.get( key ) );
+    }
+  }
+
+  private void assertRemoved( ElementMap map, Key[] keys, int removed ) {
+    assertEquals( keys.length - 1, map.size() );
+    for( int i = 0; i < keys.length; i++ ) {
+      assertSame( keys[ i ].name, i == removed ? null : item1, map.get( keys[ i ] ) );
+    }
+  }
+
+  /*
+   * A key with an arbitrary hash code, keys with the same hash code collide.
+   */
+  private static final class Key {
+
+    private final String name;
+    private final int hash;
+
+    Key( String name, int hash ) {
+      this.name = name;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals( Object object ) {
+      return object instanceof Key && ( ( Key )object ).name.equals( name );
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  private static final class CaseInsensitiveComparer implements IElementComparer {
+
+    @Override
+    public boolean equals( Object a, Object b ) {
+      return ( ( String )a ).equalsIgnoreCase( ( String )b );
+    }
+
+    @Override
+    public int hashCode( Object element ) {
+      return ( ( String )element ).toLowerCase().hashCode();
+    }
+
+  }
+
+}
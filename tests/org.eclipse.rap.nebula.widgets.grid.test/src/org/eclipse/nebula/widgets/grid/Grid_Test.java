@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 EclipseSource and others.
+ * Copyright (c) 2012, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -280,6 +280,44 @@ public class Grid_Test {
     assertEquals( 2, grid.indexOf( items[ 4 ] ) );
   }
 
+  @Test
+  public void testIndexOf_AfterInsert() {
+    GridItem[] items = createGridItems( grid, 3, 1 );
+    grid.indexOf( items[ 5 ] );
+
+    GridItem item = new GridItem( grid, SWT.NONE, 1 );
+
+    assertEquals( 0, grid.indexOf( items[ 0 ] ) );
+    assertEquals( 2, grid.indexOf( item ) );
+    assertEquals( 3, grid.indexOf( items[ 2 ] ) );
+    assertEquals( 6, grid.indexOf( items[ 5 ] ) );
+  }
+
+  @Test
+  public void testIndexOf_AfterInsertChild() {
+    GridItem[] items = createGridItems( grid, 3, 1 );
+    grid.indexOf( items[ 5 ] );
+
+    GridItem item = new GridItem( items[ 2 ], SWT.NONE, 0 );
+
+    assertEquals( 3, grid.indexOf( item ) );
+    assertEquals( 4, grid.indexOf( items[ 3 ] ) );
+    assertEquals( 6, grid.indexOf( items[ 5 ] ) );
+  }
+
+  @Test
+  public void testIndexOf_WithManyItems() {
+    grid.setItemCount( 100000 );
+    GridItem item = grid.getItem( 99999 );
+
+    for( int i = 0; i < 1000; i++ ) {
+      new GridItem( grid, SWT.NONE );
+      grid.indexOf( grid.getItem( i ) );
+    }
+
+    assertEquals( 99999, grid.indexOf( item ) );
+  }
+
   @Test
   public void testGetColumnCount() {
     createGridColumns( grid, 5, SWT.NONE );
@@ -1338,6 +1376,31 @@ public class Grid_Test {
     assertTrue( Arrays.equals( indicies, grid.getSelectionIndices() ) );
   }
 
+  @Test
+  public void testGetSelectionIndicies_AfterInsert() {
+    grid = new Grid( shell, SWT.MULTI );
+    createGridItems( grid, 5, 0 );
+    grid.setSelection( new int[]{ 3, 1 } );
+
+    new GridItem( grid, SWT.NONE, 2 );
+
+    assertTrue( Arrays.equals( new int[]{ 4, 1 }, grid.getSelectionIndices() ) );
+  }
+
+  @Test
+  public void testGetSelectionIndicies_WithLargeSelection() {
+    grid = new Grid( shell, SWT.MULTI );
+    grid.setItemCount( 100000 );
+
+    grid.setSelection( 1000, 10999 );
+
+    int[] indices = grid.getSelectionIndices();
+    assertEquals( 10000, indices.length );
+    assertEquals( 1000, indices[ 0 ] );
+    assertEquals( 10999, indices[ 9999 ] );
+    assertTrue( grid.isSelected( 5000 ) );
+  }
+
   @Test
   public void testGetSelectionIndicies_WithoutSelection() {
     assertTrue( Arrays.equals( new int[ 0 ], grid.getSelectionIndices() ) );
@@ -2711,6 +2774,49 @@ public class Grid_Test {
     assertEquals( 10, grid.getBottomIndex() );
   }
 
+  @Test
+  public void testGetBottomIndex_AfterItemHeightChange() {
+    GridItem[] items = createGridItems( grid, 20, 0 );
+    items[ 6 ].setHeight( grid.getItemHeight() * 2  );
+    grid.setTopIndex( 4 );
+    grid.getBottomIndex();
+
+    items[ 8 ].setHeight( grid.getItemHeight() * 2  );
+
+    assertEquals( 9, grid.getBottomIndex() );
+  }
+
+  @Test
+  public void testGetBottomIndex_DifferentItemHeightInTree() {
+    GridItem[] items = createGridItems( grid, 20, 3 );
+    items[ 4 ].setHeight( grid.getItemHeight() * 2  );
+
+    assertEquals( 24, grid.getBottomIndex() );
+  }
+
+  @Test
+  public void testGetBottomIndex_DifferentItemHeightInTree_AfterExpand() {
+    GridItem[] items = createGridItems( grid, 20, 3 );
+    items[ 4 ].setHeight( grid.getItemHeight() * 2  );
+    grid.getBottomIndex();
+
+    items[ 8 ].setExpanded( true );
+
+    assertEquals( 12, grid.getBottomIndex() );
+  }
+
+  @Test
+  public void testGetTopIndex_DifferentItemHeightInTree() {
+    GridItem[] items = createGridItems( grid, 20, 3 );
+    items[ 4 ].setHeight( grid.getItemHeight() * 2  );
+    items[ 8 ].setExpanded( true );
+
+    grid.setTopIndex( 10 );
+
+    assertEquals( 10, grid.getTopIndex() );
+    assertEquals( 4, verticalBar.getSelection() );
+  }
+
   @Test
   public void testMarkupTextWithoutMarkupEnabled() {
     grid.setData( RWT.MARKUP_ENABLED, Boolean.FALSE );
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class RowHeightIndex_Test {
+
+  @Test
+  public void testTotals() {
+    RowHeightIndex index = new RowHeightIndex( new int[] { 10, 0, 20, 30 } );
+
+    assertEquals( 60, index.getTotalHeight() );
+    assertEquals( 3, index.getTotalRows() );
+  }
+
+  @Test
+  public void testTotals_empty() {
+    RowHeightIndex index = new RowHeightIndex( new int[ 0 ] );
+
+    assertEquals( 0, index.getTotalHeight() );
+    assertEquals( 0, index.getTotalRows() );
+    assertEquals( 0, index.findOffset( 10 ) );
+  }
+
+  @Test
+  public void testGetOffset() {
+    RowHeightIndex index = new RowHeightIndex( new int[] { 10, 0, 20, 30 } );
+
+    assertEquals( 0, index.getOffset( 0 ) );
+    assertEquals( 10, index.getOffset( 1 ) );
+    assertEquals( 10, index.getOffset( 2 ) );
+    assertEquals( 30, index.getOffset( 3 ) );
+    assertEquals( 60, index.getOffset( 4 ) );
+  }
+
+  @Test
+  public void testGetRowCount() {
+    RowHeightIndex index = new RowHeightIndex( new int[] { 10, 0, 20, 30 } );
+
+    assertEquals( 0, index.getRowCount( 0 ) );
+    assertEquals( 1, index.getRowCount( 2 ) );
+    assertEquals( 3, index.getRowCount( 4 ) );
+  }
+
+  @Test
+  public void testFindOffset() {
+    RowHeightIndex index = new RowHeightIndex( new int[] { 10, 0, 20, 30 } );
+
+    assertEquals( 0, index.findOffset( 9 ) );
+    assertEquals( 2, index.findOffset( 10 ) );
+    assertEquals( 2, index.findOffset( 29 ) );
+    assertEquals( 3, index.findOffset( 30 ) );
+    assertEquals( 4, index.findOffset( 60 ) );
+  }
+
+  @Test
+  public void testFindRow() {
+    RowHeightIndex index = new RowHeightIndex( new int[] { 0, 10, 0, 20, 30 } );
+
+    assertEquals( 1, index.findRow( 0 ) );
+    assertEquals( 3, index.findRow( 1 ) );
+    assertEquals( 4, index.findRow( 2 ) );
+  }
+
+  @Test
+  public void testSet() {
+    RowHeightIndex index = new RowHeightIndex( new int[] { 10, 0, 20, 30 } );
+
+    index.set( 1, 5 );
+    index.set( 2, 0 );
+
+    assertEquals( 45, index.getTotalHeight() );
+    assertEquals( 3, index.getTotalRows() );
+    assertEquals( 15, index.getOffset( 3 ) );
+    assertEquals( 3, index.findRow( 2 ) );
+  }
+
+  @Test
+  public void testSet_matchesLinearSums() {
+    Random random = new Random( 42 );
+    int[] heights = new int[ 1000 ];
+    RowHeightIndex index = new RowHeightIndex( heights.clone() );
+
+    for( int i = 0; i < 5000; i++ ) {
+      int position = random.nextInt( heights.length );
+      heights[ position ] = random.nextInt( 4 ) * 10;
+      index.set( position, heights[ position ] );
+    }
+
+    int offset = 0;
+    int rows = 0;
+    for( int i = 0; i < heights.length; i++ ) {
+      assertEquals( offset, index.getOffset( i ) );
+      assertEquals( rows, index.getRowCount( i ) );
+      if( heights[ i ] > 0 ) {
+        assertEquals( i, index.findOffset( offset ) );
+        assertEquals( i, index.findRow( rows ) );
+        rows++;
+      }
+      offset += heights[ i ];
+    }
+    assertEquals( offset, index.getTotalHeight() );
+    assertEquals( rows, index.getTotalRows() );
+  }
+
+}
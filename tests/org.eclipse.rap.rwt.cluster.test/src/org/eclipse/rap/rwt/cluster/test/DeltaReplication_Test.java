@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.cluster.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.eclipse.rap.rwt.cluster.test.entrypoints.ButtonEntryPoint;
+import org.eclipse.rap.rwt.cluster.testfixture.ClusterTestHelper;
+import org.eclipse.rap.rwt.cluster.testfixture.client.RWTClient;
+import org.eclipse.rap.rwt.cluster.testfixture.client.Response;
+import org.eclipse.rap.rwt.cluster.testfixture.internal.util.FileUtil;
+import org.eclipse.rap.rwt.cluster.testfixture.server.IServletEngine;
+import org.eclipse.rap.rwt.cluster.testfixture.server.IServletEngineCluster;
+import org.eclipse.rap.rwt.cluster.testfixture.server.IServletEngineFactory;
+import org.eclipse.rap.rwt.cluster.testfixture.server.JettyFactory;
+import org.eclipse.rap.rwt.cluster.testfixture.server.TomcatFactory;
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.engine.SessionReplicator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+
+@SuppressWarnings("restriction")
+@RunWith( Parameterized.class )
+public class DeltaReplication_Test {
+
+  private final IServletEngineFactory servletEngineFactory;
+  private File storeDirectory;
+  private IServletEngineCluster cluster;
+  private IServletEngine primary;
+  private IServletEngine secondary;
+  private RWTClient client;
+
+  @Parameters
+  public static Collection<Object[]> getParameters() {
+    return Arrays.asList( new Object[][] { { new JettyFactory() }, { new TomcatFactory() } } );
+  }
+
+  public DeltaReplication_Test( IServletEngineFactory servletEngineFactory ) {
+    this.servletEngineFactory = servletEngineFactory;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    storeDirectory = FileUtil.getTempDir( "rap-session-store" );
+    System.setProperty( RWTProperties.SESSION_REPLICATION, "delta" );
+    System.setProperty( RWTProperties.SESSION_STORE_DIRECTORY, storeDirectory.getPath() );
+    ClusterTestHelper.enableUITests( true );
+    cluster = servletEngineFactory.createServletEngineCluster();
+    primary = cluster.addServletEngine();
+    secondary = cluster.addServletEngine();
+    client = new RWTClient( primary );
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    cluster.stop();
+    System.clearProperty( RWTProperties.SESSION_REPLICATION );
+    System.clearProperty( RWTProperties.SESSION_STORE_DIRECTORY );
+    if( storeDirectory.exists() ) {
+      FileUtil.deleteDirectory( storeDirectory );
+    }
+  }
+
+  @Test
+  public void testFailover() throws Exception {
+    cluster.start( ButtonEntryPoint.class );
+    client.sendStartupRequest();
+    client.sendInitializationRequest();
+    clickCenterButton( 1, 4 );
+
+    cluster.removeServletEngine( primary );
+    client.changeServletEngine( secondary );
+    clickCenterButton( 5, 8 );
+
+    SessionReplicator replicator = ClusterTestHelper.getSessionReplicator( secondary );
+    assertEquals( 4, replicator.getReplicationCount() );
+  }
+
+  @Test
+  public void testReplicatedBytesPerRequest() throws Exception {
+    cluster.start( ButtonEntryPoint.class );
+    client.sendStartupRequest();
+    client.sendInitializationRequest();
+    SessionReplicator replicator = ClusterTestHelper.getSessionReplicator( primary );
+    long initialRequests = replicator.getReplicationCount();
+    long initialSerializedBytes = replicator.getSerializedBytes();
+    long initialReplicatedBytes = replicator.getReplicatedBytes();
+
+    clickCenterButton( 1, 10 );
+
+    long requests = replicator.getReplicationCount() - initialRequests;
+    long serializedBytes = replicator.getSerializedBytes() - initialSerializedBytes;
+    long replicatedBytes = replicator.getReplicatedBytes() - initialReplicatedBytes;
+    assertEquals( 10, requests );
+    // a click changes a label, the delta must be a small fraction of the complete UI session
+    long serializedBytesPerRequest = serializedBytes / requests;
+    long replicatedBytesPerRequest = replicatedBytes / requests;
+    String message = "replicated " + replicatedBytesPerRequest + " of "
+                     + serializedBytesPerRequest + " bytes per request";
+    assertTrue( message, replicatedBytesPerRequest * 10 < serializedBytesPerRequest );
+  }
+
+  private void clickCenterButton( int start, int end ) throws IOException {
+    for( int i = start; i <= end; i++ ) {
+      Response response = client.sendWidgetSelectedRequest( "w5" );
+      assertTrue( response.isValidJsonResponse() );
+      String expectedLabelPart = "relocated " + i + "/1";
+      String msg = "label update mismatch, missing part: '" + expectedLabelPart + "'";
+      assertTrue( msg, response.getContentText().contains( expectedLabelPart ) );
+    }
+  }
+
+}
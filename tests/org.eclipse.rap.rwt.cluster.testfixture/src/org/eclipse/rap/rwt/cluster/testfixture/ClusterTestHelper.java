@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 EclipseSource and others.
+ * Copyright (c) 2011, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.lang.reflect.Field;
 import javax.servlet.http.HttpSession;
 
 import org.eclipse.rap.rwt.cluster.testfixture.server.IServletEngine;
+import org.eclipse.rap.rwt.internal.engine.SessionReplicator;
 import org.eclipse.rap.rwt.internal.lifecycle.LifeCycleUtil;
 import org.eclipse.rap.rwt.internal.lifecycle.UITestUtil;
 import org.eclipse.rap.rwt.internal.service.UISessionImpl;
@@ -51,6 +52,11 @@ public class ClusterTestHelper {
     return LifeCycleUtil.getSessionDisplay( getUISession( httpSession, connectionId ) );
   }
 
+  public static SessionReplicator getSessionReplicator( IServletEngine servletEngine ) {
+    HttpSession httpSession = getFirstHttpSession( servletEngine );
+    return SessionReplicator.getFrom( httpSession.getServletContext() );
+  }
+
   private ClusterTestHelper() {
     // prevent instantiation
   }
@@ -359,6 +359,29 @@ rwt.qx.Class.define( "org.eclipse.rwt.test.tests.GridTest", {
       grid.destroy();
     },
 
+    testSetRowsByProtocol : function() {
+      var shell = TestUtil.createShellByProtocol( "w2" );
+      var grid = this._createDefaultTreeByProtocol( "w3", "w2", [] );
+      var item1 = new rwt.widgets.GridItem( grid.getRootItem(), 0 );
+      var item2 = new rwt.widgets.GridItem( grid.getRootItem(), 1 );
+      ObjectRegistry.add( "w4", item1 );
+      ObjectRegistry.add( "w5", item2 );
+
+      TestUtil.protocolSet( "w3", {
+        "rows" : {
+          "items" : [ "w4", "w5" ],
+          "strings" : [ "foo", "bar" ],
+          "texts" : [ [ 0, 1 ], [ 1, -1 ] ]
+        }
+      } );
+
+      assertEquals( "foo", item1.getText( 0 ) );
+      assertEquals( "bar", item1.getText( 1 ) );
+      assertEquals( "bar", item2.getText( 0 ) );
+      shell.destroy();
+      grid.destroy();
+    },
+
     testSetTreeColumnByProtocol : function() {
       var shell = TestUtil.createShellByProtocol( "w2" );
       var widget = this._createDefaultTreeByProtocol( "w3", "w2", [] );
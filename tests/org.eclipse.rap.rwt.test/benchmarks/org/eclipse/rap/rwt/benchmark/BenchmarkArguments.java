@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.benchmark;
+
+
+/**
+ * The optional positional command line arguments of a benchmark.
+ * <p>
+ * The benchmarks in this source folder are Java applications that live in the packages of the
+ * classes they measure. The folder is not part of the build, run them from the IDE with the test
+ * bundle on the class path.
+ * </p>
+ */
+public final class BenchmarkArguments {
+
+  private final String[] args;
+
+  public BenchmarkArguments( String[] args ) {
+    this.args = args;
+  }
+
+  public int getInt( int index, int defaultValue ) {
+    return index < args.length ? Integer.parseInt( args[ index ] ) : defaultValue;
+  }
+
+}
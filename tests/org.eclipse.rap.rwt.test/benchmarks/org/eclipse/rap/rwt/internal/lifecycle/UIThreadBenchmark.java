@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.lifecycle;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.rap.rwt.benchmark.BenchmarkArguments;
+
+
+/**
+ * Compares the memory footprint of parked UI threads and the latency of the hand-off between
+ * request thread and UI thread for the available UI thread models:
+ *
+ * <pre>
+ * UIThreadBenchmark [sessions] [handoffs]
+ * </pre>
+ *
+ * Virtual threads are only measured on Java 24 or later.
+ */
+public class UIThreadBenchmark {
+
+  private static final int DEFAULT_SESSIONS = 2000;
+  private static final int DEFAULT_HANDOFFS = 20000;
+
+  private final int sessions;
+  private final int handoffs;
+
+  public static void main( String[] args ) throws Exception {
+    BenchmarkArguments arguments = new BenchmarkArguments( args );
+    int sessions = arguments.getInt( 0, DEFAULT_SESSIONS );
+    int handoffs = arguments.getInt( 1, DEFAULT_HANDOFFS );
+    UIThreadBenchmark benchmark = new UIThreadBenchmark( sessions, handoffs );
+    benchmark.run( "platform", UIThreadModel.createPlatformModel( 0 ) );
+    benchmark.run( "platform (256k stack)", UIThreadModel.createPlatformModel( 256 * 1024 ) );
+    ThreadFactory virtualThreadFactory = UIThreadModel.createVirtualThreadFactory();
+    if( virtualThreadFactory != null ) {
+      benchmark.run( "virtual", UIThreadModel.createThreadFactoryModel( virtualThreadFactory ) );
+    } else {
+      System.out.println( "virtual: not supported by this Java version" );
+    }
+  }
+
+  private UIThreadBenchmark( int sessions, int handoffs ) {
+    this.sessions = sessions;
+    this.handoffs = handoffs;
+  }
+
+  private void run( String name, UIThreadModel model ) throws InterruptedException {
+    // warm up
+    measureHandOff( model, handoffs );
+    long heapBefore = getUsedHeap();
+    long residentBefore = getResidentMemory();
+    List<Session> parkedSessions = new ArrayList<>( sessions );
+    for( int i = 0; i < sessions; i++ ) {
+      parkedSessions.add( Session.start( model ) );
+    }
+    long heapDelta = getUsedHeap() - heapBefore;
+    long residentDelta = getResidentMemory() - residentBefore;
+    double handOffNanos = measureHandOff( model, handoffs );
+    for( Session session : parkedSessions ) {
+      session.stop();
+    }
+    System.out.println( String.format( "%s: %d parked sessions, heap %d KB, resident %s, "
+                                       + "hand-off round trip %.1f us",
+                                       name,
+                                       Integer.valueOf( sessions ),
+                                       Long.valueOf( heapDelta / 1024 ),
+                                       residentBefore < 0 ? "n/a" : residentDelta / 1024 + " KB",
+                                       Double.valueOf( handOffNanos / 1000 ) ) );
+  }
+
+  private static double measureHandOff( UIThreadModel model, int count ) {
+    Session session = Session.start( model );
+    long start = System.nanoTime();
+    for( int i = 0; i < count; i++ ) {
+      session.holder.switchThread();
+    }
+    long duration = System.nanoTime() - start;
+    session.stop();
+    return ( double )duration / count;
+  }
+
+  private static long getUsedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for( int i = 0; i < 3; i++ ) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static long getResidentMemory() {
+    File status = new File( "/proc/self/status" );
+    if( status.exists() ) {
+      try( BufferedReader reader = new BufferedReader( new FileReader( status ) ) ) {
+        String line = reader.readLine();
+        while( line != null ) {
+          if( line.startsWith( "VmRSS:" ) ) {
+            String value = line.substring( 6 ).replace( "kB", "" ).trim();
+            return Long.parseLong( value ) * 1024;
+          }
+          line = reader.readLine();
+        }
+      } catch( @SuppressWarnings( "unused" ) IOException exception ) {
+        // resident memory is not available
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * Mimics the UIThreadController: the UI thread holds the lock and hands control back to the
+   * request thread until it is stopped.
+   */
+  private static final class Session implements Runnable {
+
+    private IUIThreadHolder holder;
+    private volatile boolean stopped;
+
+    static Session start( UIThreadModel model ) {
+      Session session = new Session();
+      session.holder = model.createUIThread( session );
+      session.holder.getThread().setDaemon( true );
+      synchronized( session.holder.getLock() ) {
+        session.holder.getThread().start();
+        session.holder.switchThread();
+      }
+      return session;
+    }
+
+    @Override
+    public void run() {
+      synchronized( holder.getLock() ) {
+        while( !stopped ) {
+          holder.switchThread();
+        }
+        holder.getLock().notifyAll();
+      }
+    }
+
+    void stop() {
+      stopped = true;
+      holder.switchThread();
+    }
+
+  }
+
+}
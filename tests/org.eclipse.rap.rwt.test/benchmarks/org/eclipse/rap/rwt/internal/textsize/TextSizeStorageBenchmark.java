@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.textsize;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.rap.rwt.benchmark.BenchmarkArguments;
+import org.eclipse.swt.graphics.Point;
+
+
+/**
+ * Measures the throughput of concurrent text size lookups and stores with a skewed key
+ * distribution, as produced by many sessions that display mostly the same texts:
+ *
+ * <pre>
+ * TextSizeStorageBenchmark [threads] [keys] [seconds]
+ * </pre>
+ */
+public class TextSizeStorageBenchmark {
+
+  private static final int DEFAULT_THREADS = 8;
+  private static final int DEFAULT_KEYS = 50000;
+  private static final int DEFAULT_SECONDS = 5;
+
+  public static void main( String[] args ) throws Exception {
+    BenchmarkArguments arguments = new BenchmarkArguments( args );
+    int threads = arguments.getInt( 0, DEFAULT_THREADS );
+    int keys = arguments.getInt( 1, DEFAULT_KEYS );
+    int seconds = arguments.getInt( 2, DEFAULT_SECONDS );
+    // warm up
+    run( 1, keys, 1 );
+    for( int count = 1; count <= threads; count *= 2 ) {
+      run( count, keys, seconds );
+    }
+  }
+
+  private static void run( int threadCount, final int keyCount, int seconds )
+    throws InterruptedException
+  {
+    final TextSizeStorage storage = new TextSizeStorage();
+    final AtomicLong operations = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch( 1 );
+    final long[] end = new long[ 1 ];
+    Thread[] threads = new Thread[ threadCount ];
+    for( int i = 0; i < threadCount; i++ ) {
+      final long seed = i;
+      threads[ i ] = new Thread( new Runnable() {
+        @Override
+        public void run() {
+          Random random = new Random( seed );
+          long count = 0;
+          try {
+            start.await();
+          } catch( @SuppressWarnings( "unused" ) InterruptedException exception ) {
+            return;
+          }
+          while( System.nanoTime() < end[ 0 ] ) {
+            for( int j = 0; j < 1000; j++ ) {
+              // the product of two uniform values favors small keys
+              int key = ( int )( random.nextDouble() * random.nextDouble() * keyCount );
+              Integer boxedKey = Integer.valueOf( key );
+              if( storage.lookupTextSize( boxedKey ) == null ) {
+                storage.storeTextSize( boxedKey, new Point( key, 10 ) );
+              }
+            }
+            count += 1000;
+          }
+          operations.addAndGet( count );
+        }
+      } );
+      threads[ i ].start();
+    }
+    end[ 0 ] = System.nanoTime() + seconds * 1000000000L;
+    start.countDown();
+    for( Thread thread : threads ) {
+      thread.join();
+    }
+    long hits = storage.getHitCount();
+    long lookups = hits + storage.getMissCount();
+    System.out.println( String.format( "%d threads: %.2f M lookups/s, hit rate %.1f%%, "
+                                       + "%d evictions",
+                                       Integer.valueOf( threadCount ),
+                                       Double.valueOf( operations.get() / seconds / 1e6 ),
+                                       Double.valueOf( 100.0 * hits / lookups ),
+                                       Long.valueOf( storage.getEvictionCount() ) ) );
+  }
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.theme;
+
+import static org.eclipse.rap.rwt.internal.service.ContextProvider.getApplicationContext;
+
+import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.benchmark.BenchmarkArguments;
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Group;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+
+/**
+ * Measures Composite#layout() of a large form, which computes the size of every control and
+ * thereby looks up its paddings, borders, fonts and spacings in the theme. Reports the time and
+ * the number of themed value lookups per layout pass:
+ *
+ * <pre>
+ * FormLayoutBenchmark [rows] [rounds]
+ * </pre>
+ */
+public class FormLayoutBenchmark {
+
+  private static final int DEFAULT_ROWS = 500;
+  private static final int DEFAULT_ROUNDS = 20;
+  private static final int ROWS_PER_GROUP = 10;
+
+  public static void main( String[] args ) {
+    BenchmarkArguments arguments = new BenchmarkArguments( args );
+    int rows = arguments.getInt( 0, DEFAULT_ROWS );
+    int rounds = arguments.getInt( 1, DEFAULT_ROUNDS );
+    System.setProperty( RWTProperties.THEME_LOOKUP_STATISTICS, "true" );
+    Fixture.setUp();
+    try {
+      Shell shell = new Shell( new Display() );
+      Composite form = createForm( shell, rows );
+      // warm up
+      for( int i = 0; i < rounds; i++ ) {
+        form.layout( true, true );
+      }
+      ThemeLookupStatistics statistics = getApplicationContext().getThemeManager()
+        .getLookupStatistics();
+      long lookups = statistics.getLookupCount();
+      long start = System.nanoTime();
+      for( int i = 0; i < rounds; i++ ) {
+        form.layout( true, true );
+      }
+      long time = ( System.nanoTime() - start ) / rounds;
+      lookups = ( statistics.getLookupCount() - lookups ) / rounds;
+      System.out.println( rows + " rows, "
+                          + form.getChildren().length + " groups: "
+                          + time / 1000 + " us and "
+                          + lookups + " lookups per layout, "
+                          + ( lookups == 0 ? 0 : time / lookups ) + " ns per lookup" );
+    } finally {
+      Fixture.tearDown();
+    }
+  }
+
+  private static Composite createForm( Shell shell, int rows ) {
+    Composite form = new Composite( shell, SWT.NONE );
+    form.setLayout( new GridLayout( 1, false ) );
+    Group group = null;
+    for( int i = 0; i < rows; i++ ) {
+      if( i % ROWS_PER_GROUP == 0 ) {
+        group = new Group( form, SWT.NONE );
+        group.setText( "Group " + i / ROWS_PER_GROUP );
+        group.setLayout( new GridLayout( 4, false ) );
+        group.setLayoutData( new GridData( SWT.FILL, SWT.TOP, true, false ) );
+      }
+      new Label( group, SWT.NONE ).setText( "Field " + i );
+      Text text = new Text( group, SWT.BORDER );
+      text.setText( "Value " + i );
+      text.setLayoutData( new GridData( SWT.FILL, SWT.CENTER, true, false ) );
+      Combo combo = new Combo( group, SWT.READ_ONLY );
+      combo.setItems( new String[] { "One", "Two", "Three" } );
+      Button button = new Button( group, i % 2 == 0 ? SWT.CHECK : SWT.PUSH );
+      button.setText( "Option " + i );
+      if( i % 5 == 0 ) {
+        button.setData( RWT.CUSTOM_VARIANT, "special" );
+      }
+    }
+    return form;
+  }
+
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.eclipse.rap.rwt.benchmark.BenchmarkArguments;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+
+
+/**
+ * Compares ImageLoader#save() with PNGFileFormat#saveOptimized() for images of typical sizes and
+ * contents: icons with alpha, charts with flat colors and gradients, and a photo-like image.
+ * Reports time and size per image:
+ *
+ * <pre>
+ * PngEncoderBenchmark [milliseconds per measurement]
+ * </pre>
+ */
+public class PngEncoderBenchmark {
+
+  private static final int DEFAULT_DURATION = 1000;
+  private static final PaletteData DIRECT_PALETTE = new PaletteData( 0xFF0000, 0xFF00, 0xFF );
+
+  public static void main( String[] args ) {
+    int duration = new BenchmarkArguments( args ).getInt( 0, DEFAULT_DURATION );
+    run( "icon 16x16", createIcon( 16 ), duration );
+    run( "icon 32x32", createIcon( 32 ), duration );
+    run( "icon 48x48", createIcon( 48 ), duration );
+    run( "bar chart 400x300", createBarChart( 400, 300 ), duration );
+    run( "area chart 800x600", createAreaChart( 800, 600 ), duration );
+    run( "photo 512x512", createPhoto( 512, 512 ), duration );
+  }
+
+  private static void run( String name, ImageData imageData, int duration ) {
+    ImageLoader imageLoader = new ImageLoader();
+    imageLoader.data = new ImageData[] { imageData };
+    // warm up
+    measure( imageLoader, false, duration );
+    measure( imageLoader, true, duration );
+    String unfiltered = measure( imageLoader, false, duration );
+    String optimized = measure( imageLoader, true, duration );
+    System.out.println( name + ": save " + unfiltered + ", saveOptimized " + optimized );
+  }
+
+  private static String measure( ImageLoader imageLoader, boolean optimized, int duration ) {
+    long end = System.nanoTime() + duration * 1000000L;
+    long start = System.nanoTime();
+    int count = 0;
+    int size;
+    do {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      if( optimized ) {
+        PNGFileFormat.saveOptimized( outputStream, imageLoader );
+      } else {
+        imageLoader.save( outputStream, SWT.IMAGE_PNG );
+      }
+      size = outputStream.size();
+      count++;
+    } while( System.nanoTime() < end );
+    long time = ( System.nanoTime() - start ) / count;
+    return time / 1000 + " us, " + size + " bytes";
+  }
+
+  private static ImageData createIcon( int size ) {
+    PaletteData palette = new PaletteData( 0xFF00, 0xFF0000, 0xFF000000 );
+    ImageData result = new ImageData( size, size, 32, palette );
+    int center = size / 2;
+    for( int y = 0; y < size; y++ ) {
+      for( int x = 0; x < size; x++ ) {
+        int distance = ( x - center ) * ( x - center ) + ( y - center ) * ( y - center );
+        int alpha = Math.max( 0, Math.min( 255, ( center * center - distance ) * 8 ) );
+        result.setPixel( x, y, palette.getPixel( new RGB( 40 + x * 4, 90, 200 - y * 3 ) ) );
+        result.setAlpha( x, y, alpha );
+      }
+    }
+    return result;
+  }
+
+  private static ImageData createBarChart( int width, int height ) {
+    ImageData result = new ImageData( width, height, 24, DIRECT_PALETTE );
+    int[] colors = { 0x4472C4, 0xED7D31, 0xA5A5A5, 0xFFC000 };
+    Random random = new Random( 42 );
+    fill( result, 0, 0, width, height, 0xFFFFFF );
+    int barWidth = width / 20;
+    for( int i = 0; i < 16; i++ ) {
+      int barHeight = random.nextInt( height - 40 );
+      int x = 20 + i * ( barWidth + 2 );
+      fill( result, x, height - 20 - barHeight, barWidth, barHeight, colors[ i % 4 ] );
+    }
+    fill( result, 18, 0, 1, height - 18, 0x000000 );
+    fill( result, 18, height - 19, width - 18, 1, 0x000000 );
+    return result;
+  }
+
+  private static ImageData createAreaChart( int width, int height ) {
+    ImageData result = new ImageData( width, height, 24, DIRECT_PALETTE );
+    for( int y = 0; y < height; y++ ) {
+      for( int x = 0; x < width; x++ ) {
+        int value = ( int )( height / 2 + Math.sin( x / 40.0 ) * height / 4 );
+        int shade = 255 - y * 64 / height;
+        int pixel = y > value ? 0x2060A0 + ( y - value ) / 4 : shade << 16 | shade << 8 | 255;
+        result.setPixel( x, y, pixel );
+      }
+    }
+    return result;
+  }
+
+  private static ImageData createPhoto( int width, int height ) {
+    ImageData result = new ImageData( width, height, 24, DIRECT_PALETTE );
+    Random random = new Random( 42 );
+    for( int y = 0; y < height; y++ ) {
+      for( int x = 0; x < width; x++ ) {
+        int noise = random.nextInt( 16 );
+        int r = ( x * 200 / width + noise ) & 0xFF;
+        int g = ( y * 180 / height + noise ) & 0xFF;
+        int b = ( ( x + y ) * 100 / ( width + height ) + 60 + noise ) & 0xFF;
+        result.setPixel( x, y, r << 16 | g << 8 | b );
+      }
+    }
+    return result;
+  }
+
+  private static void fill( ImageData imageData, int x, int y, int width, int height, int pixel ) {
+    for( int row = y; row < y + height; row++ ) {
+      for( int column = x; column < x + width; column++ ) {
+        imageData.setPixel( column, row, pixel );
+      }
+    }
+  }
+
+}
@@ -30,6 +30,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -38,6 +39,7 @@ import javax.servlet.ServletContext;
 
 import org.eclipse.rap.rwt.application.Application;
 import org.eclipse.rap.rwt.application.ApplicationConfiguration;
+import org.eclipse.rap.rwt.internal.RWTProperties;
 import org.eclipse.rap.rwt.internal.lifecycle.DefaultEntryPointFactory;
 import org.eclipse.rap.rwt.internal.lifecycle.TestEntryPoint;
 import org.eclipse.rap.rwt.internal.resources.ResourceDirectory;
@@ -54,9 +56,12 @@ import org.eclipse.rap.rwt.service.SettingStoreFactory;
 import org.eclipse.rap.rwt.service.UISession;
 import org.eclipse.rap.rwt.service.UISessionEvent;
 import org.eclipse.rap.rwt.service.UIThreadListener;
+import org.eclipse.rap.rwt.testfixture.internal.FileUtil;
 import org.eclipse.rap.rwt.testfixture.internal.Fixture;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
 import org.eclipse.swt.widgets.Composite;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -76,6 +81,7 @@ public class ApplicationContextImpl_Test {
   private ApplicationContextImpl applicationContext;
   private ApplicationContextListener appContextListener;
   private UIThreadListener uiThreadListener;
+  private File snapshotDirectory;
 
   @Before
   public void setUp() {
@@ -85,6 +91,15 @@ public class ApplicationContextImpl_Test {
     uiThreadListener = mock( UIThreadListener.class );
   }
 
+  @After
+  public void tearDown() {
+    System.clearProperty( RWTProperties.TEXT_SIZE_SNAPSHOT_FILE );
+    System.clearProperty( RWTProperties.THEME_SNAPSHOT_FILE );
+    if( snapshotDirectory != null ) {
+      FileUtil.delete( snapshotDirectory );
+    }
+  }
+
   @Test
   public void testApplicationContextSingletons() {
     applicationContext = new ApplicationContextImpl( null, null );
@@ -145,6 +160,14 @@ public class ApplicationContextImpl_Test {
     assertNotNull( applicationContext.getDisplaysHolder() );
     assertSame( applicationContext.getDisplaysHolder(), applicationContext.getDisplaysHolder() );
 
+    assertNotNull( applicationContext.getResponseCompression() );
+    assertSame( applicationContext.getResponseCompression(),
+                applicationContext.getResponseCompression() );
+
+    assertNotNull( applicationContext.getTimerExecExecutor() );
+    assertSame( applicationContext.getTimerExecExecutor(),
+                applicationContext.getTimerExecExecutor() );
+
     assertNotNull( applicationContext.getTextSizeStorage() );
     assertSame( applicationContext.getTextSizeStorage(), applicationContext.getTextSizeStorage() );
 
@@ -274,6 +297,78 @@ public class ApplicationContextImpl_Test {
     checkStartupPageTemplateHasBeenReset();
   }
 
+  @Test
+  public void testDeactivate_shutsDownTimerExecExecutor() {
+    ServletContext servletContext = createServletContext();
+    applicationContext = new ApplicationContextImpl( createConfiguration(), servletContext );
+    applicationContext.activate();
+    TimerExecExecutor executor = applicationContext.getTimerExecExecutor();
+
+    applicationContext.deactivate();
+
+    assertTrue( executor.isShutdown() );
+    assertNull( executor.schedule( mock( Runnable.class ), 0 ) );
+  }
+
+  @Test
+  public void testDeactivate_savesTextSizeSnapshot() {
+    snapshotDirectory = FileUtil.createTempDir();
+    File snapshotFile = new File( snapshotDirectory, "textsizes.bin" );
+    System.setProperty( RWTProperties.TEXT_SIZE_SNAPSHOT_FILE, snapshotFile.getPath() );
+    ServletContext servletContext = createServletContext();
+    applicationContext = new ApplicationContextImpl( createConfiguration(), servletContext );
+    applicationContext.activate();
+
+    applicationContext.deactivate();
+
+    assertTrue( snapshotFile.isFile() );
+  }
+
+  @Test
+  public void testActivate_withCorruptTextSizeSnapshot() throws IOException {
+    snapshotDirectory = FileUtil.createTempDir();
+    File snapshotFile = new File( snapshotDirectory, "textsizes.bin" );
+    try( FileOutputStream stream = new FileOutputStream( snapshotFile ) ) {
+      stream.write( new byte[] { 1, 2, 3 } );
+    }
+    System.setProperty( RWTProperties.TEXT_SIZE_SNAPSHOT_FILE, snapshotFile.getPath() );
+    ServletContext servletContext = createServletContext();
+    applicationContext = new ApplicationContextImpl( createConfiguration(), servletContext );
+
+    applicationContext.activate();
+
+    assertTrue( applicationContext.isActive() );
+  }
+
+  @Test
+  public void testActivate_savesThemeSnapshot() {
+    snapshotDirectory = FileUtil.createTempDir();
+    File snapshotFile = new File( snapshotDirectory, "theme.bin" );
+    System.setProperty( RWTProperties.THEME_SNAPSHOT_FILE, snapshotFile.getPath() );
+    ServletContext servletContext = createServletContext();
+    applicationContext = new ApplicationContextImpl( createConfiguration(), servletContext );
+
+    applicationContext.activate();
+
+    assertTrue( snapshotFile.isFile() );
+  }
+
+  @Test
+  public void testActivate_withCorruptThemeSnapshot() throws IOException {
+    snapshotDirectory = FileUtil.createTempDir();
+    File snapshotFile = new File( snapshotDirectory, "theme.bin" );
+    try( FileOutputStream stream = new FileOutputStream( snapshotFile ) ) {
+      stream.write( new byte[] { 1, 2, 3 } );
+    }
+    System.setProperty( RWTProperties.THEME_SNAPSHOT_FILE, snapshotFile.getPath() );
+    ServletContext servletContext = createServletContext();
+    applicationContext = new ApplicationContextImpl( createConfiguration(), servletContext );
+
+    applicationContext.activate();
+
+    assertTrue( applicationContext.isActive() );
+  }
+
   @Test
   public void testSetToServletContext() {
     ServletContext servletContext = Fixture.createServletContext();
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class BinaryDelta_Test {
+
+  @Test
+  public void testApply_identicalContent() throws IOException {
+    byte[] base = createContent( 20000, 1 );
+
+    byte[] delta = BinaryDelta.create( BinaryDelta.createIndex( base ), base );
+
+    assertArrayEquals( base, BinaryDelta.apply( base, delta ) );
+    assertTrue( delta.length < 16 );
+  }
+
+  @Test
+  public void testApply_emptyBase() throws IOException {
+    byte[] target = createContent( 5000, 1 );
+
+    byte[] delta = BinaryDelta.create( BinaryDelta.createIndex( new byte[ 0 ] ), target );
+
+    assertArrayEquals( target, BinaryDelta.apply( new byte[ 0 ], delta ) );
+  }
+
+  @Test
+  public void testApply_emptyTarget() throws IOException {
+    byte[] base = createContent( 5000, 1 );
+
+    byte[] delta = BinaryDelta.create( BinaryDelta.createIndex( base ), new byte[ 0 ] );
+
+    assertArrayEquals( new byte[ 0 ], BinaryDelta.apply( base, delta ) );
+  }
+
+  @Test
+  public void testApply_changedByte() throws IOException {
+    byte[] base = createContent( 20000, 1 );
+    byte[] target = base.clone();
+    target[ 10000 ]++;
+
+    byte[] delta = BinaryDelta.create( BinaryDelta.createIndex( base ), target );
+
+    assertArrayEquals( target, BinaryDelta.apply( base, delta ) );
+    assertTrue( delta.length < 4200 );
+  }
+
+  @Test
+  public void testApply_insertedBytes() throws IOException {
+    byte[] base = createContent( 20000, 1 );
+    byte[] target = new byte[ base.length + 10 ];
+    System.arraycopy( base, 0, target, 0, 5000 );
+    System.arraycopy( base, 5000, target, 5010, base.length - 5000 );
+
+    byte[] delta = BinaryDelta.create( BinaryDelta.createIndex( base ), target );
+
+    assertArrayEquals( target, BinaryDelta.apply( base, delta ) );
+    // the chunks after the insertion are found at their new position
+    assertTrue( delta.length < 8400 );
+  }
+
+  @Test
+  public void testApply_unrelatedContent() throws IOException {
+    byte[] base = createContent( 10000, 1 );
+    byte[] target = createContent( 10000, 2 );
+
+    byte[] delta = BinaryDelta.create( BinaryDelta.createIndex( base ), target );
+
+    assertArrayEquals( target, BinaryDelta.apply( base, delta ) );
+  }
+
+  @Test
+  public void testApply_failsWithTruncatedDelta() {
+    byte[] base = createContent( 10000, 1 );
+    byte[] target = createContent( 10000, 2 );
+    byte[] delta = BinaryDelta.create( BinaryDelta.createIndex( base ), target );
+    byte[] truncated = new byte[ delta.length - 1 ];
+    System.arraycopy( delta, 0, truncated, 0, truncated.length );
+
+    try {
+      BinaryDelta.apply( base, truncated );
+      fail();
+    } catch( IOException expected ) {
+    }
+  }
+
+  @Test
+  public void testApply_failsWithCopyBeyondBase() {
+    byte[] delta = { 10, 0, 5, 10 };
+
+    try {
+      BinaryDelta.apply( new byte[ 8 ], delta );
+      fail();
+    } catch( IOException expected ) {
+    }
+  }
+
+  @Test
+  public void testFindBoundary_limitsChunkSize() {
+    byte[] content = new byte[ 10000 ];
+
+    int boundary = BinaryDelta.findBoundary( content, 0 );
+
+    assertEquals( 4096, boundary );
+  }
+
+  @Test
+  public void testFindBoundary_isContentDefined() {
+    byte[] content = createContent( 10000, 1 );
+    int boundary = BinaryDelta.findBoundary( content, 0 );
+
+    int shiftedBoundary = BinaryDelta.findBoundary( content, 10 );
+
+    assertEquals( boundary, shiftedBoundary );
+  }
+
+  private static byte[] createContent( int length, long seed ) {
+    byte[] result = new byte[ length ];
+    new Random( seed ).nextBytes( result );
+    return result;
+  }
+
+}
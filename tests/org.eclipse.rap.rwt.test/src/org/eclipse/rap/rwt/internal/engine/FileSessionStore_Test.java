@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.rap.rwt.testfixture.internal.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class FileSessionStore_Test {
+
+  private File directory;
+  private FileSessionStore store;
+
+  @Before
+  public void setUp() {
+    directory = FileUtil.createTempDir();
+    store = new FileSessionStore( directory );
+  }
+
+  @After
+  public void tearDown() {
+    FileUtil.delete( directory );
+  }
+
+  @Test
+  public void testRead_unknownKey() throws IOException {
+    assertTrue( store.read( "key" ).isEmpty() );
+  }
+
+  @Test
+  public void testGetVersion_unknownKey() throws IOException {
+    assertEquals( -1, store.getVersion( "key" ) );
+  }
+
+  @Test
+  public void testRead_returnsSnapshotAndDeltas() throws IOException {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 2, false, new byte[] { 2 } ) );
+
+    List<SessionRecord> records = store.read( "key" );
+
+    assertEquals( 2, records.size() );
+    assertTrue( records.get( 0 ).isSnapshot() );
+    assertArrayEquals( new byte[] { 1 }, records.get( 0 ).getData() );
+    assertFalse( records.get( 1 ).isSnapshot() );
+    assertArrayEquals( new byte[] { 2 }, records.get( 1 ).getData() );
+  }
+
+  @Test
+  public void testRead_snapshotReplacesPreviousRecords() throws IOException {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 2, false, new byte[] { 2 } ) );
+    store.write( "key", new SessionRecord( 3, true, new byte[] { 3 } ) );
+
+    List<SessionRecord> records = store.read( "key" );
+
+    assertEquals( 1, records.size() );
+    assertEquals( 3, records.get( 0 ).getVersion() );
+  }
+
+  @Test
+  public void testGetVersion() throws IOException {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 2, false, new byte[] { 2 } ) );
+
+    assertEquals( 2, store.getVersion( "key" ) );
+  }
+
+  @Test
+  public void testRemove() throws IOException {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+
+    store.remove( "key" );
+
+    assertEquals( -1, store.getVersion( "key" ) );
+  }
+
+  @Test
+  public void testWrite_keyWithSpecialCharacters() throws IOException {
+    store.write( "a/b:c", new SessionRecord( 1, true, new byte[] { 1 } ) );
+
+    assertEquals( 1, store.read( "a/b:c" ).size() );
+    assertEquals( 1, directory.list().length );
+  }
+
+  @Test
+  public void testWrite_removesRecordsBeforeSnapshot() throws IOException {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 2, false, new byte[] { 2 } ) );
+    store.write( "key", new SessionRecord( 3, true, new byte[] { 3 } ) );
+
+    assertEquals( 1, directory.listFiles()[ 0 ].list().length );
+  }
+
+  @Test
+  public void testRead_ordersByVersion() throws IOException {
+    store.write( "key", new SessionRecord( 15, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 16, false, new byte[] { 2 } ) );
+
+    List<SessionRecord> records = store.read( "key" );
+
+    assertEquals( 15, records.get( 0 ).getVersion() );
+    assertEquals( 16, records.get( 1 ).getVersion() );
+  }
+
+  @Test
+  public void testRead_fromAnotherInstance() throws IOException {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+
+    FileSessionStore otherStore = new FileSessionStore( directory );
+
+    assertArrayEquals( new byte[] { 1 }, otherStore.read( "key" ).get( 0 ).getData() );
+  }
+
+  @Test
+  public void testRemoveExpired() throws IOException {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+
+    store.removeExpired( System.currentTimeMillis() - 60000 );
+    long versionBeforeExpiry = store.getVersion( "key" );
+    store.removeExpired( System.currentTimeMillis() + 2000 );
+
+    assertEquals( 1, versionBeforeExpiry );
+    assertEquals( -1, store.getVersion( "key" ) );
+  }
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class InMemorySessionStore_Test {
+
+  private InMemorySessionStore store;
+
+  @Before
+  public void setUp() {
+    store = new InMemorySessionStore();
+  }
+
+  @Test
+  public void testRead_unknownKey() {
+    assertTrue( store.read( "key" ).isEmpty() );
+  }
+
+  @Test
+  public void testGetVersion_unknownKey() {
+    assertEquals( -1, store.getVersion( "key" ) );
+  }
+
+  @Test
+  public void testRead_returnsSnapshotAndDeltas() {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 2, false, new byte[] { 2 } ) );
+
+    List<SessionRecord> records = store.read( "key" );
+
+    assertEquals( 2, records.size() );
+    assertTrue( records.get( 0 ).isSnapshot() );
+    assertArrayEquals( new byte[] { 1 }, records.get( 0 ).getData() );
+    assertFalse( records.get( 1 ).isSnapshot() );
+    assertArrayEquals( new byte[] { 2 }, records.get( 1 ).getData() );
+  }
+
+  @Test
+  public void testRead_snapshotReplacesPreviousRecords() {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 2, false, new byte[] { 2 } ) );
+    store.write( "key", new SessionRecord( 3, true, new byte[] { 3 } ) );
+
+    List<SessionRecord> records = store.read( "key" );
+
+    assertEquals( 1, records.size() );
+    assertEquals( 3, records.get( 0 ).getVersion() );
+  }
+
+  @Test
+  public void testGetVersion() {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+    store.write( "key", new SessionRecord( 2, false, new byte[] { 2 } ) );
+
+    assertEquals( 2, store.getVersion( "key" ) );
+  }
+
+  @Test
+  public void testRemove() {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+
+    store.remove( "key" );
+
+    assertEquals( -1, store.getVersion( "key" ) );
+  }
+
+  @Test
+  public void testRemoveExpired() {
+    store.write( "key", new SessionRecord( 1, true, new byte[] { 1 } ) );
+
+    store.removeExpired( System.currentTimeMillis() - 60000 );
+    long versionBeforeExpiry = store.getVersion( "key" );
+    store.removeExpired( System.currentTimeMillis() + 1 );
+
+    assertEquals( 1, versionBeforeExpiry );
+    assertEquals( -1, store.getVersion( "key" ) );
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 EclipseSource and others.
+ * Copyright (c) 2011, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,22 +10,30 @@
  ******************************************************************************/
 package org.eclipse.rap.rwt.internal.engine;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.endsWith;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
 import org.eclipse.rap.rwt.internal.service.UISessionImpl;
 import org.eclipse.rap.rwt.service.ApplicationContext;
+import org.eclipse.rap.rwt.testfixture.internal.TestHttpSession;
 import org.eclipse.rap.rwt.testfixture.internal.TestRequest;
 import org.eclipse.rap.rwt.testfixture.internal.TestResponse;
 import org.junit.Before;
@@ -128,6 +136,87 @@ public class RWTClusterSupport_Test {
     verify( httpSession ).setAttribute( endsWith( "foo" ), same( deserializedUISession ) );
   }
 
+  @Test
+  public void testInit_attachesReplicatorToServletContext() {
+    SessionReplicator replicator = new SessionReplicator( new InMemorySessionStore(), 10 );
+    rwtClusterSupport = new RWTClusterSupport( replicator );
+    ServletContext servletContext = mock( ServletContext.class );
+    FilterConfig filterConfig = mock( FilterConfig.class );
+    when( filterConfig.getServletContext() ).thenReturn( servletContext );
+
+    rwtClusterSupport.init( filterConfig );
+
+    verify( servletContext ).setAttribute( anyString(), same( replicator ) );
+  }
+
+  @Test
+  public void testDoFilter_withReplicator_doesNotMarkUISessionAsChanged() throws Exception {
+    SessionReplicator replicator = new SessionReplicator( new InMemorySessionStore(), 10 );
+    rwtClusterSupport = new RWTClusterSupport( replicator );
+    HttpSession httpSession = mockHttpSession();
+    request.setSession( httpSession );
+    setUISession( httpSession, new UISessionImpl( null, httpSession ) );
+
+    rwtClusterSupport.doFilter( request, response, chain );
+
+    verify( httpSession, never() ).setAttribute( anyString(), any() );
+  }
+
+  @Test
+  public void testDoFilter_withReplicator_replicatesUISession() throws Exception {
+    InMemorySessionStore store = new InMemorySessionStore();
+    rwtClusterSupport = new RWTClusterSupport( new SessionReplicator( store, 10 ) );
+    TestHttpSession httpSession = new TestHttpSession();
+    request.setSession( httpSession );
+    request.setParameter( "cid", "foo" );
+    new UISessionImpl( null, httpSession, "foo" ).attachToHttpSession();
+
+    rwtClusterSupport.doFilter( request, response, chain );
+
+    assertEquals( 1, store.getVersion( httpSession.getId() + ":foo" ) );
+  }
+
+  @Test
+  public void testDoFilter_withReplicator_restoresNewerUISession() throws Exception {
+    InMemorySessionStore store = new InMemorySessionStore();
+    TestHttpSession httpSession = new TestHttpSession();
+    request.setSession( httpSession );
+    UISessionImpl uiSession = new UISessionImpl( null, httpSession );
+    uiSession.setAttribute( "name", "value" );
+    new SessionReplicator( store, 10 ).replicate( httpSession.getId() + ":", uiSession );
+    new UISessionImpl( null, httpSession ).attachToHttpSession();
+    rwtClusterSupport = new RWTClusterSupport( new SessionReplicator( store, 10 ) );
+
+    rwtClusterSupport.doFilter( request, response, chain );
+
+    UISessionImpl restored = UISessionImpl.getInstanceFromSession( httpSession, null );
+    assertEquals( uiSession.getId(), restored.getId() );
+    assertEquals( "value", restored.getAttribute( "name" ) );
+    assertSame( httpSession, restored.getHttpSession() );
+  }
+
+  @Test
+  public void testDoFilter_withReplicator_removesStateOfShutDownUISession() throws Exception {
+    InMemorySessionStore store = new InMemorySessionStore();
+    rwtClusterSupport = new RWTClusterSupport( new SessionReplicator( store, 10 ) );
+    final TestHttpSession httpSession = new TestHttpSession();
+    request.setSession( httpSession );
+    final UISessionImpl uiSession = new UISessionImpl( null, httpSession );
+    uiSession.attachToHttpSession();
+    rwtClusterSupport.doFilter( request, response, chain );
+    FilterChain shutdownChain = new FilterChain() {
+      @Override
+      public void doFilter( ServletRequest request, ServletResponse response ) {
+        uiSession.shutdown();
+      }
+    };
+
+    rwtClusterSupport.doFilter( request, response, shutdownChain );
+
+    assertEquals( -1, store.getVersion( httpSession.getId() + ":" ) );
+    assertNull( UISessionImpl.getInstanceFromSession( httpSession, null ) );
+  }
+
   private static HttpSession mockHttpSession() {
     return mockHttpSession( mock( ServletContext.class ) );
   }
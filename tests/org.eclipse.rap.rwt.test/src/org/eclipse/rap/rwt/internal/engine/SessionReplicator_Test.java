@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.service.UISessionImpl;
+import org.eclipse.rap.rwt.testfixture.internal.TestHttpSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class SessionReplicator_Test {
+
+  private static final String KEY = "session:cid";
+
+  private InMemorySessionStore store;
+  private SessionReplicator replicator;
+  private UISessionImpl uiSession;
+
+  @Before
+  public void setUp() {
+    store = new InMemorySessionStore();
+    replicator = new SessionReplicator( store, 10 );
+    uiSession = new UISessionImpl( null, new TestHttpSession(), "cid" );
+    uiSession.setAttribute( "data", createData( 20000 ) );
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty( RWTProperties.SESSION_REPLICATION );
+    System.clearProperty( RWTProperties.SESSION_STORE );
+    System.clearProperty( RWTProperties.SESSION_STORE_DIRECTORY );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testCreate_failsWithInvalidSnapshotInterval() {
+    new SessionReplicator( store, 0 );
+  }
+
+  @Test
+  public void testCreate_disabledByDefault() {
+    assertNull( SessionReplicator.create() );
+  }
+
+  @Test
+  public void testCreate_withInMemoryStore() {
+    System.setProperty( RWTProperties.SESSION_REPLICATION, "delta" );
+
+    SessionReplicator result = SessionReplicator.create();
+
+    assertTrue( result.getStore() instanceof InMemorySessionStore );
+  }
+
+  @Test
+  public void testCreate_withStoreDirectory() {
+    System.setProperty( RWTProperties.SESSION_REPLICATION, "delta" );
+    System.setProperty( RWTProperties.SESSION_STORE_DIRECTORY, "sessions" );
+
+    SessionReplicator result = SessionReplicator.create();
+
+    assertEquals( "sessions", ( ( FileSessionStore )result.getStore() ).getDirectory().getName() );
+  }
+
+  @Test
+  public void testCreate_withStoreClass() {
+    System.setProperty( RWTProperties.SESSION_REPLICATION, "delta" );
+    System.setProperty( RWTProperties.SESSION_STORE, CustomSessionStore.class.getName() );
+
+    SessionReplicator result = SessionReplicator.create();
+
+    assertTrue( result.getStore() instanceof CustomSessionStore );
+  }
+
+  @Test
+  public void testReplicate_writesSnapshotFirst() throws Exception {
+    replicator.replicate( KEY, uiSession );
+
+    List<SessionRecord> records = store.read( KEY );
+    assertEquals( 1, records.size() );
+    assertTrue( records.get( 0 ).isSnapshot() );
+    assertEquals( 1, replicator.getSnapshotCount() );
+  }
+
+  @Test
+  public void testReplicate_writesDeltaOfChanges() throws Exception {
+    replicator.replicate( KEY, uiSession );
+    uiSession.setAttribute( "counter", Integer.valueOf( 1 ) );
+
+    replicator.replicate( KEY, uiSession );
+
+    List<SessionRecord> records = store.read( KEY );
+    assertEquals( 2, records.size() );
+    assertFalse( records.get( 1 ).isSnapshot() );
+    assertTrue( records.get( 1 ).getData().length * 10 < records.get( 0 ).getData().length );
+  }
+
+  @Test
+  public void testReplicate_skipsUnchangedUISession() throws Exception {
+    replicator.replicate( KEY, uiSession );
+
+    replicator.replicate( KEY, uiSession );
+
+    assertEquals( 1, store.getVersion( KEY ) );
+    assertEquals( 2, replicator.getReplicationCount() );
+  }
+
+  @Test
+  public void testReplicate_writesSnapshotAfterInterval() throws Exception {
+    replicator = new SessionReplicator( store, 2 );
+    replicator.replicate( KEY, uiSession );
+    uiSession.setAttribute( "counter", Integer.valueOf( 1 ) );
+    replicator.replicate( KEY, uiSession );
+    uiSession.setAttribute( "counter", Integer.valueOf( 2 ) );
+
+    replicator.replicate( KEY, uiSession );
+
+    List<SessionRecord> records = store.read( KEY );
+    assertEquals( 1, records.size() );
+    assertEquals( 3, records.get( 0 ).getVersion() );
+    assertEquals( 2, replicator.getSnapshotCount() );
+  }
+
+  @Test
+  public void testReplicate_countsBytes() throws Exception {
+    replicator.replicate( KEY, uiSession );
+    uiSession.setAttribute( "counter", Integer.valueOf( 1 ) );
+
+    replicator.replicate( KEY, uiSession );
+
+    assertTrue( replicator.getSerializedBytes() > 40000 );
+    assertTrue( replicator.getReplicatedBytes() < 25000 );
+  }
+
+  @Test
+  public void testReplicate_continuesAfterRecordsOfOtherNode() throws Exception {
+    store.write( KEY, new SessionRecord( 5, true, new byte[ 0 ] ) );
+
+    replicator.replicate( KEY, uiSession );
+
+    assertEquals( 6, store.getVersion( KEY ) );
+    assertEquals( 1, store.read( KEY ).size() );
+  }
+
+  @Test
+  public void testRestore_withoutStoredState() throws Exception {
+    assertNull( replicator.restore( KEY, null ) );
+  }
+
+  @Test
+  public void testRestore_upToDateInstance() throws Exception {
+    replicator.replicate( KEY, uiSession );
+
+    assertNull( replicator.restore( KEY, uiSession ) );
+  }
+
+  @Test
+  public void testRestore_onOtherNode() throws Exception {
+    replicator.replicate( KEY, uiSession );
+    uiSession.setAttribute( "counter", Integer.valueOf( 1 ) );
+    replicator.replicate( KEY, uiSession );
+    SessionReplicator otherReplicator = new SessionReplicator( store, 10 );
+
+    UISessionImpl restored = otherReplicator.restore( KEY, null );
+
+    assertNotNull( restored );
+    assertNotSame( uiSession, restored );
+    assertEquals( uiSession.getId(), restored.getId() );
+    assertEquals( Integer.valueOf( 1 ), restored.getAttribute( "counter" ) );
+    assertArrayEquals( ( byte[] )uiSession.getAttribute( "data" ),
+                       ( byte[] )restored.getAttribute( "data" ) );
+  }
+
+  @Test
+  public void testRestore_replacesOutdatedInstance() throws Exception {
+    replicator.replicate( KEY, uiSession );
+    UISessionImpl outdated = new UISessionImpl( null, new TestHttpSession(), "cid" );
+    SessionReplicator otherReplicator = new SessionReplicator( store, 10 );
+
+    UISessionImpl restored = otherReplicator.restore( KEY, outdated );
+
+    assertEquals( uiSession.getId(), restored.getId() );
+  }
+
+  @Test
+  public void testRestore_changesOfOtherNode() throws Exception {
+    replicator.replicate( KEY, uiSession );
+    SessionReplicator otherReplicator = new SessionReplicator( store, 10 );
+    UISessionImpl restored = otherReplicator.restore( KEY, null );
+    restored.setAttribute( "counter", Integer.valueOf( 2 ) );
+    otherReplicator.replicate( KEY, restored );
+
+    UISessionImpl result = replicator.restore( KEY, uiSession );
+
+    assertFalse( store.read( KEY ).get( 1 ).isSnapshot() );
+    assertEquals( Integer.valueOf( 2 ), result.getAttribute( "counter" ) );
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    replicator.replicate( KEY, uiSession );
+
+    replicator.remove( KEY, uiSession );
+
+    assertEquals( -1, store.getVersion( KEY ) );
+  }
+
+  @Test
+  public void testGetFrom() {
+    TestHttpSession httpSession = new TestHttpSession();
+
+    replicator.attachToServletContext( httpSession.getServletContext() );
+
+    assertEquals( replicator, SessionReplicator.getFrom( httpSession.getServletContext() ) );
+  }
+
+  private static byte[] createData( int length ) {
+    byte[] result = new byte[ length ];
+    new Random( 1 ).nextBytes( result );
+    return result;
+  }
+
+  public static class CustomSessionStore extends InMemorySessionStore {
+  }
+
+}
@@ -30,6 +30,8 @@ import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -808,6 +810,45 @@ public class RWTLifeCycle_Test {
     assertEquals( "", log.toString() );
   }
 
+  @Test
+  public void testSessionInvalidateWithRunningEventLoop_withThreadFactory() throws Throwable {
+    UISession uiSession = ContextProvider.getUISession();
+    Class<? extends EntryPoint> entryPointClass = SessionInvalidateWithEventLoopEntryPoint.class;
+    entryPointManager.register( TestRequest.DEFAULT_SERVLET_PATH, entryPointClass, null );
+    RWTLifeCycle lifeCycle = getLifeCycle();
+    ThreadFactory threadFactory = Executors.defaultThreadFactory();
+    lifeCycle.uiThreadModel = UIThreadModel.createThreadFactoryModel( threadFactory );
+
+    lifeCycle.execute();
+    IUIThreadHolder uiThreadHolder = LifeCycleUtil.getUIThread( uiSession );
+    invalidateSession( uiSession );
+
+    assertFalse( uiThreadHolder.getThread() instanceof UIThread );
+    assertFalse( uiThreadHolder.getThread().isAlive() );
+    assertFalse( uiSession.isBound() );
+    assertEquals( "", log.toString() );
+  }
+
+  @Test
+  public void testSleep_withThreadFactory() throws Throwable {
+    UISession uiSession = ContextProvider.getUISession();
+    entryPointManager.register( TestRequest.DEFAULT_SERVLET_PATH,
+                                SleepingEntryPoint.class,
+                                null );
+    RWTLifeCycle lifeCycle = getLifeCycle();
+    ThreadFactory threadFactory = Executors.defaultThreadFactory();
+    lifeCycle.uiThreadModel = UIThreadModel.createThreadFactoryModel( threadFactory );
+
+    lifeCycle.execute();
+    Fixture.fakeNewRequest();
+    lifeCycle.execute();
+    Fixture.fakeNewRequest();
+    lifeCycle.execute();
+    invalidateSession( uiSession );
+
+    assertEquals( "createUI|sleep|sleep|sleep|", log.toString() );
+  }
+
   @Test
   public void testExceptionInRender() {
     fakeServletPath( TestRequest.DEFAULT_SERVLET_PATH );
@@ -1158,6 +1199,21 @@ public class RWTLifeCycle_Test {
     }
   }
 
+  public static class SleepingEntryPoint implements EntryPoint {
+    @Override
+    public int createUI() {
+      Display display = new Display();
+      log.append( "createUI|" );
+      while( !display.isDisposed() ) {
+        if( !display.readAndDispatch() ) {
+          log.append( "sleep|" );
+          display.sleep();
+        }
+      }
+      return 0;
+    }
+  }
+
   public static class SessionInvalidateWithEventLoopEntryPoint
     implements EntryPoint
   {
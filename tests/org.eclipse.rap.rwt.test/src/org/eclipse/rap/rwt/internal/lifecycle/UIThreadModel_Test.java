@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.lifecycle;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.junit.After;
+import org.junit.Test;
+
+
+public class UIThreadModel_Test {
+
+  @After
+  public void tearDown() {
+    System.clearProperty( RWTProperties.UI_THREAD_MODEL );
+  }
+
+  @Test
+  public void testFromSystemProperties_defaultsToPlatformThreads() {
+    UIThreadModel model = UIThreadModel.fromSystemProperties();
+
+    assertTrue( model.createUIThread( new NoOpRunnable() ) instanceof UIThread );
+  }
+
+  @Test
+  public void testFromSystemProperties_platform() {
+    System.setProperty( RWTProperties.UI_THREAD_MODEL, "platform" );
+
+    UIThreadModel model = UIThreadModel.fromSystemProperties();
+
+    assertTrue( model.createUIThread( new NoOpRunnable() ) instanceof UIThread );
+  }
+
+  @Test
+  public void testFromSystemProperties_virtual() {
+    System.setProperty( RWTProperties.UI_THREAD_MODEL, "virtual" );
+
+    UIThreadModel model = UIThreadModel.fromSystemProperties();
+
+    IUIThreadHolder holder = model.createUIThread( new NoOpRunnable() );
+    boolean supported = UIThreadModel.createVirtualThreadFactory() != null;
+    assertTrue( supported ? holder instanceof UIThreadHolder : holder instanceof UIThread );
+  }
+
+  @Test
+  public void testFromSystemProperties_unknown() {
+    System.setProperty( RWTProperties.UI_THREAD_MODEL, "unknown" );
+
+    try {
+      UIThreadModel.fromSystemProperties();
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  @Test
+  public void testThreadFactoryModel_getCurrent() throws InterruptedException {
+    final AtomicReference<IUIThreadHolder> current = new AtomicReference<>();
+    UIThreadModel model = UIThreadModel.createThreadFactoryModel( Executors.defaultThreadFactory() );
+    IUIThreadHolder holder = model.createUIThread( new Runnable() {
+      @Override
+      public void run() {
+        current.set( UIThreadHolder.getCurrent() );
+      }
+    } );
+
+    holder.getThread().start();
+    holder.getThread().join();
+
+    assertSame( holder, current.get() );
+    assertFalse( holder.getThread() instanceof IUIThreadHolder );
+  }
+
+  @Test
+  public void testPlatformModel_getCurrent() throws InterruptedException {
+    final AtomicReference<IUIThreadHolder> current = new AtomicReference<>();
+    UIThreadModel model = UIThreadModel.createPlatformModel( 256 * 1024 );
+    IUIThreadHolder holder = model.createUIThread( new Runnable() {
+      @Override
+      public void run() {
+        current.set( UIThreadHolder.getCurrent() );
+      }
+    } );
+
+    holder.getThread().start();
+    holder.getThread().join();
+
+    assertSame( holder, current.get() );
+  }
+
+  @Test
+  public void testGetCurrent_outsideOfUIThread() {
+    assertNull( UIThreadHolder.getCurrent() );
+  }
+
+  private static class NoOpRunnable implements Runnable {
+    @Override
+    public void run() {
+    }
+  }
+
+}
@@ -10,14 +10,19 @@
 *******************************************************************************/
 package org.eclipse.rap.rwt.internal.protocol;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static org.eclipse.rap.rwt.testfixture.internal.TestMessage.getParent;
+import static org.eclipse.rap.rwt.testfixture.internal.SerializationTestUtil.serializeAndDeserialize;
 import static org.eclipse.rap.rwt.testfixture.internal.TestMessage.getStyles;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.List;
 
 import org.eclipse.rap.json.JsonArray;
@@ -407,6 +412,79 @@ public class ProtocolMessageWriter_Test {
     assertEquals( "Hello", property.get( 1 ).asString() );
   }
 
+  @Test
+  public void testStreaming_mergesPendingOperation() {
+    writer = new ProtocolMessageWriter( true );
+
+    writer.appendCreate( shellId, "foo.Class" );
+    writer.appendSet( shellId, "key1", "value1" );
+    writer.appendListen( shellId, "event1", true );
+    writer.appendListen( shellId, "event2", false );
+    writer.appendSet( shellId, "key2", "value2" );
+    writer.appendSet( shellId, "key3", "value3" );
+
+    List<Operation> operations = createMessage().getOperations();
+    assertEquals( 3, operations.size() );
+    CreateOperation createOperation = ( CreateOperation )operations.get( 0 );
+    assertEquals( "value1", createOperation.getProperties().get( "key1" ).asString() );
+    assertEquals( 2, ( ( ListenOperation )operations.get( 1 ) ).getProperties().size() );
+    assertEquals( 2, ( ( SetOperation )operations.get( 2 ) ).getProperties().size() );
+  }
+
+  @Test
+  public void testStreaming_producesSameMessage() throws IOException {
+    ProtocolMessageWriter streamingWriter = new ProtocolMessageWriter( true );
+
+    appendExampleOperations( writer );
+    appendExampleOperations( streamingWriter );
+
+    ResponseMessage expected = writer.createMessage();
+    ResponseMessage actual = streamingWriter.createMessage();
+    assertEquals( expected.toJson(), actual.toJson() );
+    assertArrayEquals( toBytes( expected ), toBytes( actual ) );
+  }
+
+  @Test
+  public void testStreaming_emptyMessage() throws IOException {
+    writer = new ProtocolMessageWriter( true );
+
+    ResponseMessage message = writer.createMessage();
+
+    assertTrue( message.getOperations().isEmpty() );
+    assertEquals( "{\"head\":{},\"operations\":[]}", new String( toBytes( message ), UTF_8 ) );
+  }
+
+  @Test
+  public void testStreaming_isSerializable() throws Exception {
+    writer = new ProtocolMessageWriter( true );
+    appendExampleOperations( writer );
+    ResponseMessage message = writer.createMessage();
+
+    ResponseMessage deserialized = serializeAndDeserialize( message );
+
+    assertArrayEquals( toBytes( message ), toBytes( deserialized ) );
+  }
+
+  private void appendExampleOperations( ProtocolMessageWriter writer ) {
+    writer.appendHead( "requestCounter", 23 );
+    for( int i = 0; i < 1000; i++ ) {
+      String id = "w" + i;
+      writer.appendCreate( id, "rwt.widgets.Button" );
+      writer.appendSet( id, "parent", shellId );
+      writer.appendSet( id, "text", "\u00e4\u00f6\u00fc \u20ac \"" + i + "\"\n" );
+      writer.appendListen( id, "Selection", true );
+      writer.appendCall( id, "foo", new JsonObject().add( "bar", i ) );
+      writer.appendSet( id, "bounds", new JsonArray().add( 0.5 ).add( i ) );
+      writer.appendDestroy( id );
+    }
+  }
+
+  private static byte[] toBytes( ResponseMessage message ) throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    message.writeTo( stream );
+    return stream.toByteArray();
+  }
+
   private Message createMessage() {
     return writer.createMessage();
   }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2014 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -31,8 +32,13 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.eclipse.rap.rwt.internal.RWTProperties;
 import org.eclipse.rap.rwt.service.ResourceLoader;
+import org.eclipse.rap.rwt.testfixture.internal.ConcurrencyTestUtil;
 import org.eclipse.rap.rwt.testfixture.internal.FileUtil;
 import org.eclipse.rap.rwt.testfixture.internal.Fixture;
 import org.junit.After;
@@ -53,6 +59,8 @@ public class ResourceManagerImpl_Test {
 
   @After
   public void tearDown() {
+    System.clearProperty( RWTProperties.RESOURCE_CACHE );
+    System.clearProperty( RWTProperties.RESOURCE_CACHE_MEMORY_SIZE );
     File path = new File( getWebContextDirectory(), ResourceDirectory.DIRNAME );
     FileUtil.delete( path );
     Fixture.tearDown();
@@ -391,6 +399,141 @@ public class ResourceManagerImpl_Test {
     }
   }
 
+  @Test
+  public void testGetCachedResource_unknownPath() {
+    assertNull( resourceManager.getCachedResource( "unknown" ) );
+  }
+
+  @Test
+  public void testGetCachedResource_createdOnDemand() throws IOException {
+    resourceManager.register( "path/to/resource", createInputStream() );
+
+    CachedResource cachedResource = resourceManager.getCachedResource( "path/to/resource" );
+
+    assertArrayEquals( new byte[] { 1, 2, 3 }, read( cachedResource.getInputStream() ) );
+    assertSame( cachedResource, resourceManager.getCachedResource( "path/to/resource" ) );
+  }
+
+  @Test
+  public void testGetCachedResource_withEscapedPath() {
+    resourceManager.register( "a\\b:c", createInputStream() );
+
+    assertNotNull( resourceManager.getCachedResource( "a/b$1c" ) );
+  }
+
+  @Test
+  public void testGetCachedResource_afterRegisteringAgain() throws IOException {
+    resourceManager.register( "resource", createInputStream() );
+    resourceManager.getCachedResource( "resource" );
+
+    resourceManager.register( "resource", new ByteArrayInputStream( new byte[] { 4 } ) );
+
+    CachedResource cachedResource = resourceManager.getCachedResource( "resource" );
+    assertArrayEquals( new byte[] { 4 }, read( cachedResource.getInputStream() ) );
+  }
+
+  @Test
+  public void testGetCachedResource_afterUnregister() {
+    resourceManager.register( "resource", createInputStream() );
+    resourceManager.getCachedResource( "resource" );
+
+    resourceManager.unregister( "resource" );
+
+    assertNull( resourceManager.getCachedResource( "resource" ) );
+  }
+
+  @Test
+  public void testGetCachedResource_keptInMemory() {
+    resourceManager.register( "resource", createInputStream() );
+
+    CachedResource cachedResource = resourceManager.getCachedResource( "resource" );
+
+    assertTrue( cachedResource.isInMemory() );
+    assertEquals( 3, resourceManager.getMemorySize() );
+  }
+
+  @Test
+  public void testGetCachedResource_exceedingMemorySize() throws IOException {
+    System.setProperty( RWTProperties.RESOURCE_CACHE_MEMORY_SIZE, "8" );
+    resourceManager = new ResourceManagerImpl( getApplicationContext().getResourceDirectory() );
+    resourceManager.register( "resource1", createInputStream() );
+    resourceManager.register( "resource2", createInputStream() );
+    resourceManager.getCachedResource( "resource1" );
+
+    CachedResource cachedResource = resourceManager.getCachedResource( "resource2" );
+
+    assertFalse( cachedResource.isInMemory() );
+    assertArrayEquals( new byte[] { 1, 2, 3 }, read( cachedResource.getInputStream() ) );
+    assertEquals( 3, resourceManager.getMemorySize() );
+  }
+
+  @Test
+  public void testGetCachedResource_memoryReleasedAfterRegisteringAgain() {
+    resourceManager.register( "resource", createInputStream() );
+    resourceManager.getCachedResource( "resource" );
+
+    resourceManager.register( "resource", new ByteArrayInputStream( new byte[] { 4 } ) );
+    resourceManager.getCachedResource( "resource" );
+
+    assertEquals( 1, resourceManager.getMemorySize() );
+  }
+
+  @Test
+  public void testGetCachedResource_memoryReleasedAfterUnregister() {
+    resourceManager.register( "resource", createInputStream() );
+    resourceManager.getCachedResource( "resource" );
+
+    resourceManager.unregister( "resource" );
+
+    assertEquals( 0, resourceManager.getMemorySize() );
+  }
+
+  @Test
+  public void testGetCachedResource_concurrentlyWithUnregister() throws InterruptedException {
+    final List<Throwable> exceptions = Collections.synchronizedList( new ArrayList<Throwable>() );
+    final AtomicReference<String> current = new AtomicReference<String>( "" );
+    Runnable runnable = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          String path = current.get();
+          while( path != null ) {
+            resourceManager.getCachedResource( path );
+            path = current.get();
+          }
+        } catch( Throwable throwable ) {
+          exceptions.add( throwable );
+        }
+      }
+    };
+    Thread[] threads = ConcurrencyTestUtil.startThreads( 4, runnable );
+    for( int i = 0; i < 1000; i++ ) {
+      resourceManager.register( "resource" + i, createInputStream() );
+      current.set( "resource" + i );
+      resourceManager.unregister( "resource" + i );
+    }
+    current.set( null );
+    ConcurrencyTestUtil.joinThreads( threads );
+
+    assertTrue( exceptions.isEmpty() );
+    for( int i = 0; i < 1000; i++ ) {
+      assertNull( resourceManager.getCachedResource( "resource" + i ) );
+    }
+    assertEquals( 0, resourceManager.getMemorySize() );
+  }
+
+  @Test
+  public void testGetRegisteredContent_withResourceCache() throws IOException {
+    System.setProperty( RWTProperties.RESOURCE_CACHE, "true" );
+    resourceManager = new ResourceManagerImpl( getApplicationContext().getResourceDirectory() );
+    resourceManager.register( "resource", createInputStream() );
+    FileUtil.delete( getResourceCopyFile( "resource" ) );
+
+    InputStream content = resourceManager.getRegisteredContent( "resource" );
+
+    assertArrayEquals( new byte[] { 1, 2, 3 }, read( content ) );
+  }
+
   private static byte[] read( File file ) throws IOException {
     FileInputStream inputStream = new FileInputStream( file );
     try {
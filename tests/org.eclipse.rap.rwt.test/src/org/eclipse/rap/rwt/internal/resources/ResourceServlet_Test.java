@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.resources;
+
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.application.ApplicationContextImpl;
+import org.eclipse.rap.rwt.testfixture.internal.FileUtil;
+import org.eclipse.rap.rwt.testfixture.internal.TestRequest;
+import org.eclipse.rap.rwt.testfixture.internal.TestResponse;
+import org.eclipse.rap.rwt.testfixture.internal.TestServletOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ResourceServlet_Test {
+
+  private static final byte[] TEXT = createText();
+
+  private File contextDirectory;
+  private ApplicationContextImpl applicationContext;
+  private ResourceManagerImpl resourceManager;
+  private ResourceServlet servlet;
+  private TestRequest request;
+  private TestResponse response;
+
+  @Before
+  public void setUp() throws ServletException {
+    contextDirectory = FileUtil.createTempDir();
+    ResourceDirectory resourceDirectory = new ResourceDirectory();
+    resourceDirectory.configure( contextDirectory.getAbsolutePath() );
+    resourceManager = new ResourceManagerImpl( resourceDirectory );
+    applicationContext = mock( ApplicationContextImpl.class );
+    when( applicationContext.getResourceManager() ).thenReturn( resourceManager );
+    when( Boolean.valueOf( applicationContext.allowsRequests() ) ).thenReturn( Boolean.TRUE );
+    final ServletContext servletContext = mock( ServletContext.class );
+    when( servletContext.getAttribute( anyString() ) ).thenReturn( applicationContext );
+    when( servletContext.getMimeType( "/text.js" ) ).thenReturn( "application/javascript" );
+    servlet = new ResourceServlet() {
+      @Override
+      public ServletContext getServletContext() {
+        return servletContext;
+      }
+    };
+    servlet.init();
+    request = new TestRequest();
+    response = new TestResponse();
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty( RWTProperties.RESOURCE_CACHE );
+    FileUtil.delete( contextDirectory );
+  }
+
+  @Test
+  public void testDoGet_whenApplicationContextNotReady() throws Exception {
+    when( Boolean.valueOf( applicationContext.allowsRequests() ) ).thenReturn( Boolean.FALSE );
+    request.setPathInfo( "/text.js" );
+
+    servlet.doGet( request, response );
+
+    assertEquals( SC_SERVICE_UNAVAILABLE, response.getErrorStatus() );
+  }
+
+  @Test
+  public void testDoGet_unknownResource() throws Exception {
+    request.setPathInfo( "/unknown.js" );
+
+    servlet.doGet( request, response );
+
+    assertEquals( SC_NOT_FOUND, response.getErrorStatus() );
+  }
+
+  @Test
+  public void testDoGet_withoutPathInfo() throws Exception {
+    servlet.doGet( request, response );
+
+    assertEquals( SC_NOT_FOUND, response.getErrorStatus() );
+  }
+
+  @Test
+  public void testDoGet_unregisteredResource() throws Exception {
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    resourceManager.unregister( "text.js" );
+    request.setPathInfo( "/text.js" );
+
+    servlet.doGet( request, response );
+
+    assertEquals( SC_NOT_FOUND, response.getErrorStatus() );
+  }
+
+  @Test
+  public void testDoGet_uncompressed() throws Exception {
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    request.setPathInfo( "/text.js" );
+
+    servlet.doGet( request, response );
+
+    assertArrayEquals( TEXT, getContent( response ) );
+    assertEquals( "application/javascript", response.getContentType() );
+    assertNull( response.getHeader( "Content-Encoding" ) );
+    assertEquals( "Accept-Encoding", response.getHeader( "Vary" ) );
+    assertEquals( "no-cache", response.getHeader( "Cache-Control" ) );
+    assertNotNull( response.getHeader( "ETag" ) );
+  }
+
+  @Test
+  public void testDoGet_compressed() throws Exception {
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    request.setPathInfo( "/text.js" );
+    request.setHeader( "Accept-Encoding", "deflate, gzip;q=0.8" );
+
+    servlet.doGet( request, response );
+
+    assertEquals( "gzip", response.getHeader( "Content-Encoding" ) );
+    assertTrue( getContent( response ).length < TEXT.length );
+    assertArrayEquals( TEXT, decompress( getContent( response ) ) );
+  }
+
+  @Test
+  public void testDoGet_gzipRejected() throws Exception {
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    request.setPathInfo( "/text.js" );
+    request.setHeader( "Accept-Encoding", "*, gzip;q=0" );
+
+    servlet.doGet( request, response );
+
+    assertNull( response.getHeader( "Content-Encoding" ) );
+    assertArrayEquals( TEXT, getContent( response ) );
+  }
+
+  @Test
+  public void testDoGet_incompressibleContent() throws Exception {
+    byte[] content = { 1, 2, 3 };
+    resourceManager.register( "image.png", new ByteArrayInputStream( content ) );
+    request.setPathInfo( "/image.png" );
+    request.setHeader( "Accept-Encoding", "gzip" );
+
+    servlet.doGet( request, response );
+
+    assertNull( response.getHeader( "Content-Encoding" ) );
+    assertNull( response.getHeader( "Vary" ) );
+    assertArrayEquals( content, getContent( response ) );
+  }
+
+  @Test
+  public void testDoGet_escapedResourceName() throws Exception {
+    resourceManager.register( "a:b?c", new ByteArrayInputStream( TEXT ) );
+    String location = resourceManager.getLocation( "a:b?c" );
+    request.setPathInfo( location.substring( ResourceDirectory.DIRNAME.length() ) );
+
+    servlet.doGet( request, response );
+
+    assertArrayEquals( TEXT, getContent( response ) );
+  }
+
+  @Test
+  public void testDoGet_compressedVariantHasDifferentETag() throws Exception {
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    request.setPathInfo( "/text.js" );
+    servlet.doGet( request, response );
+    String etag = response.getHeader( "ETag" );
+    TestResponse compressedResponse = new TestResponse();
+    request.setHeader( "Accept-Encoding", "gzip" );
+
+    servlet.doGet( request, compressedResponse );
+
+    assertFalse( etag.equals( compressedResponse.getHeader( "ETag" ) ) );
+  }
+
+  @Test
+  public void testDoGet_notModified() throws Exception {
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    request.setPathInfo( "/text.js" );
+    servlet.doGet( request, response );
+    TestResponse secondResponse = new TestResponse();
+    request.setHeader( "If-None-Match", response.getHeader( "ETag" ) );
+
+    servlet.doGet( request, secondResponse );
+
+    assertEquals( SC_NOT_MODIFIED, secondResponse.getStatus() );
+    assertEquals( 0, getContent( secondResponse ).length );
+  }
+
+  @Test
+  public void testDoGet_modifiedAfterRegisteringAgain() throws Exception {
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    request.setPathInfo( "/text.js" );
+    servlet.doGet( request, response );
+    resourceManager.register( "text.js", new ByteArrayInputStream( new byte[] { 1 } ) );
+    TestResponse secondResponse = new TestResponse();
+    request.setHeader( "If-None-Match", response.getHeader( "ETag" ) );
+
+    servlet.doGet( request, secondResponse );
+
+    assertEquals( 0, secondResponse.getStatus() );
+    assertArrayEquals( new byte[] { 1 }, getContent( secondResponse ) );
+  }
+
+  @Test
+  public void testDoGet_withPreloadedResource() throws Exception {
+    System.setProperty( RWTProperties.RESOURCE_CACHE, "true" );
+    ResourceDirectory resourceDirectory = new ResourceDirectory();
+    resourceDirectory.configure( contextDirectory.getAbsolutePath() );
+    resourceManager = new ResourceManagerImpl( resourceDirectory );
+    when( applicationContext.getResourceManager() ).thenReturn( resourceManager );
+    resourceManager.register( "text.js", new ByteArrayInputStream( TEXT ) );
+    request.setPathInfo( "/text.js" );
+
+    servlet.doGet( request, response );
+
+    assertArrayEquals( TEXT, getContent( response ) );
+  }
+
+  @Test
+  public void testMatches() {
+    assertFalse( ResourceServlet.matches( null, "\"a\"" ) );
+    assertFalse( ResourceServlet.matches( "\"b\"", "\"a\"" ) );
+    assertTrue( ResourceServlet.matches( "\"a\"", "\"a\"" ) );
+    assertTrue( ResourceServlet.matches( "\"b\", \"a\"", "\"a\"" ) );
+    assertTrue( ResourceServlet.matches( "W/\"a\"", "\"a\"" ) );
+    assertTrue( ResourceServlet.matches( "*", "\"a\"" ) );
+  }
+
+  private static byte[] getContent( TestResponse response ) throws IOException {
+    TestServletOutputStream stream = ( TestServletOutputStream )response.getOutputStream();
+    return stream.getContent().toByteArray();
+  }
+
+  private static byte[] decompress( byte[] content ) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try( InputStream stream = new GZIPInputStream( new ByteArrayInputStream( content ) ) ) {
+      byte[] buffer = new byte[ 1024 ];
+      int read = stream.read( buffer );
+      while( read != -1 ) {
+        result.write( buffer, 0, read );
+        read = stream.read( buffer );
+      }
+    }
+    return result.toByteArray();
+  }
+
+  private static byte[] createText() {
+    StringBuilder builder = new StringBuilder();
+    for( int i = 0; i < 100; i++ ) {
+      builder.append( "rwt.qx.Class.define( \"Foo" ).append( i ).append( "\", {} );\n" );
+    }
+    return builder.toString().getBytes( UTF_8 );
+  }
+
+}
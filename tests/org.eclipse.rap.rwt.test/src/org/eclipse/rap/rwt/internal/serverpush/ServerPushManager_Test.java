@@ -12,6 +12,7 @@
 package org.eclipse.rap.rwt.internal.serverpush;
 
 import static org.eclipse.rap.rwt.testfixture.internal.ConcurrencyTestUtil.runInThread;
+import static org.eclipse.rap.rwt.testfixture.internal.SerializationTestUtil.serialize;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -19,6 +20,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -28,6 +32,10 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import javax.servlet.http.HttpSessionBindingListener;
 
@@ -43,11 +51,13 @@ import org.eclipse.rap.rwt.testfixture.internal.Fixture;
 import org.eclipse.rap.rwt.testfixture.internal.NoOpRunnable;
 import org.eclipse.rap.rwt.testfixture.internal.TestRequest;
 import org.eclipse.rap.rwt.testfixture.internal.TestResponse;
+import org.eclipse.rap.rwt.testfixture.internal.TestServletContext;
 import org.eclipse.swt.SWTException;
 import org.eclipse.swt.widgets.Display;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 
 public class ServerPushManager_Test {
@@ -265,7 +275,7 @@ public class ServerPushManager_Test {
     manager.activateServerPushFor( HANDLE_1 );
 
     // must not block
-    manager.processRequest( ContextProvider.getResponse() );
+    manager.processRequest( ContextProvider.getRequest(), ContextProvider.getResponse() );
   }
 
   @Test
@@ -563,6 +573,195 @@ public class ServerPushManager_Test {
     assertNotNull( response.getHeader( "Expires" ) );
   }
 
+  @Test
+  public void testIsAsyncSupported_withServlet25() {
+    ServletContext servletContext = mock( ServletContext.class );
+    when( Integer.valueOf( servletContext.getMajorVersion() ) ).thenReturn( Integer.valueOf( 2 ) );
+    HttpServletRequest request = mock( HttpServletRequest.class );
+
+    assertFalse( ServerPushManager.isAsyncSupported( servletContext, request ) );
+    verify( request, never() ).isAsyncSupported();
+  }
+
+  @Test
+  public void testIsAsyncSupported_withoutAsyncSupport() {
+    ServletContext servletContext = mock( ServletContext.class );
+    when( Integer.valueOf( servletContext.getMajorVersion() ) ).thenReturn( Integer.valueOf( 3 ) );
+    HttpServletRequest request = mock( HttpServletRequest.class );
+
+    assertFalse( ServerPushManager.isAsyncSupported( servletContext, request ) );
+  }
+
+  @Test
+  public void testIsAsyncSupported_withAsyncSupport() {
+    ServletContext servletContext = mock( ServletContext.class );
+    when( Integer.valueOf( servletContext.getMajorVersion() ) ).thenReturn( Integer.valueOf( 3 ) );
+
+    assertTrue( ServerPushManager.isAsyncSupported( servletContext, mockAsyncRequest( null ) ) );
+  }
+
+  @Test
+  public void testProcessRequest_suspendsRequest() {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( HANDLE_1 );
+
+    // must not block
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+
+    assertTrue( manager.isCallBackRequestBlocked() );
+    verify( asyncContext ).setTimeout( 0 );
+    verify( asyncContext, never() ).complete();
+  }
+
+  @Test
+  public void testProcessRequest_doesNotSuspendWithoutServerPush() {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    HttpServletRequest request = mockAsyncRequest( asyncContext );
+
+    manager.processRequest( request, ContextProvider.getResponse() );
+
+    assertFalse( manager.isCallBackRequestBlocked() );
+    verify( request, never() ).startAsync();
+  }
+
+  @Test
+  public void testWakeClient_completesSuspendedRequest() {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( HANDLE_1 );
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+
+    manager.setHasRunnables( true );
+    manager.wakeClient();
+
+    assertFalse( manager.isCallBackRequestBlocked() );
+    verify( asyncContext ).complete();
+  }
+
+  @Test
+  public void testWakeClient_whileUIThreadRunning() {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( HANDLE_1 );
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+    manager.notifyUIThreadStart();
+
+    manager.setHasRunnables( true );
+    manager.wakeClient();
+
+    verify( asyncContext, never() ).complete();
+    manager.notifyUIThreadEnd();
+    verify( asyncContext ).complete();
+  }
+
+  @Test
+  public void testDeactivateServerPush_completesSuspendedRequest() {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( HANDLE_1 );
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+
+    manager.deactivateServerPushFor( HANDLE_1 );
+
+    assertFalse( manager.isCallBackRequestBlocked() );
+    verify( asyncContext ).complete();
+  }
+
+  @Test
+  public void testProcessRequest_completesPreviousSuspendedRequest() {
+    AsyncContext asyncContext1 = mockAsyncContext( new TestResponse() );
+    AsyncContext asyncContext2 = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( HANDLE_1 );
+    manager.processRequest( mockAsyncRequest( asyncContext1 ), ContextProvider.getResponse() );
+
+    manager.processRequest( mockAsyncRequest( asyncContext2 ), ContextProvider.getResponse() );
+
+    assertTrue( manager.isCallBackRequestBlocked() );
+    verify( asyncContext1 ).complete();
+    verify( asyncContext2, never() ).complete();
+  }
+
+  @Test
+  public void testSuspendedRequest_completedWhenConnectionBreaks() {
+    TestResponse response = new TestResponse() {
+      @Override
+      public PrintWriter getWriter() throws IOException {
+        PrintWriter failingWriter = mock( PrintWriter.class );
+        when( Boolean.valueOf( failingWriter.checkError() ) ).thenReturn( Boolean.TRUE );
+        return failingWriter;
+      }
+    };
+    AsyncContext asyncContext = mockAsyncContext( response );
+    manager.setRequestCheckInterval( 10 );
+    manager.activateServerPushFor( HANDLE_1 );
+
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+
+    verify( asyncContext, timeout( REQUEST_WAIT_TIMEOUT ) ).complete();
+    assertFalse( manager.isCallBackRequestBlocked() );
+  }
+
+  @Test
+  public void testSuspendedRequest_checksConnection() throws InterruptedException {
+    TestResponse response = new TestResponse();
+    AsyncContext asyncContext = mockAsyncContext( response );
+    manager.setRequestCheckInterval( 10 );
+    manager.activateServerPushFor( HANDLE_1 );
+
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+    Thread.sleep( SLEEP_TIME );
+
+    assertTrue( manager.isCallBackRequestBlocked() );
+    assertTrue( response.getContent().startsWith( " " ) );
+    verify( asyncContext, never() ).complete();
+  }
+
+  @Test
+  public void testSuspendedRequest_completedWhenUISessionDestroyed() {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( HANDLE_1 );
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+
+    ( ( UISessionImpl )ContextProvider.getUISession() ).shutdown();
+
+    verify( asyncContext ).complete();
+  }
+
+  @Test
+  public void testSuspendedRequest_doesNotPreventUISessionSerialization() throws IOException {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( "handle" );
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+
+    serialize( ContextProvider.getUISession() );
+
+    assertTrue( manager.isCallBackRequestBlocked() );
+  }
+
+  @Test
+  public void testSuspendedRequest_releasedWhenCompletedByContainer() throws IOException {
+    AsyncContext asyncContext = mockAsyncContext( new TestResponse() );
+    manager.activateServerPushFor( HANDLE_1 );
+    manager.processRequest( mockAsyncRequest( asyncContext ), ContextProvider.getResponse() );
+    ArgumentCaptor<AsyncListener> captor = ArgumentCaptor.forClass( AsyncListener.class );
+    verify( asyncContext ).addListener( captor.capture() );
+
+    captor.getValue().onError( null );
+
+    assertFalse( manager.isCallBackRequestBlocked() );
+  }
+
+  private static HttpServletRequest mockAsyncRequest( AsyncContext asyncContext ) {
+    ( ( TestServletContext )Fixture.getServletContext() ).setVersion( 3, 0 );
+    HttpServletRequest request = mock( HttpServletRequest.class );
+    when( Boolean.valueOf( request.isAsyncSupported() ) ).thenReturn( Boolean.TRUE );
+    when( request.startAsync() ).thenReturn( asyncContext );
+    return request;
+  }
+
+  private static AsyncContext mockAsyncContext( TestResponse response ) {
+    AsyncContext asyncContext = mock( AsyncContext.class );
+    when( asyncContext.getResponse() ).thenReturn( response );
+    return asyncContext;
+  }
+
   private void simulateBackgroundAddition( final ServiceContext serviceContext ) throws Throwable {
     Runnable runnable = new Runnable() {
       @Override
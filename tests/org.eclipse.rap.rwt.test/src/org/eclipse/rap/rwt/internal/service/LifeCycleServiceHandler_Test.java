@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,9 +26,14 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -36,9 +41,11 @@ import javax.servlet.http.HttpSession;
 
 import org.eclipse.rap.json.JsonArray;
 import org.eclipse.rap.json.JsonObject;
+import org.eclipse.rap.json.JsonValue;
 import org.eclipse.rap.rwt.client.WebClient;
 import org.eclipse.rap.rwt.internal.lifecycle.RequestCounter;
 import org.eclipse.rap.rwt.internal.protocol.ClientMessageConst;
+import org.eclipse.rap.rwt.internal.protocol.ProtocolMessageWriter;
 import org.eclipse.rap.rwt.internal.protocol.RequestMessage;
 import org.eclipse.rap.rwt.internal.protocol.ResponseMessage;
 import org.eclipse.rap.rwt.internal.remote.MessageChainElement;
@@ -54,6 +61,7 @@ import org.eclipse.rap.rwt.testfixture.internal.TestMessage;
 import org.eclipse.rap.rwt.testfixture.internal.TestRequest;
 import org.eclipse.rap.rwt.testfixture.internal.TestResponse;
 import org.eclipse.rap.rwt.testfixture.internal.TestResponseMessage;
+import org.eclipse.rap.rwt.testfixture.internal.TestServletOutputStream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -279,6 +287,31 @@ public class LifeCycleServiceHandler_Test {
     assertEquals( firstResponse, secondResponse );
   }
 
+  @Test
+  public void testSendBufferedResponse_withStreamingWriter() throws IOException {
+    ProtocolMessageWriter writer = new ProtocolMessageWriter( true );
+    writer.appendCreate( "w1", "rwt.widgets.Button" );
+    writer.appendSet( "w1", "text", "\u00e4\u20ac" );
+    writer.appendCall( "w1", "foo", null );
+    ResponseMessage responseMessage = writer.createMessage();
+    when( filter.handleMessage( any( RequestMessage.class ), any( MessageFilterChain.class ) ) )
+      .thenReturn( responseMessage );
+    simulateUiRequest();
+    int requestCounter = RequestCounter.getInstance().nextRequestId();
+    Fixture.fakeHeadParameter( "requestCounter", requestCounter );
+
+    service( serviceHandler );
+    String firstResponse = getResponse().getContent();
+
+    simulateUiRequest();
+    Fixture.fakeHeadParameter( "requestCounter", requestCounter );
+    service( serviceHandler );
+    String secondResponse = getResponse().getContent();
+
+    assertEquals( responseMessage.toJson().toString(), firstResponse );
+    assertEquals( firstResponse, secondResponse );
+  }
+
   @Test
   public void testWritesValidJson() throws IOException {
     simulateUiRequest();
@@ -366,6 +399,7 @@ public class LifeCycleServiceHandler_Test {
     simulateUiRequest();
     HttpServletResponse response = mock( HttpServletResponse.class );
     doThrow( new IOException() ).when( response ).getWriter();
+    doThrow( new IOException() ).when( response ).getOutputStream();
 
     try {
       serviceHandler.service( getRequest(), response );
@@ -375,6 +409,78 @@ public class LifeCycleServiceHandler_Test {
     assertNull( getUISession() );
   }
 
+  @Test
+  public void testUIRequest_compressesResponse() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 0, 1 );
+    simulateUiRequest();
+    getRequest().setHeader( "Accept-Encoding", "gzip" );
+
+    service( new LifeCycleServiceHandler( messageChainReference, compression ) );
+
+    TestResponse response = getResponse();
+    assertEquals( "gzip", response.getHeader( "Content-Encoding" ) );
+    assertEquals( "Accept-Encoding", response.getHeader( "Vary" ) );
+    JsonObject message = JsonObject.readFrom( decompress( getContentBytes( response ) ) );
+    assertEquals( JsonValue.TRUE, message.get( "head" ).asObject().get( "test" ) );
+    assertEquals( 1, compression.getCompressedResponseCount() );
+  }
+
+  @Test
+  public void testUIRequest_doesNotCompressWithoutAcceptEncoding() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 0, 1 );
+    simulateUiRequest();
+
+    service( new LifeCycleServiceHandler( messageChainReference, compression ) );
+
+    TestResponse response = getResponse();
+    assertNull( response.getHeader( "Content-Encoding" ) );
+    assertNotNull( JsonObject.readFrom( response.getContent() ).get( "head" ) );
+    assertEquals( 1, compression.getResponseCount() );
+    assertEquals( 0, compression.getCompressedResponseCount() );
+  }
+
+  @Test
+  public void testDuplicateRequest_compressesBufferedResponse() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 0, 1 );
+    LifeCycleServiceHandler handler = new LifeCycleServiceHandler( messageChainReference,
+                                                                   compression );
+    simulateUiRequest();
+    service( handler );
+    simulateUiRequestWithCounter( RequestCounter.getInstance().currentRequestId() - 1 );
+    getRequest().setHeader( "Accept-Encoding", "gzip" );
+
+    service( handler );
+
+    TestResponse response = getResponse();
+    assertEquals( "gzip", response.getHeader( "Content-Encoding" ) );
+    assertNotNull( JsonObject.readFrom( decompress( getContentBytes( response ) ) ) );
+  }
+
+  private static byte[] getContentBytes( TestResponse response ) throws IOException {
+    return ( ( TestServletOutputStream )response.getOutputStream() ).getContent().toByteArray();
+  }
+
+  private static String decompress( byte[] content ) throws IOException {
+    InputStream stream = new GZIPInputStream( new ByteArrayInputStream( content ) );
+    Reader reader = new InputStreamReader( stream, "UTF-8" );
+    StringBuilder result = new StringBuilder();
+    try {
+      int character = reader.read();
+      while( character != -1 ) {
+        result.append( ( char )character );
+        character = reader.read();
+      }
+    } finally {
+      reader.close();
+    }
+    return result.toString();
+  }
+
+  private void simulateUiRequestWithCounter( int requestCounter ) {
+    Fixture.fakeNewRequest();
+    Fixture.fakeHeadParameter( "requestCounter", requestCounter );
+  }
+
   private void simulateUiRequest() {
     Fixture.fakeNewRequest();
     Fixture.fakeHeadParameter( "requestCounter", RequestCounter.getInstance().currentRequestId() );
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.service.ResponseCompression.Sample;
+import org.eclipse.rap.rwt.testfixture.internal.TestRequest;
+import org.eclipse.rap.rwt.testfixture.internal.TestResponse;
+import org.eclipse.rap.rwt.testfixture.internal.TestServletOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ResponseCompression_Test {
+
+  private TestRequest request;
+  private TestResponse response;
+
+  @Before
+  public void setUp() {
+    request = new TestRequest();
+    request.setHeader( "Accept-Encoding", "gzip, deflate" );
+    response = new TestResponse();
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty( RWTProperties.RESPONSE_COMPRESSION );
+    System.clearProperty( RWTProperties.RESPONSE_COMPRESSION_THRESHOLD );
+    System.clearProperty( RWTProperties.RESPONSE_COMPRESSION_LEVEL );
+  }
+
+  @Test
+  public void testCreate_disabledByDefault() {
+    assertFalse( new ResponseCompression().isEnabled() );
+  }
+
+  @Test
+  public void testCreate_enabledBySystemProperty() {
+    System.setProperty( RWTProperties.RESPONSE_COMPRESSION, "true" );
+
+    assertTrue( new ResponseCompression().isEnabled() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testCreate_withNegativeThreshold() {
+    new ResponseCompression( true, -1, 1 );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testCreate_withInvalidLevel() {
+    new ResponseCompression( true, 0, 10 );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testCreate_withInvalidLevelProperty() {
+    System.setProperty( RWTProperties.RESPONSE_COMPRESSION_LEVEL, "0" );
+
+    new ResponseCompression();
+  }
+
+  @Test
+  public void testWrite_disabled() throws IOException {
+    ResponseCompression compression = new ResponseCompression( false, 0, 1 );
+
+    write( compression, createContent( 2000 ) );
+
+    assertNull( response.getHeader( "Content-Encoding" ) );
+    assertNull( response.getHeader( "Vary" ) );
+    assertArrayEquals( createContent( 2000 ), getContent() );
+  }
+
+  @Test
+  public void testWrite_belowThreshold() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 1024, 1 );
+
+    write( compression, createContent( 1024 ) );
+
+    assertNull( response.getHeader( "Content-Encoding" ) );
+    assertEquals( "Accept-Encoding", response.getHeader( "Vary" ) );
+    assertArrayEquals( createContent( 1024 ), getContent() );
+  }
+
+  @Test
+  public void testWrite_aboveThreshold() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 1024, 1 );
+
+    write( compression, createContent( 1025 ) );
+
+    assertEquals( "gzip", response.getHeader( "Content-Encoding" ) );
+    assertArrayEquals( createContent( 1025 ), decompress( getContent() ) );
+  }
+
+  @Test
+  public void testWrite_aboveThresholdInSmallChunks() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 100, 9 );
+    byte[] content = createContent( 5000 );
+
+    OutputStream stream = compression.createOutputStream( request, response );
+    for( int i = 0; i < content.length; i += 7 ) {
+      stream.write( content, i, Math.min( 7, content.length - i ) );
+    }
+    stream.close();
+
+    assertEquals( "gzip", response.getHeader( "Content-Encoding" ) );
+    assertArrayEquals( content, decompress( getContent() ) );
+  }
+
+  @Test
+  public void testWrite_notAccepted() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 0, 1 );
+    request.setHeader( "Accept-Encoding", "identity" );
+
+    write( compression, createContent( 2000 ) );
+
+    assertNull( response.getHeader( "Content-Encoding" ) );
+    assertArrayEquals( createContent( 2000 ), getContent() );
+  }
+
+  @Test
+  public void testWrite_singleBytes() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 10, 1 );
+
+    OutputStream stream = compression.createOutputStream( request, response );
+    for( byte value : createContent( 20 ) ) {
+      stream.write( value );
+    }
+    stream.close();
+
+    assertArrayEquals( createContent( 20 ), decompress( getContent() ) );
+  }
+
+  @Test
+  public void testStatistics() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 1024, 1 );
+
+    write( compression, createContent( 100 ) );
+    response = new TestResponse();
+    write( compression, createContent( 10000 ) );
+
+    assertEquals( 2, compression.getResponseCount() );
+    assertEquals( 1, compression.getCompressedResponseCount() );
+    assertEquals( 10100, compression.getRawBytes() );
+    assertEquals( 100 + getContent().length, compression.getWireBytes() );
+    assertTrue( compression.getWireBytes() < compression.getRawBytes() );
+  }
+
+  @Test
+  public void testGetSamples_recordsEachResponse() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 1024, 1 );
+
+    write( compression, createContent( 100 ) );
+    response = new TestResponse();
+    write( compression, createContent( 10000 ) );
+
+    List<Sample> samples = compression.getSamples();
+    assertEquals( 2, samples.size() );
+    assertEquals( 100, samples.get( 0 ).getRawBytes() );
+    assertEquals( 100, samples.get( 0 ).getWireBytes() );
+    assertFalse( samples.get( 0 ).isCompressed() );
+    assertEquals( 10000, samples.get( 1 ).getRawBytes() );
+    assertEquals( getContent().length, samples.get( 1 ).getWireBytes() );
+    assertTrue( samples.get( 1 ).isCompressed() );
+  }
+
+  @Test
+  public void testGetSamples_keepsMostRecentResponses() throws IOException {
+    ResponseCompression compression = new ResponseCompression( false, 1024, 1 );
+
+    for( int i = 1; i <= ResponseCompression.SAMPLE_COUNT + 10; i++ ) {
+      write( compression, createContent( i ) );
+    }
+
+    List<Sample> samples = compression.getSamples();
+    assertEquals( ResponseCompression.SAMPLE_COUNT, samples.size() );
+    assertEquals( 11, samples.get( 0 ).getRawBytes() );
+    assertEquals( ResponseCompression.SAMPLE_COUNT + 10,
+                  samples.get( samples.size() - 1 ).getRawBytes() );
+  }
+
+  @Test
+  public void testClose_twice() throws IOException {
+    ResponseCompression compression = new ResponseCompression( true, 0, 1 );
+    OutputStream stream = compression.createOutputStream( request, response );
+    stream.write( createContent( 100 ) );
+
+    stream.close();
+    stream.close();
+
+    assertEquals( 1, compression.getResponseCount() );
+  }
+
+  @Test
+  public void testClose_doesNotCloseResponseStream() throws IOException {
+    final boolean[] closed = { false };
+    final TestServletOutputStream outputStream = new TestServletOutputStream() {
+      @Override
+      public void close() {
+        closed[ 0 ] = true;
+      }
+    };
+    response = new TestResponse() {
+      @Override
+      public ServletOutputStream getOutputStream() {
+        return outputStream;
+      }
+    };
+    ResponseCompression compression = new ResponseCompression( true, 0, 1 );
+
+    write( compression, createContent( 100 ) );
+
+    assertFalse( closed[ 0 ] );
+  }
+
+  private void write( ResponseCompression compression, byte[] content ) throws IOException {
+    try( OutputStream stream = compression.createOutputStream( request, response ) ) {
+      stream.write( content );
+    }
+  }
+
+  private byte[] getContent() throws IOException {
+    return ( ( TestServletOutputStream )response.getOutputStream() ).getContent().toByteArray();
+  }
+
+  private static byte[] createContent( int length ) {
+    byte[] pattern = "{\"set\":[\"w23\",{\"text\":\"foo\"}]},".getBytes();
+    byte[] result = new byte[ length ];
+    for( int i = 0; i < length; i++ ) {
+      result[ i ] = pattern[ i % pattern.length ];
+    }
+    return result;
+  }
+
+  private static byte[] decompress( byte[] content ) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try( InputStream stream = new GZIPInputStream( new ByteArrayInputStream( content ) ) ) {
+      int read = stream.read();
+      while( read != -1 ) {
+        result.write( read );
+        read = stream.read();
+      }
+    }
+    return result.toByteArray();
+  }
+
+}
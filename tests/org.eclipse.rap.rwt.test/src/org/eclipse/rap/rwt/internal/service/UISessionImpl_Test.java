@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -181,6 +181,34 @@ public class UISessionImpl_Test {
     assertFalse( uiSession.isBound() );
   }
 
+  @Test
+  public void testReplaceWith_attachesReplacementToHttpSession() {
+    UISessionImpl replacement = new UISessionImpl( applicationContext, httpSession );
+
+    uiSession.replaceWith( replacement );
+
+    assertSame( replacement, UISessionImpl.getInstanceFromSession( httpSession, null ) );
+  }
+
+  @Test
+  public void testReplaceWith_removesApplicationContextListener() {
+    uiSession.replaceWith( new UISessionImpl( applicationContext, httpSession ) );
+
+    verify( applicationContext ).removeApplicationContextListener( same( uiSession ) );
+    assertNull( uiSession.getApplicationContext() );
+  }
+
+  @Test
+  public void testReplaceWith_doesNotDestroyReplacedInstance() {
+    UISessionListener listener = mock( UISessionListener.class );
+    uiSession.addUISessionListener( listener );
+    uiSession.replaceWith( new UISessionImpl( applicationContext, httpSession ) );
+
+    uiSession.valueUnbound( null );
+
+    verify( listener, never() ).beforeDestroy( any( UISessionEvent.class ) );
+  }
+
   @Test
   public void testGetId() {
     assertNotNull( uiSession.getId() );
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.textsize;
+
+import static org.eclipse.rap.rwt.internal.service.ContextProvider.getApplicationContext;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.rap.rwt.internal.theme.ThemeManager;
+import org.eclipse.rap.rwt.internal.theme.ThemeTestUtil;
+import org.eclipse.rap.rwt.testfixture.internal.FileUtil;
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Point;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TextSizeSnapshot_Test {
+
+  private static final FontData FONT_DATA = new FontData( "arial", 10, SWT.BOLD );
+  private static final int MODE = TextSizeUtil.STRING_EXTENT;
+  private static final long FINGERPRINT = 23;
+
+  private File tempDir;
+  private File file;
+  private TextSizeStorage storage;
+
+  @Before
+  public void setUp() {
+    Fixture.setUp();
+    tempDir = FileUtil.createTempDir();
+    file = new File( tempDir, "textsizes.bin" );
+    storage = new TextSizeStorage();
+  }
+
+  @After
+  public void tearDown() {
+    FileUtil.delete( tempDir );
+    Fixture.tearDown();
+  }
+
+  @Test
+  public void testLoad_withoutFile() throws IOException {
+    TextSizeSnapshot snapshot = new TextSizeSnapshot( storage, file );
+
+    assertFalse( snapshot.load( FINGERPRINT ) );
+  }
+
+  @Test
+  public void testSaveAndLoad_restoresTextSizes() throws IOException {
+    TextSizeKey key = createKey( "foo", SWT.DEFAULT );
+    TextSizeKey wrappedKey = createKey( "bar", 100 );
+    storage.storeTextSize( key, new Point( 10, 20 ) );
+    storage.storeTextSize( wrappedKey, new Point( 30, 40 ) );
+    new TextSizeSnapshot( storage, file ).save( FINGERPRINT );
+
+    TextSizeStorage restoredStorage = new TextSizeStorage();
+    boolean loaded = new TextSizeSnapshot( restoredStorage, file ).load( FINGERPRINT );
+
+    assertTrue( loaded );
+    assertEquals( new Point( 10, 20 ), restoredStorage.lookupTextSize( createKey( "foo", -1 ) ) );
+    assertEquals( new Point( 30, 40 ), restoredStorage.lookupTextSize( createKey( "bar", 100 ) ) );
+  }
+
+  @Test
+  public void testSaveAndLoad_restoresFonts() throws IOException {
+    storage.storeFont( FONT_DATA );
+    new TextSizeSnapshot( storage, file ).save( FINGERPRINT );
+
+    TextSizeStorage restoredStorage = new TextSizeStorage();
+    new TextSizeSnapshot( restoredStorage, file ).load( FINGERPRINT );
+
+    assertArrayEquals( new FontData[] { FONT_DATA }, restoredStorage.getFontList() );
+  }
+
+  @Test
+  public void testSaveAndLoad_withLongText() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for( int i = 0; i < 70000; i++ ) {
+      text.append( ( char )( 'a' + i % 26 ) );
+    }
+    storage.storeTextSize( createKey( text.toString(), SWT.DEFAULT ), new Point( 1, 2 ) );
+    new TextSizeSnapshot( storage, file ).save( FINGERPRINT );
+
+    TextSizeStorage restoredStorage = new TextSizeStorage();
+    new TextSizeSnapshot( restoredStorage, file ).load( FINGERPRINT );
+
+    TextSizeKey key = createKey( text.toString(), SWT.DEFAULT );
+    assertEquals( new Point( 1, 2 ), restoredStorage.lookupTextSize( key ) );
+  }
+
+  @Test
+  public void testSave_skipsForeignKeys() throws IOException {
+    storage.storeTextSize( Integer.valueOf( 1 ), new Point( 1, 1 ) );
+    new TextSizeSnapshot( storage, file ).save( FINGERPRINT );
+
+    TextSizeStorage restoredStorage = new TextSizeStorage();
+    boolean loaded = new TextSizeSnapshot( restoredStorage, file ).load( FINGERPRINT );
+
+    assertTrue( loaded );
+    assertEquals( 0, restoredStorage.getSize() );
+  }
+
+  @Test
+  public void testSave_replacesExistingFile() throws IOException {
+    storage.storeTextSize( createKey( "foo", SWT.DEFAULT ), new Point( 1, 1 ) );
+    new TextSizeSnapshot( storage, file ).save( FINGERPRINT );
+    storage.storeTextSize( createKey( "foo", SWT.DEFAULT ), new Point( 2, 2 ) );
+    new TextSizeSnapshot( storage, file ).save( FINGERPRINT );
+
+    TextSizeStorage restoredStorage = new TextSizeStorage();
+    new TextSizeSnapshot( restoredStorage, file ).load( FINGERPRINT );
+
+    assertEquals( new Point( 2, 2 ), restoredStorage.lookupTextSize( createKey( "foo", -1 ) ) );
+    assertEquals( 1, tempDir.list().length );
+  }
+
+  @Test
+  public void testLoad_ignoresDifferentFingerprint() throws IOException {
+    storage.storeFont( FONT_DATA );
+    storage.storeTextSize( createKey( "foo", SWT.DEFAULT ), new Point( 10, 20 ) );
+    new TextSizeSnapshot( storage, file ).save( FINGERPRINT );
+
+    TextSizeStorage restoredStorage = new TextSizeStorage();
+    boolean loaded = new TextSizeSnapshot( restoredStorage, file ).load( FINGERPRINT + 1 );
+
+    assertFalse( loaded );
+    assertNull( restoredStorage.lookupTextSize( createKey( "foo", SWT.DEFAULT ) ) );
+    assertEquals( 0, restoredStorage.getFontList().length );
+  }
+
+  @Test
+  public void testLoad_failsWithCorruptFile() throws IOException {
+    try( FileOutputStream stream = new FileOutputStream( file ) ) {
+      stream.write( new byte[] { 1, 2, 3 } );
+    }
+
+    try {
+      new TextSizeSnapshot( storage, file ).load( FINGERPRINT );
+      fail();
+    } catch( @SuppressWarnings( "unused" ) IOException expected ) {
+    }
+    assertEquals( 0, storage.getSize() );
+  }
+
+  @Test
+  public void testComputeFingerprint_isStable() {
+    ThemeManager themeManager = getApplicationContext().getThemeManager();
+
+    long fingerprint = TextSizeSnapshot.computeFingerprint( themeManager );
+
+    assertEquals( fingerprint, TextSizeSnapshot.computeFingerprint( themeManager ) );
+  }
+
+  @Test
+  public void testComputeFingerprint_changesWithThemeFonts() throws IOException {
+    ThemeManager themeManager = getApplicationContext().getThemeManager();
+    ThemeTestUtil.registerTheme( "custom", "Label { font: 12px Arial; }", null );
+    long fingerprint = TextSizeSnapshot.computeFingerprint( themeManager );
+
+    ThemeTestUtil.registerTheme( "custom", "Label { font: 14px Arial; }", null );
+
+    assertFalse( fingerprint == TextSizeSnapshot.computeFingerprint( themeManager ) );
+  }
+
+  @Test
+  public void testComputeFingerprint_changesWithThemes() throws IOException {
+    ThemeManager themeManager = getApplicationContext().getThemeManager();
+    long fingerprint = TextSizeSnapshot.computeFingerprint( themeManager );
+
+    ThemeTestUtil.registerTheme( "custom", "Label { font: 12px Arial; }", null );
+
+    assertFalse( fingerprint == TextSizeSnapshot.computeFingerprint( themeManager ) );
+  }
+
+  private static TextSizeKey createKey( String text, int wrapWidth ) {
+    ProbeResult probeResult = new ProbeResult( new Probe( FONT_DATA ), new Point( 5, 12 ) );
+    return new TextSizeKey( probeResult, FONT_DATA, text, wrapWidth, MODE );
+  }
+
+}
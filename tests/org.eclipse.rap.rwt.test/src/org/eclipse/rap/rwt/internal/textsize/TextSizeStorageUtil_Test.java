@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2014 Frank Appel and others.
+ * Copyright (c) 2011, 2017 Frank Appel and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -106,7 +106,7 @@ public class TextSizeStorageUtil_Test {
 
   @Test
   public void testGetKey() {
-    Set<Integer> takenKeys = new HashSet<Integer>();
+    Set<TextSizeKey> takenKeys = new HashSet<TextSizeKey>();
     StringBuilder generatedText = new StringBuilder();
     for( int i = 0; i < 100; i++ ) {
       generatedText.append( "a" );
@@ -114,10 +114,46 @@ public class TextSizeStorageUtil_Test {
       Probe probe = new Probe( text, FONT_DATA );
       Point size = new Point( 1, 2 );
       ProbeResultStore.getInstance().createProbeResult( probe, size );
-      Integer key = TextSizeStorageUtil.getKey( FONT_DATA, text, SWT.DEFAULT, MODE );
+      TextSizeKey key = TextSizeStorageUtil.getKey( FONT_DATA, text, SWT.DEFAULT, MODE );
       assertFalse( takenKeys.contains( key ) );
       takenKeys.add( key );
     }
   }
 
+  @Test
+  public void testStoreAndLookup_withCollidingHashCodes() {
+    ProbeResultStore probeResultStore = ProbeResultStore.getInstance();
+    probeResultStore.createProbeResult( new Probe( FONT_DATA ), new Point( 2, 10 ) );
+    // "Aa" and "BB" have the same hash code
+    TextSizeStorageUtil.store( FONT_DATA, "Aa", SWT.DEFAULT, MODE, new Point( 10, 10 ) );
+
+    Point lookupSize = TextSizeStorageUtil.lookup( FONT_DATA, "BB", SWT.DEFAULT, MODE );
+
+    assertNull( lookupSize );
+  }
+
+  @Test
+  public void testGetKey_equalForSameParameters() {
+    ProbeResultStore probeResultStore = ProbeResultStore.getInstance();
+    probeResultStore.createProbeResult( new Probe( FONT_DATA ), new Point( 2, 10 ) );
+
+    TextSizeKey key = TextSizeStorageUtil.getKey( FONT_DATA, TEST_STRING, 10, MODE );
+    TextSizeKey otherKey = TextSizeStorageUtil.getKey( FONT_DATA, TEST_STRING, 10, MODE );
+
+    assertEquals( key, otherKey );
+    assertEquals( key.hashCode(), otherKey.hashCode() );
+  }
+
+  @Test
+  public void testGetKey_differsForCollidingStrings() {
+    ProbeResultStore probeResultStore = ProbeResultStore.getInstance();
+    probeResultStore.createProbeResult( new Probe( FONT_DATA ), new Point( 2, 10 ) );
+
+    TextSizeKey key = TextSizeStorageUtil.getKey( FONT_DATA, "Aa", SWT.DEFAULT, MODE );
+    TextSizeKey otherKey = TextSizeStorageUtil.getKey( FONT_DATA, "BB", SWT.DEFAULT, MODE );
+
+    assertEquals( key.hashCode(), otherKey.hashCode() );
+    assertFalse( key.equals( otherKey ) );
+  }
+
 }
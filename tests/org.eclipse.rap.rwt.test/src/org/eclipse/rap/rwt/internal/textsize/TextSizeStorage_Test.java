@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 Frank Appel and others.
+ * Copyright (c) 2011, 2017 Frank Appel and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,8 +17,12 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
+import org.eclipse.rap.rwt.testfixture.internal.ConcurrencyTestUtil;
 import org.eclipse.rap.rwt.testfixture.internal.Fixture;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.FontData;
@@ -117,6 +121,97 @@ public class TextSizeStorage_Test {
     assertEquals( 20000, storage.getMaximumStoreSize() );
   }
 
+  @Test
+  public void testLookupTextSize_countsHitsAndMisses() {
+    storage.storeTextSize( KEY_FIRST, SIZE_FIRST );
+
+    storage.lookupTextSize( KEY_FIRST );
+    storage.lookupTextSize( KEY_FIRST );
+    storage.lookupTextSize( KEY_OVERFLOW );
+
+    assertEquals( 2, storage.getHitCount() );
+    assertEquals( 1, storage.getMissCount() );
+  }
+
+  @Test
+  public void testStoreTextSize_replacesExistingEntry() {
+    storage.storeTextSize( KEY_FIRST, SIZE_FIRST );
+
+    storage.storeTextSize( KEY_FIRST, SIZE_OVERFLOW );
+
+    assertEquals( SIZE_OVERFLOW, storage.lookupTextSize( KEY_FIRST ) );
+    assertEquals( 1, storage.getSize() );
+  }
+
+  @Test
+  public void testStoreTextSize_replacingKeepsPositionInQueue() {
+    storage.storeTextSize( KEY_FIRST, SIZE_FIRST );
+    storage.storeTextSize( KEY_OVERFLOW, SIZE_OVERFLOW );
+
+    for( int i = 0; i < 100; i++ ) {
+      storage.storeTextSize( KEY_FIRST, SIZE_OVERFLOW );
+    }
+
+    List<Object> keys = new ArrayList<>( storage.getTextSizes().keySet() );
+    assertEquals( Arrays.asList( KEY_FIRST, KEY_OVERFLOW ), keys );
+  }
+
+  @Test
+  public void testStorageOverflowHandling_countsEvictions() {
+    populateUntilOverflowThresholdIsReached();
+
+    forceOverflow();
+
+    assertEquals( 100, storage.getEvictionCount() );
+    assertEquals( TextSizeStorage.MIN_STORE_SIZE - 100, storage.getSize() );
+  }
+
+  @Test
+  public void testStorageOverflowHandling_withReplacedEntries() {
+    populateUntilOverflowThresholdIsReached();
+    for( int i = 0; i < 10; i++ ) {
+      storage.storeTextSize( new Integer( i ), new Point( -i, -i ) );
+    }
+
+    forceOverflow();
+
+    assertEquals( TextSizeStorage.MIN_STORE_SIZE - 100, storage.getSize() );
+    assertEquals( new Point( -5, -5 ), storage.lookupTextSize( new Integer( 5 ) ) );
+    assertNull( storage.lookupTextSize( new Integer( 109 ) ) );
+  }
+
+  @Test
+  public void testConcurrentAccess() throws InterruptedException {
+    storage.setMaximumStoreSize( TextSizeStorage.MIN_STORE_SIZE );
+    final int keyCount = TextSizeStorage.MIN_STORE_SIZE * 3;
+    final List<Throwable> exceptions = Collections.synchronizedList( new ArrayList<Throwable>() );
+    Runnable runnable = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for( int i = 0; i < 10000; i++ ) {
+            Integer key = Integer.valueOf( i % keyCount );
+            Point size = storage.lookupTextSize( key );
+            if( size == null ) {
+              storage.storeTextSize( key, new Point( key.intValue(), 1 ) );
+            } else {
+              assertEquals( key.intValue(), size.x );
+            }
+          }
+        } catch( Throwable throwable ) {
+          exceptions.add( throwable );
+        }
+      }
+    };
+
+    Thread[] threads = ConcurrencyTestUtil.startThreads( 8, runnable );
+    ConcurrencyTestUtil.joinThreads( threads );
+
+    assertTrue( exceptions.isEmpty() );
+    // stores that happen while another thread evicts may exceed the limit temporarily
+    assertTrue( storage.getSize() <= TextSizeStorage.MIN_STORE_SIZE + 8 );
+  }
+
   private void populateUntilOverflowThresholdIsReached() {
     storage.setMaximumStoreSize( TextSizeStorage.MIN_STORE_SIZE );
     for( int i = 0; i < TextSizeStorage.MIN_STORE_SIZE - 1; i++ ) {
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.theme;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ThemeLookupStatistics_Test {
+
+  private ThemeLookupStatistics statistics;
+
+  @Before
+  public void setUp() {
+    Fixture.setUp();
+    statistics = new ThemeLookupStatistics();
+  }
+
+  @After
+  public void tearDown() {
+    Fixture.tearDown();
+  }
+
+  @Test
+  public void testInitialCounts() {
+    assertEquals( 0, statistics.getLookupCount() );
+    assertEquals( 0, statistics.getFallbackCount() );
+    assertEquals( 0, statistics.getRequestCount() );
+    assertEquals( 0, statistics.getRequestLookupCount() );
+  }
+
+  @Test
+  public void testCountLookup() {
+    statistics.countLookup();
+    statistics.countLookup();
+
+    assertEquals( 2, statistics.getLookupCount() );
+    assertEquals( 1, statistics.getRequestCount() );
+    assertEquals( 2, statistics.getRequestLookupCount() );
+  }
+
+  @Test
+  public void testCountLookup_inNewRequest() {
+    statistics.countLookup();
+    statistics.countLookup();
+
+    Fixture.fakeNewRequest();
+    statistics.countLookup();
+
+    assertEquals( 3, statistics.getLookupCount() );
+    assertEquals( 2, statistics.getRequestCount() );
+    assertEquals( 1, statistics.getRequestLookupCount() );
+  }
+
+  @Test
+  public void testCountFallback() {
+    statistics.countFallback();
+
+    assertEquals( 1, statistics.getFallbackCount() );
+  }
+
+  @Test
+  public void testToString() {
+    statistics.countLookup();
+    statistics.countLookup();
+    statistics.countFallback();
+
+    String expected = "ThemeLookupStatistics{lookups=2, fallbacks=1, requests=1, lookupsPerRequest=2}";
+    assertEquals( expected, statistics.toString() );
+  }
+
+}
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.theme;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.rap.rwt.internal.theme.ThemeSnapshot.Entry;
+import org.eclipse.rap.rwt.testfixture.internal.FileUtil;
+import org.eclipse.swt.widgets.Button;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ThemeSnapshot_Test {
+
+  private static final String BUTTON = Button.class.getName();
+
+  private File tempDir;
+  private File file;
+
+  @Before
+  public void setUp() {
+    tempDir = FileUtil.createTempDir();
+    file = new File( tempDir, "theme.bin" );
+  }
+
+  @After
+  public void tearDown() {
+    FileUtil.delete( tempDir );
+  }
+
+  @Test
+  public void testLoad_withoutFile() throws IOException {
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+
+    assertFalse( snapshot.load() );
+    assertFalse( snapshot.isModified() );
+  }
+
+  @Test
+  public void testPut_marksModified() {
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+
+    snapshot.put( "foo", createEntry( null, null ) );
+
+    assertTrue( snapshot.isModified() );
+  }
+
+  @Test
+  public void testSave_resetsModified() throws IOException {
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+    snapshot.put( "foo", createEntry( null, null ) );
+
+    snapshot.save();
+
+    assertTrue( file.isFile() );
+    assertFalse( snapshot.isModified() );
+  }
+
+  @Test
+  public void testSaveAndLoad_restoresEntries() throws IOException {
+    CssElement element = new CssElementImpl( "Foo" )
+      .addProperty( "color" )
+      .addProperty( "font" )
+      .addStyle( "BORDER" )
+      .addState( "hover" );
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+    snapshot.put( "foo", createEntry( new CssElement[] { element }, "appearances" ) );
+    snapshot.save();
+
+    ThemeSnapshot restored = new ThemeSnapshot( file );
+    boolean loaded = restored.load();
+
+    assertTrue( loaded );
+    assertFalse( restored.isModified() );
+    Entry entry = restored.get( "foo" );
+    assertEquals( "path/Foo", entry.path );
+    assertEquals( 1, entry.themeDefChecksum );
+    assertEquals( 2, entry.appearanceChecksum );
+    assertEquals( "appearances", entry.appearance );
+    assertEquals( 1, entry.elements.length );
+    assertEquals( "Foo", entry.elements[ 0 ].getName() );
+    assertArrayEquals( new String[] { "color", "font" }, entry.elements[ 0 ].getProperties() );
+    assertArrayEquals( new String[] { "BORDER" }, entry.elements[ 0 ].getStyles() );
+    assertArrayEquals( new String[] { "hover" }, entry.elements[ 0 ].getStates() );
+  }
+
+  @Test
+  public void testSaveAndLoad_withoutElementsAndAppearance() throws IOException {
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+    snapshot.put( "foo", createEntry( null, null ) );
+    snapshot.save();
+
+    ThemeSnapshot restored = new ThemeSnapshot( file );
+    restored.load();
+
+    assertNull( restored.get( "foo" ).elements );
+    assertNull( restored.get( "foo" ).appearance );
+  }
+
+  @Test
+  public void testSaveAndLoad_withLongAppearance() throws IOException {
+    StringBuilder appearance = new StringBuilder();
+    for( int i = 0; i < 70000; i++ ) {
+      appearance.append( ( char )( 'a' + i % 26 ) );
+    }
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+    snapshot.put( "foo", createEntry( null, appearance.toString() ) );
+    snapshot.save();
+
+    ThemeSnapshot restored = new ThemeSnapshot( file );
+    restored.load();
+
+    assertEquals( appearance.toString(), restored.get( "foo" ).appearance );
+  }
+
+  @Test
+  public void testLoad_ignoresDifferentVersion() throws IOException {
+    try( DataOutputStream output
+           = new DataOutputStream( new GZIPOutputStream( new FileOutputStream( file ) ) ) )
+    {
+      output.writeInt( ThemeSnapshot.MAGIC );
+      output.writeInt( ThemeSnapshot.VERSION + 1 );
+    }
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+
+    assertFalse( snapshot.load() );
+  }
+
+  @Test
+  public void testLoad_failsWithCorruptFile() throws IOException {
+    try( FileOutputStream stream = new FileOutputStream( file ) ) {
+      stream.write( new byte[] { 1, 2, 3 } );
+    }
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+
+    try {
+      snapshot.load();
+      fail();
+    } catch( IOException expected ) {
+    }
+  }
+
+  @Test
+  public void testChecksum_ofMissingResource() {
+    assertEquals( ThemeSnapshot.MISSING, ThemeSnapshot.checksum( null ) );
+    assertTrue( ThemeSnapshot.checksum( new byte[ 0 ] ) != ThemeSnapshot.MISSING );
+  }
+
+  @Test
+  public void testActivate_addsEntries() {
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+
+    activateThemeManager( snapshot );
+
+    assertTrue( snapshot.isModified() );
+    Entry entry = snapshot.get( BUTTON );
+    assertNotNull( entry );
+    assertEquals( "org/eclipse/swt/internal/widgets/buttonkit/Button", entry.path );
+    assertNotNull( entry.elements );
+    assertNotNull( entry.appearance );
+  }
+
+  @Test
+  public void testActivate_restoresEntries() throws IOException {
+    ThemeSnapshot initialSnapshot = new ThemeSnapshot( file );
+    ThemeManager themeManager = activateThemeManager( initialSnapshot );
+    initialSnapshot.save();
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+    snapshot.load();
+
+    ThemeManager restoredThemeManager = activateThemeManager( snapshot );
+
+    assertFalse( snapshot.isModified() );
+    assertEquals( themeManager.getAppearances(), restoredThemeManager.getAppearances() );
+    ThemeableWidget[] widgets = themeManager.getAllThemeableWidgets();
+    ThemeableWidget[] restoredWidgets = restoredThemeManager.getAllThemeableWidgets();
+    assertEquals( widgets.length, restoredWidgets.length );
+    for( int i = 0; i < widgets.length; i++ ) {
+      assertEquals( getNames( widgets[ i ].elements ), getNames( restoredWidgets[ i ].elements ) );
+      assertEquals( widgets[ i ].defaultStyleSheet != null,
+                    restoredWidgets[ i ].defaultStyleSheet != null );
+    }
+  }
+
+  @Test
+  public void testActivate_restoresValues() throws IOException {
+    ThemeSnapshot initialSnapshot = new ThemeSnapshot( file );
+    ThemeManager themeManager = activateThemeManager( initialSnapshot );
+    initialSnapshot.save();
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+    snapshot.load();
+
+    ThemeManager restoredThemeManager = activateThemeManager( snapshot );
+
+    CssValuesMap valuesMap = themeManager.getTheme( ThemeManager.FALLBACK_THEME_ID ).getValuesMap();
+    CssValuesMap restoredValuesMap
+      = restoredThemeManager.getTheme( ThemeManager.FALLBACK_THEME_ID ).getValuesMap();
+    assertArrayEquals( valuesMap.getAllValues(), restoredValuesMap.getAllValues() );
+  }
+
+  @Test
+  public void testActivate_withChangedResource() {
+    ThemeSnapshot snapshot = new ThemeSnapshot( file );
+    CssElement[] staleElements = { new CssElementImpl( "Stale" ) };
+    Entry staleEntry = new Entry( "org/eclipse/swt/internal/widgets/buttonkit/Button",
+                                  0,
+                                  staleElements,
+                                  0,
+                                  "stale" );
+    snapshot.put( BUTTON, staleEntry );
+
+    ThemeManager themeManager = activateThemeManager( snapshot );
+
+    assertTrue( snapshot.isModified() );
+    Entry entry = snapshot.get( BUTTON );
+    assertTrue( entry != staleEntry );
+    assertSame( entry.elements, getButton( themeManager ).elements );
+    assertFalse( themeManager.getAppearances().contains( "stale" ) );
+  }
+
+  private static ThemeManager activateThemeManager( ThemeSnapshot snapshot ) {
+    ThemeManager result = new ThemeManager();
+    result.initialize();
+    result.activate( snapshot );
+    return result;
+  }
+
+  private static ThemeableWidget getButton( ThemeManager themeManager ) {
+    for( ThemeableWidget widget : themeManager.getAllThemeableWidgets() ) {
+      if( BUTTON.equals( widget.className ) ) {
+        return widget;
+      }
+    }
+    return null;
+  }
+
+  private static String getNames( CssElement[] elements ) {
+    StringBuilder result = new StringBuilder();
+    if( elements != null ) {
+      for( CssElement element : elements ) {
+        result.append( element.getName() ).append( ' ' );
+      }
+    }
+    return result.toString();
+  }
+
+  private static Entry createEntry( CssElement[] elements, String appearance ) {
+    return new Entry( "path/Foo", 1, elements, 2, appearance );
+  }
+
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.theme;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.internal.theme.WidgetMatcher.Constraint;
+import org.eclipse.rap.rwt.internal.theme.css.ConditionalValue;
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Widget;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class WidgetMatcher_Test {
+
+  private static final CssValue RED = CssColor.valueOf( "red" );
+  private static final CssValue GREEN = CssColor.valueOf( "green" );
+  private static final CssValue BLUE = CssColor.valueOf( "blue" );
+  private static final CssValue BLACK = CssColor.valueOf( "black" );
+
+  private Shell shell;
+  private WidgetMatcher matcher;
+
+  @Before
+  public void setUp() {
+    Fixture.setUp();
+    shell = new Shell( new Display() );
+    matcher = new WidgetMatcher();
+    matcher.addStyle( "BORDER", SWT.BORDER );
+    matcher.addStyle( "PUSH", SWT.PUSH );
+    matcher.addState( "disabled", new Constraint() {
+      @Override
+      public boolean matches( Widget widget ) {
+        return !( ( Button )widget ).isEnabled();
+      }
+    } );
+  }
+
+  @After
+  public void tearDown() {
+    Fixture.tearDown();
+  }
+
+  @Test
+  public void testSelect_withoutConstraints() {
+    Button button = new Button( shell, SWT.NONE );
+
+    assertSame( BLACK, matcher.select( button, new ConditionalValue( BLACK ) ) );
+  }
+
+  @Test
+  public void testSelect_returnsFirstMatchingValue() {
+    ConditionalValue[] values = {
+      new ConditionalValue( RED, "[BORDER", ":disabled" ),
+      new ConditionalValue( GREEN, "[BORDER" ),
+      new ConditionalValue( BLACK )
+    };
+    Button button = new Button( shell, SWT.BORDER );
+
+    assertSame( GREEN, matcher.select( button, values ) );
+    button.setEnabled( false );
+    assertSame( RED, matcher.select( button, values ) );
+    assertSame( BLACK, matcher.select( new Button( shell, SWT.NONE ), values ) );
+  }
+
+  @Test
+  public void testSelect_withVariant() {
+    ConditionalValue[] values = {
+      new ConditionalValue( RED, ".special", "[BORDER" ),
+      new ConditionalValue( GREEN, ".special" ),
+      new ConditionalValue( BLUE, ".other" ),
+      new ConditionalValue( BLACK )
+    };
+    Button button = new Button( shell, SWT.NONE );
+
+    assertSame( BLACK, matcher.select( button, values ) );
+    button.setData( RWT.CUSTOM_VARIANT, "special" );
+    assertSame( GREEN, matcher.select( button, values ) );
+    button.setData( RWT.CUSTOM_VARIANT, "other" );
+    assertSame( BLUE, matcher.select( button, values ) );
+    button.setData( RWT.CUSTOM_VARIANT, "unknown" );
+    assertSame( BLACK, matcher.select( button, values ) );
+  }
+
+  @Test
+  public void testSelect_withUnknownConstraint() {
+    ConditionalValue[] values = {
+      new ConditionalValue( RED, ":unknown" ),
+      new ConditionalValue( BLACK )
+    };
+
+    assertSame( BLACK, matcher.select( new Button( shell, SWT.NONE ), values ) );
+  }
+
+  @Test
+  public void testSelect_withoutMatch() {
+    ConditionalValue[] values = {
+      new ConditionalValue( RED, "[BORDER" )
+    };
+
+    assertNull( matcher.select( new Button( shell, SWT.NONE ), values ) );
+    assertNull( matcher.select( new Button( shell, SWT.NONE ), values ) );
+  }
+
+  @Test
+  public void testSelect_withManyConstraints() {
+    ConditionalValue[] values = new ConditionalValue[ 70 ];
+    for( int i = 0; i < values.length - 1; i++ ) {
+      values[ i ] = new ConditionalValue( RED, ".variant" + i );
+    }
+    values[ values.length - 1 ] = new ConditionalValue( BLACK );
+    Button button = new Button( shell, SWT.NONE );
+
+    assertSame( BLACK, matcher.select( button, values ) );
+    button.setData( RWT.CUSTOM_VARIANT, "variant68" );
+    assertSame( RED, matcher.select( button, values ) );
+  }
+
+  @Test
+  public void testSelect_isIndependentOfPreviousWidgets() {
+    ConditionalValue[] values = {
+      new ConditionalValue( RED, "[BORDER", "[PUSH" ),
+      new ConditionalValue( GREEN, "[PUSH" ),
+      new ConditionalValue( BLACK )
+    };
+
+    assertSame( RED, matcher.select( new Button( shell, SWT.PUSH | SWT.BORDER ), values ) );
+    assertSame( GREEN, matcher.select( new Button( shell, SWT.PUSH ), values ) );
+    assertSame( RED, matcher.select( new Button( shell, SWT.PUSH | SWT.BORDER ), values ) );
+    assertSame( BLACK, matcher.select( new Button( shell, SWT.CHECK ), values ) );
+  }
+
+}
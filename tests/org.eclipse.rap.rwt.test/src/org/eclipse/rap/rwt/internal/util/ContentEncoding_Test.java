@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.rap.rwt.internal.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.rap.rwt.testfixture.internal.TestRequest;
+import org.junit.Test;
+
+
+public class ContentEncoding_Test {
+
+  @Test
+  public void testAcceptsGzip_withoutHeader() {
+    assertFalse( ContentEncoding.acceptsGzip( new TestRequest() ) );
+  }
+
+  @Test
+  public void testAcceptsGzip_withHeader() {
+    TestRequest request = new TestRequest();
+    request.setHeader( "Accept-Encoding", "gzip, deflate, br" );
+
+    assertTrue( ContentEncoding.acceptsGzip( request ) );
+  }
+
+  @Test
+  public void testAccepts() {
+    assertTrue( ContentEncoding.accepts( "gzip", "gzip" ) );
+    assertTrue( ContentEncoding.accepts( "GZIP", "gzip" ) );
+    assertTrue( ContentEncoding.accepts( "deflate, gzip;q=0.5", "gzip" ) );
+    assertTrue( ContentEncoding.accepts( "*", "gzip" ) );
+    assertFalse( ContentEncoding.accepts( "", "gzip" ) );
+    assertFalse( ContentEncoding.accepts( "identity", "gzip" ) );
+    assertFalse( ContentEncoding.accepts( "gzip;q=0", "gzip" ) );
+    assertFalse( ContentEncoding.accepts( "gzip; q=0.0", "gzip" ) );
+    assertFalse( ContentEncoding.accepts( "*;q=0", "gzip" ) );
+    assertFalse( ContentEncoding.accepts( "*, gzip;q=0", "gzip" ) );
+    assertFalse( ContentEncoding.accepts( "gzip;q=invalid", "gzip" ) );
+  }
+
+  @Test
+  public void testGzip() throws IOException {
+    byte[] content = "foo foo foo foo foo foo foo foo".getBytes( "UTF-8" );
+
+    byte[] compressed = ContentEncoding.gzip( content );
+
+    assertArrayEquals( content, decompress( compressed ) );
+  }
+
+  private static byte[] decompress( byte[] content ) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try( InputStream stream = new GZIPInputStream( new ByteArrayInputStream( content ) ) ) {
+      int read = stream.read();
+      while( read != -1 ) {
+        result.write( read );
+        read = stream.read();
+      }
+    }
+    return result.toByteArray();
+  }
+
+}
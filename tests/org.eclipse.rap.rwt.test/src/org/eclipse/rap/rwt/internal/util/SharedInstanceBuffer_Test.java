@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 EclipseSource and others.
+ * Copyright (c) 2011, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,21 @@
  ******************************************************************************/
 package org.eclipse.rap.rwt.internal.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.rap.rwt.internal.util.SharedInstanceBuffer.InstanceCreator;
 import org.junit.Before;
 import org.junit.Test;
@@ -81,6 +88,139 @@ public class SharedInstanceBuffer_Test {
     assertSame( returnedValue, value );
   }
 
+  @Test
+  public void testGet_doesNotCacheFailedCreation() {
+    InstanceCreator<Object, Object> instanceCreator = mockInstanceCreator( value );
+    when( instanceCreator.createInstance( key ) )
+      .thenThrow( new IllegalStateException() )
+      .thenReturn( value );
+    try {
+      keyValueStore.get( key, instanceCreator );
+      fail();
+    } catch( IllegalStateException expected ) {
+    }
+
+    Object returnedValue = keyValueStore.get( key, instanceCreator );
+
+    assertSame( value, returnedValue );
+  }
+
+  @Test
+  public void testGet_createsInstanceOnceForConcurrentRequests() throws Exception {
+    final CountDownLatch creating = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final AtomicInteger creations = new AtomicInteger();
+    final InstanceCreator<Object, Object> instanceCreator = new InstanceCreator<Object, Object>() {
+      @Override
+      public Object createInstance( Object key ) {
+        creations.incrementAndGet();
+        creating.countDown();
+        await( release );
+        return value;
+      }
+    };
+    final Object[] results = new Object[ 2 ];
+    Thread first = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        results[ 0 ] = keyValueStore.get( key, instanceCreator );
+      }
+    } );
+    Thread second = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        await( creating );
+        results[ 1 ] = keyValueStore.get( key, instanceCreator );
+      }
+    } );
+    first.start();
+    second.start();
+
+    release.countDown();
+    first.join();
+    second.join();
+
+    assertEquals( 1, creations.get() );
+    assertSame( value, results[ 0 ] );
+    assertSame( value, results[ 1 ] );
+  }
+
+  @Test
+  public void testGet_sharesInstanceCreatedAfterFailedConcurrentCreation() throws Exception {
+    final CountDownLatch creating = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final AtomicInteger creations = new AtomicInteger();
+    final InstanceCreator<Object, Object> instanceCreator = new InstanceCreator<Object, Object>() {
+      @Override
+      public Object createInstance( Object key ) {
+        if( creations.incrementAndGet() == 1 ) {
+          creating.countDown();
+          await( release );
+          throw new IllegalStateException();
+        }
+        return new Object();
+      }
+    };
+    Thread failing = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        try {
+          keyValueStore.get( key, instanceCreator );
+        } catch( @SuppressWarnings( "unused" ) IllegalStateException expected ) {
+        }
+      }
+    } );
+    final Object[] results = new Object[ 1 ];
+    Thread waiting = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        results[ 0 ] = keyValueStore.get( key, instanceCreator );
+      }
+    } );
+    failing.start();
+    await( creating );
+    waiting.start();
+    while( waiting.getState() != Thread.State.BLOCKED ) {
+      Thread.yield();
+    }
+
+    release.countDown();
+    failing.join();
+    waiting.join();
+    Object returnedValue = keyValueStore.get( key, instanceCreator );
+
+    assertSame( results[ 0 ], returnedValue );
+    assertEquals( 2, creations.get() );
+  }
+
+  @Test
+  public void testGet_doesNotBlockOtherKeysDuringCreation() throws Exception {
+    final CountDownLatch creating = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    Thread thread = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        keyValueStore.get( key, new InstanceCreator<Object, Object>() {
+          @Override
+          public Object createInstance( Object key ) {
+            creating.countDown();
+            await( release );
+            return value;
+          }
+        } );
+      }
+    } );
+    thread.start();
+    await( creating );
+
+    Object otherValue = new Object();
+    Object returnedValue = keyValueStore.get( new Object(), mockInstanceCreator( otherValue ) );
+
+    release.countDown();
+    thread.join();
+    assertSame( otherValue, returnedValue );
+  }
+
   @Test
   public void testRemove_acceptsNonExistingKey() {
     Object removedValue = keyValueStore.remove( new Object() );
@@ -106,6 +246,14 @@ public class SharedInstanceBuffer_Test {
     assertSame( value, removed );
   }
 
+  private static void await( CountDownLatch latch ) {
+    try {
+      assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+    } catch( InterruptedException exception ) {
+      throw new RuntimeException( exception );
+    }
+  }
+
   @SuppressWarnings( "unchecked" )
   private static InstanceCreator<Object, Object> mockInstanceCreator( Object value ) {
     InstanceCreator mock = mock( InstanceCreator.class );
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+import org.junit.Test;
+
+
+public class ImageHeader_Test {
+
+  private static final ClassLoader CLASS_LOADER = ImageHeader_Test.class.getClassLoader();
+
+  @Test
+  public void testRead_png() throws IOException {
+    ImageHeader header = ImageHeader.read( readResource( Fixture.IMAGE_100x50 ) );
+
+    assertEquals( SWT.IMAGE_PNG, header.type );
+    assertEquals( 100, header.width );
+    assertEquals( 50, header.height );
+  }
+
+  @Test
+  public void testRead_gif() throws IOException {
+    byte[] bytes = readResource( Fixture.IMAGE1 );
+    ImageData imageData = new ImageData( new ByteArrayInputStream( bytes ) );
+
+    ImageHeader header = ImageHeader.read( bytes );
+
+    assertEquals( SWT.IMAGE_GIF, header.type );
+    assertEquals( imageData.width, header.width );
+    assertEquals( imageData.height, header.height );
+  }
+
+  @Test
+  public void testRead_jpeg() {
+    ImageHeader header = ImageHeader.read( encode( 30, 20, SWT.IMAGE_JPEG ) );
+
+    assertEquals( SWT.IMAGE_JPEG, header.type );
+    assertEquals( 30, header.width );
+    assertEquals( 20, header.height );
+  }
+
+  @Test
+  public void testRead_bmp() {
+    ImageHeader header = ImageHeader.read( encode( 30, 20, SWT.IMAGE_BMP ) );
+
+    assertEquals( SWT.IMAGE_BMP, header.type );
+    assertEquals( 30, header.width );
+    assertEquals( 20, header.height );
+  }
+
+  @Test
+  public void testRead_empty() {
+    assertNull( ImageHeader.read( new byte[ 0 ] ) );
+  }
+
+  @Test
+  public void testRead_unknownFormat() {
+    assertNull( ImageHeader.read( "not an image".getBytes() ) );
+  }
+
+  @Test
+  public void testRead_truncatedHeader() throws IOException {
+    byte[] bytes = readResource( Fixture.IMAGE_100x50 );
+
+    assertNull( ImageHeader.read( Arrays.copyOf( bytes, 20 ) ) );
+  }
+
+  @Test
+  public void testRead_truncatedJpeg() {
+    byte[] bytes = encode( 30, 20, SWT.IMAGE_JPEG );
+
+    assertNull( ImageHeader.read( Arrays.copyOf( bytes, 4 ) ) );
+  }
+
+  private static byte[] encode( int width, int height, int format ) {
+    ImageLoader imageLoader = new ImageLoader();
+    imageLoader.data = new ImageData[] {
+      new ImageData( width, height, 24, new PaletteData( 0xFF0000, 0xFF00, 0xFF ) )
+    };
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    imageLoader.save( outputStream, format );
+    return outputStream.toByteArray();
+  }
+
+  private static byte[] readResource( String name ) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try( InputStream inputStream = CLASS_LOADER.getResourceAsStream( name ) ) {
+      byte[] buffer = new byte[ 1024 ];
+      int count = inputStream.read( buffer );
+      while( count != -1 ) {
+        outputStream.write( buffer, 0, count );
+        count = inputStream.read( buffer );
+      }
+    }
+    return outputStream.toByteArray();
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2014 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,6 +31,7 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.PaletteData;
 import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Display;
 import org.junit.After;
 import org.junit.Before;
@@ -187,6 +188,20 @@ public class InternalImageFactory_Test {
     assertSame( internalImage1, internalImage2 );
   }
 
+  @Test
+  public void testFindInternalImage_readsSizeFromHeader() throws IOException {
+    byte[] header = new byte[ 33 ];
+    InputStream stream = CLASS_LOADER.getResourceAsStream( Fixture.IMAGE_100x50 );
+    stream.read( header );
+    stream.close();
+
+    // pixel data is missing, decoding would fail
+    InputStream headerStream = new ByteArrayInputStream( header );
+    InternalImage internalImage = internalImageFactory.findInternalImage( headerStream );
+
+    assertEquals( new Rectangle( 0, 0, 100, 50 ), internalImage.getBounds() );
+  }
+
   @Test
   public void testImageExtension_PNG() throws IOException {
     InputStream stream = CLASS_LOADER.getResourceAsStream( IMAGE_OK );
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.junit.Test;
+
+
+public class PNGFileFormat_Test {
+
+  @Test
+  public void testSaveOptimized_24BitRGB() {
+    ImageData imageData = createImageData( 24, new PaletteData( 0xFF0000, 0xFF00, 0xFF ) );
+
+    assertSamePixels( imageData, saveAndLoad( imageData ) );
+  }
+
+  @Test
+  public void testSaveOptimized_24BitBGR() {
+    ImageData imageData = createImageData( 24, new PaletteData( 0xFF, 0xFF00, 0xFF0000 ) );
+
+    assertSamePixels( imageData, saveAndLoad( imageData ) );
+  }
+
+  @Test
+  public void testSaveOptimized_32Bit() {
+    ImageData imageData = createImageData( 32, new PaletteData( 0xFF00, 0xFF0000, 0xFF000000 ) );
+
+    assertSamePixels( imageData, saveAndLoad( imageData ) );
+  }
+
+  @Test
+  public void testSaveOptimized_16Bit() {
+    ImageData imageData = createImageData( 16, new PaletteData( 0x7C00, 0x3E0, 0x1F ) );
+
+    assertSamePixels( imageData, saveAndLoad( imageData ) );
+  }
+
+  @Test
+  public void testSaveOptimized_withAlpha() {
+    ImageData imageData = createImageData( 24, new PaletteData( 0xFF0000, 0xFF00, 0xFF ) );
+    for( int y = 0; y < imageData.height; y++ ) {
+      for( int x = 0; x < imageData.width; x++ ) {
+        imageData.setAlpha( x, y, ( x * 7 + y ) & 0xFF );
+      }
+    }
+
+    ImageData result = saveAndLoad( imageData );
+
+    assertSamePixels( imageData, result );
+    assertArrayEquals( imageData.alphaData, result.alphaData );
+  }
+
+  @Test
+  public void testSaveOptimized_indexed() {
+    RGB[] rgbs = { new RGB( 255, 0, 0 ), new RGB( 0, 255, 0 ), new RGB( 0, 0, 255 ) };
+    ImageData imageData = new ImageData( 13, 7, 8, new PaletteData( rgbs ) );
+    for( int y = 0; y < imageData.height; y++ ) {
+      for( int x = 0; x < imageData.width; x++ ) {
+        imageData.setPixel( x, y, ( x + y ) % rgbs.length );
+      }
+    }
+
+    assertSamePixels( imageData, saveAndLoad( imageData ) );
+  }
+
+  @Test
+  public void testSave_24BitBGR() {
+    ImageData imageData = createImageData( 24, new PaletteData( 0xFF, 0xFF00, 0xFF0000 ) );
+    ImageLoader imageLoader = new ImageLoader();
+    imageLoader.data = new ImageData[] { imageData };
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    imageLoader.save( outputStream, SWT.IMAGE_PNG );
+
+    ImageData result = new ImageData( new ByteArrayInputStream( outputStream.toByteArray() ) );
+    assertSamePixels( imageData, result );
+  }
+
+  @Test
+  public void testSaveOptimized_isSmallerForGradients() {
+    ImageData imageData = createImageData( 24, new PaletteData( 0xFF0000, 0xFF00, 0xFF ) );
+    ImageLoader imageLoader = new ImageLoader();
+    imageLoader.data = new ImageData[] { imageData };
+    ByteArrayOutputStream unfiltered = new ByteArrayOutputStream();
+    ByteArrayOutputStream filtered = new ByteArrayOutputStream();
+
+    imageLoader.save( unfiltered, SWT.IMAGE_PNG );
+    PNGFileFormat.saveOptimized( filtered, imageLoader );
+
+    assertTrue( filtered.size() < unfiltered.size() );
+  }
+
+  private static ImageData createImageData( int depth, PaletteData palette ) {
+    ImageData result = new ImageData( 37, 23, depth, palette );
+    for( int y = 0; y < result.height; y++ ) {
+      for( int x = 0; x < result.width; x++ ) {
+        result.setPixel( x, y, palette.getPixel( new RGB( x * 6, y * 10, ( x + y ) * 4 ) ) );
+      }
+    }
+    return result;
+  }
+
+  private static ImageData saveAndLoad( ImageData imageData ) {
+    ImageLoader imageLoader = new ImageLoader();
+    imageLoader.data = new ImageData[] { imageData };
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    PNGFileFormat.saveOptimized( outputStream, imageLoader );
+    return new ImageData( new ByteArrayInputStream( outputStream.toByteArray() ) );
+  }
+
+  private static void assertSamePixels( ImageData expected, ImageData actual ) {
+    assertEquals( expected.width, actual.width );
+    assertEquals( expected.height, actual.height );
+    for( int y = 0; y < expected.height; y++ ) {
+      for( int x = 0; x < expected.width; x++ ) {
+        RGB expectedRGB = expected.palette.getRGB( expected.getPixel( x, y ) );
+        assertEquals( expectedRGB, actual.palette.getRGB( actual.getPixel( x, y ) ) );
+      }
+    }
+  }
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.widgets;
+
+import static org.eclipse.rap.rwt.internal.lifecycle.WidgetUtil.getId;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.eclipse.rap.json.JsonArray;
+import org.eclipse.rap.json.JsonObject;
+import org.eclipse.rap.json.JsonValue;
+import org.eclipse.rap.rwt.internal.lifecycle.DisplayUtil;
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ItemRowsRenderer_Test {
+
+  private Display display;
+  private Table table;
+
+  @Before
+  public void setUp() {
+    Fixture.setUp();
+    display = new Display();
+    Shell shell = new Shell( display );
+    table = new Table( shell, SWT.NONE );
+    Fixture.fakeNewRequest();
+  }
+
+  @After
+  public void tearDown() {
+    Fixture.tearDown();
+  }
+
+  @Test
+  public void testRender() throws IOException {
+    TableItem item1 = new TableItem( table, SWT.NONE );
+    TableItem item2 = new TableItem( table, SWT.NONE );
+
+    ItemRowsRenderer.addTexts( table, item1, new String[] { "foo", "bar" } );
+    ItemRowsRenderer.addTexts( table, item2, new String[] { "bar" } );
+    DisplayUtil.getLCA( display ).render( display );
+
+    JsonObject expected = new JsonObject()
+      .add( "items", new JsonArray().add( getId( item1 ) ).add( getId( item2 ) ) )
+      .add( "strings", new JsonArray().add( "foo" ).add( "bar" ) )
+      .add( "texts", new JsonArray()
+        .add( new JsonArray().add( 0 ).add( 1 ) )
+        .add( new JsonArray().add( 1 ).add( -1 ) ) );
+    assertEquals( expected, Fixture.getProtocolMessage().findSetProperty( table, "rows" ) );
+  }
+
+  @Test
+  public void testRender_withNullText() throws IOException {
+    TableItem item = new TableItem( table, SWT.NONE );
+
+    ItemRowsRenderer.addTexts( table, item, new String[] { null } );
+    DisplayUtil.getLCA( display ).render( display );
+
+    JsonObject rows = Fixture.getProtocolMessage().findSetProperty( table, "rows" ).asObject();
+    assertEquals( new JsonArray().add( JsonValue.NULL ), rows.get( "strings" ) );
+  }
+
+  @Test
+  public void testRender_withDisposedParent() throws IOException {
+    TableItem item = new TableItem( table, SWT.NONE );
+    ItemRowsRenderer.addTexts( table, item, new String[] { "foo" } );
+    String tableId = getId( table );
+
+    table.dispose();
+    DisplayUtil.getLCA( display ).render( display );
+
+    assertNull( Fixture.getProtocolMessage().findSetOperation( tableId, "rows" ) );
+  }
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.internal.widgets;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TimerExecExecutor_Test {
+
+  private TimerExecExecutor executor;
+
+  @Before
+  public void setUp() {
+    executor = new TimerExecExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void testSchedule_runsTaskOnWorkerThread() throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch( 1 );
+    final String[] threadName = new String[ 1 ];
+
+    executor.schedule( new Runnable() {
+      @Override
+      public void run() {
+        threadName[ 0 ] = Thread.currentThread().getName();
+        latch.countDown();
+      }
+    }, 0 );
+
+    assertTrue( latch.await( 5, SECONDS ) );
+    assertTrue( threadName[ 0 ].startsWith( "RWT timerExec worker" ) );
+  }
+
+  @Test
+  public void testSchedule_blockedTaskDoesNotDelayOtherTasks() throws InterruptedException {
+    final CountDownLatch blocker = new CountDownLatch( 1 );
+    final CountDownLatch latch = new CountDownLatch( 1 );
+    executor.schedule( new Runnable() {
+      @Override
+      public void run() {
+        try {
+          blocker.await();
+        } catch( InterruptedException exception ) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }, 0 );
+
+    executor.schedule( new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    }, 10 );
+
+    try {
+      assertTrue( latch.await( 5, SECONDS ) );
+    } finally {
+      blocker.countDown();
+    }
+  }
+
+  @Test
+  public void testSchedule_returnsFuture() {
+    ScheduledFuture<?> future = executor.schedule( mock( Runnable.class ), 1000 );
+
+    assertNotNull( future );
+  }
+
+  @Test
+  public void testSchedule_afterShutdown() {
+    executor.schedule( mock( Runnable.class ), 1000 );
+
+    executor.shutdown();
+
+    assertTrue( executor.isShutdown() );
+    assertNull( executor.schedule( mock( Runnable.class ), 0 ) );
+  }
+
+  @Test
+  public void testSchedule_afterActivate() {
+    executor.shutdown();
+
+    executor.activate();
+
+    assertFalse( executor.isShutdown() );
+    assertNotNull( executor.schedule( mock( Runnable.class ), 1000 ) );
+  }
+
+}
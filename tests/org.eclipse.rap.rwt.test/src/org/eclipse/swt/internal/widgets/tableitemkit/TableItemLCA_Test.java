@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2007, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,8 @@ import org.eclipse.rap.json.JsonArray;
 import org.eclipse.rap.json.JsonObject;
 import org.eclipse.rap.json.JsonValue;
 import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.lifecycle.DisplayUtil;
 import org.eclipse.rap.rwt.internal.lifecycle.RemoteAdapter;
 import org.eclipse.rap.rwt.internal.lifecycle.WidgetLCA;
 import org.eclipse.rap.rwt.internal.lifecycle.WidgetUtil;
@@ -77,6 +79,7 @@ public class TableItemLCA_Test {
 
   @After
   public void tearDown() {
+    System.clearProperty( RWTProperties.ROW_RENDERING );
     Fixture.tearDown();
   }
 
@@ -391,18 +394,39 @@ public class TableItemLCA_Test {
   }
 
   @Test
-  public void testRenderTextsUnchanged() throws IOException {
+  public void testRenderTexts_withRowRendering() throws IOException {
+    System.setProperty( RWTProperties.ROW_RENDERING, "true" );
     new TableColumn( table, SWT.NONE );
     new TableColumn( table, SWT.NONE );
     Fixture.markInitialized( display );
+    Fixture.markInitialized( shell );
+    Fixture.markInitialized( table );
     Fixture.markInitialized( item );
+    Fixture.preserveWidgets();
 
     item.setText( new String[] { "item 0.0", "item 0.1" } );
-    Fixture.preserveWidgets();
-    lca.renderChanges( item );
+    DisplayUtil.getLCA( display ).render( display );
 
     TestMessage message = Fixture.getProtocolMessage();
     assertNull( message.findSetOperation( item, "texts" ) );
+    JsonObject rows = message.findSetProperty( table, "rows" ).asObject();
+    assertEquals( new JsonArray().add( getId( item ) ), rows.get( "items" ) );
+    assertEquals( new JsonArray().add( "item 0.0" ).add( "item 0.1" ), rows.get( "strings" ) );
+  }
+
+  @Test
+  public void testRenderTexts_withRowRenderingUnchanged() throws IOException {
+    System.setProperty( RWTProperties.ROW_RENDERING, "true" );
+    item.setText( "foo" );
+    Fixture.markInitialized( display );
+    Fixture.markInitialized( shell );
+    Fixture.markInitialized( table );
+    Fixture.markInitialized( item );
+    Fixture.preserveWidgets();
+
+    DisplayUtil.getLCA( display ).render( display );
+
+    assertNull( Fixture.getProtocolMessage().findSetOperation( table, "rows" ) );
   }
 
   @Test
@@ -445,7 +469,7 @@ public class TableItemLCA_Test {
     TestMessage message = Fixture.getProtocolMessage();
     JsonArray expected = new JsonArray();
     expected.add( JsonValue.NULL );
-    expected.add( new JsonArray().add( "rwt-resources/generated/90fb0bfe.gif" ).add( 58 ).add( 12 ) );
+    expected.add( new JsonArray().add( "rwt-resources/generated/c337807e.gif" ).add( 58 ).add( 12 ) );
     assertEquals( expected, message.findSetProperty( item, "images" ) );
   }
 
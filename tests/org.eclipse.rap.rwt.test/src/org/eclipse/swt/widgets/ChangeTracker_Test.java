@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.widgets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.rap.rwt.internal.RWTProperties;
+import org.eclipse.rap.rwt.internal.lifecycle.DisplayUtil;
+import org.eclipse.rap.rwt.internal.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.rap.rwt.testfixture.internal.SerializationTestUtil;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.internal.widgets.WidgetChangeTracker;
+import org.eclipse.swt.internal.widgets.displaykit.DisplayLCA;
+import org.eclipse.swt.layout.FillLayout;
+import org.junit.After;
+import org.junit.Test;
+
+
+public class ChangeTracker_Test {
+
+  private Display display;
+
+  @After
+  public void tearDown() {
+    System.clearProperty( RWTProperties.CHANGE_TRACKING );
+    if( display != null ) {
+      Fixture.tearDown();
+    }
+  }
+
+  @Test
+  public void testAdapter_disabledByDefault() {
+    setUp( false );
+
+    assertNull( display.getAdapter( WidgetChangeTracker.class ) );
+  }
+
+  @Test
+  public void testAdapter_enabled() {
+    setUp( true );
+
+    assertNotNull( display.getAdapter( WidgetChangeTracker.class ) );
+  }
+
+  @Test
+  public void testRender_skipsUntouchedWidgets() throws Exception {
+    setUp( true );
+    Shell shell = new Shell( display );
+    Composite first = new Composite( shell, SWT.NONE );
+    Button touched = new Button( first, SWT.PUSH );
+    Composite second = new Composite( shell, SWT.NONE );
+    Button untouched = new Button( second, SWT.PUSH );
+    shell.open();
+    renderInitial();
+    WidgetChangeTracker tracker = display.getAdapter( WidgetChangeTracker.class );
+
+    readDataAndPreserve();
+    touched.setText( "foo" );
+    DisplayUtil.getLCA( display ).render( display );
+
+    assertTrue( tracker.getChangedWidgets().contains( touched ) );
+    assertTrue( tracker.getChangedWidgets().contains( first ) );
+    assertTrue( tracker.getChangedWidgets().contains( shell ) );
+    assertFalse( tracker.getChangedWidgets().contains( second ) );
+    assertFalse( tracker.getChangedWidgets().contains( untouched ) );
+  }
+
+  @Test
+  public void testStartRendering_withoutTracking() {
+    setUp( true );
+    WidgetChangeTracker tracker = display.getAdapter( WidgetChangeTracker.class );
+
+    assertFalse( tracker.startRendering() );
+  }
+
+  @Test
+  public void testStartTracking_afterDeserialization() throws Exception {
+    setUp( true );
+    ChangeTracker tracker = SerializationTestUtil.serializeAndDeserialize( new ChangeTracker() );
+
+    assertFalse( tracker.startTracking() );
+  }
+
+  @Test
+  public void testClearPreserved_resetsTracker() throws Exception {
+    setUp( true );
+    Shell shell = new Shell( display );
+    Button button = new Button( shell, SWT.PUSH );
+    shell.open();
+    renderInitial();
+    WidgetChangeTracker tracker = display.getAdapter( WidgetChangeTracker.class );
+
+    readDataAndPreserve();
+    button.setText( "foo" );
+    render();
+
+    assertFalse( tracker.isTracked() );
+    assertTrue( tracker.getChangedWidgets().isEmpty() );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_noChanges() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void change() {
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_propertyChanges() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void change() {
+        button.setText( "changed" );
+        text.setBackground( new Color( display, 255, 0, 0 ) );
+        table.getItem( 1 ).setText( "changed item" );
+        tree.getItem( 0 ).setExpanded( true );
+        shell.setText( "changed title" );
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_structuralChanges() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void change() {
+        new TableItem( table, SWT.NONE, 0 ).setText( "inserted" );
+        new Label( composite, SWT.NONE ).setText( "new label" );
+        table.getItem( 3 ).dispose();
+        tree.getItem( 1 ).dispose();
+        label.dispose();
+        composite.layout();
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_focusAndTabOrder() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void change() {
+        text.setFocus();
+        composite.setTabList( new Control[] { text, button } );
+        button.moveAbove( text );
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_reparentAndVisibility() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void change() {
+        button.setParent( shell );
+        composite.setVisible( false );
+        composite.setEnabled( false );
+        composite.setBackgroundMode( SWT.INHERIT_FORCE );
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_dialogShell() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void change() {
+        Shell dialog = new Shell( shell, SWT.APPLICATION_MODAL );
+        dialog.setLayout( new FillLayout() );
+        new Button( dialog, SWT.PUSH ).setText( "OK" );
+        dialog.open();
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_changesBeforePreserve() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void changeBeforePreserve() {
+        text.setText( "from client" );
+        table.setTopIndex( 2 );
+      }
+      @Override
+      void change() {
+        table.getItem( 0 ).setText( "changed" );
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_widgetsCreatedBeforePreserve() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void changeBeforePreserve() {
+        new TableItem( table, SWT.NONE ).setText( "before preserve" );
+        new Button( composite, SWT.CHECK );
+      }
+      @Override
+      void change() {
+        new TableItem( table, SWT.NONE ).setText( "after preserve" );
+      }
+    } );
+  }
+
+  @Test
+  public void testRender_equalsFullRender_subsequentRequests() throws Exception {
+    assertSameOutput( new Scenario() {
+      @Override
+      void change() {
+        button.setText( "first" );
+      }
+      @Override
+      void changeNextRequest() {
+        button.setText( "second" );
+        text.setText( "second" );
+        table.removeAll();
+      }
+    } );
+  }
+
+  private void assertSameOutput( Scenario scenario ) throws Exception {
+    String expected = run( scenario, false );
+    String actual = run( scenario, true );
+
+    assertEquals( expected, actual );
+  }
+
+  private String run( Scenario scenario, boolean changeTracking ) throws Exception {
+    setUp( changeTracking );
+    scenario.create( display );
+    renderInitial();
+    StringBuilder result = new StringBuilder();
+    result.append( runRequest( scenario, true ) );
+    result.append( runRequest( scenario, false ) );
+    display = null;
+    Fixture.tearDown();
+    return result.toString();
+  }
+
+  private String runRequest( Scenario scenario, boolean first ) throws Exception {
+    Fixture.fakeNewRequest();
+    Fixture.fakePhase( PhaseId.READ_DATA );
+    DisplayUtil.getLCA( display ).readData( display );
+    if( first ) {
+      scenario.changeBeforePreserve();
+    }
+    DisplayUtil.getLCA( display ).preserveValues( display );
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+    if( first ) {
+      scenario.change();
+    } else {
+      scenario.changeNextRequest();
+    }
+    render();
+    return Fixture.getProtocolMessage().toJson().toString();
+  }
+
+  private void setUp( boolean changeTracking ) {
+    if( changeTracking ) {
+      System.setProperty( RWTProperties.CHANGE_TRACKING, "true" );
+    } else {
+      System.clearProperty( RWTProperties.CHANGE_TRACKING );
+    }
+    Fixture.setUp();
+    display = new Display();
+  }
+
+  private void renderInitial() throws Exception {
+    Fixture.fakeNewRequest();
+    render();
+  }
+
+  private void readDataAndPreserve() {
+    Fixture.fakeNewRequest();
+    Fixture.fakePhase( PhaseId.READ_DATA );
+    DisplayLCA displayLCA = DisplayUtil.getLCA( display );
+    displayLCA.readData( display );
+    displayLCA.preserveValues( display );
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+  }
+
+  private void render() throws Exception {
+    Fixture.fakePhase( PhaseId.RENDER );
+    DisplayLCA displayLCA = DisplayUtil.getLCA( display );
+    displayLCA.render( display );
+    displayLCA.clearPreserved( display );
+  }
+
+  private static abstract class Scenario {
+
+    Display display;
+    Shell shell;
+    Composite composite;
+    Button button;
+    Text text;
+    Label label;
+    Table table;
+    Tree tree;
+
+    void create( Display display ) {
+      this.display = display;
+      shell = new Shell( display );
+      shell.setLayout( new FillLayout() );
+      composite = new Composite( shell, SWT.NONE );
+      composite.setLayout( new FillLayout() );
+      button = new Button( composite, SWT.PUSH );
+      button.setText( "button" );
+      text = new Text( composite, SWT.BORDER );
+      label = new Label( composite, SWT.NONE );
+      label.setText( "label" );
+      table = new Table( shell, SWT.BORDER );
+      new TableColumn( table, SWT.NONE ).setWidth( 50 );
+      for( int i = 0; i < 10; i++ ) {
+        new TableItem( table, SWT.NONE ).setText( "item " + i );
+      }
+      tree = new Tree( shell, SWT.BORDER );
+      for( int i = 0; i < 3; i++ ) {
+        TreeItem item = new TreeItem( tree, SWT.NONE );
+        item.setText( "node " + i );
+        new TreeItem( item, SWT.NONE ).setText( "leaf " + i );
+      }
+      Menu menuBar = new Menu( shell, SWT.BAR );
+      shell.setMenuBar( menuBar );
+      new MenuItem( menuBar, SWT.PUSH ).setText( "menu" );
+      shell.setBounds( 0, 0, 400, 300 );
+      shell.layout();
+      shell.open();
+    }
+
+    void changeBeforePreserve() {
+    }
+
+    abstract void change();
+
+    void changeNextRequest() {
+    }
+  }
+
+}
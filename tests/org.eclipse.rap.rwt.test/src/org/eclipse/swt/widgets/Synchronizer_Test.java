@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.widgets;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.eclipse.rap.rwt.internal.serverpush.ServerPushManager;
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.rap.rwt.widgets.CoalescingRunnable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class Synchronizer_Test {
+
+  private Display display;
+  private Synchronizer synchronizer;
+  private List<String> log;
+
+  @Before
+  public void setUp() {
+    Fixture.setUp();
+    display = new Display();
+    synchronizer = display.getSynchronizer();
+    log = new ArrayList<>();
+  }
+
+  @After
+  public void tearDown() {
+    Fixture.tearDown();
+  }
+
+  @Test
+  public void testAsyncExec_runsInOrder() {
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+    synchronizer.asyncExec( new LogRunnable( "b" ) );
+    synchronizer.asyncExec( new LogRunnable( "c" ) );
+
+    synchronizer.runAsyncMessages( true );
+
+    assertEquals( asList( "a", "b", "c" ), log );
+  }
+
+  @Test
+  public void testAsyncExec_runsManyRunnablesInOrder() {
+    List<String> expected = new ArrayList<>();
+    for( int i = 0; i < 10000; i++ ) {
+      synchronizer.asyncExec( new LogRunnable( String.valueOf( i ) ) );
+      expected.add( String.valueOf( i ) );
+    }
+
+    synchronizer.runAsyncMessages( true );
+
+    assertEquals( expected, log );
+    assertEquals( 0, synchronizer.getMessageCount() );
+  }
+
+  @Test
+  public void testRunAsyncMessages_runsOneRunnable() {
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+    synchronizer.asyncExec( new LogRunnable( "b" ) );
+
+    boolean run = synchronizer.runAsyncMessages( false );
+
+    assertTrue( run );
+    assertEquals( asList( "a" ), log );
+    assertEquals( 1, synchronizer.getMessageCount() );
+  }
+
+  @Test
+  public void testRunAsyncMessages_withoutRunnables() {
+    assertFalse( synchronizer.runAsyncMessages( true ) );
+  }
+
+  @Test
+  public void testAsyncExec_notifiesServerPushManager() {
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+
+    assertTrue( ServerPushManager.getInstance().hasRunnables() );
+  }
+
+  @Test
+  public void testRunAsyncMessages_notifiesServerPushManager() {
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+    synchronizer.asyncExec( new LogRunnable( "b" ) );
+
+    synchronizer.runAsyncMessages( false );
+    assertTrue( ServerPushManager.getInstance().hasRunnables() );
+    synchronizer.runAsyncMessages( false );
+    assertFalse( ServerPushManager.getInstance().hasRunnables() );
+  }
+
+  @Test
+  public void testAsyncExec_coalescesRunnablesWithSameKey() {
+    synchronizer.asyncExec( new CoalescingLogRunnable( "a1", "a" ) );
+    synchronizer.asyncExec( new CoalescingLogRunnable( "b1", "b" ) );
+    synchronizer.asyncExec( new CoalescingLogRunnable( "a2", "a" ) );
+
+    assertEquals( 2, synchronizer.getMessageCount() );
+    synchronizer.runAsyncMessages( true );
+
+    assertEquals( asList( "a2", "b1" ), log );
+  }
+
+  @Test
+  public void testAsyncExec_doesNotCoalesceExecutedRunnable() {
+    synchronizer.asyncExec( new CoalescingLogRunnable( "a1", "a" ) );
+    synchronizer.runAsyncMessages( true );
+
+    synchronizer.asyncExec( new CoalescingLogRunnable( "a2", "a" ) );
+    synchronizer.runAsyncMessages( true );
+
+    assertEquals( asList( "a1", "a2" ), log );
+  }
+
+  @Test
+  public void testAsyncExec_doesNotCoalesceWithNullKey() {
+    synchronizer.asyncExec( new CoalescingLogRunnable( "a1", null ) );
+    synchronizer.asyncExec( new CoalescingLogRunnable( "a2", null ) );
+
+    synchronizer.runAsyncMessages( true );
+
+    assertEquals( asList( "a1", "a2" ), log );
+  }
+
+  @Test
+  public void testAsyncExec_coalescedRunnableExecutesLatest_whenReplacedWhileQueued()
+    throws InterruptedException
+  {
+    synchronizer.asyncExec( new CoalescingLogRunnable( "a1", "a" ) );
+    Thread thread = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        synchronizer.asyncExec( new CoalescingLogRunnable( "a2", "a" ) );
+      }
+    } );
+    thread.start();
+    thread.join();
+
+    synchronizer.runAsyncMessages( true );
+
+    assertEquals( asList( "a2" ), log );
+  }
+
+  @Test
+  public void testAsyncExec_withoutWakeDelay_doesNotScheduleWake() {
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+
+    assertFalse( synchronizer.wakeScheduled );
+  }
+
+  @Test
+  public void testAsyncExec_withWakeDelay_schedulesWakeOnce() {
+    synchronizer.wakeDelay = 60000;
+
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+    synchronizer.runAsyncMessages( true );
+    synchronizer.asyncExec( new LogRunnable( "b" ) );
+
+    assertTrue( synchronizer.wakeScheduled );
+    assertTrue( ServerPushManager.getInstance().hasRunnables() );
+  }
+
+  @Test
+  public void testReleaseSynchronizer_cancelsScheduledWake() {
+    synchronizer.wakeDelay = 60000;
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+    ScheduledFuture<?> wakeFuture = synchronizer.wakeFuture;
+
+    synchronizer.releaseSynchronizer();
+
+    assertTrue( wakeFuture.isCancelled() );
+    assertNull( synchronizer.wakeFuture );
+  }
+
+  @Test
+  public void testGetMessageCount() {
+    synchronizer.asyncExec( new LogRunnable( "a" ) );
+    synchronizer.asyncExec( new LogRunnable( "b" ) );
+
+    assertEquals( 2, synchronizer.getMessageCount() );
+  }
+
+  private class LogRunnable implements Runnable {
+
+    private final String name;
+
+    LogRunnable( String name ) {
+      this.name = name;
+    }
+
+    @Override
+    public void run() {
+      log.add( name );
+    }
+
+  }
+
+  private class CoalescingLogRunnable extends LogRunnable implements CoalescingRunnable {
+
+    private final Object key;
+
+    CoalescingLogRunnable( String name, Object key ) {
+      super( name );
+      this.key = key;
+    }
+
+    @Override
+    public Object getCoalescingKey() {
+      return key;
+    }
+
+  }
+
+}
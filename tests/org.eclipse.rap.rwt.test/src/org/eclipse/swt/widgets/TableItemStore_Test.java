@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.swt.widgets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TableItemStore_Test {
+
+  private static final int CHUNK_SIZE = TableItemStore.CHUNK_SIZE;
+
+  private TableItemStore store;
+
+  @Before
+  public void setUp() {
+    store = new TableItemStore();
+  }
+
+  @Test
+  public void testSetSize_createsEmptySlots() {
+    store.setSize( 5000000 );
+
+    assertEquals( 5000000, store.size() );
+    assertEquals( 0, store.getCreatedCount() );
+    assertNull( store.get( 4999999 ) );
+    assertEquals( -1, store.nextIndex( 0 ) );
+  }
+
+  @Test
+  public void testSet() {
+    store.setSize( 10 );
+    TableItem item = mock( TableItem.class );
+
+    store.set( 3, item );
+
+    assertSame( item, store.get( 3 ) );
+    assertEquals( 1, store.getCreatedCount() );
+  }
+
+  @Test
+  public void testSet_null() {
+    store.setSize( 10 );
+    store.set( 3, mock( TableItem.class ) );
+
+    store.set( 3, null );
+
+    assertNull( store.get( 3 ) );
+    assertEquals( 0, store.getCreatedCount() );
+  }
+
+  @Test
+  public void testSetSize_shrinkDropsItems() {
+    store.setSize( CHUNK_SIZE * 3 );
+    store.set( 1, mock( TableItem.class ) );
+    store.set( CHUNK_SIZE + 5, mock( TableItem.class ) );
+    store.set( CHUNK_SIZE * 2 + 5, mock( TableItem.class ) );
+
+    store.setSize( CHUNK_SIZE + 2 );
+
+    assertEquals( 1, store.getCreatedCount() );
+    store.setSize( CHUNK_SIZE * 3 );
+    assertNull( store.get( CHUNK_SIZE + 5 ) );
+    assertNull( store.get( CHUNK_SIZE * 2 + 5 ) );
+  }
+
+  @Test
+  public void testInsert_shiftsItemsAcrossChunks() {
+    store.setSize( CHUNK_SIZE * 2 );
+    TableItem item1 = mock( TableItem.class );
+    TableItem item2 = mock( TableItem.class );
+    TableItem item3 = mock( TableItem.class );
+    store.set( CHUNK_SIZE - 1, item1 );
+    store.set( CHUNK_SIZE * 2 - 1, item2 );
+
+    store.insert( 0, item3 );
+
+    assertEquals( CHUNK_SIZE * 2 + 1, store.size() );
+    assertSame( item3, store.get( 0 ) );
+    assertSame( item1, store.get( CHUNK_SIZE ) );
+    assertSame( item2, store.get( CHUNK_SIZE * 2 ) );
+    assertNull( store.get( CHUNK_SIZE - 1 ) );
+    assertEquals( 3, store.getCreatedCount() );
+  }
+
+  @Test
+  public void testInsert_atEnd() {
+    TableItem item1 = mock( TableItem.class );
+    TableItem item2 = mock( TableItem.class );
+
+    store.insert( 0, item1 );
+    store.insert( 1, item2 );
+
+    assertEquals( 2, store.size() );
+    assertArrayEquals( new TableItem[] { item1, item2 }, store.getCreatedItems() );
+  }
+
+  @Test
+  public void testRemove_shiftsItemsAcrossChunks() {
+    store.setSize( CHUNK_SIZE * 2 + 1 );
+    TableItem item1 = mock( TableItem.class );
+    TableItem item2 = mock( TableItem.class );
+    TableItem item3 = mock( TableItem.class );
+    store.set( 0, item1 );
+    store.set( CHUNK_SIZE, item2 );
+    store.set( CHUNK_SIZE * 2, item3 );
+
+    store.remove( 0 );
+
+    assertEquals( CHUNK_SIZE * 2, store.size() );
+    assertSame( item2, store.get( CHUNK_SIZE - 1 ) );
+    assertSame( item3, store.get( CHUNK_SIZE * 2 - 1 ) );
+    assertEquals( 2, store.getCreatedCount() );
+  }
+
+  @Test
+  public void testNextIndex_skipsEmptyChunks() {
+    store.setSize( CHUNK_SIZE * 100 );
+    store.set( 7, mock( TableItem.class ) );
+    store.set( CHUNK_SIZE * 50 + 3, mock( TableItem.class ) );
+
+    assertEquals( 7, store.nextIndex( 0 ) );
+    assertEquals( CHUNK_SIZE * 50 + 3, store.nextIndex( 8 ) );
+    assertEquals( -1, store.nextIndex( CHUNK_SIZE * 50 + 4 ) );
+  }
+
+  @Test
+  public void testGetCreatedItems_inIndexOrder() {
+    store.setSize( CHUNK_SIZE * 3 );
+    TableItem item1 = mock( TableItem.class );
+    TableItem item2 = mock( TableItem.class );
+    store.set( CHUNK_SIZE * 2, item2 );
+    store.set( 5, item1 );
+
+    assertArrayEquals( new TableItem[] { item1, item2 }, store.getCreatedItems() );
+  }
+
+  @Test
+  public void testClear() {
+    store.setSize( 10 );
+    store.set( 3, mock( TableItem.class ) );
+
+    store.clear();
+
+    assertEquals( 0, store.size() );
+    assertEquals( 0, store.getCreatedCount() );
+  }
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1693,6 +1693,30 @@ public class Table_Test {
     assertEquals( 1, items.length );
   }
 
+  @Test
+  public void testSetItemCount_virtualWithManyItems() {
+    Table table = new Table( shell, SWT.VIRTUAL );
+
+    table.setItemCount( 5000000 );
+    TableItem item = table.getItem( 4000000 );
+
+    assertEquals( 5000000, table.getItemCount() );
+    assertArrayEquals( new TableItem[] { item }, table.getCreatedItems() );
+    assertEquals( 4000000, table.indexOf( item ) );
+  }
+
+  @Test
+  public void testRemove_virtualAdjustsIndicesOfCreatedItems() {
+    Table table = new Table( shell, SWT.VIRTUAL );
+    table.setItemCount( 5000 );
+    TableItem item = table.getItem( 3000 );
+
+    table.remove( 10 );
+
+    assertEquals( 2999, table.indexOf( item ) );
+    assertSame( item, table.getItem( 2999 ) );
+  }
+
   /*
    * Disposing the items in reverse order (like in GTK) avoids performance critical operations like
    * shifting item/data arrays, item index recalculation etc.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2014 EclipseSource and others.
+ * Copyright (c) 2011, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,22 +16,23 @@ import static org.eclipse.rap.rwt.testfixture.internal.SerializationTestUtil.ser
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
-import java.util.Timer;
+import java.util.List;
 
 import org.eclipse.rap.rwt.testfixture.internal.Fixture;
 import org.eclipse.rap.rwt.testfixture.internal.NoOpRunnable;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.ArgumentCaptor;
 
 
 public class TimerExecScheduler_Test {
@@ -39,22 +40,25 @@ public class TimerExecScheduler_Test {
   private TimerExecScheduler scheduler;
   private Display display;
   private Collection<Throwable> exceptions;
-  private Timer timer;
+  private TimerExecExecutor executor;
+  private List<TimerExecTask> tasks;
 
   @Before
   public void setUp() {
     Fixture.setUp();
     display = new Display();
-    timer = mock( Timer.class );
+    executor = mock( TimerExecExecutor.class );
+    tasks = new ArrayList<>();
     scheduler = new TimerExecScheduler( display ) {
       @Override
-      Timer createTimer() {
-        return timer;
+      TimerExecExecutor getExecutor() {
+        return executor;
       }
       @Override
       TimerExecTask createTask( Runnable runnable ) {
         TimerExecTask task = mock( TimerExecTask.class );
         when( task.getRunnable() ).thenReturn( runnable );
+        tasks.add( task );
         return task;
       }
     };
@@ -72,9 +76,9 @@ public class TimerExecScheduler_Test {
 
     scheduler.schedule( 23, runnable );
 
-    ArgumentCaptor<TimerExecTask> taskCaptor = ArgumentCaptor.forClass( TimerExecTask.class );
-    verify( timer ).schedule( taskCaptor.capture(), eq( 23L ) );
-    assertSame( runnable, taskCaptor.getValue().getRunnable() );
+    assertEquals( 1, tasks.size() );
+    assertSame( runnable, tasks.get( 0 ).getRunnable() );
+    verify( tasks.get( 0 ) ).schedule( executor, 23L );
   }
 
   @Test
@@ -84,10 +88,29 @@ public class TimerExecScheduler_Test {
     scheduler.schedule( 23, runnable );
     scheduler.schedule( 42, runnable );
 
-    ArgumentCaptor<TimerExecTask> taskCaptor = ArgumentCaptor.forClass( TimerExecTask.class );
-    verify( timer ).schedule( taskCaptor.capture(), eq( 23L ) );
-    verify( timer ).schedule( taskCaptor.capture(), eq( 42L ) );
-    assertSame( taskCaptor.getAllValues().get( 0 ), taskCaptor.getAllValues().get( 1 ) );
+    assertEquals( 1, tasks.size() );
+    verify( tasks.get( 0 ) ).schedule( executor, 23L );
+    verify( tasks.get( 0 ) ).schedule( executor, 42L );
+  }
+
+  @Test
+  public void testSchedule_distinguishesEqualRunnables() {
+    Runnable runnable = new EqualRunnable();
+    Runnable equalRunnable = new EqualRunnable();
+
+    scheduler.schedule( 23, runnable );
+    scheduler.schedule( 42, equalRunnable );
+
+    assertEquals( 2, tasks.size() );
+    verify( tasks.get( 0 ) ).schedule( executor, 23L );
+    verify( tasks.get( 1 ) ).schedule( executor, 42L );
+  }
+
+  @Test
+  public void testSchedule_usesExecutorOfApplicationContext() {
+    TimerExecExecutor sharedExecutor = display.getApplicationContext().getTimerExecExecutor();
+
+    assertSame( sharedExecutor, new TimerExecScheduler( display ).getExecutor() );
   }
 
   @Test
@@ -97,9 +120,7 @@ public class TimerExecScheduler_Test {
 
     scheduler.cancel( runnable );
 
-    ArgumentCaptor<TimerExecTask> taskCaptor = ArgumentCaptor.forClass( TimerExecTask.class );
-    verify( timer ).schedule( taskCaptor.capture(), eq( 23L ) );
-    verify( taskCaptor.getValue() ).cancel();
+    verify( tasks.get( 0 ) ).cancel();
   }
 
   @Test
@@ -115,16 +136,62 @@ public class TimerExecScheduler_Test {
     scheduler.cancel( runnable );
     scheduler.schedule( 42, runnable );
 
-    ArgumentCaptor<TimerExecTask> taskCaptor = ArgumentCaptor.forClass( TimerExecTask.class );
-    verify( timer ).schedule( taskCaptor.capture(), eq( 23L ) );
-    verify( timer ).schedule( taskCaptor.capture(), eq( 42L ) );
-    assertNotSame( taskCaptor.getAllValues().get( 0 ), taskCaptor.getAllValues().get( 1 ) );
+    assertEquals( 2, tasks.size() );
+    assertNotSame( tasks.get( 0 ), tasks.get( 1 ) );
+    verify( tasks.get( 0 ) ).schedule( executor, 23L );
+    verify( tasks.get( 1 ) ).schedule( executor, 42L );
+  }
+
+  @Test
+  public void testCancel_doesNotCancelOtherTasks() {
+    Runnable runnable = mock( Runnable.class );
+    scheduler.schedule( 23, runnable );
+    scheduler.schedule( 42, mock( Runnable.class ) );
+
+    scheduler.cancel( runnable );
+
+    verify( tasks.get( 0 ) ).cancel();
+    verify( tasks.get( 1 ), never() ).cancel();
+  }
+
+  @Test
+  public void testRemoveTask_ignoresReplacedTask() {
+    Runnable runnable = mock( Runnable.class );
+    scheduler.schedule( 23, runnable );
+    scheduler.cancel( runnable );
+    scheduler.schedule( 42, runnable );
+
+    scheduler.removeTask( tasks.get( 0 ) );
+    scheduler.cancel( runnable );
+
+    verify( tasks.get( 1 ) ).cancel();
+  }
+
+  @Test
+  public void testDispose_cancelsAllTasks() {
+    scheduler.schedule( 23, mock( Runnable.class ) );
+    scheduler.schedule( 42, mock( Runnable.class ) );
+
+    scheduler.dispose();
+
+    verify( tasks.get( 0 ) ).cancel();
+    verify( tasks.get( 1 ) ).cancel();
+  }
+
+  @Test
+  public void testDispose_doesNotShutDownSharedExecutor() {
+    scheduler.schedule( 23, mock( Runnable.class ) );
+
+    scheduler.dispose();
+
+    verify( executor, never() ).shutdown();
   }
 
   @Test
   public void testSerializationIsThreadSafe() throws Exception {
     scheduler = new TimerExecScheduler( display );
     Runnable runnable = new Runnable() {
+      @Override
       public void run() {
         try {
           scheduler.schedule( 1, new NoOpRunnable() );
@@ -143,4 +210,21 @@ public class TimerExecScheduler_Test {
     assertEquals( 0, exceptions.size() );
   }
 
+  private static class EqualRunnable implements Runnable {
+
+    @Override
+    public void run() {
+    }
+
+    @Override
+    public boolean equals( Object object ) {
+      return object instanceof EqualRunnable;
+    }
+
+    @Override
+    public int hashCode() {
+      return 1;
+    }
+  }
+
 }
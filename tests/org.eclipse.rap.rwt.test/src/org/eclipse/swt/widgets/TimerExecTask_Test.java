@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2014 EclipseSource and others.
+ * Copyright (c) 2012, 2017 EclipseSource and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,29 +14,42 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.util.concurrent.ScheduledFuture;
+
 import org.eclipse.rap.rwt.internal.serverpush.ServerPushManager;
 import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.swt.internal.widgets.TimerExecExecutor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 
 public class TimerExecTask_Test {
 
   private TimerExecScheduler scheduler;
   private Display display;
+  private TimerExecExecutor executor;
+  private ScheduledFuture<?> future;
 
   @Before
   public void setUp() {
     Fixture.setUp();
     display = spy( new Display() );
     scheduler = spy( new TimerExecScheduler( display ) );
+    executor = mock( TimerExecExecutor.class );
+    future = mock( ScheduledFuture.class );
+    doReturn( future ).when( executor ).schedule( any( Runnable.class ), anyLong() );
   }
 
   @After
@@ -62,6 +75,64 @@ public class TimerExecTask_Test {
     assertTrue( ServerPushManager.getInstance().isServerPushActive() );
   }
 
+  @Test
+  public void testSchedule_schedulesWithExecutor() {
+    TimerExecTask task = new TimerExecTask( scheduler, mock( Runnable.class ) );
+
+    task.schedule( executor, 23 );
+
+    verify( executor ).schedule( any( Runnable.class ), eq( 23L ) );
+  }
+
+  @Test
+  public void testSchedule_setsExecutionTime() {
+    TimerExecTask task = new TimerExecTask( scheduler, mock( Runnable.class ) );
+    long before = System.currentTimeMillis();
+
+    task.schedule( executor, 23 );
+
+    assertTrue( task.getExecutionTime() >= before + 23 );
+    assertTrue( task.getExecutionTime() <= System.currentTimeMillis() + 23 );
+  }
+
+  @Test
+  public void testSchedule_cancelsPreviousSchedule() {
+    TimerExecTask task = new TimerExecTask( scheduler, mock( Runnable.class ) );
+    task.schedule( executor, 23 );
+
+    task.schedule( executor, 42 );
+
+    verify( future ).cancel( false );
+  }
+
+  @Test
+  public void testSchedule_previousScheduleDoesNotRun() {
+    Runnable runnable = mock( Runnable.class );
+    TimerExecTask task = new TimerExecTask( scheduler, runnable );
+    task.schedule( executor, 23 );
+    task.schedule( executor, 42 );
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass( Runnable.class );
+    verify( executor, times( 2 ) ).schedule( captor.capture(), anyLong() );
+
+    captor.getAllValues().get( 0 ).run();
+
+    verify( display, times( 0 ) ).asyncExec( any( Runnable.class ) );
+    assertTrue( ServerPushManager.getInstance().isServerPushActive() );
+  }
+
+  @Test
+  public void testSchedule_scheduledRunnableRunsTask() {
+    Runnable runnable = mock( Runnable.class );
+    TimerExecTask task = new TimerExecTask( scheduler, runnable );
+    task.schedule( executor, 23 );
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass( Runnable.class );
+    verify( executor ).schedule( captor.capture(), anyLong() );
+
+    captor.getValue().run();
+
+    verify( display ).asyncExec( same( runnable ) );
+  }
+
   @Test
   public void testRun_removesIselfFromScheduler() {
     Runnable runnable = mock( Runnable.class );
@@ -114,4 +185,28 @@ public class TimerExecTask_Test {
     assertFalse( ServerPushManager.getInstance().isServerPushActive() );
   }
 
+  @Test
+  public void testCancel_cancelsSchedule() {
+    TimerExecTask task = new TimerExecTask( scheduler, mock( Runnable.class ) );
+    task.schedule( executor, 23 );
+
+    task.cancel();
+
+    verify( future ).cancel( anyBoolean() );
+  }
+
+  @Test
+  public void testCancel_cancelledScheduleDoesNotRun() {
+    Runnable runnable = mock( Runnable.class );
+    TimerExecTask task = new TimerExecTask( scheduler, runnable );
+    task.schedule( executor, 23 );
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass( Runnable.class );
+    verify( executor ).schedule( captor.capture(), anyLong() );
+
+    task.cancel();
+    captor.getValue().run();
+
+    verify( display, times( 0 ) ).asyncExec( any( Runnable.class ) );
+  }
+
 }
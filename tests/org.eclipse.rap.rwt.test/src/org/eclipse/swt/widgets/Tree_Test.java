@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 Innoopract Informationssysteme GmbH and others.
+ * Copyright (c) 2002, 2017 Innoopract Informationssysteme GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1419,6 +1419,104 @@ public class Tree_Test {
     assertEquals( 30, item.getFlatIndex() );
   }
 
+  @Test
+  public void testGetFlatIndex_afterExpandAndCollapse() {
+    TreeItem[] items = createTreeItems( tree, 3 );
+    new TreeItem( items[ 0 ], SWT.NONE );
+    new TreeItem( items[ 0 ], SWT.NONE );
+    TreeItem subItem = new TreeItem( items[ 1 ], SWT.NONE );
+
+    items[ 0 ].setExpanded( true );
+    items[ 1 ].setExpanded( true );
+
+    assertEquals( 3, items[ 1 ].getFlatIndex() );
+    assertEquals( 4, subItem.getFlatIndex() );
+    assertEquals( 5, items[ 2 ].getFlatIndex() );
+
+    items[ 0 ].setExpanded( false );
+
+    assertEquals( 1, items[ 1 ].getFlatIndex() );
+    assertEquals( 3, items[ 2 ].getFlatIndex() );
+  }
+
+  @Test
+  public void testGetFlatIndex_afterInsertAndRemove() {
+    TreeItem[] items = createTreeItems( tree, 3 );
+    TreeItem subItem = new TreeItem( items[ 1 ], SWT.NONE );
+    items[ 1 ].setExpanded( true );
+
+    TreeItem insertedItem = new TreeItem( items[ 1 ], SWT.NONE, 0 );
+    TreeItem nestedItem = new TreeItem( subItem, SWT.NONE );
+    subItem.setExpanded( true );
+
+    assertEquals( 2, insertedItem.getFlatIndex() );
+    assertEquals( 3, subItem.getFlatIndex() );
+    assertEquals( 4, nestedItem.getFlatIndex() );
+    assertEquals( 5, items[ 2 ].getFlatIndex() );
+
+    insertedItem.dispose();
+    items[ 0 ].dispose();
+
+    assertEquals( 0, items[ 1 ].getFlatIndex() );
+    assertEquals( 3, items[ 2 ].getFlatIndex() );
+  }
+
+  @Test
+  public void testGetFlatIndex_afterSubItemCountChange() {
+    TreeItem[] items = createTreeItems( tree, 2 );
+    items[ 0 ].setItemCount( 10 );
+    items[ 0 ].setExpanded( true );
+
+    items[ 0 ].setItemCount( 5 );
+
+    assertEquals( 6, items[ 1 ].getFlatIndex() );
+  }
+
+  @Test
+  public void testGetTopItem_withExpandedItems() {
+    tree.setSize( 100, 100 );
+    TreeItem[] items = createTreeItems( tree, 20 );
+    TreeItem subItem = new TreeItem( items[ 0 ], SWT.NONE );
+    items[ 0 ].setExpanded( true );
+
+    tree.setTopItem( subItem );
+
+    assertSame( subItem, tree.getTopItem() );
+  }
+
+  @Test
+  public void testVirtualExpand_firesSetDataOnlyForPreloadedRows() {
+    LoggingListener log = new LoggingListener();
+    tree = new Tree( shell, SWT.VIRTUAL );
+    tree.setSize( 100, 100 );
+    tree.setData( RWT.PRELOADED_ITEMS, Integer.valueOf( 10 ) );
+    tree.setItemCount( 100000 );
+    TreeItem item = tree.getItem( 0 );
+    item.setItemCount( 100000 );
+    tree.addListener( SWT.SetData, log );
+
+    item.setExpanded( true );
+
+    int visibleRows = tree.getVisibleRowCount( true );
+    assertEquals( visibleRows + 10 - 1, log.size() );
+    assertSame( item.getItem( 0 ), log.get( 0 ).item );
+  }
+
+  @Test
+  public void testVirtualGetItemByPoint_doesNotCreateItems() {
+    tree = new Tree( shell, SWT.VIRTUAL );
+    tree.setSize( 100, 100 );
+    tree.setItemCount( 100 );
+    TreeItem item = tree.getItem( 0 );
+    item.setItemCount( 100 );
+    item.setExpanded( true );
+    int createdItems = tree.getCreatedItems().length + item.getCreatedItems().length;
+
+    tree.getItem( new Point( 10, tree.getItemHeight() * 50 + 5 ) );
+
+    assertEquals( createdItems, tree.getCreatedItems().length + item.getCreatedItems().length );
+  }
+
   @Test
   public void testTopItem() {
     tree.setSize( 300, 85 );
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     EclipseSource - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jface.viewers;
+
+import java.util.Random;
+
+import org.eclipse.rap.rwt.testfixture.internal.Fixture;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * Compares the element map of structured viewers with the CustomHashtable it
+ * replaces. Measures the time to associate 100k to 1M elements, to find and
+ * disassociate them in random order, and the heap retained by the map. Runs
+ * with elements that use identity hash codes and with elements that have the
+ * sequential hash codes of database ids. Not a unit test and not part of the
+ * build, it lives in the package of the maps to access them. Run it as a Java
+ * application with the JFace and RWT test fixture bundles on the class path:
+ *
+ * <pre>
+ * ElementMapBenchmark [rounds]
+ * </pre>
+ */
+public class ElementMapBenchmark {
+
+	private static final int[] SIZES = { 100000, 250000, 500000, 1000000 };
+
+	private static final int DEFAULT_ROUNDS = 5;
+
+	private static final int ITEM_COUNT = 64;
+
+	/*
+	 * A domain object with the sequential hash code of a database id.
+	 */
+	private static final class Element {
+		private final long id;
+
+		Element(long id) {
+			this.id = id;
+		}
+
+		public boolean equals(Object object) {
+			return object instanceof Element && ((Element) object).id == id;
+		}
+
+		public int hashCode() {
+			return (int) (id ^ (id >>> 32));
+		}
+	}
+
+	private interface Map {
+		void associate(Object element, Widget item);
+
+		Object findItem(Object element);
+
+		void disassociate(Object element, Widget item);
+	}
+
+	private static final class CustomHashtableMap implements Map {
+		private final CustomHashtable table = new CustomHashtable(
+				CustomHashtable.DEFAULT_CAPACITY, null);
+
+		public void associate(Object element, Widget item) {
+			// the single item path of StructuredViewer#mapElement()
+			if (table.get(element) == null) {
+				table.put(element, item);
+			}
+		}
+
+		public Object findItem(Object element) {
+			return table.get(element);
+		}
+
+		public void disassociate(Object element, Widget item) {
+			if (table.get(element) == item) {
+				table.remove(element);
+			}
+		}
+	}
+
+	private static final class ElementMapMap implements Map {
+		private final ElementMap map = new ElementMap(0, null);
+
+		public void associate(Object element, Widget item) {
+			map.add(element, item);
+		}
+
+		public Object findItem(Object element) {
+			return map.get(element);
+		}
+
+		public void disassociate(Object element, Widget item) {
+			map.remove(element, item);
+		}
+	}
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_ROUNDS;
+		Fixture.setUp();
+		try {
+			Shell shell = new Shell(new Display());
+			Widget[] items = new Widget[ITEM_COUNT];
+			for (int i = 0; i < items.length; i++) {
+				items[i] = new Label(shell, 0);
+			}
+			// warm up
+			run(items, SIZES[0], rounds, false, false);
+			for (int i = 0; i < SIZES.length; i++) {
+				run(items, SIZES[i], rounds, false, true);
+			}
+			for (int i = 0; i < SIZES.length; i++) {
+				run(items, SIZES[i], rounds, true, true);
+			}
+		} finally {
+			Fixture.tearDown();
+		}
+	}
+
+	private static void run(Widget[] items, int size, int rounds,
+			boolean sequential, boolean report) {
+		Object[] elements = new Object[size];
+		Object[] lookups = new Object[size];
+		Widget[] lookupItems = new Widget[size];
+		for (int i = 0; i < size; i++) {
+			elements[i] = sequential ? new Element(i) : new Object();
+			// look up equal instances, as when updating elements that are
+			// reported by the model
+			lookups[i] = sequential ? new Element(i) : elements[i];
+			lookupItems[i] = items[i % items.length];
+		}
+		Random random = new Random(size);
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Object lookup = lookups[i];
+			lookups[i] = lookups[j];
+			lookups[j] = lookup;
+			Widget item = lookupItems[i];
+			lookupItems[i] = lookupItems[j];
+			lookupItems[j] = item;
+		}
+		String[] names = { "CustomHashtable", "ElementMap" }; //$NON-NLS-1$ //$NON-NLS-2$
+		for (int type = 0; type < names.length; type++) {
+			long associate = Long.MAX_VALUE;
+			long find = Long.MAX_VALUE;
+			long disassociate = Long.MAX_VALUE;
+			long footprint = 0;
+			for (int round = 0; round < rounds; round++) {
+				long heap = usedHeap();
+				Map map = type == 0 ? (Map) new CustomHashtableMap()
+						: new ElementMapMap();
+				long start = System.nanoTime();
+				for (int i = 0; i < size; i++) {
+					map.associate(elements[i], items[i % items.length]);
+				}
+				associate = Math.min(associate, System.nanoTime() - start);
+				footprint = usedHeap() - heap;
+				start = System.nanoTime();
+				int found = 0;
+				for (int i = 0; i < size; i++) {
+					if (map.findItem(lookups[i]) != null) {
+						found++;
+					}
+				}
+				find = Math.min(find, System.nanoTime() - start);
+				start = System.nanoTime();
+				for (int i = 0; i < size; i++) {
+					map.disassociate(lookups[i], lookupItems[i]);
+				}
+				disassociate = Math.min(disassociate, System.nanoTime() - start);
+				if (found != size) {
+					throw new IllegalStateException(names[type]);
+				}
+			}
+			if (report) {
+				System.out.println(names[type] + " " + size //$NON-NLS-1$
+						+ (sequential ? " sequential" : " identity") //$NON-NLS-1$ //$NON-NLS-2$
+						+ " elements: associate " + associate / size //$NON-NLS-1$
+						+ " ns, findItem " + find / size //$NON-NLS-1$
+						+ " ns, disassociate " + disassociate / size //$NON-NLS-1$
+						+ " ns, " + footprint / size + " bytes per element"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
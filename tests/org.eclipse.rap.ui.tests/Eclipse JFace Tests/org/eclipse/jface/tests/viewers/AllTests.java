@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,6 +34,7 @@ public class AllTests extends TestSuite {
 		addTestSuite(SimpleVirtualLazyTreeViewerTest.class);
 		addTestSuite(VirtualLazyTreeViewerTest.class);
 		addTestSuite(TableViewerTest.class);
+		addTestSuite(IncrementalRefreshTableViewerTest.class);
 		addTestSuite(TreeViewerColumnTest.class);
 		addTestSuite(VirtualTableViewerTest.class);
 		addTestSuite(VirtualLazyTableViewerTest.class);
@@ -50,6 +51,7 @@ public class AllTests extends TestSuite {
 		addTestSuite(TreeViewerComparatorTest.class);
 		addTestSuite(ListViewerComparatorTest.class);
 		addTestSuite(TableViewerComparatorTest.class);
+		addTestSuite(ParallelSortingTableViewerTest.class);
 //		addTestSuite(Bug138608Test.class);
 		addTestSuite(ComboViewerComparerTest.class);
 		addTestSuite(ListViewerRefreshTest.class);
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     EclipseSource - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Tests the incremental refresh of a table viewer.
+ */
+public class IncrementalRefreshTableViewerTest extends ViewerTestCase {
+
+	private List elements;
+
+	/**
+	 * @param name
+	 */
+	public IncrementalRefreshTableViewerTest(String name) {
+		super(name);
+	}
+
+	protected void setUpModel() {
+		elements = new ArrayList();
+		for (int i = 0; i < 100; i++) {
+			elements.add("Element " + i);
+		}
+	}
+
+	protected StructuredViewer createViewer(Composite parent) {
+		TableViewer viewer = new TableViewer(parent);
+		viewer.setContentProvider(new ArrayContentProvider());
+		viewer.setLabelProvider(new LabelProvider());
+		viewer.setUseIncrementalRefresh(true);
+		return viewer;
+	}
+
+	protected void setInput() {
+		fViewer.setInput(elements);
+	}
+
+	public void testInsertKeepsItems() {
+		TableItem[] items = getTable().getItems();
+
+		elements.add(0, "Added");
+		fViewer.refresh();
+
+		assertItems();
+		for (int i = 0; i < items.length; i++) {
+			assertSame(items[i], getTable().getItem(i + 1));
+		}
+	}
+
+	public void testRemoveKeepsItems() {
+		TableItem[] items = getTable().getItems();
+
+		elements.remove(1);
+		fViewer.refresh();
+
+		assertItems();
+		assertTrue(items[1].isDisposed());
+		assertSame(items[0], getTable().getItem(0));
+		for (int i = 2; i < items.length; i++) {
+			assertSame(items[i], getTable().getItem(i - 1));
+		}
+	}
+
+	public void testMoveKeepsOtherItems() {
+		TableItem[] items = getTable().getItems();
+
+		elements.add(elements.remove(0));
+		fViewer.refresh();
+
+		assertItems();
+		assertTrue(items[0].isDisposed());
+		for (int i = 1; i < items.length; i++) {
+			assertSame(items[i], getTable().getItem(i - 1));
+		}
+	}
+
+	public void testReverseOrder() {
+		Collections.reverse(elements);
+		fViewer.refresh();
+
+		assertItems();
+	}
+
+	public void testRemoveAll() {
+		elements.clear();
+		fViewer.refresh();
+
+		assertEquals(0, getTable().getItemCount());
+	}
+
+	public void testInsertPreservesSelection() {
+		Object selected = elements.get(10);
+		fViewer.setSelection(new StructuredSelection(selected));
+
+		elements.add(0, "Added");
+		fViewer.refresh();
+
+		assertItems();
+		assertEquals(new StructuredSelection(selected), fViewer.getSelection());
+	}
+
+	public void testInsertFindsItems() {
+		elements.add(50, "Added");
+		fViewer.refresh();
+
+		assertSame(getTable().getItem(50), fViewer.testFindItem("Added"));
+		assertSame(getTable().getItem(51), fViewer.testFindItem("Element 50"));
+	}
+
+	private void assertItems() {
+		Table table = getTable();
+		assertEquals(elements.size(), table.getItemCount());
+		for (int i = 0; i < elements.size(); i++) {
+			assertEquals(elements.get(i), table.getItem(i).getData());
+			assertEquals(elements.get(i), table.getItem(i).getText());
+		}
+	}
+
+	private Table getTable() {
+		return ((TableViewer) fViewer).getTable();
+	}
+
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2017 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     EclipseSource - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipse.jface.viewers.ViewerSorter;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Table;
+
+/**
+ * Tests that a table viewer with parallel sorting shows the elements in the
+ * same order as with sequential sorting. Uses enough elements for the parallel
+ * implementation to be used.
+ */
+public class ParallelSortingTableViewerTest extends ViewerTestCase {
+
+	private static final int ELEMENT_COUNT = 10000;
+
+	private Element[] elements;
+
+	/**
+	 * @param name
+	 */
+	public ParallelSortingTableViewerTest(String name) {
+		super(name);
+	}
+
+	protected void setUpModel() {
+		Random random = new Random(1);
+		elements = new Element[ELEMENT_COUNT];
+		for (int i = 0; i < elements.length; i++) {
+			// names are not unique, equal names keep their original order
+			elements[i] = new Element("Element " + random.nextInt(ELEMENT_COUNT / 2), i);
+		}
+	}
+
+	protected StructuredViewer createViewer(Composite parent) {
+		TableViewer viewer = new TableViewer(parent);
+		viewer.setContentProvider(new ArrayContentProvider());
+		viewer.setLabelProvider(new LabelProvider());
+		viewer.setUseParallelSorting(true);
+		return viewer;
+	}
+
+	protected void setInput() {
+		fViewer.setInput(elements);
+	}
+
+	public void testViewerComparator() {
+		ViewerComparator comparator = new ViewerComparator();
+		fViewer.setComparator(comparator);
+		assertSortedResult(comparator, elements);
+	}
+
+	public void testViewerSorter() {
+		ViewerSorter sorter = new ViewerSorter();
+		fViewer.setSorter(sorter);
+		assertSortedResult(sorter, elements);
+	}
+
+	public void testViewerComparatorWithCategories() {
+		ViewerComparator comparator = new ViewerComparator() {
+			public int category(Object element) {
+				return ((Element) element).id % 3;
+			}
+		};
+		fViewer.setComparator(comparator);
+		assertSortedResult(comparator, elements);
+	}
+
+	public void testViewerComparatorAfterChange() {
+		ViewerComparator comparator = new ViewerComparator();
+		fViewer.setComparator(comparator);
+		elements[0].name = "Changed";
+		elements[ELEMENT_COUNT / 2] = new Element("Added", ELEMENT_COUNT);
+		fViewer.refresh();
+		assertSortedResult(comparator, elements);
+	}
+
+	public void testFilter() {
+		ViewerFilter filter = new ViewerFilter() {
+			public boolean select(Viewer viewer, Object parentElement, Object element) {
+				return ((Element) element).id % 2 == 0;
+			}
+		};
+		fViewer.addFilter(filter);
+		Table table = getTableViewer().getTable();
+		assertEquals(ELEMENT_COUNT / 2, table.getItemCount());
+		for (int i = 0; i < table.getItemCount(); i++) {
+			assertSame(elements[i * 2], table.getItem(i).getData());
+		}
+	}
+
+	public void testFilterAndViewerComparator() {
+		ViewerComparator comparator = new ViewerComparator();
+		fViewer.setComparator(comparator);
+		fViewer.addFilter(new ViewerFilter() {
+			public boolean select(Viewer viewer, Object parentElement, Object element) {
+				return ((Element) element).id % 2 == 0;
+			}
+		});
+		ArrayList expected = new ArrayList();
+		for (int i = 0; i < elements.length; i += 2) {
+			expected.add(elements[i]);
+		}
+		assertSortedResult(comparator, expected.toArray());
+	}
+
+	private void assertSortedResult(ViewerComparator comparator, Object[] expected) {
+		Object[] sorted = (Object[]) expected.clone();
+		comparator.sort(fViewer, sorted);
+		Table table = getTableViewer().getTable();
+		assertEquals(sorted.length, table.getItemCount());
+		for (int i = 0; i < sorted.length; i++) {
+			assertSame("Item " + i + " not expected.", sorted[i], table.getItem(i).getData());
+		}
+	}
+
+	private TableViewer getTableViewer() {
+		return (TableViewer) fViewer;
+	}
+
+	private static class Element {
+
+		String name;
+		final int id;
+
+		Element(String name, int id) {
+			this.name = name;
+			this.id = id;
+		}
+
+		public String toString() {
+			return name;
+		}
+
+	}
+
+}